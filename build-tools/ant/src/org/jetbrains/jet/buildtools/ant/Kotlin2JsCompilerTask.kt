@@ -39,6 +39,7 @@ public class Kotlin2JsCompilerTask : Task() {
     public var outputPrefix: File? = null
     public var outputPostfix: File? = null
     public var sourcemap: Boolean = false
+    public var metaInfo: Boolean = false
 
     /**
      * {@link K2JsArgumentConstants.CALL} (default) if need generate a main function call (main function will be auto detected)
@@ -86,6 +87,7 @@ public class Kotlin2JsCompilerTask : Task() {
 
         arguments.main = main
         arguments.sourcemap = sourcemap
+        arguments.metaInfo = metaInfo
 
         log("Compiling [${arguments.sourceFiles?.makeString(",")}] => [${arguments.outputFile}]");
 
@@ -34,8 +34,8 @@ public class ClassBuilderFactories {
         }
 
         @Override
-        public ClassBuilder newClassBuilder() {
-            return new TraceBuilder(new BinaryClassWriter());
+        public ClassBuilder newClassBuilder(@NotNull CommonSuperClassFinder commonSuperClassFinder) {
+            return new TraceBuilder(new BinaryClassWriter(commonSuperClassFinder));
         }
 
         @Override
@@ -62,8 +62,8 @@ public class ClassBuilderFactories {
         }
 
         @Override
-        public ClassBuilder newClassBuilder() {
-            return new AbstractClassBuilder.Concrete(new BinaryClassWriter());
+        public ClassBuilder newClassBuilder(@NotNull CommonSuperClassFinder commonSuperClassFinder) {
+            return new AbstractClassBuilder.Concrete(new BinaryClassWriter(commonSuperClassFinder));
         }
 
         @Override
@@ -82,12 +82,26 @@ public class ClassBuilderFactories {
     }
 
     private static class BinaryClassWriter extends ClassWriter {
-        public BinaryClassWriter() {
+        private final CommonSuperClassFinder commonSuperClassFinder;
+
+        public BinaryClassWriter(@NotNull CommonSuperClassFinder commonSuperClassFinder) {
             super(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+            this.commonSuperClassFinder = commonSuperClassFinder;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            commonSuperClassFinder.classDefined(access, name, superName, interfaces);
+            super.visit(version, access, name, signature, superName, interfaces);
         }
 
         @Override
         protected String getCommonSuperClass(String type1, String type2) {
+            String commonSuperClass = commonSuperClassFinder.findCommonSuperClass(type1, type2);
+            if (commonSuperClass != null) {
+                return commonSuperClass;
+            }
+
             try {
                 return super.getCommonSuperClass(type1, type2);
             }
@@ -32,6 +32,7 @@ import org.jetbrains.jet.codegen.state.GenerationStateAware;
 import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.utils.CompilationMetrics;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -46,8 +47,14 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
 
     private final Map<FqName, PackageCodegen> package2codegen = new HashMap<FqName, PackageCodegen>();
     private final Map<String, ClassBuilderAndSourceFileList> generators = new LinkedHashMap<String, ClassBuilderAndSourceFileList>();
+    private final ThreadLocal<GenerationUnit> currentUnit = new ThreadLocal<GenerationUnit>();
     private boolean isDone = false;
 
+    @Nullable private StreamingOutput streamingOutput;
+    // Package facade classes are finished only in done(), so they are never streamed
+    private final Set<String> packageFacadePaths = new HashSet<String>();
+    private final Set<String> streamedPaths = new HashSet<String>();
+
     public ClassFileFactory(@NotNull GenerationState state) {
         super(state);
     }
@@ -57,6 +64,23 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         this.builderFactory = builderFactory;
     }
 
+    /**
+     * Enables the streaming output mode: the classes of each generation unit are written to the given output and released
+     * as soon as the unit is committed, instead of being kept until the end of the compilation.
+     * Only package facade classes, which are finished in {@link #done()}, are still returned by {@link #asList()}.
+     *
+     * Inlining may remove classes of the unit being generated, these are never written. Classes which have already been written
+     * can't be read by the inliner through {@link #get(String)} anymore, and can't be removed from the output.
+     */
+    public void setStreamingOutput(@Nullable StreamingOutput streamingOutput) {
+        assert generators.isEmpty() : "Streaming output should be set before the generation";
+        this.streamingOutput = streamingOutput;
+    }
+
+    public boolean isStreaming() {
+        return streamingOutput != null;
+    }
+
     @NotNull
     ClassBuilder newVisitor(@NotNull Type asmType, @NotNull PsiFile sourceFile) {
         return newVisitor(asmType, Collections.singletonList(sourceFile));
@@ -65,12 +89,65 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
     @NotNull
     private ClassBuilder newVisitor(@NotNull Type asmType, @NotNull Collection<? extends PsiFile> sourceFiles) {
         String outputFilePath = asmType.getInternalName() + ".class";
+        CompilationMetrics.count("classes", 1);
         state.getProgress().reportOutput(toIoFilesIgnoringNonPhysical(sourceFiles), new File(outputFilePath));
-        ClassBuilder answer = builderFactory.newClassBuilder();
-        generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, sourceFiles));
+        ClassBuilder answer = builderFactory.newClassBuilder(state.getCommonSuperClassFinder());
+        ClassBuilderAndSourceFileList generator = new ClassBuilderAndSourceFileList(answer, sourceFiles);
+
+        GenerationUnit unit = currentUnit.get();
+        if (unit != null) {
+            unit.generators.put(outputFilePath, generator);
+        }
+        else {
+            synchronized (generators) {
+                generators.put(outputFilePath, generator);
+            }
+        }
         return answer;
     }
 
+    /**
+     * Runs the given generation task so that all classes it creates or removes are recorded in a separate unit
+     * instead of this factory. The unit should then be passed to {@link #commitUnit(GenerationUnit)}.
+     * Units allow several tasks to run in parallel while the order of the output files stays the same as if they were run one by one.
+     */
+    @NotNull
+    GenerationUnit generateInUnit(@NotNull Runnable task) {
+        assert currentUnit.get() == null : "Generation units can't be nested";
+        GenerationUnit unit = new GenerationUnit();
+        currentUnit.set(unit);
+        try {
+            task.run();
+        }
+        finally {
+            currentUnit.remove();
+        }
+        return unit;
+    }
+
+    void commitUnit(@NotNull GenerationUnit unit) {
+        synchronized (generators) {
+            for (String removed : unit.removed) {
+                generators.remove(removed);
+            }
+            if (streamingOutput == null) {
+                generators.putAll(unit.generators);
+                return;
+            }
+
+            for (Map.Entry<String, ClassBuilderAndSourceFileList> entry : unit.generators.entrySet()) {
+                String path = entry.getKey();
+                if (packageFacadePaths.contains(path)) {
+                    generators.put(path, entry.getValue());
+                }
+                else {
+                    streamingOutput.write(new UnitOutputClassFile(path, entry.getValue()));
+                    streamedPaths.add(path);
+                }
+            }
+        }
+    }
+
     void done() {
         if (!isDone) {
             isDone = true;
@@ -95,7 +172,17 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
     @Override
     @Nullable
     public OutputFile get(@NotNull String relativePath) {
-        if (generators.containsKey(relativePath)) return new OutputClassFile(relativePath);
+        GenerationUnit unit = currentUnit.get();
+        if (unit != null) {
+            ClassBuilderAndSourceFileList generator = unit.generators.get(relativePath);
+            if (generator != null) return new UnitOutputClassFile(relativePath, generator);
+            if (unit.removed.contains(relativePath)) return null;
+        }
+
+        synchronized (generators) {
+            if (generators.containsKey(relativePath)) return new OutputClassFile(relativePath);
+            assert !streamedPaths.contains(relativePath) : "Class has already been written to the streaming output: " + relativePath;
+        }
 
         return null;
     }
@@ -115,11 +202,15 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         assert !isDone : "Already done!";
         PackageCodegen codegen = package2codegen.get(fqName);
         if (codegen == null) {
+            final Type packageClassType = asmTypeByFqNameWithoutInnerClasses(getPackageClassFqName(fqName));
+            synchronized (generators) {
+                packageFacadePaths.add(packageClassType.getInternalName() + ".class");
+            }
             ClassBuilderOnDemand onDemand = new ClassBuilderOnDemand() {
                 @NotNull
                 @Override
                 protected ClassBuilder createClassBuilder() {
-                    return newVisitor(asmTypeByFqNameWithoutInnerClasses(getPackageClassFqName(fqName)), files);
+                    return newVisitor(packageClassType, files);
                 }
             };
             codegen = new PackageCodegen(onDemand, fqName, state, files);
@@ -167,13 +258,25 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         return result;
     }
 
-    private final class OutputClassFile implements OutputFile {
+    private class OutputClassFile implements OutputFile {
         final String relativeClassFilePath;
 
         OutputClassFile(String relativeClassFilePath) {
             this.relativeClassFilePath = relativeClassFilePath;
         }
 
+        @NotNull
+        protected ClassBuilderAndSourceFileList getGenerator() {
+            ClassBuilderAndSourceFileList pair;
+            synchronized (generators) {
+                pair = generators.get(relativeClassFilePath);
+            }
+            if (pair == null) {
+                throw new IllegalStateException("No record for binary file " + relativeClassFilePath);
+            }
+            return pair;
+        }
+
         @NotNull
         @Override
         public String getRelativePath() {
@@ -183,10 +286,7 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         @NotNull
         @Override
         public List<File> getSourceFiles() {
-            ClassBuilderAndSourceFileList pair = generators.get(relativeClassFilePath);
-            if (pair == null) {
-                throw new IllegalStateException("No record for binary file " + relativeClassFilePath);
-            }
+            ClassBuilderAndSourceFileList pair = getGenerator();
 
             return ContainerUtil.mapNotNull(
                     pair.sourceFiles,
@@ -205,13 +305,13 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         @NotNull
         @Override
         public byte[] asByteArray() {
-            return builderFactory.asBytes(generators.get(relativeClassFilePath).classBuilder);
+            return builderFactory.asBytes(getGenerator().classBuilder);
         }
 
         @NotNull
         @Override
         public String asText() {
-            return builderFactory.asText(generators.get(relativeClassFilePath).classBuilder);
+            return builderFactory.asText(getGenerator().classBuilder);
         }
 
         @NotNull
@@ -221,6 +321,26 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
         }
     }
 
+    private final class UnitOutputClassFile extends OutputClassFile {
+        private final ClassBuilderAndSourceFileList generator;
+
+        UnitOutputClassFile(String relativeClassFilePath, ClassBuilderAndSourceFileList generator) {
+            super(relativeClassFilePath);
+            this.generator = generator;
+        }
+
+        @NotNull
+        @Override
+        protected ClassBuilderAndSourceFileList getGenerator() {
+            return generator;
+        }
+    }
+
+    static final class GenerationUnit {
+        private final Map<String, ClassBuilderAndSourceFileList> generators = new LinkedHashMap<String, ClassBuilderAndSourceFileList>();
+        private final Set<String> removed = new LinkedHashSet<String>();
+    }
+
     private static final class ClassBuilderAndSourceFileList {
         private final ClassBuilder classBuilder;
         private final Collection<? extends PsiFile> sourceFiles;
@@ -232,8 +352,18 @@ public final class ClassFileFactory extends GenerationStateAware implements Outp
     }
 
     public void removeInlinedClasses(Set<String> classNamesToRemove) {
+        GenerationUnit unit = currentUnit.get();
         for (String classInternalName : classNamesToRemove) {
-            generators.remove(classInternalName + ".class");
+            String outputFilePath = classInternalName + ".class";
+            if (unit != null) {
+                unit.generators.remove(outputFilePath);
+                unit.removed.add(outputFilePath);
+            }
+            else {
+                synchronized (generators) {
+                    generators.remove(outputFilePath);
+                }
+            }
         }
     }
 }
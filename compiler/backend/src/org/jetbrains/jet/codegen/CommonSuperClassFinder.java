@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Answers the queries ASM makes while computing stack map frames (see ClassWriter.getCommonSuperClass)
+ */
+public interface CommonSuperClassFinder {
+    /**
+     * Is called for every class generated in the current compilation, so its hierarchy is known exactly
+     */
+    void classDefined(int access, @NotNull String internalName, @Nullable String superName, @Nullable String[] interfaces);
+
+    /**
+     * @return the internal name of the common super class, or null if it's unknown and the default ASM behavior should be used
+     */
+    @Nullable
+    String findCommonSuperClass(@NotNull String type1, @NotNull String type2);
+
+    CommonSuperClassFinder NONE = new CommonSuperClassFinder() {
+        @Override
+        public void classDefined(int access, @NotNull String internalName, @Nullable String superName, @Nullable String[] interfaces) {
+        }
+
+        @Nullable
+        @Override
+        public String findCommonSuperClass(@NotNull String type1, @NotNull String type2) {
+            return null;
+        }
+    };
+}
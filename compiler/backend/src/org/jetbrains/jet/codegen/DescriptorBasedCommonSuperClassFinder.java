@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.codegen.state.JetTypeMapper;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ClassKind;
+import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
+import org.jetbrains.jet.lang.psi.JetClassOrObject;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContextUtils;
+import org.jetbrains.jet.lang.resolve.java.JvmAbi;
+import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileFinder;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.jetbrains.jet.codegen.AsmUtil.asmTypeByFqNameWithoutInnerClasses;
+import static org.jetbrains.jet.codegen.binding.CodegenBinding.CLASS_FOR_INTERNAL_NAME;
+import static org.jetbrains.jet.lang.resolve.java.PackageClassUtils.getPackageClassFqName;
+import static org.jetbrains.org.objectweb.asm.Opcodes.ACC_INTERFACE;
+
+/**
+ * Computes common super classes without loading any classes. The hierarchy of a class is taken, in this order:
+ * - from the class itself, if it's already generated in this compilation;
+ * - from its descriptor, if it's a class or an object declared in the sources being compiled;
+ * - from the header of its class file found on the class path.
+ * Super class chains are cached for the whole compilation. A class generated later in this compilation replaces whatever was
+ * known about it before. The class path is never consulted for classes this module generates (closures, package parts and
+ * classes nested in the module's classes): it may contain stale classes with the same names from a previous compilation,
+ * so such classes stay unknown until they are generated.
+ */
+public class DescriptorBasedCommonSuperClassFinder implements CommonSuperClassFinder {
+    private static final Logger LOG = Logger.getInstance(DescriptorBasedCommonSuperClassFinder.class);
+
+    private static final String OBJECT = "java/lang/Object";
+
+    private static final ClassInfo UNKNOWN = new ClassInfo(false, null, Collections.<String>emptyList(), false);
+
+    private final GenerationState state;
+
+    private final ConcurrentMap<String, ClassInfo> classes = new ConcurrentHashMap<String, ClassInfo>();
+
+    // class -> all its super classes and interfaces, including itself
+    private final ConcurrentMap<String, Set<String>> supertypes = new ConcurrentHashMap<String, Set<String>>();
+
+    // internal names of package facades and package parts of the files being compiled
+    private volatile Set<String> packageClasses = null;
+
+    public DescriptorBasedCommonSuperClassFinder(@NotNull GenerationState state) {
+        this.state = state;
+    }
+
+    @Override
+    public void classDefined(int access, @NotNull String internalName, @Nullable String superName, @Nullable String[] interfaces) {
+        List<String> interfaceList = interfaces == null ? Collections.<String>emptyList() : Arrays.asList(interfaces);
+        ClassInfo info = new ClassInfo((access & ACC_INTERFACE) != 0, superName, interfaceList, true);
+        ClassInfo previous = classes.put(internalName, info);
+        if (previous != null && !previous.isGenerated && !previous.hasSameHierarchy(info)) {
+            // Super class chains computed before may include the outdated hierarchy
+            supertypes.clear();
+        }
+    }
+
+    @Nullable
+    @Override
+    public String findCommonSuperClass(@NotNull String type1, @NotNull String type2) {
+        Set<String> supertypes1 = getAllSupertypes(type1);
+        if (supertypes1 == null) return null;
+        if (supertypes1.contains(type2)) return type2;
+
+        Set<String> supertypes2 = getAllSupertypes(type2);
+        if (supertypes2 == null) return null;
+        if (supertypes2.contains(type1)) return type1;
+
+        ClassInfo info1 = getClassInfo(type1);
+        ClassInfo info2 = getClassInfo(type2);
+        assert info1 != null && info2 != null : "Supertypes are known, so the classes should be known as well: " + type1 + ", " + type2;
+        if (info1.isInterface || info2.isInterface) return OBJECT;
+
+        String current = info1.superName;
+        while (current != null) {
+            if (supertypes2.contains(current)) return current;
+            ClassInfo info = getClassInfo(current);
+            assert info != null : "Supertypes of " + type1 + " are known, so " + current + " should be known as well";
+            current = info.superName;
+        }
+        return OBJECT;
+    }
+
+    @Nullable
+    private Set<String> getAllSupertypes(@NotNull String internalName) {
+        Set<String> result = supertypes.get(internalName);
+        if (result != null) return result;
+
+        ClassInfo info = getClassInfo(internalName);
+        if (info == null) return null;
+
+        result = new HashSet<String>();
+        result.add(internalName);
+        if (info.superName != null) {
+            Set<String> superClassSupertypes = getAllSupertypes(info.superName);
+            if (superClassSupertypes == null) return null;
+            result.addAll(superClassSupertypes);
+        }
+        for (String superInterface : info.interfaces) {
+            Set<String> superInterfaceSupertypes = getAllSupertypes(superInterface);
+            if (superInterfaceSupertypes == null) return null;
+            result.addAll(superInterfaceSupertypes);
+        }
+
+        supertypes.putIfAbsent(internalName, result);
+        return result;
+    }
+
+    @Nullable
+    private ClassInfo getClassInfo(@NotNull String internalName) {
+        ClassInfo info = classes.get(internalName);
+        if (info != null) return info == UNKNOWN ? null : info;
+
+        ClassDescriptor descriptor = state.getBindingContext().get(CLASS_FOR_INTERNAL_NAME, internalName);
+        if (descriptor != null || isGeneratedInThisModule(internalName)) {
+            info = descriptor != null ? computeFromDescriptor(descriptor) : null;
+            // Not generated yet: nothing is remembered, the class will be defined later
+            if (info == null) return null;
+        }
+        else {
+            info = readFromClassPath(internalName);
+        }
+
+        ClassInfo existing = classes.putIfAbsent(internalName, info != null ? info : UNKNOWN);
+        if (existing != null) {
+            info = existing;
+        }
+        return info == UNKNOWN ? null : info;
+    }
+
+    private boolean isGeneratedInThisModule(@NotNull String internalName) {
+        int dollar = internalName.indexOf('$');
+        String outermostName = dollar < 0 ? internalName : internalName.substring(0, dollar);
+        return getPackageClasses().contains(outermostName) ||
+               (dollar >= 0 && state.getBindingContext().get(CLASS_FOR_INTERNAL_NAME, outermostName) != null);
+    }
+
+    @NotNull
+    private Set<String> getPackageClasses() {
+        Set<String> result = packageClasses;
+        if (result == null) {
+            result = new HashSet<String>();
+            for (JetFile file : state.getFiles()) {
+                result.add(asmTypeByFqNameWithoutInnerClasses(getPackageClassFqName(file.getPackageFqName())).getInternalName());
+                result.add(PackageCodegen.getPackagePartInternalName(file));
+            }
+            packageClasses = result;
+        }
+        return result;
+    }
+
+    @Nullable
+    private ClassInfo computeFromDescriptor(@NotNull ClassDescriptor descriptor) {
+        // Classes for closures and other synthetic classes have supertypes which differ from what their descriptors say
+        PsiElement declaration = BindingContextUtils.descriptorToDeclaration(state.getBindingContext(), descriptor);
+        if (!(declaration instanceof JetClassOrObject)) return null;
+
+        JetTypeMapper typeMapper = state.getTypeMapper();
+        boolean isInterface = CodegenUtil.isInterface(descriptor);
+
+        String superName = OBJECT;
+        List<String> interfaces = new ArrayList<String>();
+        interfaces.add(asmTypeByFqNameWithoutInnerClasses(JvmAbi.K_OBJECT).getInternalName());
+
+        for (JetType supertype : descriptor.getTypeConstructor().getSupertypes()) {
+            ClassifierDescriptor superClassifier = supertype.getConstructor().getDeclarationDescriptor();
+            if (!(superClassifier instanceof ClassDescriptor)) return null;
+
+            ClassDescriptor superClass = (ClassDescriptor) superClassifier;
+            if (CodegenUtil.isInterface(superClass)) {
+                interfaces.add(typeMapper.mapClass(superClass).getInternalName());
+            }
+            else if (!isInterface) {
+                superName = typeMapper.mapClass(superClass).getInternalName();
+            }
+        }
+
+        if (descriptor.getKind() == ClassKind.ENUM_CLASS) {
+            superName = "java/lang/Enum";
+        }
+
+        return new ClassInfo(isInterface, superName, interfaces, false);
+    }
+
+    @Nullable
+    private ClassInfo readFromClassPath(@NotNull String internalName) {
+        VirtualFile file = VirtualFileFinder.SERVICE.getInstance(state.getProject()).findVirtualFile(internalName);
+        if (file == null) return null;
+
+        try {
+            ClassReader reader = new ClassReader(file.contentsToByteArray());
+            boolean isInterface = (reader.getAccess() & ACC_INTERFACE) != 0;
+            return new ClassInfo(isInterface, reader.getSuperName(), Arrays.asList(reader.getInterfaces()), false);
+        }
+        catch (IOException e) {
+            LOG.warn("Couldn't read class file for " + internalName + ": " + file, e);
+            return null;
+        }
+        catch (ProcessCanceledException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            // ClassReader fails with unchecked exceptions on a malformed class file
+            LOG.warn("Couldn't read class file for " + internalName + ": " + file, e);
+            return null;
+        }
+    }
+
+    private static final class ClassInfo {
+        private final boolean isInterface;
+        private final String superName;
+        private final List<String> interfaces;
+        // true if the class was generated in this compilation, so its hierarchy is exact
+        private final boolean isGenerated;
+
+        private ClassInfo(boolean isInterface, @Nullable String superName, @NotNull List<String> interfaces, boolean isGenerated) {
+            this.isInterface = isInterface;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.isGenerated = isGenerated;
+        }
+
+        private boolean hasSameHierarchy(@NotNull ClassInfo other) {
+            return isInterface == other.isInterface &&
+                   (superName == null ? other.superName == null : superName.equals(other.superName)) &&
+                   new HashSet<String>(interfaces).equals(new HashSet<String>(other.interfaces));
+        }
+    }
+}
@@ -131,7 +131,7 @@ public class FunctionTypesUtil {
             }
         }
 
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 classDescriptor.getDefaultType().getAnnotations(),
                 classDescriptor.getTypeConstructor(),
                 false,
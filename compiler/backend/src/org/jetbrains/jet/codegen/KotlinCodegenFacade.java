@@ -24,16 +24,20 @@ import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.psi.JetScript;
 import org.jetbrains.jet.lang.resolve.ScriptNameUtil;
 import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.utils.UtilsPackage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 
 import static org.jetbrains.jet.codegen.binding.CodegenBinding.registerClassNameForScript;
 
 public class KotlinCodegenFacade {
     public static void compileCorrectFiles(
             @NotNull GenerationState state,
-            @NotNull CompilationErrorHandler errorHandler
+            @NotNull final CompilationErrorHandler errorHandler
     ) {
         for (JetFile file : state.getFiles()) {
             if (file.isScript()) {
@@ -55,13 +59,83 @@ public class KotlinCodegenFacade {
             packageFqNameToFiles.putValue(file.getPackageFqName(), file);
         }
 
-        for (Map.Entry<FqName, Collection<JetFile>> entry : packageFqNameToFiles.entrySet()) {
-            generatePackage(state, entry.getKey(), entry.getValue(), errorHandler);
+        if (state.getCodegenThreads() > 1 && packageFqNameToFiles.size() > 1) {
+            generatePackagesInParallel(state, packageFqNameToFiles, errorHandler);
+        }
+        else if (state.getFactory().isStreaming()) {
+            // Each package is a separate unit, so that its classes are written out as soon as it's generated
+            ClassFileFactory factory = state.getFactory();
+            for (Map.Entry<FqName, Collection<JetFile>> entry : packageFqNameToFiles.entrySet()) {
+                final PackageCodegen codegen = factory.forPackage(entry.getKey(), entry.getValue());
+                factory.commitUnit(factory.generateInUnit(new Runnable() {
+                    @Override
+                    public void run() {
+                        codegen.generate(errorHandler);
+                    }
+                }));
+            }
+        }
+        else {
+            for (Map.Entry<FqName, Collection<JetFile>> entry : packageFqNameToFiles.entrySet()) {
+                generatePackage(state, entry.getKey(), entry.getValue(), errorHandler);
+            }
         }
 
         state.getFactory().done();
     }
 
+    private static void generatePackagesInParallel(
+            @NotNull GenerationState state,
+            @NotNull MultiMap<FqName, JetFile> packageFqNameToFiles,
+            @NotNull final CompilationErrorHandler errorHandler
+    ) {
+        final ClassFileFactory factory = state.getFactory();
+        int threads = Math.min(state.getCodegenThreads(), packageFqNameToFiles.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Kotlin codegen " + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            List<Future<ClassFileFactory.GenerationUnit>> units = new ArrayList<Future<ClassFileFactory.GenerationUnit>>();
+            for (Map.Entry<FqName, Collection<JetFile>> entry : packageFqNameToFiles.entrySet()) {
+                final PackageCodegen codegen = factory.forPackage(entry.getKey(), entry.getValue());
+                units.add(executor.submit(new Callable<ClassFileFactory.GenerationUnit>() {
+                    @Override
+                    public ClassFileFactory.GenerationUnit call() {
+                        return factory.generateInUnit(new Runnable() {
+                            @Override
+                            public void run() {
+                                codegen.generate(errorHandler);
+                            }
+                        });
+                    }
+                }));
+            }
+
+            // Units are committed in the order of packages, so the output is the same as in the serial mode
+            for (Future<ClassFileFactory.GenerationUnit> unit : units) {
+                factory.commitUnit(unit.get());
+            }
+        }
+        catch (ExecutionException e) {
+            throw UtilsPackage.rethrow(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UtilsPackage.rethrow(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     public static void generatePackage(
             @NotNull GenerationState state,
             @NotNull FqName fqName,
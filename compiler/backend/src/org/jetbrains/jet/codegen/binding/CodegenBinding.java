@@ -51,6 +51,8 @@ public class CodegenBinding {
 
     public static final WritableSlice<ClassDescriptor, Type> ASM_TYPE = Slices.createSimpleSlice();
 
+    public static final WritableSlice<String, ClassDescriptor> CLASS_FOR_INTERNAL_NAME = Slices.createSimpleSlice();
+
     public static final WritableSlice<ClassDescriptor, Boolean> ENUM_ENTRY_CLASS_NEED_SUBCLASS = Slices.createSimpleSetSlice();
 
     public static final WritableSlice<ClassDescriptor, Collection<ClassDescriptor>> INNER_CLASSES = Slices.createSimpleSlice();
@@ -194,6 +196,7 @@ public class CodegenBinding {
 
         assert PsiCodegenPredictor.checkPredictedNameFromPsi(bindingTrace, classDescriptor, asmType);
         bindingTrace.record(ASM_TYPE, classDescriptor, asmType);
+        bindingTrace.record(CLASS_FOR_INTERNAL_NAME, asmType.getInternalName(), classDescriptor);
         bindingTrace.record(CLOSURE, classDescriptor, closure);
 
         if (classDescriptor.isInner()) {
@@ -294,6 +297,7 @@ public class CodegenBinding {
 
         assert PsiCodegenPredictor.checkPredictedNameFromPsi(bindingTrace, klass, asmType);
         bindingTrace.record(ASM_TYPE, klass, asmType);
+        bindingTrace.record(CLASS_FOR_INTERNAL_NAME, asmType.getInternalName(), klass);
         return asmType;
     }
 
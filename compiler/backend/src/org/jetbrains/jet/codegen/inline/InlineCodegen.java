@@ -41,6 +41,7 @@ import org.jetbrains.jet.lang.resolve.java.AsmTypeConstants;
 import org.jetbrains.jet.lang.types.lang.InlineStrategy;
 import org.jetbrains.jet.lang.types.lang.InlineUtil;
 import org.jetbrains.jet.renderer.DescriptorRenderer;
+import org.jetbrains.jet.utils.CompilationMetrics;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Opcodes;
 import org.jetbrains.org.objectweb.asm.Type;
@@ -124,6 +125,8 @@ public class InlineCodegen implements ParentCodegenAware, CallGenerator {
 
         MethodNode node = null;
 
+        CompilationMetrics.count("inlinedCalls", 1);
+        CompilationMetrics.Phase phase = CompilationMetrics.phase("codegen.inline");
         try {
             node = createMethodNode(callableMethod);
             endCall(inlineCall(node));
@@ -140,6 +143,9 @@ public class InlineCodegen implements ParentCodegenAware, CallGenerator {
                                        (generateNodeText ? ("\ncause: " + getNodeText(node)) : ""),
                                        e, call.getCallElement());
         }
+        finally {
+            phase.end();
+        }
 
 
     }
@@ -152,7 +158,7 @@ public class InlineCodegen implements ParentCodegenAware, CallGenerator {
 
     @NotNull
     private MethodNode createMethodNode(CallableMethod callableMethod)
-            throws ClassNotFoundException, IOException {
+            throws IOException {
         MethodNode node;
         if (functionDescriptor instanceof DeserializedSimpleFunctionDescriptor) {
             VirtualFile file = InlineCodegenUtil.getVirtualFileForCallable((DeserializedSimpleFunctionDescriptor) functionDescriptor, state);
@@ -161,7 +167,7 @@ public class InlineCodegen implements ParentCodegenAware, CallGenerator {
             if (DescriptorUtils.isTrait(parentDescriptor)) {
                 methodDesc = "(" + typeMapper.mapType((ClassDescriptor) parentDescriptor).getDescriptor() + methodDesc.substring(1);
             }
-            node = InlineCodegenUtil.getMethodNode(file.getInputStream(), functionDescriptor.getName().asString(), methodDesc);
+            node = state.getInlineMethodNodeCache().getMethodNode(file, functionDescriptor.getName().asString(), methodDesc);
 
             if (node == null) {
                 throw new RuntimeException("Couldn't obtain compiled function body for " + descriptorName(functionDescriptor));
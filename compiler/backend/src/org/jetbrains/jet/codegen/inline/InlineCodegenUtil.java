@@ -44,8 +44,6 @@ import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileFinder;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
 
 import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getFqName;
@@ -59,11 +57,10 @@ public class InlineCodegenUtil {
 
     @Nullable
     public static MethodNode getMethodNode(
-            InputStream classData,
+            ClassReader cr,
             final String methodName,
             final String methodDescriptor
-    ) throws ClassNotFoundException, IOException {
-        ClassReader cr = new ClassReader(classData);
+    ) {
         final MethodNode[] methodNode = new MethodNode[1];
         cr.accept(new ClassVisitor(API) {
 
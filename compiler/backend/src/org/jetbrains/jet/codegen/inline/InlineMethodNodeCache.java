@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.inline;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.org.objectweb.asm.ClassReader;
+import org.jetbrains.org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bodies of compiled inline functions, read once per compilation.
+ *
+ * Inlining transforms the node it is given, so each call site gets its own copy of the cached node.
+ */
+public class InlineMethodNodeCache {
+    private final ConcurrentMap<VirtualFile, ClassReader> classReaders = new ConcurrentHashMap<VirtualFile, ClassReader>();
+    private final ConcurrentMap<MethodId, MethodNode> methodNodes = new ConcurrentHashMap<MethodId, MethodNode>();
+
+    @Nullable
+    public MethodNode getMethodNode(@NotNull VirtualFile file, @NotNull String name, @NotNull String desc) throws IOException {
+        MethodId id = new MethodId(file, name, desc);
+        MethodNode node = methodNodes.get(id);
+        if (node == null) {
+            node = InlineCodegenUtil.getMethodNode(getClassReader(file), name, desc);
+            if (node == null) return null;
+
+            MethodNode existing = methodNodes.putIfAbsent(id, node);
+            if (existing != null) {
+                node = existing;
+            }
+        }
+        return copy(node);
+    }
+
+    @NotNull
+    private ClassReader getClassReader(@NotNull VirtualFile file) throws IOException {
+        ClassReader reader = classReaders.get(file);
+        if (reader == null) {
+            // ClassReader only reads the array it's given, so it's shared by all the lookups of methods in this class
+            reader = new ClassReader(file.contentsToByteArray());
+            ClassReader existing = classReaders.putIfAbsent(file, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    @NotNull
+    private static MethodNode copy(@NotNull MethodNode node) {
+        String[] exceptions = node.exceptions.toArray(new String[node.exceptions.size()]);
+        MethodNode result = new MethodNode(InlineCodegenUtil.API, node.access, node.name, node.desc, node.signature, exceptions);
+        // MethodNode.accept() resets the labels of the visited node
+        //noinspection SynchronizationOnLocalVariableOrMethodParameter
+        synchronized (node) {
+            node.accept(result);
+        }
+        return result;
+    }
+
+    private static final class MethodId {
+        private final VirtualFile file;
+        private final String name;
+        private final String desc;
+
+        private MethodId(@NotNull VirtualFile file, @NotNull String name, @NotNull String desc) {
+            this.file = file;
+            this.name = name;
+            this.desc = desc;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodId)) return false;
+
+            MethodId other = (MethodId) o;
+            return file.equals(other.file) && name.equals(other.name) && desc.equals(other.desc);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = file.hashCode();
+            result = 31 * result + name.hashCode();
+            result = 31 * result + desc.hashCode();
+            return result;
+        }
+    }
+}
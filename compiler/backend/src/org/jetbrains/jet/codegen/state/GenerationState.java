@@ -19,11 +19,10 @@ package org.jetbrains.jet.codegen.state;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.jet.codegen.ClassBuilderFactory;
-import org.jetbrains.jet.codegen.ClassBuilderMode;
-import org.jetbrains.jet.codegen.ClassFileFactory;
-import org.jetbrains.jet.codegen.SamWrapperClasses;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.jet.codegen.*;
 import org.jetbrains.jet.codegen.binding.CodegenBinding;
+import org.jetbrains.jet.codegen.inline.InlineMethodNodeCache;
 import org.jetbrains.jet.codegen.intrinsics.IntrinsicMethods;
 import org.jetbrains.jet.lang.descriptors.ScriptDescriptor;
 import org.jetbrains.jet.lang.psi.JetClassOrObject;
@@ -31,6 +30,7 @@ import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.DelegatingBindingTrace;
+import org.jetbrains.jet.lang.resolve.SynchronizedDelegatingBindingTrace;
 
 import java.util.List;
 
@@ -82,9 +82,15 @@ public class GenerationState {
     @NotNull
     private final BindingTrace bindingTrace;
 
+    @NotNull
+    private CommonSuperClassFinder commonSuperClassFinder = new DescriptorBasedCommonSuperClassFinder(this);
+
     @NotNull
     private final JetTypeMapper typeMapper;
 
+    @NotNull
+    private final InlineMethodNodeCache inlineMethodNodeCache = new InlineMethodNodeCache();
+
     private final boolean generateNotNullAssertions;
 
     private final boolean generateNotNullParamAssertions;
@@ -93,6 +99,8 @@ public class GenerationState {
 
     private final boolean inlineEnabled;
 
+    private final int codegenThreads;
+
     @Nullable
     private List<ScriptDescriptor> earlierScriptsForReplInterpreter;
 
@@ -117,13 +125,36 @@ public class GenerationState {
             GenerateClassFilter generateClassFilter,
             boolean inlineEnabled
     ) {
+        this(project, builderFactory, progress, bindingContext, files, generateNotNullAssertions, generateNotNullParamAssertions,
+             generateClassFilter, inlineEnabled, 1);
+    }
+
+    public GenerationState(
+            @NotNull Project project,
+            @NotNull ClassBuilderFactory builderFactory,
+            @NotNull Progress progress,
+            @NotNull BindingContext bindingContext,
+            @NotNull List<JetFile> files,
+            boolean generateNotNullAssertions,
+            boolean generateNotNullParamAssertions,
+            GenerateClassFilter generateClassFilter,
+            boolean inlineEnabled,
+            int codegenThreads
+    ) {
+        if (codegenThreads < 1) {
+            throw new IllegalArgumentException("Number of codegen threads should be positive: " + codegenThreads);
+        }
+
         this.project = project;
         this.progress = progress;
         this.files = files;
         this.classBuilderMode = builderFactory.getClassBuilderMode();
         this.inlineEnabled = inlineEnabled;
+        this.codegenThreads = codegenThreads;
 
-        bindingTrace = new DelegatingBindingTrace(bindingContext, "trace in GenerationState");
+        bindingTrace = codegenThreads > 1
+                       ? new SynchronizedDelegatingBindingTrace(bindingContext, "trace in GenerationState")
+                       : new DelegatingBindingTrace(bindingContext, "trace in GenerationState");
         this.bindingContext = bindingTrace.getBindingContext();
 
         this.typeMapper = new JetTypeMapper(bindingTrace, classBuilderMode);
@@ -172,6 +203,21 @@ public class GenerationState {
         return typeMapper;
     }
 
+    @NotNull
+    public CommonSuperClassFinder getCommonSuperClassFinder() {
+        return commonSuperClassFinder;
+    }
+
+    @TestOnly
+    public void setCommonSuperClassFinder(@NotNull CommonSuperClassFinder commonSuperClassFinder) {
+        this.commonSuperClassFinder = commonSuperClassFinder;
+    }
+
+    @NotNull
+    public InlineMethodNodeCache getInlineMethodNodeCache() {
+        return inlineMethodNodeCache;
+    }
+
     @NotNull
     public Project getProject() {
         return project;
@@ -203,6 +249,10 @@ public class GenerationState {
         return inlineEnabled;
     }
 
+    public int getCodegenThreads() {
+        return codegenThreads;
+    }
+
     public void beforeCompile() {
         markUsed();
 
@@ -16,6 +16,7 @@
 
 package org.jetbrains.jet.codegen.state;
 
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -49,7 +50,11 @@ import org.jetbrains.jet.lang.types.*;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.jetbrains.org.objectweb.asm.Opcodes.*;
 import static org.jetbrains.jet.codegen.AsmUtil.boxType;
@@ -64,9 +69,19 @@ public class JetTypeMapper extends BindingTraceAware {
 
     private final ClassBuilderMode classBuilderMode;
 
+    // The same types and functions are mapped for every call site, override, bridge etc.: the results which don't depend on the state
+    // of code generation are cached. The caches are concurrent, since classes may be generated in parallel
+    private final Map<JetTypeMapperMode, ConcurrentMap<JetType, Type>> typeCache =
+            new EnumMap<JetTypeMapperMode, ConcurrentMap<JetType, Type>>(JetTypeMapperMode.class);
+    private final ConcurrentMap<Pair<FunctionDescriptor, OwnerKind>, JvmMethodSignature> signatureCache =
+            new ConcurrentHashMap<Pair<FunctionDescriptor, OwnerKind>, JvmMethodSignature>();
+
     public JetTypeMapper(BindingTrace bindingTrace, ClassBuilderMode mode) {
         super(bindingTrace);
         classBuilderMode = mode;
+        for (JetTypeMapperMode typeMapperMode : JetTypeMapperMode.values()) {
+            typeCache.put(typeMapperMode, new ConcurrentHashMap<JetType, Type>());
+        }
     }
 
     private enum JetTypeMapperMode {
@@ -195,7 +210,19 @@ public class JetTypeMapper extends BindingTraceAware {
 
     @NotNull
     private Type mapType(@NotNull JetType jetType, @Nullable BothSignatureWriter signatureVisitor, @NotNull JetTypeMapperMode mode) {
-        return mapType(jetType, signatureVisitor, mode, Variance.INVARIANT, false);
+        if (signatureVisitor != null) {
+            return mapType(jetType, signatureVisitor, mode, Variance.INVARIANT, false);
+        }
+
+        // Without the signature the result only depends on the constructor, nullability and the type arguments of arrays,
+        // so types equal in the sense of JetType.equals() are mapped to the same ASM type
+        ConcurrentMap<JetType, Type> cache = typeCache.get(mode);
+        Type cached = cache.get(jetType);
+        if (cached != null) return cached;
+
+        Type asmType = mapType(jetType, null, mode, Variance.INVARIANT, false);
+        cache.put(jetType, asmType);
+        return asmType;
     }
 
     @NotNull
@@ -566,6 +593,22 @@ public class JetTypeMapper extends BindingTraceAware {
 
     @NotNull
     public JvmMethodSignature mapSignature(@NotNull FunctionDescriptor f, @NotNull OwnerKind kind) {
+        // Additional parameters of constructors depend on the closure of the class, which is computed during the generation of the class
+        if (f instanceof ConstructorDescriptor) {
+            return computeSignature(f, kind);
+        }
+
+        Pair<FunctionDescriptor, OwnerKind> key = Pair.create(f, kind);
+        JvmMethodSignature cached = signatureCache.get(key);
+        if (cached != null) return cached;
+
+        JvmMethodSignature signature = computeSignature(f, kind);
+        signatureCache.put(key, signature);
+        return signature;
+    }
+
+    @NotNull
+    private JvmMethodSignature computeSignature(@NotNull FunctionDescriptor f, @NotNull OwnerKind kind) {
         BothSignatureWriter sw = new BothSignatureWriter(BothSignatureWriter.Mode.METHOD);
 
         if (f instanceof ConstructorDescriptor) {
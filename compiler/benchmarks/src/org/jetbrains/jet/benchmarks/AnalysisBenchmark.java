@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.descriptors.serialization.descriptors.MemberFilter;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolve of the standard library sources: the whole analysis as it's done by the command line compiler (TopDownAnalyzer),
+ * also with function bodies resolved on all available processors (-resolveThreads), and the lazy resolve used in the IDE
+ * with all declarations forced.
+ *
+ * The files are parsed once per trial; every invocation analyzes them from scratch in a new module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class AnalysisBenchmark extends EnvironmentState {
+    private List<JetFile> files;
+
+    @Override
+    protected void setUp() {
+        files = BenchmarkCorpus.createJetFiles(getProject(), BenchmarkCorpus.getStdlibSources());
+    }
+
+    @GenerateMicroBenchmark
+    public AnalyzeExhaust topDownAnalysis() {
+        AnalyzeExhaust exhaust =
+                AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(getProject(), files, Predicates.<PsiFile>alwaysTrue());
+        exhaust.throwIfError();
+        return exhaust;
+    }
+
+    @GenerateMicroBenchmark
+    public AnalyzeExhaust topDownAnalysisWithParallelBodies() {
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                getProject(), files, new BindingTraceContext(), Predicates.<PsiFile>alwaysTrue(), false,
+                AnalyzerFacadeForJVM.createJavaModule("<module>"), MemberFilter.ALWAYS_TRUE, Runtime.getRuntime().availableProcessors());
+        exhaust.throwIfError();
+        return exhaust;
+    }
+
+    @GenerateMicroBenchmark
+    public ResolveSession lazyResolve() {
+        ResolveSession session = AnalyzerFacadeForJVM.createLazyResolveSession(getProject(), files, new BindingTraceContext(), true);
+        session.forceResolveAll();
+        return session;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixed sets of sources the benchmarks are run on. Paths are relative to the root of the project,
+ * which should be the working directory of the benchmarks.
+ *
+ * The sets only change together with the files in the repository, so the results of different commits are comparable
+ * as long as these files are the same.
+ */
+public class BenchmarkCorpus {
+    // The whole JVM standard library: a large amount of real code in many files
+    private static final String STDLIB_SOURCES = "libraries/stdlib/src";
+
+    // Small self-contained programs, each of them is compiled separately
+    private static final String[] CODEGEN_BOX_TESTS = {
+            "compiler/testData/codegen/box/classes",
+            "compiler/testData/codegen/box/closures",
+            "compiler/testData/codegen/box/controlStructures",
+            "compiler/testData/codegen/box/extensionFunctions",
+            "compiler/testData/codegen/box/when"
+    };
+
+    private static final String[] JS_TESTS = {
+            "js/js.translator/testData/simple/cases",
+            "js/js.translator/testData/inheritance/cases",
+            "js/js.translator/testData/closure/cases",
+            "js/js.translator/testData/expression/function/cases"
+    };
+
+    private BenchmarkCorpus() {
+    }
+
+    @NotNull
+    public static List<File> getStdlibSources() {
+        return collectKotlinFiles(new String[] {STDLIB_SOURCES}, true);
+    }
+
+    @NotNull
+    public static List<File> getCodegenBoxTests() {
+        return collectKotlinFiles(CODEGEN_BOX_TESTS, false);
+    }
+
+    @NotNull
+    public static List<File> getJsTests() {
+        return collectKotlinFiles(JS_TESTS, false);
+    }
+
+    @NotNull
+    public static List<String> loadTexts(@NotNull List<File> files) {
+        List<String> result = new ArrayList<String>(files.size());
+        for (File file : files) {
+            result.add(loadText(file));
+        }
+        return result;
+    }
+
+    @NotNull
+    public static List<JetFile> createJetFiles(@NotNull Project project, @NotNull List<File> files) {
+        List<JetFile> result = new ArrayList<JetFile>(files.size());
+        for (File file : files) {
+            result.add(JetPsiFactory.createFile(project, file.getName(), loadText(file)));
+        }
+        return result;
+    }
+
+    @NotNull
+    private static String loadText(@NotNull File file) {
+        try {
+            return FileUtil.loadFile(file, true);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not read " + file.getAbsolutePath() +
+                                            ", benchmarks should be run from the root of the project", e);
+        }
+    }
+
+    @NotNull
+    private static List<File> collectKotlinFiles(@NotNull String[] paths, boolean recursive) {
+        final List<File> result = new ArrayList<File>();
+        for (String path : paths) {
+            File root = new File(path);
+            if (!root.isDirectory()) {
+                throw new IllegalStateException("Directory not found: " + root.getAbsolutePath() +
+                                                ", benchmarks should be run from the root of the project");
+            }
+
+            if (recursive) {
+                FileUtil.processFilesRecursively(root, new Processor<File>() {
+                    @Override
+                    public boolean process(File file) {
+                        if (file.isFile() && file.getName().endsWith(".kt")) {
+                            result.add(file);
+                        }
+                        return true;
+                    }
+                });
+            }
+            else {
+                File[] files = root.listFiles();
+                assert files != null : root;
+                for (File file : files) {
+                    if (file.isFile() && file.getName().endsWith(".kt")) {
+                        result.add(file);
+                    }
+                }
+            }
+        }
+        // Independent of the order in which the file system lists files
+        Collections.sort(result);
+        return result;
+    }
+}
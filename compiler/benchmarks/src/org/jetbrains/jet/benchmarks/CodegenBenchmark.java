@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.common.arguments.CompilerArgumentsUtil;
+import org.jetbrains.jet.codegen.ClassBuilderFactories;
+import org.jetbrains.jet.codegen.CompilationErrorHandler;
+import org.jetbrains.jet.codegen.KotlinCodegenFacade;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytecode generation for the codegen box tests, each file is compiled separately as in the tests. {@link #generate()} measures
+ * KotlinCodegenFacade alone on the files analyzed during the setup, {@link #analyzeAndGenerate()} measures the whole compilation.
+ *
+ * Files which don't compile in this environment (e.g. they need Java sources) are left out of the corpus during the setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class CodegenBenchmark extends EnvironmentState {
+    private List<JetFile> files;
+    private List<BindingContext> bindingContexts;
+
+    @NotNull
+    @Override
+    protected CompilerConfiguration createConfiguration() {
+        return JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.FULL_JDK);
+    }
+
+    @Override
+    protected void setUp() {
+        files = new ArrayList<JetFile>();
+        bindingContexts = new ArrayList<BindingContext>();
+        for (File file : BenchmarkCorpus.getCodegenBoxTests()) {
+            JetFile jetFile = BenchmarkCorpus.createJetFiles(getProject(), Collections.singletonList(file)).get(0);
+            BindingContext bindingContext = analyze(jetFile);
+            if (bindingContext != null) {
+                files.add(jetFile);
+                bindingContexts.add(bindingContext);
+            }
+        }
+    }
+
+    @GenerateMicroBenchmark
+    public int generate() {
+        int classes = 0;
+        for (int i = 0; i < files.size(); i++) {
+            classes += generate(files.get(i), bindingContexts.get(i));
+        }
+        return classes;
+    }
+
+    @GenerateMicroBenchmark
+    public int analyzeAndGenerate() {
+        int classes = 0;
+        for (JetFile file : files) {
+            BindingContext bindingContext = analyze(file);
+            assert bindingContext != null : "File was compiled during the setup: " + file.getName();
+            classes += generate(file, bindingContext);
+        }
+        return classes;
+    }
+
+    private int generate(@NotNull JetFile file, @NotNull BindingContext bindingContext) {
+        GenerationState state = new GenerationState(getProject(), ClassBuilderFactories.BINARIES, bindingContext,
+                                                    Collections.singletonList(file), CompilerArgumentsUtil.DEFAULT_INLINE_FLAG_FOR_TEST);
+        try {
+            KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+            return state.getFactory().asList().size();
+        }
+        finally {
+            state.destroy();
+        }
+    }
+
+    /**
+     * @return null if there are errors in the file
+     */
+    @Nullable
+    private BindingContext analyze(@NotNull JetFile file) {
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJVM.analyzeOneFileWithJavaIntegration(file);
+        if (exhaust.isError()) return null;
+
+        BindingContext bindingContext = exhaust.getBindingContext();
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) return null;
+        }
+        return bindingContext;
+    }
+}
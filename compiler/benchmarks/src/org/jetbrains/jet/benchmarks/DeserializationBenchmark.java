@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.PackageViewDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading of the compiled Kotlin standard library from the class path: deserialization of the descriptors of all classes
+ * and top-level members of the "kotlin" package from the metadata written to the class files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class DeserializationBenchmark extends EnvironmentState {
+    private static final FqName KOTLIN_PACKAGE = new FqName("kotlin");
+
+    @NotNull
+    @Override
+    protected CompilerConfiguration createConfiguration() {
+        return JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.FULL_JDK);
+    }
+
+    @Override
+    protected void setUp() {
+    }
+
+    @GenerateMicroBenchmark
+    public int loadStdlib() {
+        // A new module every time, so that nothing is cached between invocations
+        ResolveSession session = AnalyzerFacadeForJVM.createLazyResolveSession(
+                getProject(), Collections.<JetFile>emptyList(), new BindingTraceContext(), true);
+        PackageViewDescriptor kotlinPackage = session.getModuleDescriptor().getPackage(KOTLIN_PACKAGE);
+        assert kotlinPackage != null : "Kotlin runtime is not found in the class path";
+
+        int descriptors = 0;
+        for (DeclarationDescriptor descriptor : kotlinPackage.getMemberScope().getAllDescriptors()) {
+            descriptors++;
+            if (descriptor instanceof ClassDescriptor) {
+                descriptors += ((ClassDescriptor) descriptor).getDefaultType().getMemberScope().getAllDescriptors().size();
+            }
+        }
+        return descriptors;
+    }
+}
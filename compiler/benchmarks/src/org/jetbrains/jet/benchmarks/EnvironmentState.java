@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A compiler environment which lives during a whole trial (all iterations of a benchmark in one fork),
+ * so that its creation is not measured.
+ */
+public abstract class EnvironmentState {
+    private Disposable disposable;
+    private JetCoreEnvironment environment;
+
+    @Setup(Level.Trial)
+    public void setUpEnvironment() {
+        disposable = Disposer.newDisposable();
+        environment = JetCoreEnvironment.createForTests(disposable, createConfiguration());
+        setUp();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownEnvironment() {
+        Disposer.dispose(disposable);
+        disposable = null;
+        environment = null;
+    }
+
+    @NotNull
+    protected CompilerConfiguration createConfiguration() {
+        return JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.FULL_JDK);
+    }
+
+    /**
+     * Called after the environment is created: prepare the input of the benchmark here.
+     */
+    protected abstract void setUp();
+
+    @NotNull
+    protected Project getProject() {
+        return environment.getProject();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.facade.exceptions.TranslationException;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.utils.TranslationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translation of the JS translator tests to JavaScript with {@link K2JSTranslator}, including the analysis of each file.
+ * The JS library is analyzed once per trial, the same way the tests share it.
+ *
+ * Files which can't be translated on their own are left out of the corpus during the setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class JsTranslationBenchmark extends EnvironmentState {
+    private Config config;
+    private List<JetFile> files;
+
+    @NotNull
+    @Override
+    protected CompilerConfiguration createConfiguration() {
+        return new CompilerConfiguration();
+    }
+
+    @Override
+    protected void setUp() {
+        config = TranslationUtils.getConfig(getProject(), EcmaVersion.defaultVersion(), TestConfig.FACTORY_WITHOUT_SOURCEMAP);
+        files = new ArrayList<JetFile>();
+        for (JetFile file : BenchmarkCorpus.createJetFiles(getProject(), BenchmarkCorpus.getJsTests())) {
+            try {
+                new K2JSTranslator(config).generateProgramCode(file, MainCallParameters.noCall());
+                files.add(file);
+            }
+            catch (Exception ignored) {
+                // Analysis errors are reported with exceptions as well
+            }
+        }
+    }
+
+    @GenerateMicroBenchmark
+    public int translate() throws TranslationException {
+        int length = 0;
+        for (JetFile file : files) {
+            length += new K2JSTranslator(config).generateProgramCode(file, MainCallParameters.noCall()).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import org.jetbrains.jet.lexer.JetLexer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing of the standard library sources with {@link JetLexer} (the generated _JetLexer behind a FlexAdapter).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class LexerBenchmark {
+    private List<String> texts;
+
+    @Setup
+    public void setUp() {
+        texts = BenchmarkCorpus.loadTexts(BenchmarkCorpus.getStdlibSources());
+    }
+
+    @GenerateMicroBenchmark
+    public int lexStdlib() {
+        JetLexer lexer = new JetLexer();
+        int tokens = 0;
+        for (String text : texts) {
+            lexer.start(text);
+            while (lexer.getTokenType() != null) {
+                tokens++;
+                lexer.advance();
+            }
+        }
+        // Returned so that the loop is not eliminated as dead code
+        return tokens;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.benchmarks;
+
+import com.intellij.lang.ASTNode;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the standard library sources with JetParsing. Bodies of declarations are parsed lazily, so the whole tree is traversed
+ * to make sure every file is parsed completely.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class ParserBenchmark extends EnvironmentState {
+    private List<File> files;
+    private List<String> texts;
+
+    @Override
+    protected void setUp() {
+        files = BenchmarkCorpus.getStdlibSources();
+        texts = BenchmarkCorpus.loadTexts(files);
+    }
+
+    @GenerateMicroBenchmark
+    public int parseStdlib() {
+        int nodes = 0;
+        for (int i = 0; i < files.size(); i++) {
+            JetFile file = JetPsiFactory.createFile(getProject(), files.get(i).getName(), texts.get(i));
+            nodes += countNodes(file.getNode());
+        }
+        return nodes;
+    }
+
+    private static int countNodes(ASTNode node) {
+        int result = 1;
+        for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+            result += countNodes(child);
+        }
+        return result;
+    }
+}
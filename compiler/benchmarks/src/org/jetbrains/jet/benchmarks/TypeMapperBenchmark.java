@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.benchmarks;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.codegen.ClassBuilderMode;
+import org.jetbrains.jet.codegen.state.JetTypeMapper;
+import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
+import org.jetbrains.jet.lang.descriptors.ValueParameterDescriptor;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.DelegatingBindingTrace;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of signatures and parameter types of all functions declared in the standard library sources, every function is mapped
+ * {@link #MAPPINGS_PER_FUNCTION} times, as it happens for the declaration, call sites, overrides and bridges during code generation.
+ * {@link #sharedTypeMapper()} uses one JetTypeMapper as GenerationState does, {@link #freshTypeMapper()} creates a new one
+ * for every mapping, so that nothing is cached: the difference is what the caches in JetTypeMapper save.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Thread)
+public class TypeMapperBenchmark extends EnvironmentState {
+    private static final int MAPPINGS_PER_FUNCTION = 4;
+
+    private BindingContext bindingContext;
+    private List<FunctionDescriptor> functions;
+
+    @Override
+    protected void setUp() {
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                getProject(), BenchmarkCorpus.createJetFiles(getProject(), BenchmarkCorpus.getStdlibSources()),
+                Predicates.<PsiFile>alwaysTrue());
+        exhaust.throwIfError();
+        bindingContext = exhaust.getBindingContext();
+        functions = new ArrayList<FunctionDescriptor>(bindingContext.getSliceContents(BindingContext.FUNCTION).values());
+    }
+
+    @GenerateMicroBenchmark
+    public int sharedTypeMapper() {
+        JetTypeMapper typeMapper = createTypeMapper();
+        int result = 0;
+        for (int i = 0; i < MAPPINGS_PER_FUNCTION; i++) {
+            for (FunctionDescriptor function : functions) {
+                result += map(typeMapper, function);
+            }
+        }
+        return result;
+    }
+
+    @GenerateMicroBenchmark
+    public int freshTypeMapper() {
+        int result = 0;
+        for (int i = 0; i < MAPPINGS_PER_FUNCTION; i++) {
+            for (FunctionDescriptor function : functions) {
+                result += map(createTypeMapper(), function);
+            }
+        }
+        return result;
+    }
+
+    private JetTypeMapper createTypeMapper() {
+        return new JetTypeMapper(new DelegatingBindingTrace(bindingContext, "type mapper benchmark"), ClassBuilderMode.FULL);
+    }
+
+    private static int map(JetTypeMapper typeMapper, FunctionDescriptor function) {
+        int result = typeMapper.mapSignature(function).getAsmMethod().getDescriptor().length();
+        for (ValueParameterDescriptor parameter : function.getValueParameters()) {
+            result += typeMapper.mapType(parameter.getType()).getSort();
+        }
+        return result;
+    }
+}
@@ -42,6 +42,7 @@ import org.jetbrains.jet.lang.descriptors.ModuleDescriptor
 import org.jetbrains.jet.lang.resolve.name.FqName
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns
 import org.jetbrains.jet.utils.recursePostOrder
+import java.util.LinkedHashMap
 
 public class BuiltInsSerializer(val out: PrintStream?) {
     private var totalSize = 0
@@ -98,6 +99,9 @@ public class BuiltInsSerializer(val out: PrintStream?) {
                     !KotlinBuiltIns.isSpecialClassWithNoSupertypes(descriptor)
         })
 
+        // All files of the package are also packed into a single snapshot file, which is what the compiler reads at runtime
+        val packageFiles = LinkedHashMap<String, ByteArray>()
+
         val classNames = ArrayList<Name>()
         val allDescriptors = DescriptorSerializer.sort(packageView.getMemberScope().getAllDescriptors())
 
@@ -105,7 +109,7 @@ public class BuiltInsSerializer(val out: PrintStream?) {
             override fun writeClass(classDescriptor: ClassDescriptor, classProto: ProtoBuf.Class) {
                 val stream = ByteArrayOutputStream()
                 classProto.writeTo(stream)
-                write(destDir, getFileName(classDescriptor), stream)
+                write(destDir, getFileName(classDescriptor), stream, packageFiles)
 
                 if (DescriptorUtils.isTopLevelDeclaration(classDescriptor)) {
                     classNames.add(classDescriptor.getName())
@@ -115,17 +119,21 @@ public class BuiltInsSerializer(val out: PrintStream?) {
 
         val classNamesStream = ByteArrayOutputStream()
         writeClassNames(serializer, classNames, classNamesStream)
-        write(destDir, BuiltInsSerializationUtil.getClassNamesFilePath(fqName), classNamesStream)
+        write(destDir, BuiltInsSerializationUtil.getClassNamesFilePath(fqName), classNamesStream, packageFiles)
 
         val packageStream = ByteArrayOutputStream()
         val fragments = module.getPackageFragmentProvider().getPackageFragments(fqName)
         val packageProto = serializer.packageProto(fragments).build() ?: error("Package fragments not serialized: $fragments")
         packageProto.writeTo(packageStream)
-        write(destDir, BuiltInsSerializationUtil.getPackageFilePath(fqName), packageStream)
+        write(destDir, BuiltInsSerializationUtil.getPackageFilePath(fqName), packageStream, packageFiles)
 
         val nameStream = ByteArrayOutputStream()
         NameSerializationUtil.serializeNameTable(nameStream, serializer.getNameTable())
-        write(destDir, BuiltInsSerializationUtil.getNameTableFilePath(fqName), nameStream)
+        write(destDir, BuiltInsSerializationUtil.getNameTableFilePath(fqName), nameStream, packageFiles)
+
+        val snapshotStream = ByteArrayOutputStream()
+        BuiltInsSerializationUtil.writeSnapshot(snapshotStream, packageFiles)
+        write(destDir, BuiltInsSerializationUtil.getSnapshotFilePath(fqName), snapshotStream, null)
     }
 
     fun writeClassNames(serializer: DescriptorSerializer, classNames: List<Name>, stream: ByteArrayOutputStream) {
@@ -138,12 +146,14 @@ public class BuiltInsSerializer(val out: PrintStream?) {
         }
     }
 
-    fun write(destDir: File, fileName: String, stream: ByteArrayOutputStream) {
+    fun write(destDir: File, fileName: String, stream: ByteArrayOutputStream, packageFiles: MutableMap<String, ByteArray>?) {
         totalSize += stream.size()
         totalFiles++
+        val bytes = stream.toByteArray()
+        packageFiles?.put(fileName, bytes)
         val file = File(destDir, fileName)
         file.getParentFile()?.mkdirs()
-        file.writeBytes(stream.toByteArray())
+        file.writeBytes(bytes)
     }
 
     fun getFileName(classDescriptor: ClassDescriptor): String {
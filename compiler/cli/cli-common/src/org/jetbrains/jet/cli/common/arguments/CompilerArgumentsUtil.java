@@ -21,6 +21,8 @@ import org.jetbrains.annotations.Nullable;
 public class CompilerArgumentsUtil {
     public static final boolean DEFAULT_INLINE_FLAG = true;
     public static final boolean DEFAULT_INLINE_FLAG_FOR_TEST = true;
+    public static final int DEFAULT_CODEGEN_THREADS = 1;
+    public static final int DEFAULT_RESOLVE_THREADS = 1;
 
     public static boolean optionToInlineFlag(@Nullable String option) {
         boolean enableInline = "on".equalsIgnoreCase(option) || "true".equalsIgnoreCase(option);
@@ -42,4 +44,40 @@ public class CompilerArgumentsUtil {
     public static String getWrongOptionErrorMessage(@Nullable String inline) {
         return "Wrong value for inline option: '" + inline + "'. Should be 'on'/'off' or 'true'/'false'";
     }
+
+    public static int optionToCodegenThreads(@Nullable String option) {
+        if (option == null) return DEFAULT_CODEGEN_THREADS;
+        return Integer.parseInt(option);
+    }
+
+    public static boolean checkCodegenThreadsOption(@Nullable String option) {
+        return checkThreadsOption(option);
+    }
+
+    public static String getWrongCodegenThreadsOptionErrorMessage(@Nullable String codegenThreads) {
+        return "Wrong value for codegenThreads option: '" + codegenThreads + "'. Should be a positive number";
+    }
+
+    public static int optionToResolveThreads(@Nullable String option) {
+        if (option == null) return DEFAULT_RESOLVE_THREADS;
+        return Integer.parseInt(option);
+    }
+
+    public static boolean checkResolveThreadsOption(@Nullable String option) {
+        return checkThreadsOption(option);
+    }
+
+    public static String getWrongResolveThreadsOptionErrorMessage(@Nullable String resolveThreads) {
+        return "Wrong value for resolveThreads option: '" + resolveThreads + "'. Should be a positive number";
+    }
+
+    private static boolean checkThreadsOption(@Nullable String option) {
+        if (option == null) return true;
+        try {
+            return Integer.parseInt(option) > 0;
+        }
+        catch (NumberFormatException e) {
+            return false;
+        }
+    }
 }
@@ -51,4 +51,16 @@ public class K2JSCompilerArguments extends CommonCompilerArguments {
 
     @Argument(value = "outputPostfix", description = "Path to file which will be added to the end of output file")
     public String outputPostfix;
+
+    @Argument(value = "metaInfo", description = "Generate metadata file (.kjsm) to use the output as a binary library")
+    public boolean metaInfo;
+
+    @Argument(value = "metaInfoModuleName", description = "Module name written to the metadata file, the output file name by default")
+    public String metaInfoModuleName;
+
+    @Argument(value = "streamOutput", description = "Write the generated code to the output file while it is printed to save memory")
+    public boolean streamOutput;
+
+    @Argument(value = "eliminateDeadCode", description = "Remove declarations unreachable from main, tests and js.entryPoint declarations")
+    public boolean eliminateDeadCode;
 }
@@ -33,6 +33,9 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "classpath", description = "classpath to use when compiling")
     public String classpath;
 
+    @Argument(value = "classpathIndexCache", description = "file to store the index of classpath jars in between compilations")
+    public String classpathIndexCache;
+
     @Argument(value = "annotations", description = "paths to external annotations")
     public String annotations;
 
@@ -68,4 +71,19 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
 
     @Argument(value = "inline", description = "Inlining mode: on/off or true/false (default is on)")
     public String inline;
+
+    @Argument(value = "codegenThreads", description = "Number of threads used to generate bytecode of different packages (default is 1)")
+    public String codegenThreads;
+
+    @Argument(value = "resolveThreads", description = "Number of threads used to resolve bodies of different functions (default is 1)")
+    public String resolveThreads;
+
+    @Argument(value = "daemon", description = "Compile in a background compile daemon, starting it if it isn't running")
+    public boolean daemon;
+
+    @Argument(value = "streamOutput", description = "Write each class to the output as soon as it is generated to reduce memory usage")
+    public boolean streamOutput;
+
+    @Argument(value = "reportPerf", description = "Write time, memory and other metrics of each compilation phase to the given JSON file")
+    public String reportPerf;
 }
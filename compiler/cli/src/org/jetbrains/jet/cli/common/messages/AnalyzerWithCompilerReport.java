@@ -39,6 +39,7 @@ import org.jetbrains.jet.lang.resolve.java.JavaBindingContext;
 import org.jetbrains.jet.lang.resolve.java.JvmAbi;
 import org.jetbrains.jet.lang.resolve.java.resolver.TraceBasedErrorReporter;
 import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileKotlinClass;
+import org.jetbrains.jet.utils.CompilationMetrics;
 
 import java.util.Collection;
 import java.util.List;
@@ -223,7 +224,12 @@ public final class AnalyzerWithCompilerReport {
     }
 
     public void analyzeAndReport(@NotNull Function0<AnalyzeExhaust> analyzer, @NotNull Collection<JetFile> files) {
+        // Files are parsed lazily, looking for syntax errors goes through the whole tree of each file
+        CompilationMetrics.Phase parse = CompilationMetrics.phase("parse");
         reportSyntaxErrors(files);
+        parse.end();
+        CompilationMetrics.count("files", files.size());
+
         analyzeExhaust = analyzer.invoke();
         reportDiagnostics(analyzeExhaust.getBindingContext(), messageCollectorWrapper);
         reportIncompleteHierarchies();
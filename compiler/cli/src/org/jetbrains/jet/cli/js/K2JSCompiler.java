@@ -38,6 +38,7 @@ import org.jetbrains.jet.cli.common.messages.AnalyzerWithCompilerReport;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.common.messages.OutputMessageUtil;
 import org.jetbrains.jet.cli.common.output.OutputDirector;
 import org.jetbrains.jet.cli.common.output.SingleDirectoryDirector;
 import org.jetbrains.jet.cli.common.output.outputUtils.OutputUtilsPackage;
@@ -49,8 +50,10 @@ import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.*;
 import org.jetbrains.k2js.facade.K2JSTranslator;
 import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
+import org.jetbrains.k2js.serialization.KotlinJavascriptSerializer;
 
-import java.io.File;
+import java.io.*;
 import java.util.Arrays;
 import java.util.List;
 
@@ -106,7 +109,8 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         File outputFile = new File(arguments.outputFile);
 
         Config config = getConfig(arguments, project);
-        if (analyzeAndReportErrors(messageCollector, sourcesFiles, config)) {
+        AnalyzerWithCompilerReport analyzerWithCompilerReport = analyzeAndReportErrors(messageCollector, sourcesFiles, config);
+        if (analyzerWithCompilerReport.hasErrors()) {
             return COMPILATION_ERROR;
         }
 
@@ -132,16 +136,65 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             }
         }
 
+        DeadCodeEliminationReport deadCodeEliminationReport = null;
+        if (arguments.eliminateDeadCode) {
+            deadCodeEliminationReport = new DeadCodeEliminationReport();
+            config.setDeadCodeEliminationReport(deadCodeEliminationReport);
+        }
+
         MainCallParameters mainCallParameters = createMainCallParameters(arguments.main);
 
-        OutputFileCollection outputFiles = translate(mainCallParameters, config, sourcesFiles, outputFile, outputPrefixFile, outputPostfixFile);
+        if (arguments.streamOutput) {
+            List<File> sources = K2JSTranslator.getSourceFiles(sourcesFiles);
+            List<File> outputs =
+                    translateAndWrite(mainCallParameters, config, sourcesFiles, outputFile, outputPrefixFile, outputPostfixFile);
+            for (File output : outputs) {
+                messageCollector.report(CompilerMessageSeverity.OUTPUT, OutputMessageUtil.formatOutputMessage(sources, output),
+                                        NO_LOCATION);
+            }
+        }
+        else {
+            OutputFileCollection outputFiles =
+                    translate(mainCallParameters, config, sourcesFiles, outputFile, outputPrefixFile, outputPostfixFile);
 
-        OutputDirector outputDirector = new SingleDirectoryDirector(outputFile.getParentFile());
-        OutputUtilsPackage.writeAll(outputFiles, outputDirector, messageCollector);
+            OutputDirector outputDirector = new SingleDirectoryDirector(outputFile.getParentFile());
+            OutputUtilsPackage.writeAll(outputFiles, outputDirector, messageCollector);
+        }
+
+        if (deadCodeEliminationReport != null) {
+            messageCollector.report(CompilerMessageSeverity.INFO, deadCodeEliminationReport.toString(), NO_LOCATION);
+        }
+
+        if (arguments.metaInfo) {
+            AnalyzeExhaust exhaust = analyzerWithCompilerReport.getAnalyzeExhaust();
+            assert exhaust != null : "Analysis has been done without errors, but there's no result";
+            File metadataFile = new File(outputFile.getParentFile(),
+                                         config.getModuleId() + "." + KotlinJavascriptMetadata.FILE_EXTENSION);
+            String moduleName = arguments.metaInfoModuleName != null ? arguments.metaInfoModuleName : config.getModuleId();
+            try {
+                writeMetadata(KotlinJavascriptSerializer.serialize(moduleName, exhaust.getModuleDescriptor(),
+                                                                   exhaust.getBindingContext(), sourcesFiles), metadataFile);
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR, "Couldn't write metadata to " + metadataFile + ": " + e,
+                                        NO_LOCATION);
+                return ExitCode.INTERNAL_ERROR;
+            }
+        }
 
         return OK;
     }
 
+    private static void writeMetadata(@NotNull KotlinJavascriptMetadata metadata, @NotNull File file) throws IOException {
+        OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            metadata.write(stream);
+        }
+        finally {
+            stream.close();
+        }
+    }
+
     private static void reportCompiledSourcesList(@NotNull MessageCollector messageCollector, @NotNull List<JetFile> sourceFiles) {
         Iterable<String> fileNames = ContainerUtil.map(sourceFiles, new Function<JetFile, String>() {
             @Override
@@ -174,7 +227,26 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         }
     }
 
-    private static boolean analyzeAndReportErrors(@NotNull MessageCollector messageCollector,
+    @NotNull
+    private static List<File> translateAndWrite(
+            @NotNull MainCallParameters mainCall,
+            @NotNull Config config,
+            @NotNull List<JetFile> sourceFiles,
+            @NotNull File outputFile,
+            @Nullable File outputPrefix,
+            @Nullable File outputPostfix
+    ) {
+        try {
+            return K2JSTranslator.translateAndWriteWithMainCallParameters(mainCall, sourceFiles, outputFile, outputPrefix, outputPostfix,
+                                                                          config);
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @NotNull
+    private static AnalyzerWithCompilerReport analyzeAndReportErrors(@NotNull MessageCollector messageCollector,
             @NotNull final List<JetFile> sources, @NotNull final Config config) {
         AnalyzerWithCompilerReport analyzerWithCompilerReport = new AnalyzerWithCompilerReport(messageCollector);
         analyzerWithCompilerReport.analyzeAndReport(new Function0<AnalyzeExhaust>() {
@@ -183,7 +255,7 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
                 return AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
             }
         }, sources);
-        return analyzerWithCompilerReport.hasErrors();
+        return analyzerWithCompilerReport;
     }
 
     @NotNull
@@ -27,6 +27,7 @@ public class JVMConfigurationKeys {
     }
 
     public static final CompilerConfigurationKey<List<File>> CLASSPATH_KEY = CompilerConfigurationKey.create("classpath");
+    public static final CompilerConfigurationKey<File> CLASSPATH_INDEX_CACHE = CompilerConfigurationKey.create("classpath index cache");
     public static final CompilerConfigurationKey<List<File>> ANNOTATIONS_PATH_KEY = CompilerConfigurationKey.create("annotations path");
 
     public static final CompilerConfigurationKey<List<AnalyzerScriptParameter>> SCRIPT_PARAMETERS = CompilerConfigurationKey.create("script");
@@ -38,4 +39,16 @@ public class JVMConfigurationKeys {
 
     public static final CompilerConfigurationKey<Boolean> ENABLE_INLINE =
             CompilerConfigurationKey.create("enable inline");
+
+    public static final CompilerConfigurationKey<Integer> CODEGEN_THREADS =
+            CompilerConfigurationKey.create("codegen threads");
+
+    public static final CompilerConfigurationKey<Integer> RESOLVE_THREADS =
+            CompilerConfigurationKey.create("resolve threads");
+
+    public static final CompilerConfigurationKey<Boolean> STREAM_OUTPUT =
+            CompilerConfigurationKey.create("stream output");
+
+    public static final CompilerConfigurationKey<Boolean> LOAD_JAVA_CLASSES_FROM_BINARIES =
+            CompilerConfigurationKey.create("load java classes from binaries");
 }
@@ -28,16 +28,18 @@ import org.jetbrains.jet.cli.common.arguments.CompilerArgumentsUtil;
 import org.jetbrains.jet.cli.common.arguments.K2JVMCompilerArguments;
 import org.jetbrains.jet.cli.common.messages.*;
 import org.jetbrains.jet.cli.jvm.compiler.*;
+import org.jetbrains.jet.cli.jvm.daemon.CompileDaemonClient;
 import org.jetbrains.jet.cli.jvm.repl.ReplFromTerminal;
 import org.jetbrains.jet.codegen.CompilationException;
 import org.jetbrains.jet.config.CommonConfigurationKeys;
 import org.jetbrains.jet.config.CompilerConfiguration;
 import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.utils.CompilationMetrics;
 import org.jetbrains.jet.utils.KotlinPaths;
 import org.jetbrains.jet.utils.KotlinPathsFromHomeDir;
 import org.jetbrains.jet.utils.PathUtil;
 
-import java.io.File;
+import java.io.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -59,6 +61,60 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
             @NotNull K2JVMCompilerArguments arguments,
             @NotNull MessageCollector messageCollector,
             @NotNull Disposable rootDisposable
+    ) {
+        if (arguments.daemon) {
+            ExitCode daemonExitCode = CompileDaemonClient.compile(arguments, messageCollector);
+            if (daemonExitCode != null) {
+                return daemonExitCode;
+            }
+            messageCollector.report(CompilerMessageSeverity.LOGGING, "Compile daemon is not available, compiling in process",
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+
+        if (arguments.reportPerf == null) {
+            return compile(arguments, messageCollector, rootDisposable);
+        }
+
+        CompilationMetrics metrics = CompilationMetrics.start();
+        try {
+            return compile(arguments, messageCollector, rootDisposable);
+        }
+        finally {
+            metrics.stop();
+            writePerformanceReport(metrics, new File(arguments.reportPerf), messageCollector);
+        }
+    }
+
+    private static void writePerformanceReport(
+            @NotNull CompilationMetrics metrics,
+            @NotNull File file,
+            @NotNull MessageCollector messageCollector
+    ) {
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                //noinspection ResultOfMethodCallIgnored
+                parent.mkdirs();
+            }
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                metrics.writeJson(writer);
+            }
+            finally {
+                writer.close();
+            }
+        }
+        catch (IOException e) {
+            messageCollector.report(CompilerMessageSeverity.WARNING, "Could not write performance report to " + file + ": " + e,
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+    }
+
+    @NotNull
+    private ExitCode compile(
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull MessageCollector messageCollector,
+            @NotNull Disposable rootDisposable
     ) {
         KotlinPaths paths = arguments.kotlinHome != null
                                 ? new KotlinPathsFromHomeDir(new File(arguments.kotlinHome))
@@ -102,6 +158,10 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
             }
         }
 
+        if (arguments.classpathIndexCache != null) {
+            configuration.put(JVMConfigurationKeys.CLASSPATH_INDEX_CACHE, new File(arguments.classpathIndexCache));
+        }
+
         configuration.put(JVMConfigurationKeys.SCRIPT_PARAMETERS, arguments.script
                                                                           ? CommandLineScriptUtils.scriptParameters()
                                                                           : Collections.<AnalyzerScriptParameter>emptyList());
@@ -109,6 +169,10 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
         configuration.put(JVMConfigurationKeys.GENERATE_NOT_NULL_ASSERTIONS, arguments.notNullAssertions);
         configuration.put(JVMConfigurationKeys.GENERATE_NOT_NULL_PARAMETER_ASSERTIONS, arguments.notNullParamAssertions);
         configuration.put(JVMConfigurationKeys.ENABLE_INLINE, CompilerArgumentsUtil.optionToInlineFlag(arguments.inline));
+        configuration.put(JVMConfigurationKeys.CODEGEN_THREADS, CompilerArgumentsUtil.optionToCodegenThreads(arguments.codegenThreads));
+        configuration.put(JVMConfigurationKeys.RESOLVE_THREADS, CompilerArgumentsUtil.optionToResolveThreads(arguments.resolveThreads));
+        configuration.put(JVMConfigurationKeys.STREAM_OUTPUT, arguments.streamOutput);
+        configuration.put(JVMConfigurationKeys.LOAD_JAVA_CLASSES_FROM_BINARIES, true);
 
         configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, messageCollector);
 
@@ -200,6 +264,14 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
         if (!CompilerArgumentsUtil.checkInlineOption(argument.inline)) {
             throw new IllegalArgumentException(CompilerArgumentsUtil.getWrongOptionErrorMessage(argument.inline));
         }
+
+        if (!CompilerArgumentsUtil.checkCodegenThreadsOption(argument.codegenThreads)) {
+            throw new IllegalArgumentException(CompilerArgumentsUtil.getWrongCodegenThreadsOptionErrorMessage(argument.codegenThreads));
+        }
+
+        if (!CompilerArgumentsUtil.checkResolveThreadsOption(argument.resolveThreads)) {
+            throw new IllegalArgumentException(CompilerArgumentsUtil.getWrongResolveThreadsOptionErrorMessage(argument.resolveThreads));
+        }
     }
 
 }
@@ -19,6 +19,7 @@ package org.jetbrains.jet.cli.jvm.compiler;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -28,12 +29,30 @@ public final class ClassPath implements Iterable<VirtualFile> {
     @NotNull
     private final List<VirtualFile> roots = new ArrayList<VirtualFile>();
 
+    @NotNull
+    private final List<File> files = new ArrayList<File>();
+
     @Override
     public Iterator<VirtualFile> iterator() {
         return roots.iterator();
     }
 
-    public void add(@NotNull VirtualFile root) {
+    public void add(@NotNull VirtualFile root, @NotNull File file) {
         roots.add(root);
+        files.add(file);
+    }
+
+    public int size() {
+        return roots.size();
+    }
+
+    @NotNull
+    public VirtualFile getRoot(int index) {
+        return roots.get(index);
+    }
+
+    @NotNull
+    public File getFile(int index) {
+        return files.get(index);
     }
 }
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ArrayUtil;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.utils.UtilsPackage;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps every package (in the internal form, e.g. "java/lang", "" for the root package) to the class path roots containing it,
+ * so that a class lookup only probes the roots which may contain the class.
+ *
+ * The lists of packages of jar roots are kept in memory and may be stored to a cache file, so that the jars which haven't changed
+ * since the previous compilation are not scanned again. Directories are always scanned, since their contents may change without changing their timestamp.
+ */
+public final class ClassPathIndex {
+    private static final Logger LOG = Logger.getInstance(ClassPathIndex.class);
+
+    private static final int CACHE_VERSION = 1;
+
+    // Total number of packages of the jars kept in JAR_CACHE, roughly 100 bytes each
+    private static final long JAR_CACHE_MAX_PACKAGES = 100000;
+
+    // Package lists of jars, shared by all compilations in this process (e.g. by the compile daemon).
+    // The least recently used jars are evicted, so that a long-lived process doesn't keep every jar it has ever seen
+    private static final Cache<String, CachedRoot> JAR_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(JAR_CACHE_MAX_PACKAGES)
+            .weigher(new Weigher<String, CachedRoot>() {
+                @Override
+                public int weigh(@NotNull String path, @NotNull CachedRoot root) {
+                    return 1 + root.packages.size();
+                }
+            })
+            .build();
+
+    @NotNull
+    private final ClassPath classPath;
+
+    // package -> indices of roots containing a directory for this package, in the class path order
+    @NotNull
+    private final Map<String, int[]> packageToRoots;
+
+    // package -> directories of this package in the roots listed in packageToRoots, computed lazily
+    @NotNull
+    private final ConcurrentMap<String, VirtualFile[]> packageToDirectories = new ConcurrentHashMap<String, VirtualFile[]>();
+
+    private ClassPathIndex(@NotNull ClassPath classPath, @NotNull Map<String, int[]> packageToRoots) {
+        this.classPath = classPath;
+        this.packageToRoots = packageToRoots;
+    }
+
+    @NotNull
+    public static ClassPathIndex create(@NotNull ClassPath classPath, @Nullable File cacheFile) {
+        Map<String, CachedRoot> cache = cacheFile != null ? readCache(cacheFile) : Collections.<String, CachedRoot>emptyMap();
+        Map<String, CachedRoot> newCache = new LinkedHashMap<String, CachedRoot>();
+        boolean cacheChanged = false;
+
+        Map<String, TIntArrayList> packageToRoots = new HashMap<String, TIntArrayList>();
+        for (int i = 0; i < classPath.size(); i++) {
+            File file = classPath.getFile(i);
+            Collection<String> packages;
+
+            if (file.isFile()) {
+                String path = file.getAbsolutePath();
+                CachedRoot cached = JAR_CACHE.getIfPresent(path);
+                if (cached == null || !cached.isUpToDate(file)) {
+                    cached = cache.get(path);
+                    if (cached == null || !cached.isUpToDate(file)) {
+                        cached = new CachedRoot(file.length(), file.lastModified(), collectPackages(classPath.getRoot(i)));
+                    }
+                    JAR_CACHE.put(path, cached);
+                }
+                packages = cached.packages;
+
+                CachedRoot stored = cache.get(path);
+                if (stored == null || stored.length != cached.length || stored.lastModified != cached.lastModified) {
+                    cacheChanged = true;
+                }
+                newCache.put(path, cached);
+            }
+            else {
+                packages = collectPackages(classPath.getRoot(i));
+            }
+
+            for (String packageName : packages) {
+                TIntArrayList roots = packageToRoots.get(packageName);
+                if (roots == null) {
+                    roots = new TIntArrayList(1);
+                    packageToRoots.put(packageName, roots);
+                }
+                roots.add(i);
+            }
+        }
+
+        if (cacheFile != null && (cacheChanged || newCache.size() != cache.size())) {
+            writeCache(cacheFile, newCache);
+        }
+
+        Map<String, int[]> result = new HashMap<String, int[]>(packageToRoots.size());
+        for (Map.Entry<String, TIntArrayList> entry : packageToRoots.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toNativeArray());
+        }
+        return new ClassPathIndex(classPath, result);
+    }
+
+    /**
+     * @return the first file with the given name found in the given package directories, in the class path order
+     */
+    @Nullable
+    public VirtualFile findFile(@NotNull String packageName, @NotNull String fileName) {
+        int[] roots = packageToRoots.get(packageName);
+        if (roots == null) return null;
+
+        VirtualFile[] directories = getPackageDirectories(packageName, roots);
+        for (VirtualFile directory : directories) {
+            if (directory == null) continue;
+            VirtualFile file = directory.findChild(fileName);
+            if (file != null && file.isValid()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public VirtualFile findFileInRoot(int rootIndex, @NotNull String packageName, @NotNull String fileName) {
+        int[] roots = packageToRoots.get(packageName);
+        if (roots == null) return null;
+
+        int position = Arrays.binarySearch(roots, rootIndex);
+        if (position < 0) return null;
+
+        VirtualFile directory = getPackageDirectories(packageName, roots)[position];
+        if (directory == null) return null;
+
+        VirtualFile file = directory.findChild(fileName);
+        return file != null && file.isValid() ? file : null;
+    }
+
+    /**
+     * @return indices of roots containing the given package, in the class path order
+     */
+    @NotNull
+    public int[] getRootsForPackage(@NotNull String packageName) {
+        int[] roots = packageToRoots.get(packageName);
+        return roots != null ? roots : ArrayUtil.EMPTY_INT_ARRAY;
+    }
+
+    @NotNull
+    private VirtualFile[] getPackageDirectories(@NotNull String packageName, @NotNull int[] roots) {
+        VirtualFile[] directories = packageToDirectories.get(packageName);
+        if (directories == null) {
+            directories = new VirtualFile[roots.length];
+            for (int i = 0; i < roots.length; i++) {
+                VirtualFile root = classPath.getRoot(roots[i]);
+                directories[i] = packageName.isEmpty() ? root : root.findFileByRelativePath(packageName);
+            }
+            VirtualFile[] existing = packageToDirectories.putIfAbsent(packageName, directories);
+            if (existing != null) {
+                directories = existing;
+            }
+        }
+        return directories;
+    }
+
+    @NotNull
+    private static Collection<String> collectPackages(@NotNull VirtualFile root) {
+        List<String> result = new ArrayList<String>();
+        collectPackages(root, "", result);
+        return result;
+    }
+
+    private static void collectPackages(@NotNull VirtualFile directory, @NotNull String packageName, @NotNull List<String> result) {
+        boolean hasClassFiles = false;
+        for (VirtualFile child : directory.getChildren()) {
+            if (child.isDirectory()) {
+                String name = child.getName();
+                collectPackages(child, packageName.isEmpty() ? name : packageName + "/" + name, result);
+            }
+            else {
+                hasClassFiles = true;
+            }
+        }
+        // The root package is recorded only when there are files in it: all the other packages are recorded regardless, because
+        // lookups by FqName walk down the directories as deep as possible before looking for the class file
+        if (!packageName.isEmpty() || hasClassFiles) {
+            result.add(packageName);
+        }
+    }
+
+    @NotNull
+    private static Map<String, CachedRoot> readCache(@NotNull File cacheFile) {
+        if (!cacheFile.isFile()) return Collections.emptyMap();
+
+        Map<String, CachedRoot> result = new HashMap<String, CachedRoot>();
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if (input.readInt() != CACHE_VERSION) return Collections.emptyMap();
+
+            int rootCount = input.readInt();
+            for (int i = 0; i < rootCount; i++) {
+                String path = input.readUTF();
+                long length = input.readLong();
+                long lastModified = input.readLong();
+                int packageCount = input.readInt();
+                List<String> packages = new ArrayList<String>(packageCount);
+                for (int j = 0; j < packageCount; j++) {
+                    packages.add(input.readUTF());
+                }
+                result.put(path, new CachedRoot(length, lastModified, packages));
+            }
+            return result;
+        }
+        catch (IOException e) {
+            LOG.warn("Couldn't read class path index cache from " + cacheFile, e);
+            return Collections.emptyMap();
+        }
+        finally {
+            UtilsPackage.closeQuietly(input);
+        }
+    }
+
+    private static void writeCache(@NotNull File cacheFile, @NotNull Map<String, CachedRoot> roots) {
+        File parent = cacheFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            LOG.warn("Couldn't create directory for class path index cache: " + parent);
+            return;
+        }
+
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            output.writeInt(CACHE_VERSION);
+            output.writeInt(roots.size());
+            for (Map.Entry<String, CachedRoot> entry : roots.entrySet()) {
+                CachedRoot root = entry.getValue();
+                output.writeUTF(entry.getKey());
+                output.writeLong(root.length);
+                output.writeLong(root.lastModified);
+                output.writeInt(root.packages.size());
+                for (String packageName : root.packages) {
+                    output.writeUTF(packageName);
+                }
+            }
+        }
+        catch (IOException e) {
+            LOG.warn("Couldn't write class path index cache to " + cacheFile, e);
+        }
+        finally {
+            UtilsPackage.closeQuietly(output);
+        }
+    }
+
+    private static final class CachedRoot {
+        private final long length;
+        private final long lastModified;
+        private final Collection<String> packages;
+
+        private CachedRoot(long length, long lastModified, @NotNull Collection<String> packages) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.packages = packages;
+        }
+
+        private boolean isUpToDate(@NotNull File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaClass;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaClassFinder;
+import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaClassImpl;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds library classes in the class path with {@link ClassPathIndex} and loads them from their class files.
+ *
+ * Classes from Java sources and classes in packages which have external annotations are left to PSI: the former have no class files,
+ * and the external annotations are only supported for PSI.
+ */
+public class CliBinaryJavaClassFinder implements BinaryJavaClassFinder {
+    private static final String EXTERNAL_ANNOTATIONS_FILE_NAME = "annotations.xml";
+
+    @NotNull
+    private final Project project;
+    @NotNull
+    private final ClassPathIndex index;
+    @NotNull
+    private final List<VirtualFile> externalAnnotationsRoots;
+
+    private final ConcurrentMap<VirtualFile, BinaryJavaClass> classes = new ConcurrentHashMap<VirtualFile, BinaryJavaClass>();
+    private final ConcurrentMap<String, Boolean> packageHasExternalAnnotations = new ConcurrentHashMap<String, Boolean>();
+
+    public CliBinaryJavaClassFinder(
+            @NotNull Project project,
+            @NotNull ClassPathIndex index,
+            @NotNull List<VirtualFile> externalAnnotationsRoots
+    ) {
+        this.project = project;
+        this.index = index;
+        this.externalAnnotationsRoots = externalAnnotationsRoots;
+    }
+
+    @Nullable
+    @Override
+    public JavaClass findClass(@NotNull FqName fqName) {
+        List<String> segments = CliVirtualFileFinder.splitName(fqName.asString(), '.');
+
+        for (Map.Entry<Integer, Integer> entry : CliVirtualFileFinder.getRootToPackageLength(index, segments).entrySet()) {
+            int root = entry.getKey();
+            int packageLength = entry.getValue();
+            String packageName = CliVirtualFileFinder.join(segments, 0, packageLength, '/');
+            String className = CliVirtualFileFinder.join(segments, packageLength, segments.size(), '$');
+
+            VirtualFile classFile = index.findFileInRoot(root, packageName, className + ".class");
+            if (classFile != null) {
+                if (hasExternalAnnotations(packageName)) return null;
+
+                BinaryJavaClass javaClass = getBinaryClass(classFile);
+                // '$' may be a part of a class name, so a file with the expected name may contain some other class
+                if (fqName.equals(javaClass.getFqName())) {
+                    return javaClass;
+                }
+                continue;
+            }
+
+            String topLevelClassName = segments.get(packageLength);
+            if (index.findFileInRoot(root, packageName, topLevelClassName + ".java") != null) {
+                // The class comes from the Java sources
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public JavaClass resolveClass(@NotNull String internalName) {
+        int lastSlash = internalName.lastIndexOf('/');
+        String packageName = lastSlash < 0 ? "" : internalName.substring(0, lastSlash);
+
+        VirtualFile classFile = index.findFile(packageName, internalName.substring(lastSlash + 1) + ".class");
+        if (classFile == null) {
+            return findPsiClass(new FqName(internalName.replace('/', '.').replace('$', '.')));
+        }
+
+        BinaryJavaClass javaClass = getBinaryClass(classFile);
+        if (hasExternalAnnotations(packageName)) {
+            FqName fqName = javaClass.getFqName();
+            return fqName != null ? findPsiClass(fqName) : null;
+        }
+        return javaClass;
+    }
+
+    @NotNull
+    private BinaryJavaClass getBinaryClass(@NotNull VirtualFile file) {
+        BinaryJavaClass javaClass = classes.get(file);
+        if (javaClass == null) {
+            javaClass = new BinaryJavaClass(file, this);
+            BinaryJavaClass existing = classes.putIfAbsent(file, javaClass);
+            if (existing != null) {
+                javaClass = existing;
+            }
+        }
+        return javaClass;
+    }
+
+    @Nullable
+    private JavaClass findPsiClass(@NotNull FqName fqName) {
+        PsiClass psiClass = JavaPsiFacade.getInstance(project).findClass(fqName.asString(), GlobalSearchScope.allScope(project));
+        return psiClass != null ? new JavaClassImpl(psiClass) : null;
+    }
+
+    private boolean hasExternalAnnotations(@NotNull String packageName) {
+        if (externalAnnotationsRoots.isEmpty()) return false;
+
+        Boolean result = packageHasExternalAnnotations.get(packageName);
+        if (result == null) {
+            result = false;
+            String path = packageName.isEmpty() ? EXTERNAL_ANNOTATIONS_FILE_NAME : packageName + "/" + EXTERNAL_ANNOTATIONS_FILE_NAME;
+            for (VirtualFile root : externalAnnotationsRoots) {
+                if (root.findFileByRelativePath(path) != null) {
+                    result = true;
+                    break;
+                }
+            }
+            packageHasExternalAnnotations.put(packageName, result);
+        }
+        return result;
+    }
+}
@@ -24,20 +24,31 @@ import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileFinder;
 import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileKotlinClassFinder;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 public class CliVirtualFileFinder extends VirtualFileKotlinClassFinder implements VirtualFileFinder {
 
     @NotNull
-    private final ClassPath classPath;
+    private final ClassPathIndex index;
 
-    public CliVirtualFileFinder(@NotNull ClassPath path) {
-        classPath = path;
+    public CliVirtualFileFinder(@NotNull ClassPathIndex index) {
+        this.index = index;
     }
 
     @Nullable
     @Override
     public VirtualFile findVirtualFileWithHeader(@NotNull FqName className) {
-        for (VirtualFile root : classPath) {
-            VirtualFile fileInRoot = findFileInRoot(className.asString(), root, '.');
+        List<String> segments = splitName(className.asString(), '.');
+
+        for (Map.Entry<Integer, Integer> entry : getRootToPackageLength(index, segments).entrySet()) {
+            int packageLength = entry.getValue();
+            String packageName = join(segments, 0, packageLength, '/');
+            String fileName = join(segments, packageLength, segments.size(), '$') + ".class";
+
+            VirtualFile fileInRoot = index.findFileInRoot(entry.getKey(), packageName, fileName);
             //NOTE: currently we use VirtualFileFinder to find Kotlin binaries only
             if (fileInRoot != null && KotlinBinaryClassCache.getKotlinBinaryClass(fileInRoot) != null) {
                 return fileInRoot;
@@ -48,43 +59,53 @@ public class CliVirtualFileFinder extends VirtualFileKotlinClassFinder implement
 
     @Override
     public VirtualFile findVirtualFile(@NotNull String internalName) {
-        for (VirtualFile root : classPath) {
-            VirtualFile fileInRoot = findFileInRoot(internalName, root, '/');
-            if (fileInRoot != null) {
-                return fileInRoot;
+        int lastSlash = internalName.lastIndexOf('/');
+        String packageName = lastSlash < 0 ? "" : internalName.substring(0, lastSlash);
+        String className = internalName.substring(lastSlash + 1).replace('.', '$');
+        return index.findFile(packageName, className + ".class");
+    }
+
+    /**
+     * For each root containing some prefix of the name as a package, finds the longest such prefix: the rest of the name is the class
+     * name in that package. The roots are sorted in the class path order
+     */
+    @NotNull
+    /* package */ static TreeMap<Integer, Integer> getRootToPackageLength(@NotNull ClassPathIndex index, @NotNull List<String> segments) {
+        TreeMap<Integer, Integer> rootToPackageLength = new TreeMap<Integer, Integer>();
+        for (int packageLength = segments.size() - 1; packageLength >= 0; packageLength--) {
+            for (int root : index.getRootsForPackage(join(segments, 0, packageLength, '/'))) {
+                if (!rootToPackageLength.containsKey(root)) {
+                    rootToPackageLength.put(root, packageLength);
+                }
             }
         }
-        return null;
+        return rootToPackageLength;
     }
 
-    //NOTE: copied with some changes from CoreJavaFileManager
-    @Nullable
-    private static VirtualFile findFileInRoot(@NotNull String qName, @NotNull VirtualFile root, char separator) {
-        String pathRest = qName;
-        VirtualFile cur = root;
-
+    @NotNull
+    /* package */ static List<String> splitName(@NotNull String name, char separator) {
+        List<String> result = new ArrayList<String>();
+        int start = 0;
         while (true) {
-            int dot = pathRest.indexOf(separator);
-            if (dot < 0) break;
-
-            String pathComponent = pathRest.substring(0, dot);
-            VirtualFile child = cur.findChild(pathComponent);
-
-            if (child == null) break;
-            pathRest = pathRest.substring(dot + 1);
-            cur = child;
+            int end = name.indexOf(separator, start);
+            if (end < 0) break;
+            result.add(name.substring(start, end));
+            start = end + 1;
         }
+        result.add(name.substring(start));
+        return result;
+    }
 
-        String className = pathRest.replace('.', '$');
-        VirtualFile vFile = cur.findChild(className + ".class");
-        if (vFile != null) {
-            if (!vFile.isValid()) {
-                //TODO: log
-                return null;
-            }
-            return vFile;
+    @NotNull
+    /* package */ static String join(@NotNull List<String> segments, int from, int to, char separator) {
+        if (from == to) return "";
+        if (to == from + 1) return segments.get(from);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) sb.append(separator);
+            sb.append(segments.get(i));
         }
-        return null;
+        return sb.toString();
     }
-
 }
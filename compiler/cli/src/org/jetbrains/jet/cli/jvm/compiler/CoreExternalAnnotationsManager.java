@@ -41,6 +41,11 @@ public class CoreExternalAnnotationsManager extends BaseExternalAnnotationsManag
         externalAnnotationsRoots.add(externalAnnotationsRoot);
     }
 
+    @NotNull
+    public List<VirtualFile> getExternalAnnotationsRoots() {
+        return externalAnnotationsRoots;
+    }
+
     @Override
     protected boolean hasAnyAnnotationsRoots() {
         return true;
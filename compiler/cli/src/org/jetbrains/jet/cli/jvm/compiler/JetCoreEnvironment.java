@@ -31,6 +31,7 @@ import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElementFinder;
 import com.intellij.psi.PsiFile;
@@ -55,6 +56,7 @@ import org.jetbrains.jet.lang.parsing.JetParserDefinition;
 import org.jetbrains.jet.lang.parsing.JetScriptDefinitionProvider;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaClassFinder;
 import org.jetbrains.jet.lang.resolve.kotlin.KotlinBinaryClassCache;
 import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileFinder;
 import org.jetbrains.jet.lang.resolve.lazy.declarations.CliDeclarationProviderFactoryService;
@@ -63,8 +65,8 @@ import org.jetbrains.jet.plugin.JetFileType;
 import org.jetbrains.jet.utils.PathUtil;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.reflect.Field;
+import java.util.*;
 
 import static org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity.ERROR;
 import static org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity.WARNING;
@@ -73,6 +75,8 @@ import static org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity.WARN
 public class JetCoreEnvironment {
 
     private static final Object APPLICATION_LOCK = new Object();
+    // The map of CoreJarFileSystem from paths of jars to their handlers
+    private static final String JAR_HANDLERS_FIELD = "myHandlers";
     private static JavaCoreApplicationEnvironment ourApplicationEnvironment;
     private static int ourProjectCount = 0;
 
@@ -101,6 +105,76 @@ public class JetCoreEnvironment {
         return environment;
     }
 
+    /**
+     * Keeps the application environment shared by production environments alive until the given disposable is disposed,
+     * so that it's reused by compilations which don't overlap in time (e.g. in the compile daemon)
+     */
+    public static void keepApplicationEnvironment(@NotNull Disposable parentDisposable) {
+        synchronized (APPLICATION_LOCK) {
+            getOrCreateApplicationEnvironmentForProduction();
+            ourProjectCount++;
+        }
+        Disposer.register(parentDisposable, new Disposable() {
+            @Override
+            public void dispose() {
+                synchronized (APPLICATION_LOCK) {
+                    if (--ourProjectCount <= 0) {
+                        disposeApplicationEnvironment();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Makes the shared application environment forget what it has read from the given jars, so that they are read again
+     * when they are used next time. Must not be called while any compilation is running.
+     *
+     * IntelliJ core's jar file system has no API for this, so its handlers of the jars are removed from its map of handlers.
+     *
+     * @return {@code false} if the handler of some jar wasn't found and removed, and the application environment should be recreated
+     */
+    public static boolean dropJarsFromApplicationEnvironment(@NotNull Collection<File> jars) {
+        synchronized (APPLICATION_LOCK) {
+            if (ourApplicationEnvironment == null || jars.isEmpty()) return true;
+
+            Set<File> jarFiles = new HashSet<File>();
+            for (File jar : jars) {
+                jarFiles.add(jar.getAbsoluteFile());
+            }
+
+            Object handlers;
+            try {
+                Field field = CoreJarFileSystem.class.getDeclaredField(JAR_HANDLERS_FIELD);
+                field.setAccessible(true);
+                handlers = field.get(ourApplicationEnvironment.getJarFileSystem());
+            }
+            catch (NoSuchFieldException e) {
+                return false;
+            }
+            catch (IllegalAccessException e) {
+                return false;
+            }
+            if (!(handlers instanceof Map)) return false;
+
+            Set<File> dropped = new HashSet<File>();
+            //noinspection SynchronizationOnLocalVariableOrMethodParameter
+            synchronized (handlers) {
+                for (Iterator<?> iterator = ((Map<?, ?>) handlers).keySet().iterator(); iterator.hasNext(); ) {
+                    Object key = iterator.next();
+                    if (!(key instanceof String)) continue;
+
+                    File jar = new File((String) key).getAbsoluteFile();
+                    if (jarFiles.contains(jar)) {
+                        iterator.remove();
+                        dropped.add(jar);
+                    }
+                }
+            }
+            return dropped.containsAll(jarFiles);
+        }
+    }
+
     @TestOnly
     @NotNull
     public static JetCoreEnvironment createForTests(@NotNull Disposable parentDisposable, @NotNull CompilerConfiguration configuration) {
@@ -210,7 +284,12 @@ public class JetCoreEnvironment {
         JetScriptDefinitionProvider.getInstance(project).addScriptDefinitions(
                 configuration.getList(CommonConfigurationKeys.SCRIPT_DEFINITIONS_KEY));
 
-        project.registerService(VirtualFileFinder.class, new CliVirtualFileFinder(classPath));
+        ClassPathIndex classPathIndex = ClassPathIndex.create(classPath, configuration.get(JVMConfigurationKeys.CLASSPATH_INDEX_CACHE));
+        project.registerService(VirtualFileFinder.class, new CliVirtualFileFinder(classPathIndex));
+        if (configuration.get(JVMConfigurationKeys.LOAD_JAVA_CLASSES_FROM_BINARIES, false)) {
+            project.registerService(BinaryJavaClassFinder.class, new CliBinaryJavaClassFinder(
+                    project, classPathIndex, annotationsManager.getExternalAnnotationsRoots()));
+        }
 
         project.registerService(PsiDocumentManager.class, new MockPsiDocumentManager());
     }
@@ -288,7 +367,7 @@ public class JetCoreEnvironment {
                 return;
             }
             projectEnvironment.addJarToClassPath(path);
-            classPath.add(jarFile);
+            classPath.add(jarFile, path);
         }
         else {
             VirtualFile root = getMyApplicationEnvironment().getLocalFileSystem().findFileByPath(path.getAbsolutePath());
@@ -297,7 +376,7 @@ public class JetCoreEnvironment {
                 return;
             }
             projectEnvironment.addSourcesToClasspath(root);
-            classPath.add(root);
+            classPath.add(root, path);
         }
     }
 
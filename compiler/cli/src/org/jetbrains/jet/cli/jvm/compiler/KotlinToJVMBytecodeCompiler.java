@@ -45,13 +45,16 @@ import org.jetbrains.jet.lang.parsing.JetScriptDefinition;
 import org.jetbrains.jet.lang.parsing.JetScriptDefinitionProvider;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.ScriptNameUtil;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.plugin.MainFunctionDetector;
+import org.jetbrains.jet.utils.CompilationMetrics;
 import org.jetbrains.jet.utils.KotlinPaths;
+import org.jetbrains.jet.utils.UtilsPackage;
 
 import java.io.File;
 import java.net.URL;
@@ -69,6 +72,16 @@ public class KotlinToJVMBytecodeCompiler {
 
     @Nullable
     public static ClassFileFactory compileModule(CompilerConfiguration configuration, Module module, File directory) {
+        return compileModule(configuration, module, directory, null);
+    }
+
+    @Nullable
+    private static ClassFileFactory compileModule(
+            CompilerConfiguration configuration,
+            Module module,
+            File directory,
+            @Nullable StreamingOutput streamingOutput
+    ) {
         List<String> sourceFiles = module.getSourceFiles();
         if (sourceFiles.isEmpty()) {
             throw new CompileEnvironmentException("No source files where defined in module " + module.getModuleName());
@@ -102,7 +115,7 @@ public class KotlinToJVMBytecodeCompiler {
             moduleEnvironment = JetCoreEnvironment.createForProduction(parentDisposable, compilerConfiguration);
 
 
-            GenerationState generationState = analyzeAndGenerate(moduleEnvironment);
+            GenerationState generationState = analyzeAndGenerate(moduleEnvironment, streamingOutput);
             if (generationState == null) {
                 return null;
             }
@@ -123,7 +136,13 @@ public class KotlinToJVMBytecodeCompiler {
             FqName mainClass
     ) {
         MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
-        CompileEnvironmentUtil.writeOutputToDirOrJar(jarPath, outputDir, jarRuntime, mainClass, outputFiles, messageCollector);
+        CompilationMetrics.Phase phase = CompilationMetrics.phase("output");
+        try {
+            CompileEnvironmentUtil.writeOutputToDirOrJar(jarPath, outputDir, jarRuntime, mainClass, outputFiles, messageCollector);
+        }
+        finally {
+            phase.end();
+        }
     }
 
     public static boolean compileModules(
@@ -138,10 +157,6 @@ public class KotlinToJVMBytecodeCompiler {
             modules = Collections.<Module>singletonList(new ChunkAsOneModule(chunk));
         }
         for (Module module : modules) {
-            ClassFileFactory outputFiles = compileModule(configuration, module, directory);
-            if (outputFiles == null) {
-                return false;
-            }
             OutputDirector outputDir = new OutputDirector() {
                 @NotNull
                 @Override
@@ -157,14 +172,56 @@ public class KotlinToJVMBytecodeCompiler {
                 }
             };
 
+            if (configuration.get(JVMConfigurationKeys.STREAM_OUTPUT, false)) {
+                StreamingOutputWriter writer = createStreamingOutputWriter(configuration, outputDir, jarPath, jarRuntime, null);
+                try {
+                    ClassFileFactory outputFiles = compileModule(configuration, module, directory, writer);
+                    if (outputFiles == null) {
+                        return false;
+                    }
+                    finishStreamingOutput(writer, outputFiles);
+                }
+                finally {
+                    UtilsPackage.closeQuietly(writer);
+                }
+                continue;
+            }
+
+            ClassFileFactory outputFiles = compileModule(configuration, module, directory);
+            if (outputFiles == null) {
+                return false;
+            }
             writeOutput(configuration, outputFiles, outputDir, jarPath, jarRuntime, null);
         }
         return true;
     }
 
+    @NotNull
+    private static StreamingOutputWriter createStreamingOutputWriter(
+            CompilerConfiguration configuration,
+            OutputDirector outputDir,
+            File jarPath,
+            boolean jarRuntime,
+            FqName mainClass
+    ) {
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
+        return StreamingOutputWriter.create(jarPath, outputDir, jarRuntime, mainClass, messageCollector);
+    }
+
+    private static void finishStreamingOutput(@NotNull StreamingOutputWriter writer, @NotNull ClassFileFactory outputFiles) {
+        // Most of the classes are written during the code generation already
+        CompilationMetrics.Phase phase = CompilationMetrics.phase("output");
+        try {
+            writer.finish(outputFiles);
+        }
+        finally {
+            phase.end();
+        }
+    }
+
     @Nullable
-    private static FqName findMainClass(@NotNull GenerationState generationState, @NotNull List<JetFile> files) {
-        MainFunctionDetector mainFunctionDetector = new MainFunctionDetector(generationState.getBindingContext());
+    private static FqName findMainClass(@NotNull BindingContext bindingContext, @NotNull List<JetFile> files) {
+        MainFunctionDetector mainFunctionDetector = new MainFunctionDetector(bindingContext);
         FqName mainClass = null;
         for (JetFile file : files) {
             if (mainFunctionDetector.hasMain(file.getDeclarations())) {
@@ -185,16 +242,19 @@ public class KotlinToJVMBytecodeCompiler {
             @Nullable File outputDir,
             boolean includeRuntime
     ) {
+        OutputDirector outputDirector = outputDir != null ? new SingleDirectoryDirector(outputDir) : null;
+        if (environment.getConfiguration().get(JVMConfigurationKeys.STREAM_OUTPUT, false)) {
+            return compileBunchOfSourcesStreaming(environment, jar, outputDirector, includeRuntime);
+        }
 
         GenerationState generationState = analyzeAndGenerate(environment);
         if (generationState == null) {
             return false;
         }
 
-        FqName mainClass = findMainClass(generationState, environment.getSourceFiles());
+        FqName mainClass = findMainClass(generationState.getBindingContext(), environment.getSourceFiles());
 
         try {
-            OutputDirector outputDirector = outputDir != null ? new SingleDirectoryDirector(outputDir) : null;
             writeOutput(environment.getConfiguration(), generationState.getFactory(), outputDirector, jar, includeRuntime, mainClass);
             return true;
         }
@@ -203,6 +263,37 @@ public class KotlinToJVMBytecodeCompiler {
         }
     }
 
+    private static boolean compileBunchOfSourcesStreaming(
+            @NotNull JetCoreEnvironment environment,
+            @Nullable File jar,
+            @Nullable OutputDirector outputDir,
+            boolean includeRuntime
+    ) {
+        AnalyzeExhaust exhaust = analyze(environment);
+        if (exhaust == null) {
+            return false;
+        }
+
+        exhaust.throwIfError();
+
+        // The manifest is written before the classes, so the main class is looked up before the code generation
+        FqName mainClass = findMainClass(exhaust.getBindingContext(), environment.getSourceFiles());
+        StreamingOutputWriter writer = createStreamingOutputWriter(environment.getConfiguration(), outputDir, jar, includeRuntime, mainClass);
+        try {
+            GenerationState generationState = generate(environment, exhaust, writer);
+            try {
+                finishStreamingOutput(writer, generationState.getFactory());
+                return true;
+            }
+            finally {
+                generationState.destroy();
+            }
+        }
+        finally {
+            UtilsPackage.closeQuietly(writer);
+        }
+    }
+
     public static void compileAndExecuteScript(
             @NotNull KotlinPaths paths,
             @NotNull JetCoreEnvironment environment,
@@ -254,6 +345,11 @@ public class KotlinToJVMBytecodeCompiler {
 
     @Nullable
     public static GenerationState analyzeAndGenerate(@NotNull JetCoreEnvironment environment) {
+        return analyzeAndGenerate(environment, null);
+    }
+
+    @Nullable
+    private static GenerationState analyzeAndGenerate(@NotNull JetCoreEnvironment environment, @Nullable StreamingOutput streamingOutput) {
         AnalyzeExhaust exhaust = analyze(environment);
 
         if (exhaust == null) {
@@ -262,7 +358,7 @@ public class KotlinToJVMBytecodeCompiler {
 
         exhaust.throwIfError();
 
-        return generate(environment, exhaust);
+        return generate(environment, exhaust, streamingOutput);
     }
 
     @Nullable
@@ -277,14 +373,22 @@ public class KotlinToJVMBytecodeCompiler {
                         CliLightClassGenerationSupport support = CliLightClassGenerationSupport.getInstanceForCli(environment.getProject());
                         BindingTrace sharedTrace = support.getTrace();
                         ModuleDescriptorImpl sharedModule = support.getModule();
-                        return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
-                                environment.getProject(),
-                                environment.getSourceFiles(),
-                                sharedTrace,
-                                Predicates.<PsiFile>alwaysTrue(),
-                                false,
-                                sharedModule,
-                                new CliSourcesMemberFilter(environment));
+                        CompilationMetrics.Phase phase = CompilationMetrics.phase("analyze");
+                        try {
+                            return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                                    environment.getProject(),
+                                    environment.getSourceFiles(),
+                                    sharedTrace,
+                                    Predicates.<PsiFile>alwaysTrue(),
+                                    false,
+                                    sharedModule,
+                                    new CliSourcesMemberFilter(environment),
+                                    environment.getConfiguration().get(JVMConfigurationKeys.RESOLVE_THREADS,
+                                                                       CompilerArgumentsUtil.DEFAULT_RESOLVE_THREADS));
+                        }
+                        finally {
+                            phase.end();
+                        }
                     }
                 }, environment.getSourceFiles()
         );
@@ -302,16 +406,28 @@ public class KotlinToJVMBytecodeCompiler {
     }
 
     @NotNull
-    private static GenerationState generate(@NotNull JetCoreEnvironment environment, @NotNull AnalyzeExhaust exhaust) {
+    private static GenerationState generate(
+            @NotNull JetCoreEnvironment environment,
+            @NotNull AnalyzeExhaust exhaust,
+            @Nullable StreamingOutput streamingOutput
+    ) {
         CompilerConfiguration configuration = environment.getConfiguration();
         GenerationState generationState = new GenerationState(
                 environment.getProject(), ClassBuilderFactories.BINARIES, Progress.DEAF, exhaust.getBindingContext(), environment.getSourceFiles(),
                 configuration.get(JVMConfigurationKeys.GENERATE_NOT_NULL_ASSERTIONS, false),
                 configuration.get(JVMConfigurationKeys.GENERATE_NOT_NULL_PARAMETER_ASSERTIONS, false),
                 GenerationState.GenerateClassFilter.GENERATE_ALL,
-                configuration.get(JVMConfigurationKeys.ENABLE_INLINE, CompilerArgumentsUtil.DEFAULT_INLINE_FLAG)
+                configuration.get(JVMConfigurationKeys.ENABLE_INLINE, CompilerArgumentsUtil.DEFAULT_INLINE_FLAG),
+                configuration.get(JVMConfigurationKeys.CODEGEN_THREADS, CompilerArgumentsUtil.DEFAULT_CODEGEN_THREADS)
         );
-        KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION);
+        generationState.getFactory().setStreamingOutput(streamingOutput);
+        CompilationMetrics.Phase phase = CompilationMetrics.phase("codegen");
+        try {
+            KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION);
+        }
+        finally {
+            phase.end();
+        }
         return generationState;
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.OutputFile;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.common.messages.OutputMessageUtil;
+import org.jetbrains.jet.cli.common.output.OutputDirector;
+import org.jetbrains.jet.codegen.ClassFileFactory;
+import org.jetbrains.jet.codegen.StreamingOutput;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.utils.UtilsPackage;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.jetbrains.jet.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
+
+/**
+ * Writes classes to a jar or to output directories while they are being generated, see {@link ClassFileFactory#setStreamingOutput}.
+ *
+ * The output is opened on the first class, so nothing is written if the compilation fails before the code generation.
+ * {@link #finish(ClassFileFactory)} writes the classes which were not streamed, {@link #close()} should always be called afterwards.
+ */
+abstract class StreamingOutputWriter implements StreamingOutput, Closeable {
+    @NotNull
+    static StreamingOutputWriter create(
+            @Nullable File jar,
+            @Nullable OutputDirector outputDir,
+            boolean includeRuntime,
+            @Nullable FqName mainClass,
+            @NotNull MessageCollector messageCollector
+    ) {
+        if (jar != null) {
+            return new ToJar(jar, includeRuntime, mainClass);
+        }
+        else if (outputDir != null) {
+            return new ToDirectory(outputDir, messageCollector);
+        }
+        throw new CompileEnvironmentException("Output directory or jar file is not specified - no files will be saved to the disk");
+    }
+
+    public void finish(@NotNull ClassFileFactory outputFiles) {
+        for (OutputFile file : outputFiles.asList()) {
+            write(file);
+        }
+    }
+
+    private static class ToJar extends StreamingOutputWriter {
+        private final File jar;
+        private final boolean includeRuntime;
+        private final FqName mainClass;
+
+        private JarOutputStream stream;
+        private boolean finished = false;
+        // The same class may be generated again for an inlined call site after it has been written
+        private final Set<String> entries = new HashSet<String>();
+
+        ToJar(@NotNull File jar, boolean includeRuntime, @Nullable FqName mainClass) {
+            this.jar = jar;
+            this.includeRuntime = includeRuntime;
+            this.mainClass = mainClass;
+        }
+
+        @Override
+        public void write(@NotNull OutputFile file) {
+            if (!entries.add(file.getRelativePath())) return;
+            try {
+                JarOutputStream stream = getStream();
+                stream.putNextEntry(new JarEntry(file.getRelativePath()));
+                stream.write(file.asByteArray());
+            }
+            catch (IOException e) {
+                throw new CompileEnvironmentException("Failed to generate jar file", e);
+            }
+        }
+
+        @NotNull
+        private JarOutputStream getStream() throws IOException {
+            if (stream == null) {
+                try {
+                    stream = CompileEnvironmentUtil.createJarOutputStream(new FileOutputStream(jar), mainClass);
+                }
+                catch (FileNotFoundException e) {
+                    throw new CompileEnvironmentException("Invalid jar path " + jar, e);
+                }
+            }
+            return stream;
+        }
+
+        @Override
+        public void finish(@NotNull ClassFileFactory outputFiles) {
+            super.finish(outputFiles);
+            try {
+                JarOutputStream stream = getStream();
+                if (includeRuntime) {
+                    CompileEnvironmentUtil.writeRuntimeToJar(stream);
+                }
+                stream.finish();
+                finished = true;
+            }
+            catch (IOException e) {
+                throw new CompileEnvironmentException("Failed to generate jar file", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (stream == null) return;
+            UtilsPackage.closeQuietly(stream);
+            if (!finished) {
+                // An incomplete jar is worse than no jar at all
+                //noinspection ResultOfMethodCallIgnored
+                jar.delete();
+            }
+        }
+    }
+
+    private static class ToDirectory extends StreamingOutputWriter {
+        private final OutputDirector outputDir;
+        private final MessageCollector messageCollector;
+
+        ToDirectory(@NotNull OutputDirector outputDir, @NotNull MessageCollector messageCollector) {
+            this.outputDir = outputDir;
+            this.messageCollector = messageCollector;
+        }
+
+        @Override
+        public void write(@NotNull OutputFile file) {
+            File output = new File(outputDir.getOutputDirectory(file.getSourceFiles()), file.getRelativePath());
+            messageCollector.report(CompilerMessageSeverity.OUTPUT, OutputMessageUtil.formatOutputMessage(file.getSourceFiles(), output),
+                                    NO_LOCATION);
+            try {
+                FileUtil.writeToFile(output, file.asByteArray());
+            }
+            catch (IOException e) {
+                throw UtilsPackage.rethrow(e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.daemon;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.sampullara.cli.Args;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.K2JVMCompiler;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.*;
+
+import static org.jetbrains.jet.cli.jvm.daemon.CompileDaemonProtocol.*;
+
+/**
+ * A long-lived process which compiles requests of {@link CompileDaemonClient}s one at a time.
+ *
+ * Everything which survives a compilation in one JVM stays warm: the loaded compiler classes, the built-ins, the application
+ * environment with its jar file system and the cache of binary class headers (KotlinBinaryClassCache), and the package lists of
+ * class path jars (ClassPathIndex). When a jar used by one of the previous compilations changes, only this jar is dropped from the
+ * jar file system, so that the classes of the other jars stay loaded.
+ *
+ * The daemon exits after {@link #IDLE_TIMEOUT_PROPERTY} minutes without requests (two hours by default).
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class CompileDaemon {
+    public static final String IDLE_TIMEOUT_PROPERTY = "kotlin.daemon.idle.timeout";
+
+    private static final int DEFAULT_IDLE_TIMEOUT_MINUTES = 120;
+
+    private final File portFile;
+    private final String token;
+    private final long idleTimeoutMillis;
+
+    // Timestamps and sizes of the jars used by previous compilations, which are still cached by the application environment
+    private final Map<File, Long> jarStamps = new HashMap<File, Long>();
+
+    private Disposable applicationHolder;
+    private int applicationEnvironmentsCreated;
+
+    private volatile boolean stopped;
+
+    @TestOnly
+    CompileDaemon(@NotNull File portFile, @NotNull String token, long idleTimeoutMillis) {
+        this.portFile = portFile;
+        this.token = token;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        File daemonDir = getDaemonDir();
+        if (!createDaemonDir(daemonDir)) {
+            System.err.println("Couldn't create daemon directory " + daemonDir);
+            System.exit(1);
+        }
+
+        // Nobody reads the output of the daemon process, so everything goes to the log
+        PrintStream log = new PrintStream(new FileOutputStream(getLogFile(daemonDir)), true);
+        System.setOut(log);
+        System.setErr(log);
+
+        long idleTimeoutMinutes = Long.getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT_MINUTES);
+        String token = new BigInteger(130, new SecureRandom()).toString(32);
+        new CompileDaemon(getPortFile(daemonDir), token, idleTimeoutMinutes * 60 * 1000).run();
+        System.exit(0);
+    }
+
+    void run() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+        try {
+            serverSocket.setSoTimeout((int) Math.min(idleTimeoutMillis, Integer.MAX_VALUE));
+            writePortFile(portFile, serverSocket.getLocalPort(), token);
+            log("Listening on port " + serverSocket.getLocalPort());
+
+            while (!stopped) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                }
+                catch (SocketTimeoutException e) {
+                    log("No requests for " + idleTimeoutMillis / 60000 + " minutes, exiting");
+                    break;
+                }
+
+                try {
+                    handle(socket);
+                }
+                catch (Throwable e) {
+                    log("Failed to handle a request: " + e);
+                    e.printStackTrace();
+                }
+                finally {
+                    try {
+                        socket.close();
+                    }
+                    catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+        finally {
+            // Another daemon may have been started in the meantime, its port file shouldn't be removed
+            String[] current = readPortFile(portFile);
+            if (current != null && token.equals(current[1])) {
+                //noinspection ResultOfMethodCallIgnored
+                portFile.delete();
+            }
+            serverSocket.close();
+        }
+    }
+
+    private void handle(@NotNull Socket socket) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        if (input.readInt() != VERSION || !token.equals(readString(input))) {
+            log("Rejected a request with a wrong protocol version or token");
+            return;
+        }
+
+        byte request = input.readByte();
+        if (request == REQUEST_STOP) {
+            log("Stop requested");
+            stopped = true;
+            return;
+        }
+        if (request != REQUEST_COMPILE) {
+            log("Unknown request: " + request);
+            return;
+        }
+
+        String[] args = new String[input.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readString(input);
+        }
+
+        K2JVMCompilerArguments arguments = new K2JVMCompilerArguments();
+        arguments.freeArgs = Args.parse(arguments, args);
+
+        MessageCollector messageCollector = new MessageCollector() {
+            @Override
+            public void report(
+                    @NotNull CompilerMessageSeverity severity,
+                    @NotNull String message,
+                    @NotNull CompilerMessageLocation location
+            ) {
+                try {
+                    synchronized (output) {
+                        writeMessage(output, severity, message, location);
+                    }
+                }
+                catch (IOException e) {
+                    // The client is gone, there's nobody to report to
+                }
+            }
+        };
+
+        ExitCode exitCode = compile(arguments, messageCollector);
+
+        output.writeByte(REPLY_EXIT_CODE);
+        writeString(output, exitCode.name());
+        output.flush();
+    }
+
+    @NotNull
+    private ExitCode compile(@NotNull K2JVMCompilerArguments arguments, @NotNull MessageCollector messageCollector) {
+        List<File> changedJars = changedJars();
+        if (!changedJars.isEmpty()) {
+            log("Jars used by previous compilations have changed: " + changedJars);
+            if (!JetCoreEnvironment.dropJarsFromApplicationEnvironment(changedJars)) {
+                log("Couldn't drop the changed jars, recreating the environment");
+                Disposer.dispose(applicationHolder);
+                applicationHolder = null;
+                jarStamps.clear();
+            }
+            jarStamps.keySet().removeAll(changedJars);
+        }
+
+        if (applicationHolder == null) {
+            applicationHolder = Disposer.newDisposable();
+            JetCoreEnvironment.keepApplicationEnvironment(applicationHolder);
+            applicationEnvironmentsCreated++;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            return new K2JVMCompiler().exec(messageCollector, arguments);
+        }
+        finally {
+            recordJars(arguments.classpath);
+            recordJars(arguments.annotations);
+            log("Compiled " + arguments.outputDir + " in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    @NotNull
+    private List<File> changedJars() {
+        List<File> result = new ArrayList<File>();
+        for (Map.Entry<File, Long> entry : jarStamps.entrySet()) {
+            if (stamp(entry.getKey()) != entry.getValue()) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    @TestOnly
+    int getApplicationEnvironmentsCreated() {
+        return applicationEnvironmentsCreated;
+    }
+
+    /**
+     * Releases the application environment, the daemon process exits instead
+     */
+    @TestOnly
+    void dispose() {
+        if (applicationHolder != null) {
+            Disposer.dispose(applicationHolder);
+            applicationHolder = null;
+        }
+        jarStamps.clear();
+    }
+
+    private void recordJars(String paths) {
+        if (paths == null) return;
+        for (String path : paths.split(File.pathSeparator)) {
+            File file = new File(path);
+            if (file.isFile()) {
+                jarStamps.put(file, stamp(file));
+            }
+        }
+    }
+
+    private static long stamp(@NotNull File file) {
+        return file.lastModified() * 31 + file.length();
+    }
+
+    private static void log(@NotNull String message) {
+        System.out.println("[" + new Date() + "] " + message);
+    }
+}
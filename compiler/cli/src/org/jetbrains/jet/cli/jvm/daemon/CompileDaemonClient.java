@@ -0,0 +1,256 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.daemon;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.sampullara.cli.ArgumentUtils;
+import com.sampullara.cli.Args;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.K2JVMCompiler;
+import org.jetbrains.jet.utils.PathUtil;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jetbrains.jet.cli.jvm.daemon.CompileDaemonProtocol.*;
+
+/**
+ * Sends compilation requests to a {@link CompileDaemon}, starting the daemon if there's none running
+ */
+public class CompileDaemonClient {
+    private static final Logger LOG = Logger.getInstance(CompileDaemonClient.class);
+
+    private static final long STARTUP_TIMEOUT_MILLIS = 10000;
+    private static final long STARTUP_POLL_MILLIS = 100;
+
+    private CompileDaemonClient() {
+    }
+
+    /**
+     * @return the exit code of the compilation, or {@code null} if it can't be done in the daemon and should be done in process
+     */
+    @Nullable
+    public static ExitCode compile(@NotNull K2JVMCompilerArguments arguments, @NotNull MessageCollector messageCollector) {
+        return compile(arguments, messageCollector, getDaemonDir(), true);
+    }
+
+    @Nullable
+    static ExitCode compile(
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull MessageCollector messageCollector,
+            @NotNull File daemonDir,
+            boolean startIfNotRunning
+    ) {
+        // Scripts are executed and the REPL is interactive, both need the console of the calling process
+        if (arguments.script || (arguments.module == null && arguments.src == null && arguments.freeArgs.isEmpty())) {
+            return null;
+        }
+
+        File portFile = getPortFile(daemonDir);
+        try {
+            Socket socket = connect(portFile);
+            if (socket == null) {
+                if (!startIfNotRunning || !startDaemon(daemonDir)) return null;
+                socket = waitForDaemon(portFile);
+                if (socket == null) return null;
+            }
+
+            try {
+                String[] portAndToken = readPortFile(portFile);
+                if (portAndToken == null) return null;
+                return compile(socket, portAndToken[1], toDaemonArguments(arguments), messageCollector);
+            }
+            finally {
+                socket.close();
+            }
+        }
+        catch (IOException e) {
+            LOG.info("Couldn't compile in the daemon", e);
+            return null;
+        }
+    }
+
+    @NotNull
+    private static ExitCode compile(
+            @NotNull Socket socket,
+            @NotNull String token,
+            @NotNull List<String> args,
+            @NotNull MessageCollector messageCollector
+    ) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        output.writeInt(VERSION);
+        writeString(output, token);
+        output.writeByte(REQUEST_COMPILE);
+        output.writeInt(args.size());
+        for (String arg : args) {
+            writeString(output, arg);
+        }
+        output.flush();
+
+        // If the daemon dies in the middle of the compilation, the caller compiles in process and reports all the messages again,
+        // so nothing is reported until the exit code is received
+        List<ReportedMessage> messages = new ArrayList<ReportedMessage>();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        while (true) {
+            byte reply = input.readByte();
+            if (reply == REPLY_MESSAGE) {
+                CompilerMessageSeverity severity = CompilerMessageSeverity.valueOf(readString(input));
+                String message = readString(input);
+                messages.add(new ReportedMessage(severity, message, readLocation(input)));
+            }
+            else if (reply == REPLY_EXIT_CODE) {
+                ExitCode exitCode = ExitCode.valueOf(readString(input));
+                for (ReportedMessage message : messages) {
+                    messageCollector.report(message.severity, message.message, message.location);
+                }
+                return exitCode;
+            }
+            else {
+                throw new IOException("Unexpected reply from the daemon: " + reply);
+            }
+        }
+    }
+
+    /**
+     * The daemon has its own working directory, so all the paths are made absolute
+     */
+    @NotNull
+    private static List<String> toDaemonArguments(@NotNull K2JVMCompilerArguments arguments) {
+        K2JVMCompilerArguments copy = new K2JVMCompilerArguments();
+        List<String> args = ArgumentUtils.convertArgumentsToStringList(arguments, new K2JVMCompilerArguments());
+        args.addAll(arguments.freeArgs);
+        copy.freeArgs = Args.parse(copy, args.toArray(new String[args.size()]));
+
+        copy.daemon = false;
+        copy.src = absolutePaths(copy.src);
+        copy.classpath = absolutePaths(copy.classpath);
+        copy.annotations = absolutePaths(copy.annotations);
+        copy.outputDir = absolutePath(copy.outputDir);
+        copy.jar = absolutePath(copy.jar);
+        copy.module = absolutePath(copy.module);
+        copy.kotlinHome = absolutePath(copy.kotlinHome);
+        copy.classpathIndexCache = absolutePath(copy.classpathIndexCache);
+        copy.reportPerf = absolutePath(copy.reportPerf);
+
+        List<String> freeArgs = new ArrayList<String>();
+        for (String freeArg : copy.freeArgs) {
+            freeArgs.add(absolutePath(freeArg));
+        }
+
+        List<String> result = ArgumentUtils.convertArgumentsToStringList(copy, new K2JVMCompilerArguments());
+        result.addAll(freeArgs);
+        return result;
+    }
+
+    @Nullable
+    private static String absolutePath(@Nullable String path) {
+        return path != null ? new File(path).getAbsolutePath() : null;
+    }
+
+    @Nullable
+    private static String absolutePaths(@Nullable String paths) {
+        if (paths == null) return null;
+        StringBuilder result = new StringBuilder();
+        for (String path : paths.split(File.pathSeparator)) {
+            if (result.length() > 0) {
+                result.append(File.pathSeparator);
+            }
+            result.append(path.isEmpty() ? path : absolutePath(path));
+        }
+        return result.toString();
+    }
+
+    @Nullable
+    private static Socket connect(@NotNull File portFile) {
+        String[] portAndToken = readPortFile(portFile);
+        if (portAndToken == null) return null;
+        try {
+            return new Socket(InetAddress.getByName(null), Integer.parseInt(portAndToken[0]));
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+        catch (IOException e) {
+            // The daemon has exited without removing its port file
+            return null;
+        }
+    }
+
+    private static boolean startDaemon(@NotNull File daemonDir) throws IOException {
+        File compilerJar = PathUtil.getJarPathForClass(K2JVMCompiler.class);
+        if (!compilerJar.isFile()) {
+            LOG.info("Compiler is not loaded from a jar, the daemon can't be started: " + compilerJar);
+            return false;
+        }
+
+        File java = new File(System.getProperty("java.home"), "bin" + File.separator + "java");
+        Process process = new ProcessBuilder(
+                java.getPath(),
+                "-D" + DAEMON_DIR_PROPERTY + "=" + daemonDir.getAbsolutePath(),
+                "-cp", compilerJar.getAbsolutePath(),
+                CompileDaemon.class.getName()
+        ).start();
+
+        // The daemon writes everything to its log, and it shouldn't be tied to the streams of this process
+        process.getInputStream().close();
+        process.getErrorStream().close();
+        process.getOutputStream().close();
+        return true;
+    }
+
+    @Nullable
+    private static Socket waitForDaemon(@NotNull File portFile) {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Socket socket = connect(portFile);
+            if (socket != null) return socket;
+            try {
+                Thread.sleep(STARTUP_POLL_MILLIS);
+            }
+            catch (InterruptedException e) {
+                return null;
+            }
+        }
+        LOG.info("Daemon hasn't started in " + STARTUP_TIMEOUT_MILLIS + " ms");
+        return null;
+    }
+
+    private static final class ReportedMessage {
+        private final CompilerMessageSeverity severity;
+        private final String message;
+        private final CompilerMessageLocation location;
+
+        private ReportedMessage(
+                @NotNull CompilerMessageSeverity severity,
+                @NotNull String message,
+                @NotNull CompilerMessageLocation location
+        ) {
+            this.severity = severity;
+            this.message = message;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.daemon;
+
+import com.intellij.openapi.util.SystemInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.cli.common.KotlinVersion;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.utils.UtilsPackage;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+/**
+ * The protocol between {@link CompileDaemonClient} and {@link CompileDaemon}.
+ *
+ * The daemon listens on a loopback port, which is written to the port file together with a random token. A client connects,
+ * sends the protocol version, the token and a request. For a compilation request the client sends the compiler arguments
+ * with absolute paths, and the daemon replies with a number of compiler messages followed by the exit code.
+ */
+public final class CompileDaemonProtocol {
+    public static final int VERSION = 1;
+
+    public static final byte REQUEST_COMPILE = 1;
+    public static final byte REQUEST_STOP = 2;
+
+    public static final byte REPLY_MESSAGE = 1;
+    public static final byte REPLY_EXIT_CODE = 2;
+
+    public static final String DAEMON_DIR_PROPERTY = "kotlin.daemon.dir";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private CompileDaemonProtocol() {
+    }
+
+    @NotNull
+    public static File getDaemonDir() {
+        String dir = System.getProperty(DAEMON_DIR_PROPERTY);
+        return dir != null ? new File(dir) : new File(System.getProperty("user.home"), ".kotlin" + File.separator + "daemon");
+    }
+
+    /**
+     * Daemons of different compiler versions may run at the same time, each one has its own port file
+     */
+    @NotNull
+    public static File getPortFile(@NotNull File daemonDir) {
+        return new File(daemonDir, "daemon-" + KotlinVersion.VERSION + ".port");
+    }
+
+    @NotNull
+    public static File getLogFile(@NotNull File daemonDir) {
+        return new File(daemonDir, "daemon-" + KotlinVersion.VERSION + ".log");
+    }
+
+    /**
+     * Creates the daemon directory accessible only by its owner, so that the files created in it are never readable by other users,
+     * even before their own permissions are restricted (Java 6 can't create a file with the given permissions)
+     */
+    public static boolean createDaemonDir(@NotNull File daemonDir) {
+        if (!daemonDir.isDirectory() && !daemonDir.mkdirs()) return false;
+        if (SystemInfo.isWindows) return true;
+        return restrictToOwner(daemonDir) && daemonDir.setExecutable(false, false) && daemonDir.setExecutable(true, true);
+    }
+
+    public static void writePortFile(@NotNull File portFile, int port, @NotNull String token) throws IOException {
+        File tmpFile = new File(portFile.getPath() + ".tmp");
+        //noinspection ResultOfMethodCallIgnored
+        tmpFile.delete();
+        // The token protects the daemon from other users of the machine, so only the owner may read it.
+        // The permissions are restricted while the file is still empty, before the token is written
+        if (!tmpFile.createNewFile() || !restrictToOwner(tmpFile)) {
+            throw new IOException("Couldn't create daemon port file " + tmpFile);
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), UTF_8);
+        try {
+            writer.write(port + "\n" + token + "\n");
+        }
+        finally {
+            writer.close();
+        }
+        if (!tmpFile.renameTo(portFile)) {
+            //noinspection ResultOfMethodCallIgnored
+            portFile.delete();
+            if (!tmpFile.renameTo(portFile)) {
+                throw new IOException("Couldn't write daemon port file " + portFile);
+            }
+        }
+    }
+
+    private static boolean restrictToOwner(@NotNull File file) {
+        // Windows has no such permissions, the user's home directory is protected by its access control list instead
+        if (SystemInfo.isWindows) return true;
+        return file.setReadable(false, false) && file.setReadable(true, true) &&
+               file.setWritable(false, false) && file.setWritable(true, true);
+    }
+
+    /**
+     * @return the port and the token, or {@code null} if there's no port file or it can't be read
+     */
+    @Nullable
+    public static String[] readPortFile(@NotNull File portFile) {
+        if (!portFile.isFile()) return null;
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(portFile), UTF_8));
+            String port = reader.readLine();
+            String token = reader.readLine();
+            return port != null && token != null ? new String[] {port, token} : null;
+        }
+        catch (IOException e) {
+            return null;
+        }
+        finally {
+            UtilsPackage.closeQuietly(reader);
+        }
+    }
+
+    // DataOutput.writeUTF() is limited to 64K, which isn't enough for class paths
+
+    public static void writeString(@NotNull DataOutput output, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    @NotNull
+    public static String readString(@NotNull DataInput input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static void writeMessage(
+            @NotNull DataOutput output,
+            @NotNull CompilerMessageSeverity severity,
+            @NotNull String message,
+            @NotNull CompilerMessageLocation location
+    ) throws IOException {
+        output.writeByte(REPLY_MESSAGE);
+        writeString(output, severity.name());
+        writeString(output, message);
+        String path = location.getPath();
+        output.writeBoolean(path != null);
+        if (path != null) {
+            writeString(output, path);
+            output.writeInt(location.getLine());
+            output.writeInt(location.getColumn());
+        }
+    }
+
+    @NotNull
+    public static CompilerMessageLocation readLocation(@NotNull DataInput input) throws IOException {
+        if (!input.readBoolean()) return CompilerMessageLocation.NO_LOCATION;
+        String path = readString(input);
+        int line = input.readInt();
+        int column = input.readInt();
+        return CompilerMessageLocation.create(path, line, column);
+    }
+}
@@ -96,8 +96,17 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
             @NotNull BindingTrace trace,
             boolean addBuiltIns
     ) {
-        GlobalContextImpl globalContext = ContextPackage.GlobalContext();
+        return createLazyResolveSession(project, files, trace, addBuiltIns, ContextPackage.GlobalContext());
+    }
 
+    @NotNull
+    public static ResolveSession createLazyResolveSession(
+            @NotNull Project project,
+            @NotNull Collection<JetFile> files,
+            @NotNull BindingTrace trace,
+            boolean addBuiltIns,
+            @NotNull GlobalContextImpl globalContext
+    ) {
         DeclarationProviderFactory declarationProviderFactory =
                 DeclarationProviderFactoryService.createDeclarationProviderFactory(project, globalContext.getStorageManager(), files);
 
@@ -198,10 +207,26 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
             boolean storeContextForBodiesResolve,
             ModuleDescriptorImpl module,
             MemberFilter memberFilter
+    ) {
+        return analyzeFilesWithJavaIntegration(project, files, trace, filesToAnalyzeCompletely, storeContextForBodiesResolve, module,
+                                               memberFilter, 1);
+    }
+
+    @NotNull
+    public static AnalyzeExhaust analyzeFilesWithJavaIntegration(
+            Project project,
+            Collection<JetFile> files,
+            BindingTrace trace,
+            Predicate<PsiFile> filesToAnalyzeCompletely,
+            boolean storeContextForBodiesResolve,
+            ModuleDescriptorImpl module,
+            MemberFilter memberFilter,
+            int bodyResolveThreads
     ) {
         GlobalContext globalContext = ContextPackage.GlobalContext();
         return analyzeFilesWithJavaIntegrationInGlobalContext(project, files, trace, filesToAnalyzeCompletely,
-                                                              storeContextForBodiesResolve, module, globalContext, memberFilter);
+                                                              storeContextForBodiesResolve, module, globalContext, memberFilter,
+                                                              bodyResolveThreads);
     }
 
     @NotNull
@@ -214,13 +239,30 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
             ModuleDescriptorImpl module,
             GlobalContext globalContext,
             MemberFilter memberFilter
+    ) {
+        return analyzeFilesWithJavaIntegrationInGlobalContext(project, files, trace, filesToAnalyzeCompletely,
+                                                              storeContextForBodiesResolve, module, globalContext, memberFilter, 1);
+    }
+
+    @NotNull
+    public static AnalyzeExhaust analyzeFilesWithJavaIntegrationInGlobalContext(
+            Project project,
+            Collection<JetFile> files,
+            BindingTrace trace,
+            Predicate<PsiFile> filesToAnalyzeCompletely,
+            boolean storeContextForBodiesResolve,
+            ModuleDescriptorImpl module,
+            GlobalContext globalContext,
+            MemberFilter memberFilter,
+            int bodyResolveThreads
     ) {
         TopDownAnalysisParameters topDownAnalysisParameters = new TopDownAnalysisParameters(
                 globalContext.getStorageManager(),
                 globalContext.getExceptionTracker(),
                 filesToAnalyzeCompletely,
                 false,
-                false
+                false,
+                bodyResolveThreads
         );
 
         InjectorForTopDownAnalyzerForJvm injector = new InjectorForTopDownAnalyzerForJvm(project, topDownAnalysisParameters, trace, module,
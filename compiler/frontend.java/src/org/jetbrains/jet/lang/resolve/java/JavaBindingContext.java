@@ -16,8 +16,12 @@
 
 package org.jetbrains.jet.lang.resolve.java;
 
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
 import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.SimpleFunctionDescriptor;
 import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaMethod;
 import org.jetbrains.jet.util.slicedmap.Slices;
 import org.jetbrains.jet.util.slicedmap.WritableSlice;
 
@@ -30,6 +34,12 @@ public class JavaBindingContext {
 
     public static final WritableSlice<DeclarationDescriptor, List<String>> LOAD_FROM_JAVA_SIGNATURE_ERRORS = Slices.createCollectiveSlice();
 
+    /**
+     * Classes and methods loaded from class files without PSI (see BinaryJavaClassFinder), which can't be recorded to the PSI-based slices
+     */
+    public static final WritableSlice<JavaClass, ClassDescriptor> BINARY_CLASS = Slices.createSimpleSlice();
+    public static final WritableSlice<SimpleFunctionDescriptor, JavaMethod> BINARY_METHOD = Slices.createSimpleSlice();
+
     private JavaBindingContext() {
     }
 }
@@ -16,6 +16,7 @@
 
 package org.jetbrains.jet.lang.resolve.java;
 
+import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -27,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaPackage;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaClassFinder;
 import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaClassImpl;
 import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaPackageImpl;
 import org.jetbrains.jet.lang.resolve.name.FqName;
@@ -41,6 +43,8 @@ public class JavaClassFinderImpl implements JavaClassFinder {
 
     private GlobalSearchScope javaSearchScope;
     private JavaPsiFacadeKotlinHacks javaFacade;
+    @Nullable
+    private BinaryJavaClassFinder binaryClassFinder;
 
     @Inject
     public void setProject(@NotNull Project project) {
@@ -73,11 +77,17 @@ public class JavaClassFinderImpl implements JavaClassFinder {
             }
         };
         javaFacade = new JavaPsiFacadeKotlinHacks(project);
+        binaryClassFinder = ServiceManager.getService(project, BinaryJavaClassFinder.class);
     }
 
     @Nullable
     @Override
     public JavaClass findClass(@NotNull FqName fqName) {
+        if (binaryClassFinder != null) {
+            JavaClass binaryClass = binaryClassFinder.findClass(fqName);
+            if (binaryClass != null) return binaryClass;
+        }
+
         PsiClass psiClass = javaFacade.findClass(fqName.asString(), javaSearchScope);
         if (psiClass == null) return null;
 
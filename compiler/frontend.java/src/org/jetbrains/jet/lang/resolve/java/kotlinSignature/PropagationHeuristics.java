@@ -29,7 +29,8 @@ import org.jetbrains.jet.lang.descriptors.TypeParameterDescriptor;
 import org.jetbrains.jet.lang.descriptors.Visibilities;
 import org.jetbrains.jet.lang.resolve.java.resolver.DescriptorResolverUtils;
 import org.jetbrains.jet.lang.resolve.java.structure.*;
-import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaMethodImpl;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaTypeSubstitutor;
+import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaClassifierTypeImpl;
 import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaTypeSubstitutorImpl;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
@@ -124,10 +125,9 @@ class PropagationHeuristics {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     @NotNull
-    static List<JavaMethodImpl> getSuperMethods(@NotNull JavaMethod method) {
-        return (List) new SuperMethodCollector(method).collect();
+    static List<JavaMethod> getSuperMethods(@NotNull JavaMethod method) {
+        return new SuperMethodCollector(method).collect();
     }
 
     private PropagationHeuristics() {
@@ -206,7 +206,7 @@ class PropagationHeuristics {
                         parameterFromSuper.isVararg()
                 ));
 
-                if (!Comparing.equal(originalType, typeFromSuper)) {
+                if (!areErasuresEqual(originalType, typeFromSuper)) {
                     return false;
                 }
             }
@@ -214,6 +214,14 @@ class PropagationHeuristics {
             return true;
         }
 
+        private static boolean areErasuresEqual(@Nullable JavaType type1, @Nullable JavaType type2) {
+            if (Comparing.equal(type1, type2)) return true;
+            if (type1 == null || type2 == null || type1.getClass() == type2.getClass()) return false;
+
+            // Types loaded from PSI and from class files are never equal, so they are compared by names
+            return Comparing.equal(DescriptorResolverUtils.erasedTypeName(type1), DescriptorResolverUtils.erasedTypeName(type2));
+        }
+
         @NotNull
         private static JavaType varargToArray(@NotNull JavaType type, boolean isVararg) {
             return isVararg ? ((JavaArrayType) type).getComponentType().createArrayType() : type;
@@ -227,7 +235,9 @@ class PropagationHeuristics {
                 JavaType value = entry.getValue();
                 erasedMap.put(entry.getKey(), value == null ? null : erasure(value));
             }
-            return JavaTypeSubstitutorImpl.create(erasedMap);
+            return type instanceof JavaClassifierTypeImpl
+                   ? JavaTypeSubstitutorImpl.create(erasedMap)
+                   : new BinaryJavaTypeSubstitutor(erasedMap);
         }
 
         private static boolean canHaveSuperMethod(@NotNull JavaMethod method) {
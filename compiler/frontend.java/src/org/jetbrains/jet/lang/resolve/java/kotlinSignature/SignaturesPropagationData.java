@@ -18,6 +18,7 @@ package org.jetbrains.jet.lang.resolve.java.kotlinSignature;
 
 import com.google.common.collect.*;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.SystemInfo;
 import com.intellij.psi.PsiElement;
@@ -36,12 +37,14 @@ import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingContextUtils;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.java.JavaBindingContext;
 import org.jetbrains.jet.lang.resolve.java.jetAsJava.KotlinLightMethod;
 import org.jetbrains.jet.lang.resolve.java.mapping.JavaToKotlinClassMap;
 import org.jetbrains.jet.lang.resolve.java.resolver.DescriptorResolverUtils;
 import org.jetbrains.jet.lang.resolve.java.resolver.TypeUsage;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaMethod;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaValueParameter;
 import org.jetbrains.jet.lang.resolve.java.structure.impl.JavaMethodImpl;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
@@ -262,10 +265,10 @@ public class SignaturesPropagationData {
 
         Map<ClassDescriptor, JetType> superclassToSupertype = getSuperclassToSupertypeMap(containingClass);
 
-        Multimap<FqName, Pair<FunctionDescriptor, JavaMethodImpl>> superclassToFunctions =
+        Multimap<FqName, Pair<FunctionDescriptor, JavaMethod>> superclassToFunctions =
                 getSuperclassToFunctionsMultimap(method, trace.getBindingContext(), containingClass);
 
-        for (JavaMethodImpl superMethod : PropagationHeuristics.getSuperMethods(method)) {
+        for (JavaMethod superMethod : PropagationHeuristics.getSuperMethods(method)) {
             JavaClass javaClass = superMethod.getContainingClass();
             FqName classFqName = javaClass.getFqName();
             assert classFqName != null : "Class FQ name should not be null: " + javaClass;
@@ -277,8 +280,9 @@ public class SignaturesPropagationData {
                 continue;
             }
 
-            DeclarationDescriptor superFun = superMethod.getPsi() instanceof KotlinLightMethod
-                                             ? trace.get(BindingContext.DECLARATION_TO_DESCRIPTOR, ((KotlinLightMethod) superMethod.getPsi()).getOrigin())
+            PsiMethod superPsiMethod = superMethod instanceof JavaMethodImpl ? ((JavaMethodImpl) superMethod).getPsi() : null;
+            DeclarationDescriptor superFun = superPsiMethod instanceof KotlinLightMethod
+                                             ? trace.get(BindingContext.DECLARATION_TO_DESCRIPTOR, ((KotlinLightMethod) superPsiMethod).getOrigin())
                                              : findSuperFunction(superclassToFunctions.get(classFqName), superMethod);
             if (superFun == null) {
                 // Super methods which are Object methods in interfaces are not loaded by JDR.
@@ -307,12 +311,12 @@ public class SignaturesPropagationData {
     }
 
     @NotNull
-    private static Multimap<FqName, Pair<FunctionDescriptor, JavaMethodImpl>> getSuperclassToFunctionsMultimap(
+    private static Multimap<FqName, Pair<FunctionDescriptor, JavaMethod>> getSuperclassToFunctionsMultimap(
             @NotNull JavaMethod method,
             @NotNull BindingContext bindingContext,
             @NotNull ClassDescriptor containingClass
     ) {
-        Multimap<FqName, Pair<FunctionDescriptor, JavaMethodImpl>> result = HashMultimap.create();
+        Multimap<FqName, Pair<FunctionDescriptor, JavaMethod>> result = HashMultimap.create();
 
         Name functionName = method.getName();
         int parameterCount = method.getValueParameters().size();
@@ -328,7 +332,13 @@ public class SignaturesPropagationData {
                     fun.getValueParameters().size() + (fun.getReceiverParameter() != null ? 1 : 0) == parameterCount) {
                     PsiElement declaration = BindingContextUtils.descriptorToDeclaration(bindingContext, fun);
                     if (declaration instanceof PsiMethod) {
-                        result.put(fqName, Pair.create(fun, new JavaMethodImpl((PsiMethod) declaration)));
+                        result.put(fqName, Pair.<FunctionDescriptor, JavaMethod>create(fun, new JavaMethodImpl((PsiMethod) declaration)));
+                    }
+                    else if (fun instanceof SimpleFunctionDescriptor) {
+                        JavaMethod binaryMethod = bindingContext.get(JavaBindingContext.BINARY_METHOD, (SimpleFunctionDescriptor) fun);
+                        if (binaryMethod != null) {
+                            result.put(fqName, Pair.create(fun, binaryMethod));
+                        }
                     } // else declaration is null or JetNamedFunction: both cases are processed later
                 }
             }
@@ -338,18 +348,40 @@ public class SignaturesPropagationData {
 
     @Nullable
     private static DeclarationDescriptor findSuperFunction(
-            @NotNull Collection<Pair<FunctionDescriptor, JavaMethodImpl>> superFunctionCandidates,
-            @NotNull JavaMethodImpl superMethod
+            @NotNull Collection<Pair<FunctionDescriptor, JavaMethod>> superFunctionCandidates,
+            @NotNull JavaMethod superMethod
     ) {
-        PsiManager psiManager = PsiManager.getInstance(superMethod.getPsi().getProject());
-        for (Pair<FunctionDescriptor, JavaMethodImpl> candidate : superFunctionCandidates) {
-            if (psiManager.areElementsEquivalent(candidate.second.getPsi(), superMethod.getPsi())) {
+        for (Pair<FunctionDescriptor, JavaMethod> candidate : superFunctionCandidates) {
+            if (isSameMethod(candidate.second, superMethod)) {
                 return candidate.first;
             }
         }
         return null;
     }
 
+    private static boolean isSameMethod(@NotNull JavaMethod method1, @NotNull JavaMethod method2) {
+        if (method1 instanceof JavaMethodImpl && method2 instanceof JavaMethodImpl) {
+            PsiMethod psiMethod1 = ((JavaMethodImpl) method1).getPsi();
+            PsiMethod psiMethod2 = ((JavaMethodImpl) method2).getPsi();
+            return PsiManager.getInstance(psiMethod1.getProject()).areElementsEquivalent(psiMethod1, psiMethod2);
+        }
+        if (method1.equals(method2)) return true;
+
+        // A method loaded from a class file may have a PSI-based counterpart, in which case the signatures are compared
+        if (!method1.getName().equals(method2.getName())) return false;
+        if (!Comparing.equal(method1.getContainingClass().getFqName(), method2.getContainingClass().getFqName())) return false;
+
+        List<JavaValueParameter> parameters1 = method1.getValueParameters();
+        List<JavaValueParameter> parameters2 = method2.getValueParameters();
+        if (parameters1.size() != parameters2.size()) return false;
+        for (int i = 0; i < parameters1.size(); i++) {
+            String typeName1 = DescriptorResolverUtils.erasedTypeName(parameters1.get(i).getType());
+            String typeName2 = DescriptorResolverUtils.erasedTypeName(parameters2.get(i).getType());
+            if (typeName1 == null || !typeName1.equals(typeName2)) return false;
+        }
+        return true;
+    }
+
     private boolean checkIfShouldBeExtension() {
         boolean someSupersExtension = false;
         boolean someSupersNotExtension = false;
@@ -451,11 +483,11 @@ public class SignaturesPropagationData {
             resultScope = autoType.getMemberScope();
         }
 
-        JetTypeImpl type = new JetTypeImpl(autoType.getAnnotations(),
-                                           resultClassifier.getTypeConstructor(),
-                                           resultNullable,
-                                           resultArguments,
-                                           resultScope);
+        JetTypeImpl type = JetTypeImpl.create(autoType.getAnnotations(),
+                                              resultClassifier.getTypeConstructor(),
+                                              resultNullable,
+                                              resultArguments,
+                                              resultScope);
 
         PropagationHeuristics.checkArrayInReturnType(this, type, typesFromSuper);
         return type;
@@ -26,6 +26,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
 import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
 import org.jetbrains.jet.lang.descriptors.SimpleFunctionDescriptor;
+import org.jetbrains.jet.lang.descriptors.Visibilities;
 import org.jetbrains.jet.lang.resolve.OverridingUtil;
 import org.jetbrains.jet.lang.resolve.java.kotlinSignature.SignaturesUtil;
 import org.jetbrains.jet.lang.resolve.java.structure.*;
@@ -37,8 +38,7 @@ import org.jetbrains.jet.lang.types.TypeSubstitutor;
 import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import static org.jetbrains.jet.lang.resolve.OverridingUtil.isOverridableBy;
 import static org.jetbrains.jet.lang.resolve.OverridingUtil.isReturnTypeOkForOverride;
@@ -174,10 +174,7 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
         // This optimization speed things up because hasRawTypesInHierarchicalSignature() is very expensive
         if (superFunctions.isEmpty() && (signatureErrors.isEmpty() || !reportSignatureErrors)) return;
 
-        JavaMethodImpl methodWithPsi = (JavaMethodImpl) method;
-        if (!RawTypesCheck.hasRawTypesInHierarchicalSignature(methodWithPsi) &&
-            isMethodReturnTypeCompatible(methodWithPsi) &&
-            !containsErrorType(superFunctions, descriptor)) {
+        if (isSignatureCorrect(method) && !containsErrorType(superFunctions, descriptor)) {
             if (signatureErrors.isEmpty()) {
                 for (FunctionDescriptor superFunction : superFunctions) {
                     checkFunctionOverridesCorrectly(method, descriptor, superFunction);
@@ -189,6 +186,16 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
         }
     }
 
+    private static boolean isSignatureCorrect(@NotNull JavaMethod method) {
+        if (method instanceof JavaMethodImpl) {
+            JavaMethodImpl methodWithPsi = (JavaMethodImpl) method;
+            return !RawTypesCheck.hasRawTypesInHierarchicalSignature(methodWithPsi) && isMethodReturnTypeCompatible(methodWithPsi);
+        }
+
+        // Methods loaded from class files were checked by javac, so return types of overriding methods are compatible anyway
+        return !RawTypesCheck.hasRawTypesInBinaryHierarchicalSignature(method);
+    }
+
     private static class RawTypesCheck {
         private static boolean isPartiallyRawType(@NotNull JavaType type) {
             if (type instanceof JavaPrimitiveType) {
@@ -263,6 +270,48 @@ public class PsiBasedMethodSignatureChecker implements MethodSignatureChecker {
             return false;
         }
 
+        /**
+         * Hierarchical signatures are only available for PSI, so for a method loaded from a class file the super methods are
+         * looked up in the supertypes by name and number of parameters. This may take a method which isn't overridden
+         * for a super method, in which case the check is just more conservative than the one for PSI
+         */
+        public static boolean hasRawTypesInBinaryHierarchicalSignature(@NotNull JavaMethod method) {
+            if (method.isStatic()) return false;
+
+            if (hasRawTypesInSignature(method)) {
+                return true;
+            }
+
+            Set<JavaClass> visited = new HashSet<JavaClass>();
+            Deque<JavaClassifierType> supertypes = new ArrayDeque<JavaClassifierType>(method.getContainingClass().getSupertypes());
+            while (!supertypes.isEmpty()) {
+                JavaClassifierType supertype = supertypes.poll();
+                JavaClassifier classifier = supertype.getClassifier();
+                if (!(classifier instanceof JavaClass) || !visited.add((JavaClass) classifier)) continue;
+                JavaClass superClass = (JavaClass) classifier;
+
+                for (JavaMethod superMethod : superClass.getMethods()) {
+                    if (!isOverriddenCandidate(method, superMethod)) continue;
+                    boolean rawSupertype = supertype.isRaw() && !superClass.getTypeParameters().isEmpty();
+                    if (rawSupertype || typeParameterIsErased(method, superMethod) || hasRawTypesInSignature(superMethod)) {
+                        return true;
+                    }
+                }
+
+                supertypes.addAll(superClass.getSupertypes());
+            }
+
+            return false;
+        }
+
+        private static boolean isOverriddenCandidate(@NotNull JavaMethod method, @NotNull JavaMethod superMethod) {
+            return !superMethod.isStatic() &&
+                   !superMethod.isConstructor() &&
+                   superMethod.getVisibility() != Visibilities.PRIVATE &&
+                   superMethod.getName().equals(method.getName()) &&
+                   superMethod.getValueParameters().size() == method.getValueParameters().size();
+        }
+
         private static boolean typeParameterIsErased(@NotNull JavaMethod method, @NotNull JavaMethod superMethod) {
             // Java allows you to write
             //   <T extends Foo> T foo(), in the superclass and then
@@ -29,6 +29,7 @@ import org.jetbrains.jet.lang.resolve.BindingContextUtils;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.CompileTimeConstantUtils;
 import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
+import org.jetbrains.jet.lang.resolve.java.JavaBindingContext;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaElement;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaField;
@@ -60,27 +61,41 @@ public class TraceBasedJavaResolverCache implements JavaResolverCache {
     @Nullable
     @Override
     public ClassDescriptor getClass(@NotNull JavaClass javaClass) {
+        if (!(javaClass instanceof JavaClassImpl)) {
+            return trace.get(JavaBindingContext.BINARY_CLASS, javaClass);
+        }
         return trace.get(CLASS, ((JavaClassImpl) javaClass).getPsi());
     }
 
     @Override
     public void recordMethod(@NotNull JavaMethod method, @NotNull SimpleFunctionDescriptor descriptor) {
+        if (!(method instanceof JavaMethodImpl)) {
+            trace.record(JavaBindingContext.BINARY_METHOD, descriptor, method);
+            return;
+        }
         BindingContextUtils.recordFunctionDeclarationToDescriptor(trace, ((JavaMethodImpl) method).getPsi(), descriptor);
     }
 
     @Override
     public void recordConstructor(@NotNull JavaElement element, @NotNull ConstructorDescriptor descriptor) {
+        // Constructors and fields are only recorded for PSI, to be found by the declarations in the IDE
+        if (!(element instanceof JavaElementImpl)) return;
         trace.record(CONSTRUCTOR, ((JavaElementImpl) element).getPsi(), descriptor);
     }
 
     @Override
     public void recordField(@NotNull JavaField field, @NotNull PropertyDescriptor descriptor) {
+        if (!(field instanceof JavaFieldImpl)) return;
         PsiField psiField = ((JavaFieldImpl) field).getPsi();
         trace.record(VARIABLE, psiField, descriptor);
     }
 
     @Override
     public void recordClass(@NotNull JavaClass javaClass, @NotNull ClassDescriptor descriptor) {
+        if (!(javaClass instanceof JavaClassImpl)) {
+            trace.record(JavaBindingContext.BINARY_CLASS, javaClass, descriptor);
+            return;
+        }
         trace.record(CLASS, ((JavaClassImpl) javaClass).getPsi(), descriptor);
     }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaAnnotation;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaAnnotationArgument;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.org.objectweb.asm.AnnotationVisitor;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.Type;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BinaryJavaAnnotation implements JavaAnnotation {
+    private final ClassifierResolutionContext context;
+    private final String internalName;
+    private final List<JavaAnnotationArgument> arguments = new ArrayList<JavaAnnotationArgument>(1);
+
+    private BinaryJavaAnnotation(@NotNull ClassifierResolutionContext context, @NotNull String desc) {
+        this.context = context;
+        this.internalName = Type.getType(desc).getInternalName();
+    }
+
+    /**
+     * Creates an annotation, adds it to the given list and returns the visitor which fills its arguments
+     */
+    @NotNull
+    /* package */ static AnnotationVisitor addAnnotation(
+            @NotNull ClassifierResolutionContext context,
+            @NotNull String desc,
+            @NotNull List<JavaAnnotation> result
+    ) {
+        BinaryJavaAnnotation annotation = new BinaryJavaAnnotation(context, desc);
+        result.add(annotation);
+        return new ArgumentsCollector(context, annotation.arguments, false);
+    }
+
+    @NotNull
+    /* package */ static Collection<JavaAnnotation> freeze(@Nullable List<JavaAnnotation> annotations) {
+        return annotations == null || annotations.isEmpty() ? Collections.<JavaAnnotation>emptyList() : annotations;
+    }
+
+    @Override
+    @Nullable
+    public JavaAnnotationArgument findArgument(@NotNull Name name) {
+        for (JavaAnnotationArgument argument : arguments) {
+            if (name.equals(argument.getName())) {
+                return argument;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @NotNull
+    public Collection<JavaAnnotationArgument> getArguments() {
+        return arguments;
+    }
+
+    @Override
+    @Nullable
+    public FqName getFqName() {
+        if (internalName.indexOf('$') < 0) {
+            return new FqName(internalName.replace('/', '.'));
+        }
+
+        // '$' may be a part of the name of a top level class, so nested classes can only be recognized by resolving the class
+        JavaClass annotationClass = context.resolveClass(internalName);
+        return annotationClass != null ? annotationClass.getFqName() : null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + internalName;
+    }
+
+    private static class ArgumentsCollector extends AnnotationVisitor {
+        private final ClassifierResolutionContext context;
+        private final List<JavaAnnotationArgument> arguments;
+        private final boolean isArray;
+
+        private ArgumentsCollector(
+                @NotNull ClassifierResolutionContext context,
+                @NotNull List<JavaAnnotationArgument> arguments,
+                boolean isArray
+        ) {
+            super(Opcodes.ASM5);
+            this.context = context;
+            this.arguments = arguments;
+            this.isArray = isArray;
+        }
+
+        @Nullable
+        private Name name(@Nullable String name) {
+            // Elements of an array argument have no names
+            return isArray || name == null ? null : Name.identifier(name);
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            arguments.add(createLiteral(name(name), value));
+        }
+
+        @NotNull
+        private JavaAnnotationArgument createLiteral(@Nullable Name name, @NotNull Object value) {
+            if (value instanceof Type) {
+                return new BinaryJavaAnnotationArgument.ClassObject(name, SignatureParser.parseType(((Type) value).getDescriptor(), context));
+            }
+            if (value.getClass().isArray()) {
+                // Arrays of primitive values are passed to visit() as a whole
+                int length = Array.getLength(value);
+                List<JavaAnnotationArgument> elements = new ArrayList<JavaAnnotationArgument>(length);
+                for (int i = 0; i < length; i++) {
+                    elements.add(new BinaryJavaAnnotationArgument.Literal(null, Array.get(value, i)));
+                }
+                return new BinaryJavaAnnotationArgument.Array(name, elements);
+            }
+            return new BinaryJavaAnnotationArgument.Literal(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            String enumInternalName = Type.getType(desc).getInternalName();
+            arguments.add(new BinaryJavaAnnotationArgument.EnumEntryReference(name(name), context, enumInternalName, Name.identifier(value)));
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(1);
+            AnnotationVisitor visitor = addAnnotation(context, desc, annotations);
+            arguments.add(new BinaryJavaAnnotationArgument.AnnotationAsArgument(name(name), annotations.get(0)));
+            return visitor;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            List<JavaAnnotationArgument> elements = new ArrayList<JavaAnnotationArgument>();
+            arguments.add(new BinaryJavaAnnotationArgument.Array(name(name), elements));
+            return new ArgumentsCollector(context, elements, true);
+        }
+    }
+}
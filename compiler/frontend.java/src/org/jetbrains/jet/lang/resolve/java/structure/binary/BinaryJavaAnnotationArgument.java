@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.List;
+
+public abstract class BinaryJavaAnnotationArgument implements JavaAnnotationArgument {
+    private final Name name;
+
+    protected BinaryJavaAnnotationArgument(@Nullable Name name) {
+        this.name = name;
+    }
+
+    @Override
+    @Nullable
+    public Name getName() {
+        return name;
+    }
+
+    public static class Literal extends BinaryJavaAnnotationArgument implements JavaLiteralAnnotationArgument {
+        private final Object value;
+
+        public Literal(@Nullable Name name, @Nullable Object value) {
+            super(name);
+            this.value = value;
+        }
+
+        @Override
+        @Nullable
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    public static class Array extends BinaryJavaAnnotationArgument implements JavaArrayAnnotationArgument {
+        private final List<JavaAnnotationArgument> elements;
+
+        public Array(@Nullable Name name, @NotNull List<JavaAnnotationArgument> elements) {
+            super(name);
+            this.elements = elements;
+        }
+
+        @Override
+        @NotNull
+        public List<JavaAnnotationArgument> getElements() {
+            return elements;
+        }
+    }
+
+    /**
+     * A reference to an enum entry, which is resolved to the corresponding field of the enum class
+     */
+    public static class EnumEntryReference extends BinaryJavaAnnotationArgument implements JavaReferenceAnnotationArgument {
+        private final ClassifierResolutionContext context;
+        private final String enumInternalName;
+        private final Name entryName;
+
+        /* package */ EnumEntryReference(
+                @Nullable Name name,
+                @NotNull ClassifierResolutionContext context,
+                @NotNull String enumInternalName,
+                @NotNull Name entryName
+        ) {
+            super(name);
+            this.context = context;
+            this.enumInternalName = enumInternalName;
+            this.entryName = entryName;
+        }
+
+        @Override
+        @Nullable
+        public JavaElement resolve() {
+            JavaClass enumClass = context.resolveClass(enumInternalName);
+            if (enumClass == null) return null;
+
+            for (JavaField field : enumClass.getFields()) {
+                if (field.isEnumEntry() && field.getName().equals(entryName)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class ClassObject extends BinaryJavaAnnotationArgument implements JavaClassObjectAnnotationArgument {
+        private final JavaType referencedType;
+
+        public ClassObject(@Nullable Name name, @NotNull JavaType referencedType) {
+            super(name);
+            this.referencedType = referencedType;
+        }
+
+        @Override
+        @NotNull
+        public JavaType getReferencedType() {
+            return referencedType;
+        }
+    }
+
+    public static class AnnotationAsArgument extends BinaryJavaAnnotationArgument implements JavaAnnotationAsAnnotationArgument {
+        private final JavaAnnotation annotation;
+
+        public AnnotationAsArgument(@Nullable Name name, @NotNull JavaAnnotation annotation) {
+            super(name);
+            this.annotation = annotation;
+        }
+
+        @Override
+        @NotNull
+        public JavaAnnotation getAnnotation() {
+            return annotation;
+        }
+    }
+}
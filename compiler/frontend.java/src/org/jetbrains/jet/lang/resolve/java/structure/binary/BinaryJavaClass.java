@@ -0,0 +1,510 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.Visibility;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.utils.UtilsPackage;
+import org.jetbrains.org.objectweb.asm.*;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.jetbrains.org.objectweb.asm.ClassReader.*;
+import static org.jetbrains.org.objectweb.asm.Opcodes.*;
+
+/**
+ * A Java class loaded directly from its class file with ASM, which is much cheaper than building PSI for it.
+ * The class file is read on the first access to anything but the file itself, the types in signatures are resolved lazily.
+ *
+ * Synthetic members and bridges are skipped, and constructors are included in {@link #getMethods()}, as in PSI built for class files.
+ */
+public class BinaryJavaClass implements JavaClass, ClassifierResolutionContext.TypeParameterScope {
+    private static final Logger LOG = Logger.getInstance(BinaryJavaClass.class);
+
+    private static final String JAVA_LANG_OBJECT = "java/lang/Object";
+    private static final String JAVA_LANG_ANNOTATION_ANNOTATION = "java/lang/annotation/Annotation";
+    private static final String SYNTHETIC_PARAMETER_ANNOTATION = "Ljava/lang/Synthetic;";
+
+    private final VirtualFile file;
+    private final BinaryJavaClassFinder finder;
+    private final ClassifierResolutionContext context;
+
+    private volatile Contents contents;
+
+    public BinaryJavaClass(@NotNull VirtualFile file, @NotNull BinaryJavaClassFinder finder) {
+        this.file = file;
+        this.finder = finder;
+        this.context = new ClassifierResolutionContext(finder, this);
+    }
+
+    private static class Contents {
+        private String internalName;
+        private int access;
+        private String signature;
+        private String superName;
+        private String[] interfaces;
+
+        // Known only for nested classes, from the InnerClasses attribute
+        private String simpleName;
+        private String outerInternalName;
+        private int innerAccess = -1;
+
+        private final List<String> innerClassNames = new ArrayList<String>(0);
+        private final List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(0);
+        private final List<JavaField> fields = new ArrayList<JavaField>();
+        private final List<JavaMethod> methods = new ArrayList<JavaMethod>();
+
+        private List<JavaTypeParameter> typeParameters;
+        private List<JavaClassifierType> supertypes;
+    }
+
+    @NotNull
+    public VirtualFile getFile() {
+        return file;
+    }
+
+    @NotNull
+    /* package */ BinaryJavaClassFinder getFinder() {
+        return finder;
+    }
+
+    @NotNull
+    /* package */ ClassifierResolutionContext getResolutionContext() {
+        return context;
+    }
+
+    @NotNull
+    private Contents getContents() {
+        Contents result = contents;
+        if (result == null) {
+            result = readContents();
+            contents = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    private Contents readContents() {
+        final Contents result = new Contents();
+        try {
+            new ClassReader(file.contentsToByteArray()).accept(new ClassVisitor(ASM5) {
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                    result.internalName = name;
+                    result.access = access;
+                    result.signature = signature;
+                    result.superName = superName;
+                    result.interfaces = interfaces;
+                }
+
+                @Override
+                public void visitInnerClass(String name, String outerName, String innerName, int access) {
+                    if (outerName == null || innerName == null) return;
+
+                    if (name.equals(result.internalName)) {
+                        result.simpleName = innerName;
+                        result.outerInternalName = outerName;
+                        result.innerAccess = access;
+                    }
+                    else if (outerName.equals(result.internalName) && (access & ACC_SYNTHETIC) == 0) {
+                        result.innerClassNames.add(name);
+                    }
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return BinaryJavaAnnotation.addAnnotation(context, desc, result.annotations);
+                }
+
+                @Override
+                public FieldVisitor visitField(
+                        final int access,
+                        final String name,
+                        final String desc,
+                        final String signature,
+                        final Object value
+                ) {
+                    if ((access & ACC_SYNTHETIC) != 0) return null;
+
+                    final List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(0);
+                    return new FieldVisitor(ASM5) {
+                        @Override
+                        public AnnotationVisitor visitAnnotation(String annotationDesc, boolean visible) {
+                            return BinaryJavaAnnotation.addAnnotation(context, annotationDesc, annotations);
+                        }
+
+                        @Override
+                        public void visitEnd() {
+                            result.fields.add(new BinaryJavaField(BinaryJavaClass.this, access, name, desc, signature, value,
+                                                                  BinaryJavaAnnotation.freeze(annotations)));
+                        }
+                    };
+                }
+
+                @Override
+                public MethodVisitor visitMethod(
+                        final int access,
+                        final String name,
+                        final String desc,
+                        final String signature,
+                        String[] exceptions
+                ) {
+                    if ((access & (ACC_SYNTHETIC | ACC_BRIDGE)) != 0 || "<clinit>".equals(name)) return null;
+
+                    final List<JavaAnnotation> annotations = new ArrayList<JavaAnnotation>(0);
+                    @SuppressWarnings("unchecked")
+                    final List<JavaAnnotation>[] parameterAnnotations = new List[Type.getArgumentTypes(desc).length];
+                    return new MethodVisitor(ASM5) {
+                        private boolean hasAnnotationDefault;
+
+                        @Override
+                        public AnnotationVisitor visitAnnotation(String annotationDesc, boolean visible) {
+                            return BinaryJavaAnnotation.addAnnotation(context, annotationDesc, annotations);
+                        }
+
+                        @Override
+                        public AnnotationVisitor visitParameterAnnotation(int parameter, String annotationDesc, boolean visible) {
+                            // ASM reports synthetic parameters which are not mentioned in the annotations attribute with a fake annotation
+                            if (SYNTHETIC_PARAMETER_ANNOTATION.equals(annotationDesc)) return null;
+
+                            if (parameterAnnotations[parameter] == null) {
+                                parameterAnnotations[parameter] = new ArrayList<JavaAnnotation>(1);
+                            }
+                            return BinaryJavaAnnotation.addAnnotation(context, annotationDesc, parameterAnnotations[parameter]);
+                        }
+
+                        @Override
+                        public AnnotationVisitor visitAnnotationDefault() {
+                            hasAnnotationDefault = true;
+                            return null;
+                        }
+
+                        @Override
+                        public void visitEnd() {
+                            result.methods.add(new BinaryJavaMethod(BinaryJavaClass.this, access, name, desc, signature,
+                                                                    BinaryJavaAnnotation.freeze(annotations), parameterAnnotations,
+                                                                    hasAnnotationDefault));
+                        }
+                    };
+                }
+            }, SKIP_CODE | SKIP_DEBUG | SKIP_FRAMES);
+        }
+        catch (ProcessCanceledException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            LOG.error("Could not read class file: " + file.getPath(), e);
+            throw UtilsPackage.rethrow(e);
+        }
+        catch (RuntimeException e) {
+            // ClassReader fails with unchecked exceptions on a malformed class file
+            LOG.error("Could not read class file: " + file.getPath(), e);
+            throw e;
+        }
+
+        parseSignature(result);
+
+        return result;
+    }
+
+    private void parseSignature(@NotNull Contents result) {
+        if (result.signature == null) {
+            result.typeParameters = Collections.emptyList();
+
+            List<JavaClassifierType> supertypes = new ArrayList<JavaClassifierType>(result.interfaces.length + 1);
+            if (result.superName != null) {
+                supertypes.add(BinaryJavaClassifierType.classType(context, result.superName, Collections.<JavaType>emptyList()));
+            }
+            for (String anInterface : result.interfaces) {
+                supertypes.add(BinaryJavaClassifierType.classType(context, anInterface, Collections.<JavaType>emptyList()));
+            }
+            result.supertypes = filterSupertypes(result, supertypes);
+        }
+        else {
+            SignatureParser.DeclarationBuilder declaration = SignatureParser.parseDeclaration(result.signature);
+            result.typeParameters = SignatureParser.createTypeParameters(this, declaration, context);
+
+            List<JavaClassifierType> supertypes = new ArrayList<JavaClassifierType>(declaration.interfaces.size() + 1);
+            if (declaration.superclass != null) {
+                supertypes.add((JavaClassifierType) declaration.superclass.build(context));
+            }
+            for (JavaType type : SignatureParser.buildTypes(declaration.interfaces, context)) {
+                supertypes.add((JavaClassifierType) type);
+            }
+            result.supertypes = filterSupertypes(result, supertypes);
+        }
+    }
+
+    // Same as in PSI: java.lang.Object is not a supertype of classes and interfaces, java.lang.annotation.Annotation of annotations
+    @NotNull
+    private static List<JavaClassifierType> filterSupertypes(@NotNull Contents contents, @NotNull List<JavaClassifierType> supertypes) {
+        List<JavaClassifierType> result = new ArrayList<JavaClassifierType>(supertypes.size());
+        boolean isAnnotation = (contents.access & ACC_ANNOTATION) != 0;
+        for (JavaClassifierType supertype : supertypes) {
+            String internalName = ((BinaryJavaClassifierType) supertype).getInternalName();
+            if (JAVA_LANG_OBJECT.equals(internalName)) continue;
+            if (isAnnotation && JAVA_LANG_ANNOTATION_ANNOTATION.equals(internalName)) continue;
+            result.add(supertype);
+        }
+        return result;
+    }
+
+    private int getEffectiveAccess() {
+        Contents contents = getContents();
+        return contents.innerAccess != -1 ? contents.innerAccess : contents.access;
+    }
+
+    @Nullable
+    @Override
+    public JavaTypeParameter findTypeParameter(@NotNull String name) {
+        for (JavaTypeParameter typeParameter : getTypeParameters()) {
+            if (typeParameter.getName().asString().equals(name)) {
+                return typeParameter;
+            }
+        }
+
+        // Non-static nested classes may refer to type parameters of the outer classes
+        if (isStatic()) return null;
+        JavaClass outerClass = getOuterClass();
+        if (outerClass instanceof ClassifierResolutionContext.TypeParameterScope) {
+            return ((ClassifierResolutionContext.TypeParameterScope) outerClass).findTypeParameter(name);
+        }
+        if (outerClass != null) {
+            for (JavaTypeParameter typeParameter : outerClass.getTypeParameters()) {
+                if (typeParameter.getName().asString().equals(name)) {
+                    return typeParameter;
+                }
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClass> getInnerClasses() {
+        List<String> names = getContents().innerClassNames;
+        if (names.isEmpty()) return Collections.emptyList();
+
+        List<JavaClass> result = new ArrayList<JavaClass>(names.size());
+        for (String name : names) {
+            JavaClass innerClass = finder.resolveClass(name);
+            if (innerClass != null) {
+                result.add(innerClass);
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public FqName getFqName() {
+        Contents contents = getContents();
+        if (contents.outerInternalName == null) {
+            return new FqName(contents.internalName.replace('/', '.'));
+        }
+
+        JavaClass outerClass = getOuterClass();
+        if (outerClass == null) return null;
+        FqName outerFqName = outerClass.getFqName();
+        return outerFqName == null ? null : outerFqName.child(getName());
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        Contents contents = getContents();
+        if (contents.simpleName != null) {
+            return Name.identifier(contents.simpleName);
+        }
+        return Name.identifier(contents.internalName.substring(contents.internalName.lastIndexOf('/') + 1));
+    }
+
+    @Override
+    public boolean isInterface() {
+        return (getContents().access & ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public boolean isAnnotationType() {
+        return (getContents().access & ACC_ANNOTATION) != 0;
+    }
+
+    @Override
+    public boolean isEnum() {
+        return (getContents().access & ACC_ENUM) != 0;
+    }
+
+    @Nullable
+    @Override
+    public JavaClass getOuterClass() {
+        String outerInternalName = getContents().outerInternalName;
+        return outerInternalName == null ? null : finder.resolveClass(outerInternalName);
+    }
+
+    @NotNull
+    @Override
+    public List<JavaTypeParameter> getTypeParameters() {
+        return getContents().typeParameters;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClassifierType> getSupertypes() {
+        return getContents().supertypes;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaMethod> getMethods() {
+        return getContents().methods;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaMethod> getAllMethods() {
+        List<JavaMethod> result = new ArrayList<JavaMethod>();
+        for (JavaClass javaClass : getAllClassesInHierarchy()) {
+            result.addAll(javaClass.getMethods());
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaField> getFields() {
+        return getContents().fields;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaField> getAllFields() {
+        List<JavaField> result = new ArrayList<JavaField>();
+        for (JavaClass javaClass : getAllClassesInHierarchy()) {
+            result.addAll(javaClass.getFields());
+        }
+        return result;
+    }
+
+    // This class, all its superclasses and superinterfaces and java.lang.Object, as in PsiClass.getAllMethods()
+    @NotNull
+    private Collection<JavaClass> getAllClassesInHierarchy() {
+        Set<JavaClass> result = new LinkedHashSet<JavaClass>();
+        collectClassesInHierarchy(this, result);
+
+        JavaClass javaLangObject = finder.resolveClass(JAVA_LANG_OBJECT);
+        if (javaLangObject != null) {
+            result.add(javaLangObject);
+        }
+        return result;
+    }
+
+    private static void collectClassesInHierarchy(@NotNull JavaClass javaClass, @NotNull Set<JavaClass> result) {
+        if (!result.add(javaClass)) return;
+
+        for (JavaClassifierType supertype : javaClass.getSupertypes()) {
+            JavaClassifier classifier = supertype.getClassifier();
+            if (classifier instanceof JavaClass) {
+                collectClassesInHierarchy((JavaClass) classifier, result);
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaMethod> getConstructors() {
+        List<JavaMethod> result = new ArrayList<JavaMethod>(1);
+        for (JavaMethod method : getContents().methods) {
+            if (method.isConstructor()) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public JavaClassifierType getDefaultType() {
+        List<JavaTypeParameter> typeParameters = getTypeParameters();
+        List<JavaType> arguments = new ArrayList<JavaType>(typeParameters.size());
+        for (JavaTypeParameter typeParameter : typeParameters) {
+            arguments.add(typeParameter.getType());
+        }
+        return BinaryJavaClassifierType.create(this, arguments);
+    }
+
+    @NotNull
+    @Override
+    public OriginKind getOriginKind() {
+        return OriginKind.COMPILED;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return (getEffectiveAccess() & ACC_ABSTRACT) != 0;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return (getEffectiveAccess() & ACC_STATIC) != 0;
+    }
+
+    @Override
+    public boolean isFinal() {
+        return (getEffectiveAccess() & ACC_FINAL) != 0;
+    }
+
+    @NotNull
+    @Override
+    public Visibility getVisibility() {
+        return BinaryJavaMember.getVisibility(getEffectiveAccess());
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return getContents().annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return BinaryJavaMember.findAnnotation(getContents().annotations, fqName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BinaryJavaClass && file.equals(((BinaryJavaClass) o).file);
+    }
+
+    @Override
+    public int hashCode() {
+        return file.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + file.getPath();
+    }
+}
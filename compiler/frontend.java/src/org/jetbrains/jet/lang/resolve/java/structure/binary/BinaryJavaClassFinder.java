@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+
+/**
+ * Finds Java classes in class files and loads them without building PSI (see {@link BinaryJavaClass}).
+ *
+ * This is an optional project service: when it's not registered, all the Java classes are loaded from PSI.
+ */
+public interface BinaryJavaClassFinder {
+    /**
+     * @return the class loaded from its class file, or null if the class is not found in the class files or should be loaded from PSI,
+     * e.g. because it comes from the Java sources or has external annotations
+     */
+    @Nullable
+    JavaClass findClass(@NotNull FqName fqName);
+
+    /**
+     * Resolves a class referenced from a class file. The result is a PSI-based class in the same cases as for {@link #findClass(FqName)}
+     *
+     * @param internalName the JVM internal name of the class, e.g. "java/util/Map$Entry"
+     */
+    @Nullable
+    JavaClass resolveClass(@NotNull String internalName);
+}
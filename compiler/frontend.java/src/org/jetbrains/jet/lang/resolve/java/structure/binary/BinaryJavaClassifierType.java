@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import com.intellij.openapi.util.Comparing;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+
+import java.util.*;
+
+/**
+ * A class type or a type variable referenced from a class file, or a type constructed by {@link BinaryJavaTypeSubstitutor}.
+ * The classifier is resolved on the first access.
+ */
+public class BinaryJavaClassifierType extends BinaryJavaType implements JavaClassifierType {
+    private final ClassifierResolutionContext context;
+    private final String internalName;
+    private final String typeVariableName;
+    private final List<JavaType> typeArguments;
+
+    private volatile boolean resolved;
+    private JavaClassifier classifier;
+
+    private BinaryJavaClassifierType(
+            @Nullable ClassifierResolutionContext context,
+            @Nullable String internalName,
+            @Nullable String typeVariableName,
+            @NotNull List<JavaType> typeArguments
+    ) {
+        this.context = context;
+        this.internalName = internalName;
+        this.typeVariableName = typeVariableName;
+        this.typeArguments = typeArguments;
+    }
+
+    @NotNull
+    /* package */ static BinaryJavaClassifierType classType(
+            @NotNull ClassifierResolutionContext context,
+            @NotNull String internalName,
+            @NotNull List<JavaType> typeArguments
+    ) {
+        return new BinaryJavaClassifierType(context, internalName, null, typeArguments);
+    }
+
+    @NotNull
+    /* package */ static BinaryJavaClassifierType typeVariable(@NotNull ClassifierResolutionContext context, @NotNull String name) {
+        return new BinaryJavaClassifierType(context, null, name, Collections.<JavaType>emptyList());
+    }
+
+    @NotNull
+    public static BinaryJavaClassifierType create(@NotNull JavaClassifier classifier, @NotNull List<JavaType> typeArguments) {
+        BinaryJavaClassifierType type = new BinaryJavaClassifierType(null, null, null, typeArguments);
+        type.classifier = classifier;
+        type.resolved = true;
+        return type;
+    }
+
+    /**
+     * @return the JVM internal name of the class if this type was read from a class file and is not a type variable
+     */
+    @Nullable
+    /* package */ String getInternalName() {
+        return internalName;
+    }
+
+    @Override
+    @Nullable
+    public JavaClassifier getClassifier() {
+        if (!resolved) {
+            assert context != null : "Type without a classifier should have a resolution context: " + this;
+            classifier = internalName != null ? context.resolveClass(internalName) : context.resolveTypeParameter(typeVariableName);
+            resolved = true;
+        }
+        return classifier;
+    }
+
+    @Override
+    @NotNull
+    public JavaTypeSubstitutor getSubstitutor() {
+        JavaClassifier classifier = getClassifier();
+        if (!(classifier instanceof JavaClass)) return JavaTypeSubstitutor.EMPTY;
+
+        List<JavaTypeParameter> typeParameters = ((JavaClass) classifier).getTypeParameters();
+        if (typeParameters.isEmpty()) return JavaTypeSubstitutor.EMPTY;
+
+        // Type parameters of a raw type are mapped to null
+        Map<JavaTypeParameter, JavaType> substitution = new HashMap<JavaTypeParameter, JavaType>();
+        for (int i = 0; i < typeParameters.size(); i++) {
+            substitution.put(typeParameters.get(i), i < typeArguments.size() ? typeArguments.get(i) : null);
+        }
+        return new BinaryJavaTypeSubstitutor(substitution);
+    }
+
+    @Override
+    @NotNull
+    public Collection<JavaClassifierType> getSupertypes() {
+        JavaClassifier classifier = getClassifier();
+        if (classifier instanceof JavaTypeParameter) {
+            return ((JavaTypeParameter) classifier).getUpperBounds();
+        }
+        if (!(classifier instanceof JavaClass)) return Collections.emptyList();
+
+        Collection<JavaClassifierType> supertypes = ((JavaClass) classifier).getSupertypes();
+        JavaTypeSubstitutor substitutor = getSubstitutor();
+        List<JavaClassifierType> result = new ArrayList<JavaClassifierType>(supertypes.size());
+        for (JavaClassifierType supertype : supertypes) {
+            result.add((JavaClassifierType) substitutor.substitute(supertype));
+        }
+        return result;
+    }
+
+    @Override
+    @NotNull
+    public String getPresentableText() {
+        StringBuilder result = new StringBuilder(getShortName());
+        if (!typeArguments.isEmpty()) {
+            result.append('<');
+            for (int i = 0; i < typeArguments.size(); i++) {
+                if (i > 0) result.append(", ");
+                result.append(typeArguments.get(i));
+            }
+            result.append('>');
+        }
+        return result.toString();
+    }
+
+    @NotNull
+    private String getShortName() {
+        if (internalName != null) {
+            return internalName.substring(Math.max(internalName.lastIndexOf('/'), internalName.lastIndexOf('$')) + 1);
+        }
+        if (typeVariableName != null) {
+            return typeVariableName;
+        }
+        return classifier.getName().asString();
+    }
+
+    @Override
+    public boolean isRaw() {
+        JavaClassifier classifier = getClassifier();
+        return typeArguments.isEmpty() && classifier instanceof JavaClass && !((JavaClass) classifier).getTypeParameters().isEmpty();
+    }
+
+    @Override
+    @NotNull
+    public List<JavaType> getTypeArguments() {
+        return typeArguments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BinaryJavaClassifierType)) return false;
+
+        BinaryJavaClassifierType other = (BinaryJavaClassifierType) o;
+        if (!typeArguments.equals(other.typeArguments)) return false;
+        if (internalName != null && other.internalName != null) {
+            return internalName.equals(other.internalName);
+        }
+
+        JavaClassifier classifier = getClassifier();
+        JavaClassifier otherClassifier = other.getClassifier();
+        if (classifier == null && otherClassifier == null) {
+            return Comparing.equal(internalName, other.internalName) && Comparing.equal(typeVariableName, other.typeVariableName);
+        }
+        return Comparing.equal(classifier, otherClassifier);
+    }
+
+    @Override
+    public int hashCode() {
+        // Equal types may be constructed from an internal name or from a classifier, so only the part of the name which is the same
+        // in both cases is taken into account
+        String shortName = getShortName();
+        return shortName.substring(shortName.lastIndexOf('$') + 1).hashCode() * 31 + typeArguments.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getPresentableText();
+    }
+}
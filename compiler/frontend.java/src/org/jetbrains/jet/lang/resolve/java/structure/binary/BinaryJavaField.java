@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaAnnotation;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaField;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaType;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+
+import java.util.Collection;
+
+public class BinaryJavaField extends BinaryJavaMember implements JavaField {
+    private final String desc;
+    private final String signature;
+    private final Object constantValue;
+
+    private volatile JavaType type;
+
+    /* package */ BinaryJavaField(
+            @NotNull BinaryJavaClass containingClass,
+            int access,
+            @NotNull String name,
+            @NotNull String desc,
+            @Nullable String signature,
+            @Nullable Object constantValue,
+            @NotNull Collection<JavaAnnotation> annotations
+    ) {
+        super(containingClass, access, name, annotations);
+        this.desc = desc;
+        this.signature = signature;
+        this.constantValue = constantValue;
+    }
+
+    @Override
+    public boolean isEnumEntry() {
+        return (getAccess() & Opcodes.ACC_ENUM) != 0;
+    }
+
+    @NotNull
+    @Override
+    public JavaType getType() {
+        if (type == null) {
+            type = SignatureParser.parseType(signature != null ? signature : desc, getBinaryContainingClass().getResolutionContext());
+        }
+        return type;
+    }
+
+    /**
+     * @return the value of the ConstantValue attribute. Unlike ASM, which represents boolean, char, byte and short constants
+     * as Integer, the value of the field's type is returned, as in PSI
+     */
+    @Nullable
+    public Object getConstantValue() {
+        if (!(constantValue instanceof Integer) || desc.length() != 1) return constantValue;
+
+        int value = (Integer) constantValue;
+        switch (desc.charAt(0)) {
+            case 'Z': return value != 0;
+            case 'C': return (char) value;
+            case 'B': return (byte) value;
+            case 'S': return (short) value;
+            default: return constantValue;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BinaryJavaField)) return false;
+        BinaryJavaField other = (BinaryJavaField) o;
+        return getInternalName().equals(other.getInternalName()) && getContainingClass().equals(other.getContainingClass());
+    }
+
+    @Override
+    public int hashCode() {
+        return getInternalName().hashCode() * 31 + getContainingClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + getContainingClass() + "." + getInternalName();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.Visibilities;
+import org.jetbrains.jet.lang.descriptors.Visibility;
+import org.jetbrains.jet.lang.resolve.java.JavaVisibilities;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaAnnotation;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaMember;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+
+import java.util.Collection;
+
+public abstract class BinaryJavaMember implements JavaMember {
+    private final BinaryJavaClass containingClass;
+    private final int access;
+    private final String name;
+    private final Collection<JavaAnnotation> annotations;
+
+    protected BinaryJavaMember(
+            @NotNull BinaryJavaClass containingClass,
+            int access,
+            @NotNull String name,
+            @NotNull Collection<JavaAnnotation> annotations
+    ) {
+        this.containingClass = containingClass;
+        this.access = access;
+        this.name = name;
+        this.annotations = annotations;
+    }
+
+    @NotNull
+    @Override
+    public JavaClass getContainingClass() {
+        return containingClass;
+    }
+
+    @NotNull
+    protected BinaryJavaClass getBinaryContainingClass() {
+        return containingClass;
+    }
+
+    protected int getAccess() {
+        return access;
+    }
+
+    @NotNull
+    protected String getInternalName() {
+        return name;
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        return Name.identifier(name);
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return (access & Opcodes.ACC_ABSTRACT) != 0;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return (access & Opcodes.ACC_STATIC) != 0;
+    }
+
+    @Override
+    public boolean isFinal() {
+        return (access & Opcodes.ACC_FINAL) != 0;
+    }
+
+    @NotNull
+    @Override
+    public Visibility getVisibility() {
+        return getVisibility(access);
+    }
+
+    @NotNull
+    /* package */ static Visibility getVisibility(int access) {
+        if ((access & Opcodes.ACC_PUBLIC) != 0) {
+            return Visibilities.PUBLIC;
+        }
+        if ((access & Opcodes.ACC_PRIVATE) != 0) {
+            return Visibilities.PRIVATE;
+        }
+        if ((access & Opcodes.ACC_PROTECTED) != 0) {
+            return (access & Opcodes.ACC_STATIC) != 0 ? JavaVisibilities.PROTECTED_STATIC_VISIBILITY : JavaVisibilities.PROTECTED_AND_PACKAGE;
+        }
+        return JavaVisibilities.PACKAGE_VISIBILITY;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return findAnnotation(annotations, fqName);
+    }
+
+    @Nullable
+    /* package */ static JavaAnnotation findAnnotation(@NotNull Collection<JavaAnnotation> annotations, @NotNull FqName fqName) {
+        for (JavaAnnotation annotation : annotations) {
+            if (fqName.equals(annotation.getFqName())) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BinaryJavaMethod extends BinaryJavaMember implements JavaMethod, ClassifierResolutionContext.TypeParameterScope {
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private final String desc;
+    private final String signature;
+    private final List<JavaAnnotation>[] parameterAnnotations;
+    private final boolean hasAnnotationParameterDefaultValue;
+
+    private volatile Signature parsed;
+
+    /* package */ BinaryJavaMethod(
+            @NotNull BinaryJavaClass containingClass,
+            int access,
+            @NotNull String name,
+            @NotNull String desc,
+            @Nullable String signature,
+            @NotNull Collection<JavaAnnotation> annotations,
+            @NotNull List<JavaAnnotation>[] parameterAnnotations,
+            boolean hasAnnotationParameterDefaultValue
+    ) {
+        super(containingClass, access, name, annotations);
+        this.desc = desc;
+        this.signature = signature;
+        this.parameterAnnotations = parameterAnnotations;
+        this.hasAnnotationParameterDefaultValue = hasAnnotationParameterDefaultValue;
+    }
+
+    private static class Signature {
+        private final List<JavaTypeParameter> typeParameters;
+        private final List<JavaValueParameter> valueParameters;
+        private final JavaType returnType;
+
+        private Signature(
+                @NotNull List<JavaTypeParameter> typeParameters,
+                @NotNull List<JavaValueParameter> valueParameters,
+                @Nullable JavaType returnType
+        ) {
+            this.typeParameters = typeParameters;
+            this.valueParameters = valueParameters;
+            this.returnType = returnType;
+        }
+    }
+
+    @NotNull
+    private Signature getSignature() {
+        Signature result = parsed;
+        if (result == null) {
+            result = parseSignature();
+            parsed = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    private Signature parseSignature() {
+        ClassifierResolutionContext context = new ClassifierResolutionContext(getBinaryContainingClass().getFinder(), this);
+
+        SignatureParser.DeclarationBuilder declaration = SignatureParser.parseDeclaration(signature != null ? signature : desc);
+        List<JavaTypeParameter> typeParameters = SignatureParser.createTypeParameters(this, declaration, context);
+
+        // Signatures don't contain the synthetic parameters of constructors of enums and inner classes, unlike descriptors
+        List<SignatureParser.TypeBuilder> parameterTypes = declaration.parameterTypes;
+        int syntheticCount = parameterAnnotations.length - parameterTypes.size();
+        if (signature == null && isConstructor()) {
+            syntheticCount = getSyntheticConstructorParameterCount();
+            parameterTypes = parameterTypes.subList(syntheticCount, parameterTypes.size());
+        }
+
+        List<JavaValueParameter> valueParameters = new ArrayList<JavaValueParameter>(parameterTypes.size());
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            JavaType type = parameterTypes.get(i).build(context);
+            boolean isVararg = isVararg() && i == parameterTypes.size() - 1;
+            int annotationIndex = i + syntheticCount;
+            Collection<JavaAnnotation> annotations = annotationIndex >= 0 && annotationIndex < parameterAnnotations.length
+                                                     ? BinaryJavaAnnotation.freeze(parameterAnnotations[annotationIndex])
+                                                     : Collections.<JavaAnnotation>emptyList();
+            valueParameters.add(new BinaryJavaValueParameter(type, isVararg, annotations));
+        }
+
+        JavaType returnType = isConstructor() ? null : declaration.returnType.build(context);
+
+        return new Signature(typeParameters, valueParameters, returnType);
+    }
+
+    private int getSyntheticConstructorParameterCount() {
+        BinaryJavaClass containingClass = getBinaryContainingClass();
+        if (containingClass.isEnum()) {
+            // Name and ordinal of the enum entry
+            return 2;
+        }
+        if (containingClass.getOuterClass() != null && !containingClass.isStatic()) {
+            // Instance of the outer class
+            return 1;
+        }
+        return 0;
+    }
+
+    @Nullable
+    @Override
+    public JavaTypeParameter findTypeParameter(@NotNull String name) {
+        for (JavaTypeParameter typeParameter : getTypeParameters()) {
+            if (typeParameter.getName().asString().equals(name)) {
+                return typeParameter;
+            }
+        }
+        return getBinaryContainingClass().findTypeParameter(name);
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        // Constructors are named after their classes in PSI
+        return isConstructor() ? getContainingClass().getName() : super.getName();
+    }
+
+    @NotNull
+    @Override
+    public List<JavaTypeParameter> getTypeParameters() {
+        return getSignature().typeParameters;
+    }
+
+    @NotNull
+    @Override
+    public List<JavaValueParameter> getValueParameters() {
+        return getSignature().valueParameters;
+    }
+
+    @Override
+    public boolean hasAnnotationParameterDefaultValue() {
+        return hasAnnotationParameterDefaultValue;
+    }
+
+    @Nullable
+    @Override
+    public JavaType getReturnType() {
+        return getSignature().returnType;
+    }
+
+    @Override
+    public boolean isVararg() {
+        return (getAccess() & Opcodes.ACC_VARARGS) != 0;
+    }
+
+    @Override
+    public boolean isConstructor() {
+        return CONSTRUCTOR_NAME.equals(getInternalName());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BinaryJavaMethod)) return false;
+        BinaryJavaMethod other = (BinaryJavaMethod) o;
+        return getInternalName().equals(other.getInternalName()) &&
+               desc.equals(other.desc) &&
+               getContainingClass().equals(other.getContainingClass());
+    }
+
+    @Override
+    public int hashCode() {
+        return (getInternalName().hashCode() * 31 + desc.hashCode()) * 31 + getContainingClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + getContainingClass() + "." + getInternalName() + desc;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaPrimitiveType;
+
+public class BinaryJavaPrimitiveType extends BinaryJavaType implements JavaPrimitiveType {
+    public static final BinaryJavaPrimitiveType VOID = new BinaryJavaPrimitiveType("void");
+    private static final BinaryJavaPrimitiveType BOOLEAN = new BinaryJavaPrimitiveType("boolean");
+    private static final BinaryJavaPrimitiveType CHAR = new BinaryJavaPrimitiveType("char");
+    private static final BinaryJavaPrimitiveType BYTE = new BinaryJavaPrimitiveType("byte");
+    private static final BinaryJavaPrimitiveType SHORT = new BinaryJavaPrimitiveType("short");
+    private static final BinaryJavaPrimitiveType INT = new BinaryJavaPrimitiveType("int");
+    private static final BinaryJavaPrimitiveType FLOAT = new BinaryJavaPrimitiveType("float");
+    private static final BinaryJavaPrimitiveType LONG = new BinaryJavaPrimitiveType("long");
+    private static final BinaryJavaPrimitiveType DOUBLE = new BinaryJavaPrimitiveType("double");
+
+    private final String canonicalText;
+
+    private BinaryJavaPrimitiveType(@NotNull String canonicalText) {
+        this.canonicalText = canonicalText;
+    }
+
+    /**
+     * @param descriptor the JVM descriptor of the type, e.g. 'I' for int
+     */
+    @NotNull
+    public static BinaryJavaPrimitiveType byDescriptor(char descriptor) {
+        switch (descriptor) {
+            case 'V': return VOID;
+            case 'Z': return BOOLEAN;
+            case 'C': return CHAR;
+            case 'B': return BYTE;
+            case 'S': return SHORT;
+            case 'I': return INT;
+            case 'F': return FLOAT;
+            case 'J': return LONG;
+            case 'D': return DOUBLE;
+            default: throw new IllegalArgumentException("Not a primitive type descriptor: " + descriptor);
+        }
+    }
+
+    @Override
+    @NotNull
+    public String getCanonicalText() {
+        return canonicalText;
+    }
+
+    @Override
+    public String toString() {
+        return canonicalText;
+    }
+}
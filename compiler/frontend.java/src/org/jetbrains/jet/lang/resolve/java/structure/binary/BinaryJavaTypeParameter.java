@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class BinaryJavaTypeParameter implements JavaTypeParameter {
+    private final JavaTypeParameterListOwner owner;
+    private final int index;
+    private final String name;
+    private final Collection<JavaClassifierType> upperBounds;
+    private final ClassifierResolutionContext context;
+
+    /* package */ BinaryJavaTypeParameter(
+            @NotNull JavaTypeParameterListOwner owner,
+            int index,
+            @NotNull String name,
+            @NotNull Collection<JavaClassifierType> upperBounds,
+            @NotNull ClassifierResolutionContext context
+    ) {
+        this.owner = owner;
+        this.index = index;
+        this.name = name;
+        this.upperBounds = upperBounds;
+        this.context = context;
+    }
+
+    @NotNull
+    @Override
+    public Name getName() {
+        return Name.identifier(name);
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaClassifierType> getUpperBounds() {
+        return upperBounds;
+    }
+
+    @NotNull
+    @Override
+    public JavaTypeParameterListOwner getOwner() {
+        return owner;
+    }
+
+    @NotNull
+    @Override
+    public JavaType getType() {
+        return BinaryJavaClassifierType.create(this, Collections.<JavaType>emptyList());
+    }
+
+    @NotNull
+    @Override
+    public JavaTypeProvider getTypeProvider() {
+        return context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BinaryJavaTypeParameter)) return false;
+        BinaryJavaTypeParameter other = (BinaryJavaTypeParameter) o;
+        return name.equals(other.name) && owner.equals(other.owner);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + owner.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + name;
+    }
+}
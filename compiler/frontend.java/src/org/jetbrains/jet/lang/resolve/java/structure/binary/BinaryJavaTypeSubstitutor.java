@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.resolver.DescriptorResolverUtils;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Substitutes types of any implementation of the Java model, since a class loaded from a class file may have PSI-based supertypes.
+ * The types which are changed by the substitution are constructed as binary types.
+ *
+ * As in PSI, type parameters of raw types are mapped to null, and a class type using such a parameter as an argument becomes raw.
+ */
+public class BinaryJavaTypeSubstitutor implements JavaTypeSubstitutor {
+    private final Map<JavaTypeParameter, JavaType> substitutionMap;
+
+    public BinaryJavaTypeSubstitutor(@NotNull Map<JavaTypeParameter, JavaType> substitutionMap) {
+        this.substitutionMap = substitutionMap;
+    }
+
+    @NotNull
+    @Override
+    public JavaType substitute(@NotNull JavaType type) {
+        JavaType result = doSubstitute(type);
+        return result != null ? result : rawErasure(type);
+    }
+
+    // Returns null if the type is a type parameter which is mapped to null
+    @Nullable
+    private JavaType doSubstitute(@NotNull JavaType type) {
+        if (type instanceof JavaClassifierType) {
+            JavaClassifierType classifierType = (JavaClassifierType) type;
+            JavaClassifier classifier = classifierType.getClassifier();
+            if (classifier instanceof JavaTypeParameter) {
+                return substitutionMap.containsKey(classifier) ? substitutionMap.get(classifier) : type;
+            }
+
+            List<JavaType> arguments = classifierType.getTypeArguments();
+            if (classifier == null || arguments.isEmpty()) return type;
+
+            List<JavaType> substitutedArguments = new ArrayList<JavaType>(arguments.size());
+            boolean changed = false;
+            for (JavaType argument : arguments) {
+                JavaType substituted = doSubstitute(argument);
+                if (substituted == null) {
+                    return BinaryJavaClassifierType.create(classifier, Collections.<JavaType>emptyList());
+                }
+                changed |= substituted != argument;
+                substitutedArguments.add(substituted);
+            }
+            return changed ? BinaryJavaClassifierType.create(classifier, substitutedArguments) : type;
+        }
+        else if (type instanceof JavaArrayType) {
+            JavaType componentType = ((JavaArrayType) type).getComponentType();
+            JavaType substituted = substitute(componentType);
+            return substituted == componentType ? type : substituted.createArrayType();
+        }
+        else if (type instanceof JavaWildcardType) {
+            JavaWildcardType wildcardType = (JavaWildcardType) type;
+            JavaType bound = wildcardType.getBound();
+            if (bound == null) return type;
+            JavaType substituted = doSubstitute(bound);
+            if (substituted == null) return null;
+            return substituted == bound
+                   ? type
+                   : new BinaryJavaWildcardType(substituted, wildcardType.isExtends(), wildcardType.getTypeProvider());
+        }
+        return type;
+    }
+
+    @NotNull
+    private static JavaType rawErasure(@NotNull JavaType type) {
+        JavaType erasure = DescriptorResolverUtils.erasure(type);
+        return erasure != null ? erasure : type;
+    }
+
+    @Nullable
+    @Override
+    public JavaType substitute(@NotNull JavaTypeParameter typeParameter) {
+        return substitutionMap.containsKey(typeParameter) ? substitutionMap.get(typeParameter) : typeParameter.getType();
+    }
+
+    @NotNull
+    @Override
+    public Map<JavaTypeParameter, JavaType> getSubstitutionMap() {
+        return substitutionMap;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": " + substitutionMap;
+    }
+}
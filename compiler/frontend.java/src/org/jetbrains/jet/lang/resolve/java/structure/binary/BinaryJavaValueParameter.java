@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaAnnotation;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaType;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaValueParameter;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.Collection;
+
+public class BinaryJavaValueParameter implements JavaValueParameter {
+    private final JavaType type;
+    private final boolean isVararg;
+    private final Collection<JavaAnnotation> annotations;
+
+    /* package */ BinaryJavaValueParameter(@NotNull JavaType type, boolean isVararg, @NotNull Collection<JavaAnnotation> annotations) {
+        this.type = type;
+        this.isVararg = isVararg;
+        this.annotations = annotations;
+    }
+
+    @NotNull
+    @Override
+    public Collection<JavaAnnotation> getAnnotations() {
+        return annotations;
+    }
+
+    @Nullable
+    @Override
+    public JavaAnnotation findAnnotation(@NotNull FqName fqName) {
+        return BinaryJavaMember.findAnnotation(annotations, fqName);
+    }
+
+    @Override
+    @Nullable
+    public Name getName() {
+        // Names of parameters are not stored in class files (unless compiled with debug info, which is not read),
+        // the default names are used instead, as for PSI built for class files
+        return null;
+    }
+
+    @Override
+    @NotNull
+    public JavaType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isVararg() {
+        return isVararg;
+    }
+}
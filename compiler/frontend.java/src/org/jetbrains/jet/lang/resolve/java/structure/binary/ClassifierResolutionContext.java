@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaClass;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaType;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaTypeParameter;
+import org.jetbrains.jet.lang.resolve.java.structure.JavaTypeProvider;
+
+import java.util.Collections;
+
+/**
+ * Resolves the classifiers referenced from a signature in a class file: classes by their internal names,
+ * type variables by their names in the scope of the class or the method the signature belongs to
+ */
+/* package */ final class ClassifierResolutionContext implements JavaTypeProvider {
+    interface TypeParameterScope {
+        @Nullable
+        JavaTypeParameter findTypeParameter(@NotNull String name);
+    }
+
+    private final BinaryJavaClassFinder finder;
+    private final TypeParameterScope scope;
+
+    ClassifierResolutionContext(@NotNull BinaryJavaClassFinder finder, @NotNull TypeParameterScope scope) {
+        this.finder = finder;
+        this.scope = scope;
+    }
+
+    @NotNull
+    public BinaryJavaClassFinder getFinder() {
+        return finder;
+    }
+
+    @Nullable
+    public JavaClass resolveClass(@NotNull String internalName) {
+        return finder.resolveClass(internalName);
+    }
+
+    @Nullable
+    public JavaTypeParameter resolveTypeParameter(@NotNull String name) {
+        return scope.findTypeParameter(name);
+    }
+
+    @NotNull
+    @Override
+    public JavaType createJavaLangObjectType() {
+        return BinaryJavaClassifierType.classType(this, "java/lang/Object", Collections.<JavaType>emptyList());
+    }
+}
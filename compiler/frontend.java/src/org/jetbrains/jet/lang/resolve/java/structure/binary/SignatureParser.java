@@ -0,0 +1,249 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java.structure.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.structure.*;
+import org.jetbrains.org.objectweb.asm.Opcodes;
+import org.jetbrains.org.objectweb.asm.signature.SignatureReader;
+import org.jetbrains.org.objectweb.asm.signature.SignatureVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses generic signatures and descriptors of classes, methods and fields into the binary Java model
+ */
+/* package */ final class SignatureParser {
+    private static final String JAVA_LANG_OBJECT = "java/lang/Object";
+
+    private SignatureParser() {
+    }
+
+    @NotNull
+    public static DeclarationBuilder parseDeclaration(@NotNull String signature) {
+        DeclarationBuilder builder = new DeclarationBuilder();
+        new SignatureReader(signature).accept(builder);
+        return builder;
+    }
+
+    @NotNull
+    public static JavaType parseType(@NotNull String signature, @NotNull ClassifierResolutionContext context) {
+        TypeBuilder builder = new TypeBuilder();
+        new SignatureReader(signature).acceptType(builder);
+        return builder.build(context);
+    }
+
+    @NotNull
+    public static List<JavaTypeParameter> createTypeParameters(
+            @NotNull JavaTypeParameterListOwner owner,
+            @NotNull DeclarationBuilder declaration,
+            @NotNull ClassifierResolutionContext context
+    ) {
+        if (declaration.typeParameterNames.isEmpty()) return Collections.emptyList();
+
+        List<JavaTypeParameter> result = new ArrayList<JavaTypeParameter>(declaration.typeParameterNames.size());
+        for (int i = 0; i < declaration.typeParameterNames.size(); i++) {
+            List<JavaClassifierType> upperBounds = new ArrayList<JavaClassifierType>(1);
+            for (TypeBuilder bound : declaration.typeParameterBounds.get(i)) {
+                // Same as in PSI built for class files: an explicit upper bound java.lang.Object is omitted
+                if (JAVA_LANG_OBJECT.equals(bound.internalName) && bound.arguments.isEmpty()) continue;
+                upperBounds.add((JavaClassifierType) bound.build(context));
+            }
+            result.add(new BinaryJavaTypeParameter(owner, i, declaration.typeParameterNames.get(i), upperBounds, context));
+        }
+        return result;
+    }
+
+    @NotNull
+    public static List<JavaType> buildTypes(@NotNull List<TypeBuilder> builders, @NotNull ClassifierResolutionContext context) {
+        if (builders.isEmpty()) return Collections.emptyList();
+
+        List<JavaType> result = new ArrayList<JavaType>(builders.size());
+        for (TypeBuilder builder : builders) {
+            result.add(builder.build(context));
+        }
+        return result;
+    }
+
+    /* package */ static final class DeclarationBuilder extends SignatureVisitor {
+        private final List<String> typeParameterNames = new ArrayList<String>(0);
+        private final List<List<TypeBuilder>> typeParameterBounds = new ArrayList<List<TypeBuilder>>(0);
+
+        /* package */ TypeBuilder superclass;
+        /* package */ final List<TypeBuilder> interfaces = new ArrayList<TypeBuilder>(0);
+        /* package */ final List<TypeBuilder> parameterTypes = new ArrayList<TypeBuilder>();
+        /* package */ TypeBuilder returnType;
+
+        private DeclarationBuilder() {
+            super(Opcodes.ASM5);
+        }
+
+        @Override
+        public void visitFormalTypeParameter(String name) {
+            typeParameterNames.add(name);
+            typeParameterBounds.add(new ArrayList<TypeBuilder>(1));
+        }
+
+        @Override
+        public SignatureVisitor visitClassBound() {
+            return addBound();
+        }
+
+        @Override
+        public SignatureVisitor visitInterfaceBound() {
+            return addBound();
+        }
+
+        @NotNull
+        private SignatureVisitor addBound() {
+            TypeBuilder bound = new TypeBuilder();
+            typeParameterBounds.get(typeParameterBounds.size() - 1).add(bound);
+            return bound;
+        }
+
+        @Override
+        public SignatureVisitor visitSuperclass() {
+            superclass = new TypeBuilder();
+            return superclass;
+        }
+
+        @Override
+        public SignatureVisitor visitInterface() {
+            TypeBuilder type = new TypeBuilder();
+            interfaces.add(type);
+            return type;
+        }
+
+        @Override
+        public SignatureVisitor visitParameterType() {
+            TypeBuilder type = new TypeBuilder();
+            parameterTypes.add(type);
+            return type;
+        }
+
+        @Override
+        public SignatureVisitor visitReturnType() {
+            returnType = new TypeBuilder();
+            return returnType;
+        }
+
+        @Override
+        public SignatureVisitor visitExceptionType() {
+            // Thrown exceptions are not a part of the Java model
+            return new TypeBuilder();
+        }
+    }
+
+    /* package */ static final class TypeBuilder extends SignatureVisitor {
+        private static final char UNBOUNDED_WILDCARD = '*';
+
+        private char wildcardKind = INSTANCEOF;
+        private char baseType;
+        private String typeVariable;
+        private TypeBuilder arrayComponent;
+        private String internalName;
+        private final List<TypeBuilder> arguments = new ArrayList<TypeBuilder>(0);
+
+        private TypeBuilder() {
+            super(Opcodes.ASM5);
+        }
+
+        @Nullable
+        /* package */ String getInternalName() {
+            return internalName;
+        }
+
+        /* package */ boolean isVoid() {
+            return baseType == 'V';
+        }
+
+        @Override
+        public void visitBaseType(char descriptor) {
+            baseType = descriptor;
+        }
+
+        @Override
+        public void visitTypeVariable(String name) {
+            typeVariable = name;
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType() {
+            arrayComponent = new TypeBuilder();
+            return arrayComponent;
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            internalName = name;
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            // Only the arguments of the innermost class are supported by the Java model
+            internalName = internalName + "$" + name;
+            arguments.clear();
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            TypeBuilder argument = new TypeBuilder();
+            argument.wildcardKind = UNBOUNDED_WILDCARD;
+            arguments.add(argument);
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            TypeBuilder argument = new TypeBuilder();
+            argument.wildcardKind = wildcard;
+            arguments.add(argument);
+            return argument;
+        }
+
+        @NotNull
+        public JavaType build(@NotNull ClassifierResolutionContext context) {
+            switch (wildcardKind) {
+                case UNBOUNDED_WILDCARD:
+                    return new BinaryJavaWildcardType(null, false, context);
+                case EXTENDS:
+                    return new BinaryJavaWildcardType(buildType(context), true, context);
+                case SUPER:
+                    return new BinaryJavaWildcardType(buildType(context), false, context);
+                default:
+                    return buildType(context);
+            }
+        }
+
+        @NotNull
+        private JavaType buildType(@NotNull ClassifierResolutionContext context) {
+            if (baseType != 0) {
+                return BinaryJavaPrimitiveType.byDescriptor(baseType);
+            }
+            if (typeVariable != null) {
+                return BinaryJavaClassifierType.typeVariable(context, typeVariable);
+            }
+            if (arrayComponent != null) {
+                return new BinaryJavaArrayType(arrayComponent.build(context));
+            }
+            assert internalName != null : "Type is not visited";
+            return BinaryJavaClassifierType.classType(context, internalName, buildTypes(arguments, context));
+        }
+    }
+}
@@ -26,13 +26,20 @@ import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
 import org.jetbrains.jet.lang.resolve.constants.ConstantsPackage;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaField;
 import org.jetbrains.jet.lang.resolve.java.structure.JavaPropertyInitializerEvaluator;
+import org.jetbrains.jet.lang.resolve.java.structure.binary.BinaryJavaField;
 
 public class JavaPropertyInitializerEvaluatorImpl implements JavaPropertyInitializerEvaluator {
     @Nullable
     @Override
     public CompileTimeConstant<?> getInitializerConstant(@NotNull JavaField field, @NotNull PropertyDescriptor descriptor) {
-        PsiExpression initializer = ((JavaFieldImpl) field).getInitializer();
-        Object evaluatedExpression = JavaConstantExpressionEvaluator.computeConstantExpression(initializer, false);
+        Object evaluatedExpression;
+        if (field instanceof BinaryJavaField) {
+            evaluatedExpression = ((BinaryJavaField) field).getConstantValue();
+        }
+        else {
+            PsiExpression initializer = ((JavaFieldImpl) field).getInitializer();
+            evaluatedExpression = JavaConstantExpressionEvaluator.computeConstantExpression(initializer, false);
+        }
         if (evaluatedExpression != null) {
             return ConstantsPackage.createCompileTimeConstant(
                     evaluatedExpression,
@@ -16,44 +16,127 @@
 
 package org.jetbrains.jet.lang.resolve.kotlin;
 
+import com.google.common.cache.*;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.containers.SLRUCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Process-wide cache of class names and Kotlin headers read from binary classes.
+ *
+ * Entries are keyed by the file and its time stamp, so a class file which is changed on disk is read again. The cache is bounded by the
+ * approximate size of the cached headers in bytes. Values may be held by soft references, so that the cache never prevents VFS
+ * from being collected under memory pressure.
+ *
+ * The defaults may be overridden with system properties {@link #MAX_SIZE_PROPERTY} (in bytes) and {@link #SOFT_VALUES_PROPERTY}.
+ */
 public final class KotlinBinaryClassCache implements Disposable {
+    public static final String MAX_SIZE_PROPERTY = "kotlin.binary.class.cache.size";
+    public static final String SOFT_VALUES_PROPERTY = "kotlin.binary.class.cache.soft";
+
+    private static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
 
-    // This cache must be small: we only query the same file a few times in a row (from different places)
-    // It's local to each thread: we don't want a single instance to synchronize access on, because VirtualFileKotlinClass.create involves
-    // reading files from disk and may take some time
-    private final ThreadLocal<SLRUCache<VirtualFile, Ref<VirtualFileKotlinClass>>> cache =
-            new ThreadLocal<SLRUCache<VirtualFile, Ref<VirtualFileKotlinClass>>>() {
-                @Override
-                protected SLRUCache<VirtualFile, Ref<VirtualFileKotlinClass>> initialValue() {
-                    return new SLRUCache<VirtualFile, Ref<VirtualFileKotlinClass>>(2, 2) {
-                        @NotNull
-                        @Override
-                        public Ref<VirtualFileKotlinClass> createValue(VirtualFile virtualFile) {
-                            return Ref.create(VirtualFileKotlinClass.create(virtualFile));
-                        }
-                    };
-                }
-            };
+    // Rough size of a cache entry without the annotation data: the key, the VirtualFileKotlinClass and the header objects
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final LoadingCache<FileWithTimeStamp, Ref<VirtualFileKotlinClass>> cache;
+
+    public KotlinBinaryClassCache() {
+        this(Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE),
+             Boolean.parseBoolean(System.getProperty(SOFT_VALUES_PROPERTY, "true")));
+    }
+
+    public KotlinBinaryClassCache(long maxSizeInBytes, boolean softValues) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .recordStats();
+        if (softValues) {
+            builder.softValues();
+        }
+
+        cache = builder
+                .weigher(new Weigher<FileWithTimeStamp, Ref<VirtualFileKotlinClass>>() {
+                    @Override
+                    public int weigh(@NotNull FileWithTimeStamp key, @NotNull Ref<VirtualFileKotlinClass> value) {
+                        return estimateSize(value.get());
+                    }
+                })
+                .build(new CacheLoader<FileWithTimeStamp, Ref<VirtualFileKotlinClass>>() {
+                    @Override
+                    public Ref<VirtualFileKotlinClass> load(@NotNull FileWithTimeStamp key) {
+                        return Ref.create(VirtualFileKotlinClass.create(key.file));
+                    }
+                });
+    }
 
     @Nullable
     public static KotlinJvmBinaryClass getKotlinBinaryClass(@NotNull VirtualFile file) {
         KotlinBinaryClassCache service = ServiceManager.getService(KotlinBinaryClassCache.class);
-        return service.cache.get().get(file).get();
+        return service.get(file);
+    }
+
+    @Nullable
+    public VirtualFileKotlinClass get(@NotNull VirtualFile file) {
+        return cache.getUnchecked(new FileWithTimeStamp(file)).get();
+    }
+
+    /**
+     * @return hit, miss and eviction counts of this cache. Collected soft values are counted as evictions
+     */
+    @NotNull
+    public CacheStats getStatistics() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    private static int estimateSize(@Nullable VirtualFileKotlinClass kotlinClass) {
+        if (kotlinClass == null) return ENTRY_OVERHEAD;
+
+        int size = ENTRY_OVERHEAD + 2 * kotlinClass.getClassName().getInternalName().length();
+        String[] annotationData = kotlinClass.getClassHeader().getAnnotationData();
+        if (annotationData != null) {
+            for (String string : annotationData) {
+                size += 2 * string.length();
+            }
+        }
+        return size;
     }
 
     @Override
     public void dispose() {
         // This is only relevant for tests. We create a new instance of Application for each test, and so a new instance of this service is
-        // also created for each test. However all tests share the same event dispatch thread, which would collect all instances of this
-        // thread-local if they're not removed properly. Each instance would transitively retain VFS resulting in OutOfMemoryError
-        cache.remove();
+        // also created for each test. Each instance transitively retains VFS, so its entries should be dropped as soon as possible
+        cache.invalidateAll();
+        cache.cleanUp();
+    }
+
+    private static final class FileWithTimeStamp {
+        private final VirtualFile file;
+        private final long timeStamp;
+
+        private FileWithTimeStamp(@NotNull VirtualFile file) {
+            this.file = file;
+            this.timeStamp = file.getTimeStamp();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FileWithTimeStamp)) return false;
+
+            FileWithTimeStamp other = (FileWithTimeStamp) o;
+            return timeStamp == other.timeStamp && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + (int) (timeStamp ^ (timeStamp >>> 32));
+        }
     }
 }
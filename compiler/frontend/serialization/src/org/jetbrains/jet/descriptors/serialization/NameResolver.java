@@ -17,23 +17,38 @@
 package org.jetbrains.jet.descriptors.serialization;
 
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
 import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.utils.WeakInterner;
 
 import static org.jetbrains.jet.descriptors.serialization.ProtoBuf.QualifiedNameTable.QualifiedName;
 
+/**
+ * Resolves indices of the name tables to names. Every name, fqName and class id is computed only once on the first access,
+ * and names and fqNames are shared between all resolvers, so that equal names in different classes are the same objects.
+ */
 public class NameResolver {
+    private static final WeakInterner<Name> NAMES = new WeakInterner<Name>();
+    private static final WeakInterner<FqName> FQ_NAMES = new WeakInterner<FqName>();
+
     private final ProtoBuf.SimpleNameTable simpleNames;
     private final ProtoBuf.QualifiedNameTable qualifiedNames;
 
+    // Filled lazily. Resolved objects are immutable, so a race here can only lead to the same value being computed twice
+    private final Name[] names;
+    private final FqName[] fqNames;
+    private final ClassId[] classIds;
+
     public NameResolver(
             @NotNull ProtoBuf.SimpleNameTable simpleNames,
             @NotNull ProtoBuf.QualifiedNameTable qualifiedNames
     ) {
         this.simpleNames = simpleNames;
         this.qualifiedNames = qualifiedNames;
+        this.names = new Name[simpleNames.getNameCount()];
+        this.fqNames = new FqName[qualifiedNames.getQualifiedNameCount()];
+        this.classIds = new ClassId[qualifiedNames.getQualifiedNameCount()];
     }
 
     @NotNull
@@ -48,57 +63,60 @@ public class NameResolver {
 
     @NotNull
     public Name getName(int index) {
-        String name = simpleNames.getName(index);
-        return Name.guess(name);
+        Name name = names[index];
+        if (name == null) {
+            name = NAMES.intern(Name.guess(simpleNames.getName(index)));
+            names[index] = name;
+        }
+        return name;
     }
 
     @NotNull
     public ClassId getClassId(int index) {
-        QualifiedName fqNameProto = qualifiedNames.getQualifiedName(index);
-        assert fqNameProto.getKind() == ProtoBuf.QualifiedNameTable.QualifiedName.Kind.CLASS : "Not a class fqName: " + fqNameProto.getKind();
-
-        StringBuilder relativeClassName = new StringBuilder();
-        QualifiedName packageFqNameProto = renderFqName(relativeClassName, fqNameProto, QualifiedName.Kind.CLASS);
+        ClassId classId = classIds[index];
+        if (classId == null) {
+            classId = computeClassId(index);
+            classIds[index] = classId;
+        }
+        return classId;
+    }
 
-        FqName packageFqName;
-        if (packageFqNameProto != null) {
-            StringBuilder sb = new StringBuilder();
-            QualifiedName mustBeNull = renderFqName(sb, packageFqNameProto, QualifiedName.Kind.PACKAGE);
-            assert mustBeNull == null : "Prefix of an fqName must be all of kind PACKAGE";
+    @NotNull
+    private ClassId computeClassId(int index) {
+        QualifiedName fqNameProto = qualifiedNames.getQualifiedName(index);
+        assert fqNameProto.getKind() == QualifiedName.Kind.CLASS : "Not a class fqName: " + fqNameProto.getKind();
 
-            packageFqName = new FqName(sb.toString());
+        Name shortName = getName(fqNameProto.getShortName());
+        if (!fqNameProto.hasParentQualifiedName()) {
+            return new ClassId(FqName.ROOT, FqNameUnsafe.topLevel(shortName));
         }
-        else {
-            packageFqName = FqName.ROOT;
+
+        int parentIndex = fqNameProto.getParentQualifiedName();
+        if (qualifiedNames.getQualifiedName(parentIndex).getKind() == QualifiedName.Kind.CLASS) {
+            return getClassId(parentIndex).createNestedClassId(shortName);
         }
 
-        return new ClassId(packageFqName, new FqNameUnsafe(relativeClassName.toString()));
+        assert isPackageFqName(parentIndex) : "Prefix of an fqName must be all of kind PACKAGE";
+        return new ClassId(getFqName(parentIndex), FqNameUnsafe.topLevel(shortName));
     }
 
-    @Nullable
-    private QualifiedName renderFqName(StringBuilder sb, QualifiedName fqNameProto, QualifiedName.Kind kind) {
-        QualifiedName result = null;
-        if (fqNameProto.hasParentQualifiedName()) {
-            QualifiedName parentProto = qualifiedNames.getQualifiedName(fqNameProto.getParentQualifiedName());
-            if (kind == null || parentProto.getKind() == kind) {
-                result = renderFqName(sb, parentProto, kind);
-                sb.append(".");
-            }
-            else {
-                result = parentProto;
-            }
-        }
-        sb.append(simpleNames.getName(fqNameProto.getShortName()));
-        return result;
+    private boolean isPackageFqName(int index) {
+        QualifiedName fqNameProto = qualifiedNames.getQualifiedName(index);
+        if (fqNameProto.getKind() != QualifiedName.Kind.PACKAGE) return false;
+        return !fqNameProto.hasParentQualifiedName() || isPackageFqName(fqNameProto.getParentQualifiedName());
     }
 
     @NotNull
     public FqName getFqName(int index) {
-        QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
-        Name shortName = getName(qualifiedName.getShortName());
-        if (!qualifiedName.hasParentQualifiedName()) {
-            return FqName.topLevel(shortName);
+        FqName fqName = fqNames[index];
+        if (fqName == null) {
+            QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
+            Name shortName = getName(qualifiedName.getShortName());
+            fqName = FQ_NAMES.intern(qualifiedName.hasParentQualifiedName()
+                                     ? getFqName(qualifiedName.getParentQualifiedName()).child(shortName)
+                                     : FqName.topLevel(shortName));
+            fqNames[index] = fqName;
         }
-        return getFqName(qualifiedName.getParentQualifiedName()).child(shortName);
+        return fqName;
     }
 }
@@ -19,6 +19,7 @@ package org.jetbrains.jet.context
 import org.jetbrains.jet.storage.StorageManager
 import org.jetbrains.jet.storage.ExceptionTracker
 import org.jetbrains.jet.storage.LockBasedStorageManager
+import org.jetbrains.jet.storage.ConcurrentStorageManager
 
 trait GlobalContext {
     val storageManager: StorageManager
@@ -40,4 +41,12 @@ open class GlobalContextImpl(
 fun GlobalContext(): GlobalContextImpl {
     val tracker = ExceptionTracker()
     return GlobalContextImpl(LockBasedStorageManager.createWithExceptionHandling(tracker), tracker)
-}
\ No newline at end of file
+}
+
+/**
+ * Creates a context whose lazy values may be computed by several threads at the same time, see ConcurrentStorageManager
+ */
+fun ConcurrentGlobalContext(): GlobalContextImpl {
+    val tracker = ExceptionTracker()
+    return GlobalContextImpl(ConcurrentStorageManager(tracker), tracker)
+}
@@ -37,40 +37,51 @@ public class PseudocodeVariableDataCollector(
 ) {
     val lexicalScopeVariableInfo = computeLexicalScopeVariableInfo(pseudocode)
 
-    suppress("UNCHECKED_CAST")
-    public fun <D> collectData(
+    val variableIndex = PseudocodeVariableIndex(pseudocode, bindingContext)
+
+    // Variables which are visible in a lexical scope of the given depth, see filterOutVariablesOutOfScope()
+    private val variablesVisibleAtDepth = HashMap<Int, LongArray>()
+
+    public fun collectData(
             traversalOrder: TraversalOrder,
             mergeDataWithLocalDeclarations: Boolean,
-            instructionDataMergeStrategy: InstructionDataMergeStrategy<D>
-    ): MutableMap<Instruction, Edges<MutableMap<VariableDescriptor, D>>> {
-        val result = pseudocode.collectData(
-                traversalOrder, mergeDataWithLocalDeclarations,
-                //see KT-4605
-                instructionDataMergeStrategy as
-                    (Instruction, Collection<Map<VariableDescriptor, D>>) -> Edges<Map<VariableDescriptor, D>>,
-                { (from, to, data) -> filterOutVariablesOutOfScope(from, to, data)},
-                Collections.emptyMap<VariableDescriptor, D>())
-        //see KT-4605
-        return result as MutableMap<Instruction, Edges<MutableMap<VariableDescriptor, D>>>
+            transfer: VariableDataFlowSolver.Transfer
+    ): Map<Instruction, Edges<VariableStates>> {
+        val solver = VariableDataFlowSolver(pseudocode, traversalOrder, mergeDataWithLocalDeclarations)
+        return solver.solve(
+                VariableStates.empty(variableIndex.size()),
+                transfer,
+                object : VariableDataFlowSolver.EdgeFilter {
+                    override fun invoke(from: Instruction, to: Instruction, data: VariableStates) =
+                            filterOutVariablesOutOfScope(from, to, data)
+                })
     }
 
-    private fun <D> filterOutVariablesOutOfScope(
+    private fun filterOutVariablesOutOfScope(
             from: Instruction,
             to: Instruction,
-            data: Map<VariableDescriptor, D>
-    ): Map<VariableDescriptor, D> {
+            data: VariableStates
+    ): VariableStates {
         // If an edge goes from deeper lexical scope to a less deep one, this means that it points outside of the deeper scope.
         val toDepth = to.getLexicalScope().depth
         if (toDepth >= from.getLexicalScope().depth) return data
 
         // Variables declared in an inner (deeper) scope can't be accessed from an outer scope.
         // Thus they can be filtered out upon leaving the inner scope.
-        return data.filterKeys { variable ->
-            val lexicalScope = lexicalScopeVariableInfo.declaredIn[variable]
+        return data.retain(variablesVisibleAtDepth.getOrPut(toDepth) { computeVariablesVisibleAtDepth(toDepth) })
+    }
+
+    private fun computeVariablesVisibleAtDepth(depth: Int): LongArray {
+        val result = LongArray((variableIndex.size() + 63) / 64)
+        for (index in 0..variableIndex.size() - 1) {
+            val lexicalScope = lexicalScopeVariableInfo.declaredIn[variableIndex.getVariable(index)]
             // '-1' for variables declared outside this pseudocode
-            val depth = lexicalScope?.depth ?: -1
-            depth <= toDepth
+            val variableDepth = lexicalScope?.depth ?: -1
+            if (variableDepth <= depth) {
+                result[index / 64] = result[index / 64] or (1.toLong() shl index)
+            }
         }
+        return result
     }
 
     fun computeLexicalScopeVariableInfo(pseudocode: Pseudocode): LexicalScopeVariableInfo {
@@ -92,10 +103,6 @@ public class PseudocodeVariableDataCollector(
     }
 }
 
-//todo may be a type alias
-trait InstructionDataMergeStrategy<D> :
-  (Instruction, Collection<MutableMap<VariableDescriptor, D>>) -> Edges<MutableMap<VariableDescriptor, D>>
-
 public trait LexicalScopeVariableInfo {
     val declaredIn : Map<VariableDescriptor, LexicalScope>
     val scopeVariables : Map<LexicalScope, Collection<VariableDescriptor>>
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.cfg;
+
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.cfg.pseudocode.Instruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.LocalFunctionDeclarationInstruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.Pseudocode;
+import org.jetbrains.jet.lang.cfg.pseudocode.PseudocodeUtil;
+import org.jetbrains.jet.lang.descriptors.VariableDescriptor;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Dense numbering of the variables which are declared, read or written in a pseudocode and its local declarations
+ */
+public class PseudocodeVariableIndex {
+    private final List<VariableDescriptor> variables = new ArrayList<VariableDescriptor>();
+    private final TObjectIntHashMap<VariableDescriptor> indices = new TObjectIntHashMap<VariableDescriptor>();
+
+    public PseudocodeVariableIndex(@NotNull Pseudocode pseudocode, @NotNull BindingContext bindingContext) {
+        addVariables(pseudocode, bindingContext);
+    }
+
+    private void addVariables(@NotNull Pseudocode pseudocode, @NotNull BindingContext bindingContext) {
+        for (Instruction instruction : pseudocode.getInstructions()) {
+            if (instruction instanceof LocalFunctionDeclarationInstruction) {
+                addVariables(((LocalFunctionDeclarationInstruction) instruction).getBody(), bindingContext);
+            }
+            // Variable use analysis only takes references into account, so its variables are a subset of these
+            VariableDescriptor variable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
+            if (variable != null && !indices.containsKey(variable)) {
+                indices.put(variable, variables.size());
+                variables.add(variable);
+            }
+        }
+    }
+
+    public int size() {
+        return variables.size();
+    }
+
+    /**
+     * @return the number of the variable, or -1 if it's not used in the pseudocode
+     */
+    public int indexOf(@Nullable Object variable) {
+        if (!(variable instanceof VariableDescriptor)) return -1;
+        VariableDescriptor descriptor = (VariableDescriptor) variable;
+        return indices.containsKey(descriptor) ? indices.get(descriptor) : -1;
+    }
+
+    @NotNull
+    public VariableDescriptor getVariable(int index) {
+        return variables.get(index);
+    }
+
+    public interface ValueDecoder<D> {
+        @NotNull
+        D decode(int value);
+    }
+
+    /**
+     * @return a read-only view of the given states as a map from the variables to their decoded values
+     */
+    @NotNull
+    public <D> Map<VariableDescriptor, D> asMap(@NotNull VariableStates states, @NotNull ValueDecoder<D> decoder) {
+        return new VariableStatesMap<D>(states, decoder);
+    }
+
+    private class VariableStatesMap<D> extends AbstractMap<VariableDescriptor, D> {
+        private final VariableStates states;
+        private final ValueDecoder<D> decoder;
+
+        private VariableStatesMap(@NotNull VariableStates states, @NotNull ValueDecoder<D> decoder) {
+            this.states = states;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public D get(Object key) {
+            int index = indexOf(key);
+            if (index < 0) return null;
+            int value = states.get(index);
+            return value != VariableStates.NO_VALUE ? decoder.decode(value) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int index = indexOf(key);
+            return index >= 0 && states.get(index) != VariableStates.NO_VALUE;
+        }
+
+        @Override
+        public int size() {
+            return states.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return states.isEmpty();
+        }
+
+        @NotNull
+        @Override
+        public Set<Entry<VariableDescriptor, D>> entrySet() {
+            return new AbstractSet<Entry<VariableDescriptor, D>>() {
+                @NotNull
+                @Override
+                public Iterator<Entry<VariableDescriptor, D>> iterator() {
+                    return new Iterator<Entry<VariableDescriptor, D>>() {
+                        private int next = states.nextVariable(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<VariableDescriptor, D> next() {
+                            if (next < 0) throw new NoSuchElementException();
+                            int index = next;
+                            next = states.nextVariable(index + 1);
+                            return new SimpleImmutableEntry<VariableDescriptor, D>(getVariable(index), decoder.decode(states.get(index)));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return states.size();
+                }
+            };
+        }
+    }
+}
@@ -143,25 +143,43 @@ public class PseudocodeVariablesData {
     private Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> computeVariableInitializers() {
 
         final LexicalScopeVariableInfo lexicalScopeVariableInfo = pseudocodeVariableDataCollector.getLexicalScopeVariableInfo();
+        final PseudocodeVariableIndex variableIndex = pseudocodeVariableDataCollector.getVariableIndex();
 
-        return pseudocodeVariableDataCollector.collectData(
+        Map<Instruction, Edges<VariableStates>> data = pseudocodeVariableDataCollector.collectData(
                 FORWARD, /*mergeDataWithLocalDeclarations=*/ false,
-                new InstructionDataMergeStrategy<VariableInitState>() {
+                new VariableDataFlowSolver.Transfer() {
                     @NotNull
                     @Override
-                    public Edges<Map<VariableDescriptor, VariableInitState>> invoke(
+                    public Edges<VariableStates> invoke(
                             @NotNull Instruction instruction,
-                            @NotNull Collection<? extends Map<VariableDescriptor, VariableInitState>> incomingEdgesData
+                            @NotNull Collection<VariableStates> incomingEdgesData
                     ) {
-
-                        Map<VariableDescriptor, VariableInitState> enterInstructionData =
-                                mergeIncomingEdgesDataForInitializers(incomingEdgesData);
-                        Map<VariableDescriptor, VariableInitState> exitInstructionData = addVariableInitStateFromCurrentInstructionIfAny(
+                        // A variable is initialized (declared) if it's initialized (declared) on all the edges where it's known
+                        VariableStates enterInstructionData = VariableStates.mergeBitwiseAnd(incomingEdgesData, variableIndex.size());
+                        VariableStates exitInstructionData = addVariableInitStateFromCurrentInstructionIfAny(
                                 instruction, enterInstructionData, lexicalScopeVariableInfo);
-                        return new Edges<Map<VariableDescriptor, VariableInitState>>(enterInstructionData, exitInstructionData);
+                        return new Edges<VariableStates>(enterInstructionData, exitInstructionData);
                     }
                 }
         );
+        return asVariableMaps(data, VariableInitState.DECODER);
+    }
+
+    @NotNull
+    private <D> Map<Instruction, Edges<Map<VariableDescriptor, D>>> asVariableMaps(
+            @NotNull Map<Instruction, Edges<VariableStates>> data,
+            @NotNull PseudocodeVariableIndex.ValueDecoder<D> decoder
+    ) {
+        PseudocodeVariableIndex variableIndex = pseudocodeVariableDataCollector.getVariableIndex();
+        Map<Instruction, Edges<Map<VariableDescriptor, D>>> result = Maps.newLinkedHashMap();
+        for (Map.Entry<Instruction, Edges<VariableStates>> entry : data.entrySet()) {
+            VariableStates incoming = entry.getValue().getIncoming();
+            VariableStates outgoing = entry.getValue().getOutgoing();
+            Map<VariableDescriptor, D> incomingMap = variableIndex.asMap(incoming, decoder);
+            Map<VariableDescriptor, D> outgoingMap = incoming == outgoing ? incomingMap : variableIndex.asMap(outgoing, decoder);
+            result.put(entry.getKey(), new Edges<Map<VariableDescriptor, D>>(incomingMap, outgoingMap));
+        }
+        return result;
     }
 
     public static VariableInitState getDefaultValueForInitializers(
@@ -178,38 +196,9 @@ public class PseudocodeVariablesData {
     }
 
     @NotNull
-    private static Map<VariableDescriptor, VariableInitState> mergeIncomingEdgesDataForInitializers(
-            @NotNull Collection<? extends Map<VariableDescriptor, VariableInitState>> incomingEdgesData
-    ) {
-        Set<VariableDescriptor> variablesInScope = Sets.newHashSet();
-        for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-            variablesInScope.addAll(edgeData.keySet());
-        }
-
-        Map<VariableDescriptor, VariableInitState> enterInstructionData = Maps.newHashMap();
-        for (VariableDescriptor variable : variablesInScope) {
-            boolean isInitialized = true;
-            boolean isDeclared = true;
-            for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-                VariableInitState initState = edgeData.get(variable);
-                if (initState != null) {
-                    if (!initState.isInitialized) {
-                        isInitialized = false;
-                    }
-                    if (!initState.isDeclared) {
-                        isDeclared = false;
-                    }
-                }
-            }
-            enterInstructionData.put(variable, VariableInitState.create(isInitialized, isDeclared));
-        }
-        return enterInstructionData;
-    }
-
-    @NotNull
-    private Map<VariableDescriptor, VariableInitState> addVariableInitStateFromCurrentInstructionIfAny(
+    private VariableStates addVariableInitStateFromCurrentInstructionIfAny(
             @NotNull Instruction instruction,
-            @NotNull Map<VariableDescriptor, VariableInitState> enterInstructionData,
+            @NotNull VariableStates enterInstructionData,
             @NotNull LexicalScopeVariableInfo lexicalScopeVariableInfo
     ) {
         if (!(instruction instanceof WriteValueInstruction) && !(instruction instanceof VariableDeclarationInstruction)) {
@@ -219,78 +208,72 @@ public class PseudocodeVariablesData {
         if (variable == null) {
             return enterInstructionData;
         }
-        Map<VariableDescriptor, VariableInitState> exitInstructionData = Maps.newHashMap(enterInstructionData);
+        int index = pseudocodeVariableDataCollector.getVariableIndex().indexOf(variable);
+        int enterValue = enterInstructionData.get(index);
+        VariableInitState enterInitState = enterValue != VariableStates.NO_VALUE ? VariableInitState.DECODER.decode(enterValue) : null;
         if (instruction instanceof WriteValueInstruction) {
-            VariableInitState enterInitState = enterInstructionData.get(variable);
             VariableInitState initializationAtThisElement =
                     VariableInitState.create(((WriteValueInstruction) instruction).getElement() instanceof JetProperty, enterInitState);
-            exitInstructionData.put(variable, initializationAtThisElement);
+            return enterInstructionData.put(index, initializationAtThisElement.encode());
         }
         else { // instruction instanceof VariableDeclarationInstruction
-            VariableInitState enterInitState = enterInstructionData.get(variable);
             if (enterInitState == null) {
                 enterInitState = getDefaultValueForInitializers(variable, instruction, lexicalScopeVariableInfo);
             }
-            if (enterInitState == null || !enterInitState.isInitialized || !enterInitState.isDeclared) {
-                boolean isInitialized = enterInitState != null && enterInitState.isInitialized;
-                VariableInitState variableDeclarationInfo = VariableInitState.create(isInitialized, true);
-                exitInstructionData.put(variable, variableDeclarationInfo);
+            if (!enterInitState.isInitialized || !enterInitState.isDeclared) {
+                VariableInitState variableDeclarationInfo = VariableInitState.create(enterInitState.isInitialized, true);
+                return enterInstructionData.put(index, variableDeclarationInfo.encode());
             }
+            return enterInstructionData;
         }
-        return exitInstructionData;
     }
 
 // variable use
 
     @NotNull
     public Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> getVariableUseStatusData() {
-        return pseudocodeVariableDataCollector.collectData(
+        final PseudocodeVariableIndex variableIndex = pseudocodeVariableDataCollector.getVariableIndex();
+        Map<Instruction, Edges<VariableStates>> data = pseudocodeVariableDataCollector.collectData(
                 BACKWARD, /*mergeDataWithLocalDeclarations=*/ true,
-                new InstructionDataMergeStrategy<VariableUseState>() {
+                new VariableDataFlowSolver.Transfer() {
                     @NotNull
                     @Override
-                    public Edges<Map<VariableDescriptor, VariableUseState>> invoke(
+                    public Edges<VariableStates> invoke(
                             @NotNull Instruction instruction,
-                            @NotNull Collection<? extends Map<VariableDescriptor, VariableUseState>> incomingEdgesData
+                            @NotNull Collection<VariableStates> incomingEdgesData
                     ) {
-
-                        Map<VariableDescriptor, VariableUseState> enterResult = Maps.newHashMap();
-                        for (Map<VariableDescriptor, VariableUseState> edgeData : incomingEdgesData) {
-                            for (Map.Entry<VariableDescriptor, VariableUseState> entry : edgeData.entrySet()) {
-                                VariableDescriptor variableDescriptor = entry.getKey();
-                                VariableUseState variableUseState = entry.getValue();
-                                enterResult.put(variableDescriptor, variableUseState.merge(enterResult.get(variableDescriptor)));
-                            }
-                        }
+                        // VariableUseState values are ordered by their priorities, the merged state is the one with the highest priority
+                        VariableStates enterResult = VariableStates.mergeMax(incomingEdgesData, variableIndex.size());
                         VariableDescriptor variableDescriptor = PseudocodeUtil.extractVariableDescriptorIfAny(
                                 instruction, true, bindingContext);
                         if (variableDescriptor == null ||
                             (!(instruction instanceof ReadValueInstruction) && !(instruction instanceof WriteValueInstruction))) {
-                            return new Edges<Map<VariableDescriptor, VariableUseState>>(enterResult, enterResult);
+                            return new Edges<VariableStates>(enterResult, enterResult);
                         }
-                        Map<VariableDescriptor, VariableUseState> exitResult = Maps.newHashMap(enterResult);
+                        int index = variableIndex.indexOf(variableDescriptor);
+                        VariableStates exitResult;
                         if (instruction instanceof ReadValueInstruction) {
-                            exitResult.put(variableDescriptor, VariableUseState.READ);
+                            exitResult = enterResult.put(index, VariableUseState.READ.priority);
                         }
                         else { //instruction instanceof WriteValueInstruction
-                            VariableUseState variableUseState = enterResult.get(variableDescriptor);
-                            if (variableUseState == null) {
-                                variableUseState = VariableUseState.UNUSED;
-                            }
+                            int enterValue = enterResult.get(index);
+                            VariableUseState variableUseState = enterValue != VariableStates.NO_VALUE
+                                                                ? VariableUseState.DECODER.decode(enterValue)
+                                                                : VariableUseState.UNUSED;
                             switch (variableUseState) {
                                 case UNUSED:
                                 case ONLY_WRITTEN_NEVER_READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.ONLY_WRITTEN_NEVER_READ);
+                                    exitResult = enterResult.put(index, VariableUseState.ONLY_WRITTEN_NEVER_READ.priority);
                                     break;
-                                case WRITTEN_AFTER_READ:
-                                case READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.WRITTEN_AFTER_READ);
+                                default: // WRITTEN_AFTER_READ, READ
+                                    exitResult = enterResult.put(index, VariableUseState.WRITTEN_AFTER_READ.priority);
                             }
                         }
-                        return new Edges<Map<VariableDescriptor, VariableUseState>>(enterResult, exitResult);
+                        return new Edges<VariableStates>(enterResult, exitResult);
                     }
                 }
         );
+        return asVariableMaps(data, VariableUseState.DECODER);
     }
 
     public static class VariableInitState {
@@ -321,6 +304,20 @@ public class PseudocodeVariablesData {
             return create(isInitialized, false);
         }
 
+        // Packed into two bits for VariableStates: "initialized" is the low bit, "declared" is the high one
+        private static final PseudocodeVariableIndex.ValueDecoder<VariableInitState> DECODER =
+                new PseudocodeVariableIndex.ValueDecoder<VariableInitState>() {
+                    @NotNull
+                    @Override
+                    public VariableInitState decode(int value) {
+                        return create((value & 1) != 0, (value & 2) != 0);
+                    }
+                };
+
+        private int encode() {
+            return (isInitialized ? 1 : 0) | (isDeclared ? 2 : 0);
+        }
+
         private static VariableInitState create(boolean isDeclaredHere, @Nullable VariableInitState mergedEdgesData) {
             return create(true, isDeclaredHere || (mergedEdgesData != null && mergedEdgesData.isDeclared));
         }
@@ -344,10 +341,18 @@ public class PseudocodeVariablesData {
             this.priority = priority;
         }
 
-        private VariableUseState merge(@Nullable VariableUseState variableUseState) {
-            if (variableUseState == null || priority > variableUseState.priority) return this;
-            return variableUseState;
-        }
+        // Packed into two bits for VariableStates as the priority
+        private static final PseudocodeVariableIndex.ValueDecoder<VariableUseState> DECODER =
+                new PseudocodeVariableIndex.ValueDecoder<VariableUseState>() {
+                    @NotNull
+                    @Override
+                    public VariableUseState decode(int value) {
+                        for (VariableUseState state : values()) {
+                            if (state.priority == value) return state;
+                        }
+                        throw new IllegalArgumentException("Unknown variable use state: " + value);
+                    }
+                };
 
         public static boolean isUsed(@Nullable VariableUseState variableUseState) {
             return variableUseState != null && variableUseState != UNUSED;
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.cfg;
+
+import gnu.trove.TIntArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.cfg.pseudocode.Instruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.LocalFunctionDeclarationInstruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.Pseudocode;
+import org.jetbrains.jet.lang.cfg.pseudocodeTraverser.Edges;
+import org.jetbrains.jet.lang.cfg.pseudocodeTraverser.PseudocodeTraverserPackage;
+import org.jetbrains.jet.lang.cfg.pseudocodeTraverser.TraversalOrder;
+
+import java.util.*;
+
+/**
+ * Worklist solver for the dataflow analyses of variables over a pseudocode and its local declarations.
+ *
+ * The instructions are numbered in the traversal order, the instructions whose incoming data has changed are kept in a bit set
+ * and recomputed in this order. The result is the same as of repeated passes over all the instructions
+ * (see {@link PseudocodeTraverserPackage#collectData}), but instructions whose input hasn't changed are not visited again.
+ */
+public class VariableDataFlowSolver {
+    public interface Transfer {
+        @NotNull
+        Edges<VariableStates> invoke(@NotNull Instruction instruction, @NotNull Collection<VariableStates> incomingEdgesData);
+    }
+
+    public interface EdgeFilter {
+        @NotNull
+        VariableStates invoke(@NotNull Instruction from, @NotNull Instruction to, @NotNull VariableStates data);
+    }
+
+    // The data of the instruction is the initial value and is never recomputed
+    private static final int FIXED = 0;
+    // The data is merged from the outgoing data of the previous instructions
+    private static final int MERGED = 1;
+    // The data of a local declaration is copied from the last instruction of its body
+    private static final int LOCAL_DECLARATION = 2;
+
+    private final TraversalOrder traversalOrder;
+    private final boolean mergeDataWithLocalDeclarations;
+
+    private final List<Instruction> instructions = new ArrayList<Instruction>();
+    private final TObjectIntHashMap<Instruction> indices = new TObjectIntHashMap<Instruction>();
+    private final TIntArrayList kinds = new TIntArrayList();
+    private final List<Collection<Instruction>> previousInstructions = new ArrayList<Collection<Instruction>>();
+
+    private int[][] previous;
+    private int[][] next;
+
+    public VariableDataFlowSolver(
+            @NotNull Pseudocode pseudocode,
+            @NotNull TraversalOrder traversalOrder,
+            boolean mergeDataWithLocalDeclarations
+    ) {
+        this.traversalOrder = traversalOrder;
+        this.mergeDataWithLocalDeclarations = mergeDataWithLocalDeclarations;
+
+        addInstructions(pseudocode, Collections.<Instruction>emptyList(), false);
+        addUnreachedInstructions(pseudocode);
+        computeEdges();
+    }
+
+    private void addInstructions(@NotNull Pseudocode pseudocode, @NotNull Collection<Instruction> previousSubGraphInstructions, boolean isLocal) {
+        Instruction startInstruction = PseudocodeTraverserPackage.getStartInstruction(pseudocode, traversalOrder);
+        for (Instruction instruction : PseudocodeTraverserPackage.getInstructions(pseudocode, traversalOrder)) {
+            if (!isLocal && PseudocodeTraverserPackage.isStartInstruction(instruction, traversalOrder)) {
+                addInstruction(instruction, FIXED, Collections.<Instruction>emptyList());
+                continue;
+            }
+
+            Collection<Instruction> previous = PseudocodeTraverserPackage.getPreviousInstructions(instruction, traversalOrder);
+            if (instruction == startInstruction && !previousSubGraphInstructions.isEmpty()) {
+                previous = new ArrayList<Instruction>(previous);
+                previous.addAll(previousSubGraphInstructions);
+            }
+
+            if (instruction instanceof LocalFunctionDeclarationInstruction) {
+                Pseudocode body = ((LocalFunctionDeclarationInstruction) instruction).getBody();
+                addInstructions(body, mergeDataWithLocalDeclarations ? previous : Collections.<Instruction>emptyList(), true);
+                if (mergeDataWithLocalDeclarations) {
+                    Instruction lastInstruction = PseudocodeTraverserPackage.getLastInstruction(body, traversalOrder);
+                    addInstruction(instruction, LOCAL_DECLARATION, Collections.singletonList(lastInstruction));
+                    continue;
+                }
+            }
+            addInstruction(instruction, MERGED, previous);
+        }
+    }
+
+    private void addUnreachedInstructions(@NotNull Pseudocode pseudocode) {
+        for (Instruction instruction : pseudocode.getInstructions()) {
+            if (!indices.containsKey(instruction)) {
+                addInstruction(instruction, FIXED, Collections.<Instruction>emptyList());
+            }
+            if (instruction instanceof LocalFunctionDeclarationInstruction) {
+                addUnreachedInstructions(((LocalFunctionDeclarationInstruction) instruction).getBody());
+            }
+        }
+    }
+
+    private void addInstruction(@NotNull Instruction instruction, int kind, @NotNull Collection<Instruction> previous) {
+        indices.put(instruction, instructions.size());
+        instructions.add(instruction);
+        kinds.add(kind);
+        previousInstructions.add(previous);
+    }
+
+    private void computeEdges() {
+        int count = instructions.size();
+        previous = new int[count][];
+        List<TIntArrayList> nextLists = new ArrayList<TIntArrayList>(count);
+        for (int i = 0; i < count; i++) {
+            nextLists.add(new TIntArrayList(2));
+        }
+
+        for (int i = 0; i < count; i++) {
+            TIntArrayList previousIndices = new TIntArrayList();
+            for (Instruction instruction : previousInstructions.get(i)) {
+                if (!indices.containsKey(instruction)) continue;
+                int index = indices.get(instruction);
+                previousIndices.add(index);
+                nextLists.get(index).add(i);
+            }
+            previous[i] = previousIndices.toNativeArray();
+        }
+
+        next = new int[count][];
+        for (int i = 0; i < count; i++) {
+            next[i] = nextLists.get(i).toNativeArray();
+        }
+        previousInstructions.clear();
+    }
+
+    @NotNull
+    public Map<Instruction, Edges<VariableStates>> solve(
+            @NotNull VariableStates initialValue,
+            @NotNull Transfer transfer,
+            @NotNull EdgeFilter edgeFilter
+    ) {
+        int count = instructions.size();
+        Edges<VariableStates> initialEdges = new Edges<VariableStates>(initialValue, initialValue);
+        @SuppressWarnings("unchecked")
+        Edges<VariableStates>[] data = new Edges[count];
+        Arrays.fill(data, initialEdges);
+
+        BitSet worklist = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            if (kinds.get(i) != FIXED) {
+                worklist.set(i);
+            }
+        }
+
+        List<VariableStates> incomingEdgesData = new ArrayList<VariableStates>();
+        while (!worklist.isEmpty()) {
+            // Instructions after the current one are processed in the same pass, as in a pass over all the instructions
+            for (int i = worklist.nextSetBit(0); i >= 0; i = worklist.nextSetBit(i + 1)) {
+                worklist.clear(i);
+
+                Instruction instruction = instructions.get(i);
+                Edges<VariableStates> newValue;
+                if (kinds.get(i) == LOCAL_DECLARATION) {
+                    int last = previous[i][0];
+                    Instruction lastInstruction = instructions.get(last);
+                    newValue = new Edges<VariableStates>(
+                            edgeFilter.invoke(lastInstruction, instruction, data[last].getIncoming()),
+                            edgeFilter.invoke(lastInstruction, instruction, data[last].getOutgoing()));
+                }
+                else {
+                    incomingEdgesData.clear();
+                    for (int previousIndex : previous[i]) {
+                        VariableStates edgeData =
+                                edgeFilter.invoke(instructions.get(previousIndex), instruction, data[previousIndex].getOutgoing());
+                        if (!incomingEdgesData.contains(edgeData)) {
+                            incomingEdgesData.add(edgeData);
+                        }
+                    }
+                    newValue = transfer.invoke(instruction, incomingEdgesData);
+                }
+
+                if (!newValue.equals(data[i])) {
+                    data[i] = newValue;
+                    for (int nextIndex : next[i]) {
+                        if (kinds.get(nextIndex) != FIXED) {
+                            worklist.set(nextIndex);
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Instruction, Edges<VariableStates>> result = new LinkedHashMap<Instruction, Edges<VariableStates>>();
+        for (int i = 0; i < count; i++) {
+            result.put(instructions.get(i), data[i]);
+        }
+        return result;
+    }
+}
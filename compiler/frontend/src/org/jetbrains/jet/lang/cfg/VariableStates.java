@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.cfg;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable states of the variables of a pseudocode on a control flow edge, packed into bit vectors.
+ *
+ * Variables are numbered by {@link PseudocodeVariableIndex}, and the state of each variable is a value of two bits
+ * or no value at all (the variable is out of scope or unknown on this edge). The vectors are stored one after another:
+ * the presence bits, then the low bits of the values, then the high bits.
+ */
+public final class VariableStates {
+    public static final int NO_VALUE = -1;
+
+    private final long[] bits;
+
+    private VariableStates(@NotNull long[] bits) {
+        this.bits = bits;
+    }
+
+    @NotNull
+    public static VariableStates empty(int variableCount) {
+        return new VariableStates(new long[3 * wordCount(variableCount)]);
+    }
+
+    private static int wordCount(int variableCount) {
+        return (variableCount + 63) >>> 6;
+    }
+
+    private int words() {
+        return bits.length / 3;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < words(); i++) {
+            if (bits[i] != 0) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        int result = 0;
+        for (int i = 0; i < words(); i++) {
+            result += Long.bitCount(bits[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the first variable having a value, starting from {@code fromIndex}, or -1 if there's none
+     */
+    public int nextVariable(int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= words()) return -1;
+
+        long current = bits[word] & (-1L << fromIndex);
+        while (true) {
+            if (current != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(current);
+            }
+            if (++word == words()) return -1;
+            current = bits[word];
+        }
+    }
+
+    /**
+     * @return the value of the variable, or {@link #NO_VALUE}
+     */
+    public int get(int variable) {
+        int word = variable >>> 6;
+        long mask = 1L << variable;
+        if ((bits[word] & mask) == 0) return NO_VALUE;
+
+        int words = words();
+        int low = (bits[words + word] & mask) != 0 ? 1 : 0;
+        int high = (bits[2 * words + word] & mask) != 0 ? 2 : 0;
+        return high | low;
+    }
+
+    @NotNull
+    public VariableStates put(int variable, int value) {
+        assert value >= 0 && value <= 3 : "Value should fit into two bits: " + value;
+        if (get(variable) == value) return this;
+
+        long[] result = bits.clone();
+        int word = variable >>> 6;
+        long mask = 1L << variable;
+        int words = words();
+        result[word] |= mask;
+        result[words + word] = (value & 1) != 0 ? result[words + word] | mask : result[words + word] & ~mask;
+        result[2 * words + word] = (value & 2) != 0 ? result[2 * words + word] | mask : result[2 * words + word] & ~mask;
+        return new VariableStates(result);
+    }
+
+    /**
+     * Removes the values of all the variables which are not in the given vector
+     */
+    @NotNull
+    public VariableStates retain(@NotNull long[] variables) {
+        int words = words();
+        boolean changed = false;
+        for (int i = 0; i < words; i++) {
+            if ((bits[i] & ~variables[i]) != 0) {
+                changed = true;
+                break;
+            }
+        }
+        if (!changed) return this;
+
+        long[] result = new long[bits.length];
+        for (int i = 0; i < words; i++) {
+            result[i] = bits[i] & variables[i];
+            result[words + i] = bits[words + i] & variables[i];
+            result[2 * words + i] = bits[2 * words + i] & variables[i];
+        }
+        return new VariableStates(result);
+    }
+
+    /**
+     * Each bit of the result is the conjunction of the corresponding bits of the states which have a value for the variable
+     */
+    @NotNull
+    public static VariableStates mergeBitwiseAnd(@NotNull Collection<VariableStates> states, int variableCount) {
+        VariableStates single = getSingleOrEmpty(states, variableCount);
+        if (single != null) return single;
+
+        int words = wordCount(variableCount);
+        long[] result = new long[3 * words];
+        Arrays.fill(result, words, 3 * words, -1L);
+        for (VariableStates state : states) {
+            long[] bits = state.bits;
+            for (int i = 0; i < words; i++) {
+                long absent = ~bits[i];
+                result[i] |= bits[i];
+                result[words + i] &= bits[words + i] | absent;
+                result[2 * words + i] &= bits[2 * words + i] | absent;
+            }
+        }
+        for (int i = 0; i < words; i++) {
+            result[words + i] &= result[i];
+            result[2 * words + i] &= result[i];
+        }
+        return new VariableStates(result);
+    }
+
+    /**
+     * The value of each variable in the result is the maximum of its values in the given states
+     */
+    @NotNull
+    public static VariableStates mergeMax(@NotNull Collection<VariableStates> states, int variableCount) {
+        VariableStates single = getSingleOrEmpty(states, variableCount);
+        if (single != null) return single;
+
+        int words = wordCount(variableCount);
+        long[] result = new long[3 * words];
+        for (VariableStates state : states) {
+            long[] bits = state.bits;
+            for (int i = 0; i < words; i++) {
+                long high = result[2 * words + i];
+                long otherHigh = bits[2 * words + i];
+                // The low bit is taken from the value with the greater high bit, or from both values if the high bits are equal
+                result[words + i] = (result[words + i] & (high | ~otherHigh)) | (bits[words + i] & (otherHigh | ~high));
+                result[2 * words + i] = high | otherHigh;
+                result[i] |= bits[i];
+            }
+        }
+        return new VariableStates(result);
+    }
+
+    private static VariableStates getSingleOrEmpty(@NotNull Collection<VariableStates> states, int variableCount) {
+        if (states.isEmpty()) return empty(variableCount);
+        if (states.size() == 1) return states.iterator().next();
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof VariableStates && Arrays.equals(bits, ((VariableStates) o).bits));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (int variable = nextVariable(0); variable >= 0; variable = nextVariable(variable + 1)) {
+            if (result.length() > 1) result.append(", ");
+            result.append(variable).append('=').append(get(variable));
+        }
+        return result.append('}').toString();
+    }
+}
@@ -39,12 +39,16 @@ import org.jetbrains.jet.lang.types.expressions.ExpressionTypingServices;
 import org.jetbrains.jet.lexer.JetKeywordToken;
 import org.jetbrains.jet.lexer.JetModifierKeywordToken;
 import org.jetbrains.jet.lexer.JetTokens;
+import org.jetbrains.jet.storage.LockBasedLazyResolveStorageManager;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
 import org.jetbrains.jet.util.Box;
 import org.jetbrains.jet.util.ReenteringLazyValueComputationException;
 import org.jetbrains.jet.util.slicedmap.WritableSlice;
+import org.jetbrains.jet.utils.UtilsPackage;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.jetbrains.jet.lang.descriptors.ReceiverParameterDescriptor.NO_RECEIVER_PARAMETER;
 import static org.jetbrains.jet.lang.diagnostics.Errors.*;
@@ -581,21 +585,105 @@ public class BodyResolver {
     }
 
     private void resolveFunctionBodies(@NotNull BodiesResolveContext c) {
+        if (canResolveFunctionBodiesInParallel(c)) {
+            resolveFunctionBodiesInParallel(c);
+            return;
+        }
+
         for (Map.Entry<JetNamedFunction, SimpleFunctionDescriptor> entry : c.getFunctions().entrySet()) {
-            JetNamedFunction declaration = entry.getKey();
             SimpleFunctionDescriptor descriptor = entry.getValue();
 
             computeDeferredType(descriptor.getReturnType());
 
-            JetScope declaringScope = c.getDeclaringScopes().apply(declaration);
-            assert declaringScope != null;
+            resolveNamedFunctionBody(c, trace, entry.getKey(), descriptor);
+        }
+    }
+
+    private void resolveNamedFunctionBody(
+            @NotNull BodiesResolveContext c,
+            @NotNull BindingTrace trace,
+            @NotNull JetNamedFunction declaration,
+            @NotNull SimpleFunctionDescriptor descriptor
+    ) {
+        JetScope declaringScope = c.getDeclaringScopes().apply(declaration);
+        assert declaringScope != null;
+
+        if (!TopDownAnalyzer.LAZY || c.getTopDownAnalysisParameters().isDeclaredLocally()) {
+            annotationResolver.resolveAnnotationsArguments(declaringScope, declaration.getModifierList(), trace);
+        }
+        resolveFunctionBody(c, trace, declaration, descriptor, declaringScope);
+
+        assert descriptor.getReturnType() != null;
+    }
+
+    private static boolean canResolveFunctionBodiesInParallel(@NotNull BodiesResolveContext c) {
+        TopDownAnalysisParameters parameters = c.getTopDownAnalysisParameters();
+        return parameters.getBodyResolveThreads() > 1 &&
+               !parameters.isDeclaredLocally() &&
+               c.getFunctions().size() > 1 &&
+               // Lazy computations of other storage managers don't take the lock which guards the trace below
+               parameters.getStorageManager().getClass() == LockBasedStorageManager.class;
+    }
+
+    /**
+     * Bodies of functions only read header descriptors and declaration scopes, and record data about their own elements.
+     * Each body is resolved by a worker thread into its own temporary trace, traces are committed in the declaration order.
+     */
+    private void resolveFunctionBodiesInParallel(@NotNull final BodiesResolveContext c) {
+        Map<JetNamedFunction, SimpleFunctionDescriptor> functions = c.getFunctions();
+
+        // Inferred return types resolve bodies of the corresponding functions into the main trace. They are computed here, in the
+        // declaration order, so that the diagnostics reported while doing it don't depend on the scheduling of the workers
+        for (SimpleFunctionDescriptor descriptor : functions.values()) {
+            computeDeferredType(descriptor.getReturnType());
+        }
+
+        // Lazy values of LockBasedStorageManager take the same lock while recording into the trace
+        LockBasedStorageManager storageManager = (LockBasedStorageManager) c.getTopDownAnalysisParameters().getStorageManager();
+        final BindingTrace safeTrace = new LockBasedLazyResolveStorageManager(storageManager).createSafeTrace(trace);
+
+        int threads = Math.min(c.getTopDownAnalysisParameters().getBodyResolveThreads(), functions.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
 
-            if (!TopDownAnalyzer.LAZY || c.getTopDownAnalysisParameters().isDeclaredLocally()) {
-                resolveAnnotationArguments(declaringScope, declaration);
+            @Override
+            public synchronized Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Kotlin body resolve " + (++count));
+                thread.setDaemon(true);
+                return thread;
             }
-            resolveFunctionBody(c, trace, declaration, descriptor, declaringScope);
+        });
 
-            assert descriptor.getReturnType() != null;
+        try {
+            List<Future<TemporaryBindingTrace>> traces = new ArrayList<Future<TemporaryBindingTrace>>(functions.size());
+            for (Map.Entry<JetNamedFunction, SimpleFunctionDescriptor> entry : functions.entrySet()) {
+                final JetNamedFunction declaration = entry.getKey();
+                final SimpleFunctionDescriptor descriptor = entry.getValue();
+                traces.add(executor.submit(new Callable<TemporaryBindingTrace>() {
+                    @Override
+                    public TemporaryBindingTrace call() {
+                        TemporaryBindingTrace functionTrace = TemporaryBindingTrace.create(
+                                safeTrace, "trace to resolve function body in parallel", declaration);
+                        resolveNamedFunctionBody(c, functionTrace, declaration, descriptor);
+                        return functionTrace;
+                    }
+                }));
+            }
+
+            // The main trace gets the same data and diagnostics in the same order as in the serial mode
+            for (Future<TemporaryBindingTrace> functionTrace : traces) {
+                functionTrace.get().commit();
+            }
+        }
+        catch (ExecutionException e) {
+            throw UtilsPackage.rethrow(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw UtilsPackage.rethrow(e);
+        }
+        finally {
+            executor.shutdownNow();
         }
     }
 
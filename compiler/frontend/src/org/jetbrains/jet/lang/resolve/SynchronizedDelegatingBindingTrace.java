@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.util.slicedmap.ReadOnlySlice;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
+
+import java.util.Collection;
+
+/**
+ * A delegating trace which may be written to and read from several threads at once (e.g. by parallel codegen).
+ * The parent context is expected not to change while this trace is in use.
+ */
+public class SynchronizedDelegatingBindingTrace extends DelegatingBindingTrace {
+    private final Object lock = new Object();
+
+    public SynchronizedDelegatingBindingTrace(BindingContext parentContext, String debugName) {
+        super(parentContext, debugName);
+    }
+
+    @Override
+    public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+        synchronized (lock) {
+            super.record(slice, key, value);
+        }
+    }
+
+    @Override
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        synchronized (lock) {
+            return super.get(slice, key);
+        }
+    }
+
+    @NotNull
+    @Override
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        synchronized (lock) {
+            return Lists.newArrayList(super.getKeys(slice));
+        }
+    }
+
+    @Override
+    public void addAllMyDataTo(@NotNull BindingTrace trace, @Nullable TraceEntryFilter filter, boolean commitDiagnostics) {
+        synchronized (lock) {
+            super.addAllMyDataTo(trace, filter, commitDiagnostics);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            super.clear();
+        }
+    }
+
+    @Override
+    public void report(@NotNull Diagnostic diagnostic) {
+        synchronized (lock) {
+            super.report(diagnostic);
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class TopDownAnalysisParameters implements GlobalContext {
     private final Predicate<PsiFile> analyzeCompletely;
     private final boolean analyzingBootstrapLibrary;
     private final boolean declaredLocally;
+    private final int bodyResolveThreads;
 
     public TopDownAnalysisParameters(
             @NotNull StorageManager storageManager,
@@ -43,11 +44,27 @@ public class TopDownAnalysisParameters implements GlobalContext {
             boolean analyzingBootstrapLibrary,
             boolean declaredLocally
     ) {
+        this(storageManager, exceptionTracker, analyzeCompletely, analyzingBootstrapLibrary, declaredLocally, 1);
+    }
+
+    public TopDownAnalysisParameters(
+            @NotNull StorageManager storageManager,
+            @NotNull ExceptionTracker exceptionTracker,
+            @NotNull Predicate<PsiFile> analyzeCompletely,
+            boolean analyzingBootstrapLibrary,
+            boolean declaredLocally,
+            int bodyResolveThreads
+    ) {
+        if (bodyResolveThreads < 1) {
+            throw new IllegalArgumentException("Number of body resolve threads should be positive: " + bodyResolveThreads);
+        }
+
         this.storageManager = storageManager;
         this.exceptionTracker = exceptionTracker;
         this.analyzeCompletely = analyzeCompletely;
         this.analyzingBootstrapLibrary = analyzingBootstrapLibrary;
         this.declaredLocally = declaredLocally;
+        this.bodyResolveThreads = bodyResolveThreads;
     }
 
     @Override
@@ -74,4 +91,11 @@ public class TopDownAnalysisParameters implements GlobalContext {
     public boolean isDeclaredLocally() {
         return declaredLocally;
     }
+
+    /**
+     * @see BodyResolver
+     */
+    public int getBodyResolveThreads() {
+        return bodyResolveThreads;
+    }
 }
@@ -48,6 +48,7 @@ import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
 import org.jetbrains.jet.lang.types.expressions.ExpressionTypingContext;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.storage.LockBasedStorageManager;
+import org.jetbrains.jet.utils.CompilationMetrics;
 
 import javax.inject.Inject;
 import java.util.*;
@@ -135,6 +136,8 @@ public class TopDownAnalyzer {
 //        c.enableDebugOutput();
         c.debug("Enter");
 
+        CompilationMetrics.Phase declarationsPhase = phase(c, "analyze.declarations");
+
         if (LAZY && !c.getTopDownAnalysisParameters().isDeclaredLocally()) {
             final ResolveSession resolveSession = new InjectorForLazyResolve(
                     project,
@@ -301,25 +304,48 @@ public class TopDownAnalyzer {
 
             declarationResolver.checkRedeclarationsInPackages(resolveSession, topLevelFqNames);
             declarationResolver.checkRedeclarationsInInnerClassNames(c);
+            declarationsPhase.end();
+
+            CompilationMetrics.Phase overridesPhase = phase(c, "analyze.overrides");
             overrideResolver.check(c);
+            overridesPhase.end();
         }
         else {
             typeHierarchyResolver.process(c, outerScope, owner, declarations);
             declarationResolver.process(c);
+            declarationsPhase.end();
+
+            CompilationMetrics.Phase overridesPhase = phase(c, "analyze.overrides");
             overrideResolver.process(c);
             lockScopes(c);
+            overridesPhase.end();
         }
 
+        CompilationMetrics.Phase overloadsPhase = phase(c, "analyze.overloads");
         overloadResolver.process(c);
+        overloadsPhase.end();
 
         if (!c.getTopDownAnalysisParameters().isAnalyzingBootstrapLibrary()) {
+            CompilationMetrics.Phase bodiesPhase = phase(c, "analyze.bodies");
             bodyResolver.resolveBodies(c);
+            bodiesPhase.end();
+        }
+
+        if (!c.getTopDownAnalysisParameters().isDeclaredLocally()) {
+            CompilationMetrics.count("declarations",
+                                     c.getDeclaredClasses().size() + c.getFunctions().size() + c.getProperties().size());
         }
 
         c.debug("Exit");
         c.printDebugOutput(System.out);
     }
 
+    @NotNull
+    private static CompilationMetrics.Phase phase(@NotNull TopDownAnalysisContext c, @NotNull String name) {
+        // Local declarations are analyzed as a part of the bodies of the enclosing declarations
+        return c.getTopDownAnalysisParameters().isDeclaredLocally() ? CompilationMetrics.Phase.NONE : CompilationMetrics.phase(name);
+    }
+
     private static Collection<JetFile> getFiles(Collection<? extends PsiElement> declarations) {
         return new LinkedHashSet<JetFile>(KotlinPackage.map(declarations, new Function1<PsiElement, JetFile>() {
             @Nullable
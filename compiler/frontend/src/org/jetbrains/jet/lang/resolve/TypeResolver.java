@@ -122,7 +122,7 @@ public class TypeResolver {
                             result[0] = type(ErrorUtils.createErrorType("?"));
                         }
                         else {
-                            result[0] = type(new JetTypeImpl(
+                            result[0] = type(JetTypeImpl.create(
                                     annotations,
                                     typeParameterDescriptor.getTypeConstructor(),
                                     TypeUtils.hasNullableLowerBound(typeParameterDescriptor),
@@ -164,7 +164,7 @@ public class TypeResolver {
                                 }
                             }
                             else {
-                                JetTypeImpl resultingType = new JetTypeImpl(
+                                JetTypeImpl resultingType = JetTypeImpl.create(
                                         annotations,
                                         typeConstructor,
                                         false,
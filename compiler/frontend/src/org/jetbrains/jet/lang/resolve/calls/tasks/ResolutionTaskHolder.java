@@ -36,6 +36,9 @@ public class ResolutionTaskHolder<D extends CallableDescriptor, F extends D> {
     private final boolean isSafeCall;
 
     private final Collection<Collection<ResolutionCandidate<D>>> candidatesList = Lists.newArrayList();
+    // Candidates which can't be applicable (e.g. extensions to unrelated receiver types): they're resolved after all the others,
+    // i.e. only when nothing else succeeds, to report errors
+    private final Collection<Collection<ResolutionCandidate<D>>> inapplicableCandidatesList = Lists.newArrayList();
 
     private List<ResolutionTask<D, F>> tasks = null;
 
@@ -64,6 +67,13 @@ public class ResolutionTaskHolder<D extends CallableDescriptor, F extends D> {
         }
     }
 
+    public void addInapplicableCandidates(@NotNull Collection<ResolutionCandidate<D>> candidates) {
+        assertNotFinished();
+        if (!candidates.isEmpty()) {
+            inapplicableCandidatesList.add(setIsSafeCall(candidates));
+        }
+    }
+
     public void addCandidates(@NotNull List<Collection<ResolutionCandidate<D>>> candidatesList) {
         assertNotFinished();
         for (Collection<ResolutionCandidate<D>> candidates : candidatesList) {
@@ -78,25 +88,29 @@ public class ResolutionTaskHolder<D extends CallableDescriptor, F extends D> {
     public List<ResolutionTask<D, F>> getTasks() {
         if (tasks == null) {
             tasks = Lists.newArrayList();
+            addTasks(candidatesList);
+            addTasks(inapplicableCandidatesList);
+        }
+        return tasks;
+    }
 
-            for (int priority = priorityProvider.getMaxPriority(); priority >= 0; priority--) {
-                final int finalPriority = priority;
-                for (Collection<ResolutionCandidate<D>> candidates : candidatesList) {
-                    Collection<ResolutionCandidate<D>> filteredCandidates = Collections2.filter(
-                            candidates, new Predicate<ResolutionCandidate<D>>() {
-                                @Override
-                                public boolean apply(@Nullable ResolutionCandidate<D> input) {
-                                    return finalPriority == priorityProvider.getPriority(input);
-                                }
+    private void addTasks(@NotNull Collection<Collection<ResolutionCandidate<D>>> candidatesList) {
+        for (int priority = priorityProvider.getMaxPriority(); priority >= 0; priority--) {
+            final int finalPriority = priority;
+            for (Collection<ResolutionCandidate<D>> candidates : candidatesList) {
+                Collection<ResolutionCandidate<D>> filteredCandidates = Collections2.filter(
+                        candidates, new Predicate<ResolutionCandidate<D>>() {
+                            @Override
+                            public boolean apply(@Nullable ResolutionCandidate<D> input) {
+                                return finalPriority == priorityProvider.getPriority(input);
                             }
-                    );
-                    if (!filteredCandidates.isEmpty()) {
-                        tasks.add(new ResolutionTask<D, F>(filteredCandidates, basicCallResolutionContext, tracing));
-                    }
+                        }
+                );
+                if (!filteredCandidates.isEmpty()) {
+                    tasks.add(new ResolutionTask<D, F>(filteredCandidates, basicCallResolutionContext, tracing));
                 }
             }
         }
-        return tasks;
     }
 
     public interface PriorityProvider<D> {
@@ -28,6 +28,7 @@ import org.jetbrains.jet.lang.psi.JetExpression;
 import org.jetbrains.jet.lang.psi.JetReferenceExpression;
 import org.jetbrains.jet.lang.psi.JetSuperExpression;
 import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.calls.CallResolverUtil;
 import org.jetbrains.jet.lang.resolve.calls.autocasts.AutoCastUtils;
 import org.jetbrains.jet.lang.resolve.calls.context.BasicCallResolutionContext;
 import org.jetbrains.jet.lang.resolve.name.Name;
@@ -38,7 +39,9 @@ import org.jetbrains.jet.lang.resolve.scopes.receivers.ReceiverValue;
 import org.jetbrains.jet.lang.types.ErrorUtils;
 import org.jetbrains.jet.lang.types.JetType;
 import org.jetbrains.jet.lang.types.PackageType;
+import org.jetbrains.jet.lang.types.TypeConstructor;
 import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 
 import java.util.*;
 
@@ -147,6 +150,9 @@ public class TaskPrioritizer {
             c.result.addCandidates(members);
         }
 
+        // Computed on the first non-empty group of extensions, and shared by the following ones
+        boolean anyExtensionMayBeApplicable = CallResolverUtil.isInvokeCallOnExpressionWithBothReceivers(c.context.call);
+        Set<TypeConstructor> receiverTypeConstructors = null;
         for (CallableDescriptorCollector<D> callableDescriptorCollector : c.callableDescriptorCollectors) {
             //member extensions
             for (ReceiverValue implicitReceiver : implicitReceivers) {
@@ -154,13 +160,70 @@ public class TaskPrioritizer {
                                              callableDescriptorCollector, c, createKind(RECEIVER_ARGUMENT, isExplicit));
             }
             //extensions
-            Collection<ResolutionCandidate<D>> extensions = convertWithImpliedThis(
-                    c.scope, explicitReceiver, callableDescriptorCollector.getNonMembersByName(c.scope, c.name, c.context.trace),
-                    createKind(RECEIVER_ARGUMENT, isExplicit), c.context.call);
-            c.result.addCandidates(extensions);
+            Collection<D> extensions = callableDescriptorCollector.getNonMembersByName(c.scope, c.name, c.context.trace);
+            if (extensions.isEmpty()) continue;
+
+            if (!anyExtensionMayBeApplicable && receiverTypeConstructors == null) {
+                receiverTypeConstructors = getReceiverTypeConstructors(variantsForExplicitReceiver);
+                anyExtensionMayBeApplicable = receiverTypeConstructors == null;
+            }
+            List<D> applicable = Lists.newArrayList();
+            List<D> inapplicable = Lists.newArrayList();
+            for (D extension : extensions) {
+                if (anyExtensionMayBeApplicable || mayBeApplicableToReceiver(extension, receiverTypeConstructors)) {
+                    applicable.add(extension);
+                }
+                else {
+                    inapplicable.add(extension);
+                }
+            }
+            ExplicitReceiverKind receiverKind = createKind(RECEIVER_ARGUMENT, isExplicit);
+            c.result.addCandidates(convertWithImpliedThis(c.scope, explicitReceiver, applicable, receiverKind, c.context.call));
+            c.result.addInapplicableCandidates(convertWithImpliedThis(c.scope, explicitReceiver, inapplicable, receiverKind, c.context.call));
         }
     }
 
+    /**
+     * @return constructors of the given receiver types and all their supertypes: an extension is only applicable to such a receiver
+     * if the constructor of its receiver type is among them; or null if any extension may be applicable (e.g. one of the types is
+     * an error type or Nothing, or it's not a class type)
+     */
+    @Nullable
+    private static Set<TypeConstructor> getReceiverTypeConstructors(@NotNull Collection<JetType> receiverTypes) {
+        Set<TypeConstructor> result = Sets.newHashSet();
+        for (JetType type : receiverTypes) {
+            if (!(type.getConstructor().getDeclarationDescriptor() instanceof ClassDescriptor) ||
+                type.isError() ||
+                KotlinBuiltIns.getInstance().isNothingOrNullableNothing(type)) {
+                return null;
+            }
+            collectTypeConstructorWithSupertypes(type.getConstructor(), result);
+        }
+        return result;
+    }
+
+    private static void collectTypeConstructorWithSupertypes(@NotNull TypeConstructor constructor, @NotNull Set<TypeConstructor> result) {
+        if (!result.add(constructor)) return;
+        for (JetType supertype : constructor.getSupertypes()) {
+            collectTypeConstructorWithSupertypes(supertype.getConstructor(), result);
+        }
+    }
+
+    private static boolean mayBeApplicableToReceiver(
+            @NotNull CallableDescriptor extension,
+            @NotNull Set<TypeConstructor> receiverTypeConstructors
+    ) {
+        ReceiverParameterDescriptor receiverParameter = extension.getReceiverParameter();
+        if (receiverParameter == null) return true;
+
+        JetType receiverParameterType = receiverParameter.getType();
+        // Receivers of type parameters are checked against the bounds, which may be anything
+        if (!(receiverParameterType.getConstructor().getDeclarationDescriptor() instanceof ClassDescriptor)) return true;
+        if (receiverParameterType.isError() || KotlinBuiltIns.getInstance().isAnyOrNullableAny(receiverParameterType)) return true;
+
+        return receiverTypeConstructors.contains(receiverParameterType.getConstructor());
+    }
+
     private static ExplicitReceiverKind createKind(ExplicitReceiverKind kind, boolean isExplicit) {
         if (isExplicit) return kind;
         return ExplicitReceiverKind.NO_EXPLICIT_RECEIVER;
@@ -98,8 +98,8 @@ public class ControlStructureTypingUtils {
                 function, Annotations.EMPTY, false, Variance.INVARIANT,
                 Name.identifierNoValidate("<TYPE-PARAMETER-FOR-" + constructionName + "-RESOLVE>"), 0);
 
-        JetType type = new JetTypeImpl(typeParameter.getTypeConstructor(), JetScope.EMPTY);
-        JetType nullableType = new JetTypeImpl(
+        JetType type = JetTypeImpl.create(typeParameter.getTypeConstructor(), JetScope.EMPTY);
+        JetType nullableType = JetTypeImpl.create(
                 Annotations.EMPTY, typeParameter.getTypeConstructor(), true, Collections.<TypeProjection>emptyList(), JetScope.EMPTY);
 
         List<ValueParameterDescriptor> valueParameters = Lists.newArrayList();
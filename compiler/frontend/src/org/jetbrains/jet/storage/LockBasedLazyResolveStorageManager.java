@@ -27,11 +27,14 @@ import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.jet.lang.diagnostics.Diagnostic;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.DelegatingBindingTrace;
 import org.jetbrains.jet.lang.resolve.Diagnostics;
 import org.jetbrains.jet.util.slicedmap.ReadOnlySlice;
 import org.jetbrains.jet.util.slicedmap.WritableSlice;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 
 // This class is kept under the same package as LockBasedStorageManager to get access to its protected members
@@ -65,7 +68,13 @@ public class LockBasedLazyResolveStorageManager implements LazyResolveStorageMan
     public BindingTrace createSafeTrace(@NotNull BindingTrace originalTrace) {
         // It seems safe to have a separate lock for traces:
         // no other locks will be acquired inside the trace operations
-        return new LockProtectedTrace(storageManager.lock, originalTrace);
+        BindingTrace trace = new LockProtectedTrace(storageManager.lock, originalTrace);
+        if (storageManager instanceof ConcurrentStorageManager) {
+            TransactionalTrace transactionalTrace = new TransactionalTrace(trace);
+            ((ConcurrentStorageManager) storageManager).addTransactionListener(transactionalTrace);
+            return transactionalTrace;
+        }
+        return trace;
     }
 
     @NotNull
@@ -267,4 +276,135 @@ public class LockBasedLazyResolveStorageManager implements LazyResolveStorageMan
             }
         }
     }
+
+    /**
+     * Holds back the records and diagnostics of every computation of ConcurrentStorageManager until it finishes, so that a computation
+     * which backs off and is started over doesn't write them twice. The current thread sees its own pending writes
+     */
+    private static class TransactionalTrace implements BindingTrace, ConcurrentStorageManager.TransactionListener {
+        private final BindingTrace trace;
+
+        // Computations in progress in the current thread, the innermost last. A computation which hasn't written anything yet has null
+        private final ThreadLocal<List<DelegatingBindingTrace>> transactions = new ThreadLocal<List<DelegatingBindingTrace>>() {
+            @Override
+            protected List<DelegatingBindingTrace> initialValue() {
+                return new ArrayList<DelegatingBindingTrace>();
+            }
+        };
+
+        private final BindingContext context = new BindingContext() {
+            @NotNull
+            @Override
+            public Diagnostics getDiagnostics() {
+                return getCurrentContext().getDiagnostics();
+            }
+
+            @Nullable
+            @Override
+            public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+                return getCurrentContext().get(slice, key);
+            }
+
+            @NotNull
+            @Override
+            public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+                return getCurrentContext().getKeys(slice);
+            }
+
+            @NotNull
+            @Override
+            @TestOnly
+            public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+                return getCurrentContext().getSliceContents(slice);
+            }
+        };
+
+        public TransactionalTrace(@NotNull BindingTrace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public void begin() {
+            transactions.get().add(null);
+        }
+
+        @Override
+        public void commit() {
+            DelegatingBindingTrace transaction = finish();
+            if (transaction != null) {
+                // Not to the enclosing transaction: the computation is finished and won't be repeated even if the enclosing one is
+                transaction.addAllMyDataTo(trace);
+            }
+        }
+
+        @Override
+        public void rollback() {
+            finish();
+        }
+
+        @Nullable
+        private DelegatingBindingTrace finish() {
+            List<DelegatingBindingTrace> current = transactions.get();
+            // The trace might have been created while the thread was computing something
+            if (current.isEmpty()) return null;
+            return current.remove(current.size() - 1);
+        }
+
+        @NotNull
+        private BindingContext getCurrentContext() {
+            List<DelegatingBindingTrace> current = transactions.get();
+            for (int i = current.size() - 1; i >= 0; i--) {
+                DelegatingBindingTrace transaction = current.get(i);
+                if (transaction != null) return transaction.getBindingContext();
+            }
+            return trace.getBindingContext();
+        }
+
+        @NotNull
+        private BindingTrace getTraceToWrite() {
+            List<DelegatingBindingTrace> current = transactions.get();
+            if (current.isEmpty()) return trace;
+
+            int last = current.size() - 1;
+            DelegatingBindingTrace transaction = current.get(last);
+            if (transaction == null) {
+                transaction = new DelegatingBindingTrace(getCurrentContext(), "Transaction of a lazy computation");
+                current.set(last, transaction);
+            }
+            return transaction;
+        }
+
+        @NotNull
+        @Override
+        public BindingContext getBindingContext() {
+            return context;
+        }
+
+        @Override
+        public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+            getTraceToWrite().record(slice, key, value);
+        }
+
+        @Override
+        public <K> void record(WritableSlice<K, Boolean> slice, K key) {
+            getTraceToWrite().record(slice, key);
+        }
+
+        @Override
+        @Nullable
+        public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+            return getCurrentContext().get(slice, key);
+        }
+
+        @Override
+        @NotNull
+        public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+            return getCurrentContext().getKeys(slice);
+        }
+
+        @Override
+        public void report(@NotNull Diagnostic diagnostic) {
+            getTraceToWrite().report(diagnostic);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+fun main(args: Array<String>) {
+    used()
+}
+
+fun used() {
+}
+
+fun unused() {
+}
+
+class Unused
@@ -0,0 +1,9 @@
+package first
+
+inline fun <T> T.applyTwice(f: (T) -> T): T = f(f(this))
+
+class First(val value: Int) {
+    fun plus(other: First): First = First(value + other.value)
+}
+
+fun first(): Int = First(1).applyTwice { it + it }.value
@@ -0,0 +1,12 @@
+package second
+
+import first.*
+
+fun second(): Int {
+    val adder = { (x: Int) -> x + 1 }
+    return adder(3.applyTwice { it * 2 }) + first()
+}
+
+fun main(args: Array<String>) {
+    println(second())
+}
@@ -0,0 +1,10 @@
+package first
+
+fun a(): Int {
+    val unused = 1
+    return b() + missing
+}
+
+fun b() = a() + 1
+
+fun c(x: Int): Int = x + undefined()
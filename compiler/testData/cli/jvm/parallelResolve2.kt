@@ -0,0 +1,8 @@
+package second
+
+fun d(): String {
+    val x = "d"
+    return x + unknown
+}
+
+fun e(p: Int) = p * 2
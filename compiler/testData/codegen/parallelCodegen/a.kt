@@ -0,0 +1,18 @@
+package a
+
+inline fun <T> runTwice(f: () -> T): T {
+    f()
+    return f()
+}
+
+open class Base(val name: String) {
+    open fun describe(): String = "Base $name"
+}
+
+class Derived(name: String) : Base(name) {
+    override fun describe(): String = "Derived $name"
+}
+
+fun choose(flag: Boolean): Base = if (flag) Base("a") else Derived("b")
+
+val counter: Int = 42
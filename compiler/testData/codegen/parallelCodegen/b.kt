@@ -0,0 +1,17 @@
+package b
+
+import a.*
+
+object Registry {
+    val items = java.util.ArrayList<Base>()
+}
+
+fun collect(flags: Array<Boolean>): Int {
+    var count = 0
+    for (flag in flags) {
+        Registry.items.add(runTwice { count++; choose(flag) })
+    }
+    return count + counter
+}
+
+fun runnable(s: String): Runnable = Runnable { Registry.items.add(Base(s)) }
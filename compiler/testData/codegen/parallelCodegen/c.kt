@@ -0,0 +1,28 @@
+package c
+
+import a.*
+
+trait Shape {
+    fun area(): Double
+    fun name(): String = "shape"
+}
+
+class Square(val side: Double) : Shape {
+    override fun area() = side * side
+}
+
+class Circle(val radius: Double) : Shape {
+    override fun area() = 3.14 * radius * radius
+    override fun name() = "circle"
+}
+
+fun pick(i: Int): Shape = if (i > 0) Square(i.toDouble()) else Circle(-i.toDouble())
+
+fun describeAll(xs: Array<Int>): String {
+    val sb = StringBuilder()
+    for (x in xs) {
+        sb.append(runTwice { pick(x).name() })
+        sb.append(runTwice { { (y: Int) -> y * x } }(2))
+    }
+    return sb.toString()
+}
@@ -0,0 +1,9 @@
+package c
+
+fun total(shapes: Array<Shape>): Double {
+    var sum = 0.0
+    for (s in shapes) {
+        sum += (if (s is Square) s else pick(1)).area()
+    }
+    return sum
+}
@@ -0,0 +1,13 @@
+package d.nested
+
+import b.*
+
+class Holder<T>(val value: T) {
+    fun <R> map(f: (T) -> R): Holder<R> = Holder(f(value))
+}
+
+fun test(): String {
+    val h = Holder(collect(array(true, false))).map { it + 1 }.map { "" + it }
+    runnable(h.value).run()
+    return h.value
+}
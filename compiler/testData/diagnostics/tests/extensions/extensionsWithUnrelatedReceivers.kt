@@ -0,0 +1,22 @@
+package a
+
+trait A
+trait B : A
+class C : B
+
+fun A.foo() = 1
+fun String.foo() = ""
+fun Int.foo() = 2
+
+fun test(c: C, s: String?, a: Any) {
+    fun Int.bar() = 1
+    fun Long.foo() = 3L
+
+    c.foo()
+    s?.foo()
+    c.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>bar<!>()
+    if (a is B) {
+        <!DEBUG_INFO_AUTOCAST!>a<!>.foo()
+    }
+    a.<!UNRESOLVED_REFERENCE_WRONG_RECEIVER!>foo<!>()
+}
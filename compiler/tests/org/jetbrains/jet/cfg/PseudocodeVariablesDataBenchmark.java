@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cfg;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.TimeUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.cfg.PseudocodeVariablesData;
+import org.jetbrains.jet.lang.cfg.pseudocode.Pseudocode;
+import org.jetbrains.jet.lang.cfg.pseudocode.PseudocodeUtil;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+
+/**
+ * Measures variable initialization and use analyses on a generated state machine function,
+ * similar to generated parsers: a loop over a "when" with many branches reading and writing many local variables.
+ * Arguments: number of states (default 300), number of variables (default 100).
+ */
+public class PseudocodeVariablesDataBenchmark {
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) {
+        int states = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int variables = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JetCoreEnvironment environment = JetCoreEnvironment.createForTests(disposable, JetTestUtils.compilerConfigurationForTests(
+                    ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK));
+            JetFile file = JetTestUtils.createFile("stateMachine.kt", generateStateMachine(states, variables), environment.getProject());
+            BindingContext bindingContext = JetTestUtils.analyzeFile(file).getBindingContext();
+            JetDeclaration function = file.getDeclarations().get(0);
+
+            long total = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                Pseudocode pseudocode = PseudocodeUtil.generatePseudocode(function, bindingContext);
+
+                long start = System.nanoTime();
+                PseudocodeVariablesData data = new PseudocodeVariablesData(pseudocode, bindingContext);
+                data.getVariableInitializers();
+                data.getVariableUseStatusData();
+                long time = System.nanoTime() - start;
+                total += time;
+
+                System.out.println("Iteration " + i + ": " + pseudocode.getInstructions().size() + " instructions, " +
+                                   TimeUtils.millisecondsToSecondsString(time / 1000000) + "s");
+            }
+            System.out.println("Average: " + TimeUtils.millisecondsToSecondsString(total / ITERATIONS / 1000000) + "s");
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @NotNull
+    private static String generateStateMachine(int states, int variables) {
+        StringBuilder result = new StringBuilder();
+        result.append("fun run(input: IntArray): Int {\n");
+        result.append("    var state = 0\n");
+        result.append("    var pos = 0\n");
+        for (int i = 0; i < variables; i++) {
+            result.append("    var v").append(i).append(": Int\n");
+        }
+        result.append("    v0 = 0\n");
+        result.append("    while (pos < input.size) {\n");
+        result.append("        val c = input[pos++]\n");
+        result.append("        when (state) {\n");
+        for (int i = 0; i < states; i++) {
+            int read = i % variables;
+            int written = (i * 7 + 1) % variables;
+            result.append("            ").append(i).append(" -> {\n");
+            result.append("                val t = c + ").append(i).append("\n");
+            result.append("                if (t > v").append(read).append(") {\n");
+            result.append("                    v").append(written).append(" = t\n");
+            result.append("                    state = ").append((i + 1) % states).append("\n");
+            result.append("                }\n");
+            result.append("                else {\n");
+            result.append("                    state = ").append((i * 3) % states).append("\n");
+            result.append("                }\n");
+            result.append("            }\n");
+        }
+        result.append("            else -> return -1\n");
+        result.append("        }\n");
+        result.append("    }\n");
+        result.append("    return state\n");
+        result.append("}\n");
+        return result.toString();
+    }
+}
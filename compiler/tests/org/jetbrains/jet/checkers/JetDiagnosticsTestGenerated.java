@@ -3065,6 +3065,11 @@ public class JetDiagnosticsTestGenerated extends AbstractJetDiagnosticsTest {
                 doTest("compiler/testData/diagnostics/tests/extensions/ExtensionsCalledOnSuper.kt");
             }
             
+            @TestMetadata("extensionsWithUnrelatedReceivers.kt")
+            public void testExtensionsWithUnrelatedReceivers() throws Exception {
+                doTest("compiler/testData/diagnostics/tests/extensions/extensionsWithUnrelatedReceivers.kt");
+            }
+            
             @TestMetadata("GenericIterator.kt")
             public void testGenericIterator() throws Exception {
                 doTest("compiler/testData/diagnostics/tests/extensions/GenericIterator.kt");
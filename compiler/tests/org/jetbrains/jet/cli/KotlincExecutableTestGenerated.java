@@ -69,11 +69,26 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             doJvmTest("compiler/testData/cli/jvm/nonExistingSourcePath.args");
         }
         
+        @TestMetadata("parallelCodegen.args")
+        public void testParallelCodegen() throws Exception {
+            doJvmTest("compiler/testData/cli/jvm/parallelCodegen.args");
+        }
+        
+        @TestMetadata("parallelResolve.args")
+        public void testParallelResolve() throws Exception {
+            doJvmTest("compiler/testData/cli/jvm/parallelResolve.args");
+        }
+        
         @TestMetadata("printArguments.args")
         public void testPrintArguments() throws Exception {
             doJvmTest("compiler/testData/cli/jvm/printArguments.args");
         }
         
+        @TestMetadata("reportPerf.args")
+        public void testReportPerf() throws Exception {
+            doJvmTest("compiler/testData/cli/jvm/reportPerf.args");
+        }
+        
         @TestMetadata("script.args")
         public void testScript() throws Exception {
             doJvmTest("compiler/testData/cli/jvm/script.args");
@@ -104,6 +119,11 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             doJvmTest("compiler/testData/cli/jvm/wrongArgument.args");
         }
         
+        @TestMetadata("wrongCodegenThreads.args")
+        public void testWrongCodegenThreads() throws Exception {
+            doJvmTest("compiler/testData/cli/jvm/wrongCodegenThreads.args");
+        }
+        
         @TestMetadata("wrongKotlinSignature.args")
         public void testWrongKotlinSignature() throws Exception {
             doJvmTest("compiler/testData/cli/jvm/wrongKotlinSignature.args");
@@ -161,6 +181,11 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/cli/js"), Pattern.compile("^(.+)\\.args$"), true);
         }
         
+        @TestMetadata("eliminateDeadCode.args")
+        public void testEliminateDeadCode() throws Exception {
+            doJsTest("compiler/testData/cli/js/eliminateDeadCode.args");
+        }
+        
         @TestMetadata("outputPostfixFileNotFound.args")
         public void testOutputPostfixFileNotFound() throws Exception {
             doJsTest("compiler/testData/cli/js/outputPostfixFileNotFound.args");
@@ -181,6 +206,11 @@ public class KotlincExecutableTestGenerated extends AbstractKotlincExecutableTes
             doJsTest("compiler/testData/cli/js/simple2js.args");
         }
         
+        @TestMetadata("simple2jsStreamOutput.args")
+        public void testSimple2jsStreamOutput() throws Exception {
+            doJsTest("compiler/testData/cli/js/simple2jsStreamOutput.args");
+        }
+        
         @TestMetadata("suppressAllWarningsJS.args")
         public void testSuppressAllWarningsJS() throws Exception {
             doJsTest("compiler/testData/cli/js/suppressAllWarningsJS.args");
@@ -16,6 +16,7 @@
 
 package org.jetbrains.jet.cli.js;
 
+import com.intellij.openapi.util.io.FileUtil;
 import junit.framework.Assert;
 import org.jetbrains.jet.cli.CliBaseTest;
 import org.junit.Test;
@@ -30,6 +31,24 @@ public class K2JsCliTest extends CliBaseTest {
         Assert.assertTrue(new File(tmpdir.getTmpDir(), "out.js").isFile());
     }
 
+    @Test
+    public void simple2jsStreamOutput() throws Exception {
+        executeCompilerCompareOutputJS();
+
+        Assert.assertTrue(new File(tmpdir.getTmpDir(), "out.js").isFile());
+        Assert.assertTrue(new File(tmpdir.getTmpDir(), "out.js.map").isFile());
+    }
+
+    @Test
+    public void eliminateDeadCode() throws Exception {
+        executeCompilerCompareOutputJS();
+
+        String output = FileUtil.loadFile(new File(tmpdir.getTmpDir(), "out.js"));
+        Assert.assertTrue(output.contains("used"));
+        Assert.assertFalse(output.contains("unused"));
+        Assert.assertFalse(output.contains("Unused"));
+    }
+
     @Test
     public void outputPrefixFileNotFound() throws Exception {
         executeCompilerCompareOutputJS();
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.resolve.kotlin.VirtualFileFinder;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+
+public class ClassPathIndexTest extends TestCaseWithTmpdir {
+    private VirtualFileFinder createFinder(File cacheFile) {
+        CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.MOCK_JDK);
+        configuration.put(JVMConfigurationKeys.CLASSPATH_INDEX_CACHE, cacheFile);
+        JetCoreEnvironment environment = JetCoreEnvironment.createForTests(getTestRootDisposable(), configuration);
+        return VirtualFileFinder.SERVICE.getInstance(environment.getProject());
+    }
+
+    private static void checkLookups(VirtualFileFinder finder) {
+        VirtualFile string = finder.findVirtualFile("java/lang/String");
+        assertNotNull(string);
+        assertEquals("String.class", string.getName());
+
+        VirtualFile entry = finder.findVirtualFile("java/util/Map$Entry");
+        assertNotNull(entry);
+        assertEquals("Map$Entry.class", entry.getName());
+
+        assertNull(finder.findVirtualFile("java/lang/NoSuchClass"));
+        assertNull(finder.findVirtualFile("no/such/package/Foo"));
+
+        assertNotNull(finder.findVirtualFileWithHeader(new FqName("kotlin.KotlinPackage")));
+        assertNull(finder.findVirtualFileWithHeader(new FqName("java.lang.String")));
+        assertNull(finder.findVirtualFileWithHeader(new FqName("no.such.Foo")));
+    }
+
+    public void testLookupsWithoutCache() {
+        checkLookups(createFinder(null));
+    }
+
+    public void testLookupsWithCache() {
+        File cacheFile = new File(tmpdir, "classpath.index");
+
+        checkLookups(createFinder(cacheFile));
+        assertTrue(cacheFile.isFile());
+        long cacheModified = cacheFile.lastModified();
+        long cacheLength = cacheFile.length();
+
+        // The second compilation should read the cache and not rewrite it, since no jars have changed
+        checkLookups(createFinder(cacheFile));
+        assertEquals(cacheModified, cacheFile.lastModified());
+        assertEquals(cacheLength, cacheFile.length());
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.jetbrains.jet.cli.jvm;
 
+import com.intellij.openapi.util.io.FileUtil;
 import junit.framework.Assert;
 import org.jetbrains.jet.cli.CliBaseTest;
 import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
@@ -56,4 +57,14 @@ public class K2JvmCliTest extends CliBaseTest {
     public void classpath() throws Exception {
         executeCompilerCompareOutputJVM();
     }
+
+    @Test
+    public void reportPerf() throws Exception {
+        executeCompilerCompareOutputJVM();
+
+        String report = FileUtil.loadFile(new File(tmpdir.getTmpDir(), "perf.json"));
+        for (String phase : new String[] {"parse", "analyze", "analyze.bodies", "codegen", "output"}) {
+            Assert.assertTrue("No phase " + phase + " in the report:\n" + report, report.contains("\"name\": \"" + phase + "\""));
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.JetTestCaseBuilder;
+import org.jetbrains.jet.SimpleOutputFile;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.K2JVMCompiler;
+import org.jetbrains.jet.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+public class StreamingOutputWriterTest extends TestCaseWithTmpdir {
+    private static final String SOURCES = JetTestCaseBuilder.getTestDataPathBase() + "/codegen/parallelCodegen";
+
+    public void testStreamedJarIsTheSameAsNotStreamed() throws Exception {
+        File jar = new File(tmpdir, "notStreamed.jar");
+        File streamedJar = new File(tmpdir, "streamed.jar");
+
+        assertEquals(ExitCode.OK, compile(SOURCES, jar, false));
+        assertEquals(ExitCode.OK, compile(SOURCES, streamedJar, true));
+
+        Map<String, byte[]> expected = readJar(jar);
+        Map<String, byte[]> actual = readJar(streamedJar);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertTrue("Entry differs: " + entry.getKey(), Arrays.equals(entry.getValue(), actual.get(entry.getKey())));
+        }
+    }
+
+    public void testNoJarIsWrittenWhenAnalysisFails() throws Exception {
+        File source = new File(tmpdir, "error.kt");
+        FileUtil.writeToFile(source, "package error\n\nfun foo(): Int = \"\"\n");
+        File jar = new File(tmpdir, "error.jar");
+
+        assertEquals(ExitCode.COMPILATION_ERROR, compile(source.getPath(), jar, true));
+        assertFalse(jar.exists());
+    }
+
+    public void testIncompleteJarIsDeleted() throws Exception {
+        File jar = new File(tmpdir, "incomplete.jar");
+        StreamingOutputWriter writer = StreamingOutputWriter.create(jar, null, false, null, MessageCollector.NONE);
+        try {
+            writer.write(new SimpleOutputFile(Collections.<File>emptyList(), "a/A.class", "A"));
+            assertTrue(jar.isFile());
+            // The compilation fails before finish() is called
+        }
+        finally {
+            writer.close();
+        }
+        assertFalse(jar.exists());
+    }
+
+    @NotNull
+    private static ExitCode compile(@NotNull String sources, @NotNull File jar, boolean streamOutput) {
+        List<String> args = new ArrayList<String>(Arrays.asList(
+                "-src", sources,
+                "-jar", jar.getPath(),
+                "-noStdlib",
+                "-classpath", ForTestCompileRuntime.runtimeJarForTests().getPath()
+        ));
+        if (streamOutput) {
+            args.add("-streamOutput");
+        }
+        return new K2JVMCompiler().exec(System.out, ArrayUtil.toStringArray(args));
+    }
+
+    @NotNull
+    private static Map<String, byte[]> readJar(@NotNull File file) throws IOException {
+        Map<String, byte[]> result = new TreeMap<String, byte[]>();
+        JarFile jar = new JarFile(file);
+        try {
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                JarEntry entry = entries.nextElement();
+                result.put(entry.getName(), FileUtil.loadBytes(jar.getInputStream(entry)));
+            }
+        }
+        finally {
+            jar.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.daemon;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.common.arguments.K2JVMCompilerArguments;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+import org.jetbrains.org.objectweb.asm.ClassWriter;
+import org.jetbrains.org.objectweb.asm.MethodVisitor;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.jetbrains.jet.cli.jvm.daemon.CompileDaemonProtocol.*;
+import static org.jetbrains.org.objectweb.asm.Opcodes.*;
+
+public class CompileDaemonTest extends TestCaseWithTmpdir {
+    private static final String TOKEN = "test-token";
+
+    private File daemonDir;
+    private CompileDaemon daemon;
+    private Thread daemonThread;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        daemonDir = new File(tmpdir, "daemon");
+        assertTrue(createDaemonDir(daemonDir));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (daemon != null) {
+            stopDaemon();
+            daemon.dispose();
+            daemon = null;
+        }
+        daemonThread = null;
+        super.tearDown();
+    }
+
+    public void testCompileInDaemon() throws Exception {
+        startDaemon();
+
+        File source = writeSource("hello.kt", "package hello\n\nfun main(args: Array<String>) {\n    println(\"Hello\")\n}\n");
+        File output = new File(tmpdir, "out");
+        List<String> errors = new ArrayList<String>();
+
+        assertEquals(ExitCode.OK, compile(source, output, null, errors));
+        assertEquals(new ArrayList<String>(), errors);
+        assertTrue(new File(output, "hello/HelloPackage.class").isFile());
+    }
+
+    public void testChangedJarIsReloadedWithoutRecreatingEnvironment() throws Exception {
+        startDaemon();
+
+        File lib = new File(tmpdir, "lib.jar");
+        writeLibJar(lib, true);
+        File source = writeSource("usage.kt", "package usage\n\nfun test() = lib.A.foo()\n");
+        File output = new File(tmpdir, "out");
+        List<String> errors = new ArrayList<String>();
+
+        assertEquals(ExitCode.OK, compile(source, output, lib, errors));
+        assertEquals(new ArrayList<String>(), errors);
+
+        long lastModified = lib.lastModified();
+        writeLibJar(lib, false);
+        // The file system may have a coarse timestamp resolution
+        assertTrue(lib.setLastModified(lastModified + 2000));
+
+        assertEquals(ExitCode.COMPILATION_ERROR, compile(source, output, lib, errors));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("foo"));
+
+        assertEquals(1, daemon.getApplicationEnvironmentsCreated());
+    }
+
+    public void testNothingIsReportedWhenDaemonDiesDuringCompilation() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName(null));
+        Thread server = startDyingDaemon(serverSocket, new ArrayList<String>());
+
+        try {
+            writePortFile(getPortFile(daemonDir), serverSocket.getLocalPort(), TOKEN);
+
+            File source = writeSource("hello.kt", "package hello\n\nfun foo() {}\n");
+            List<String> errors = new ArrayList<String>();
+            assertNull(compile(source, new File(tmpdir, "out"), null, errors));
+            assertEquals(new ArrayList<String>(), errors);
+        }
+        finally {
+            server.join(10000);
+            serverSocket.close();
+        }
+    }
+
+    public void testPathsAreSentToDaemonAbsolute() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName(null));
+        List<String> sentArguments = Collections.synchronizedList(new ArrayList<String>());
+        Thread server = startDyingDaemon(serverSocket, sentArguments);
+
+        try {
+            writePortFile(getPortFile(daemonDir), serverSocket.getLocalPort(), TOKEN);
+
+            K2JVMCompilerArguments arguments = new K2JVMCompilerArguments();
+            arguments.freeArgs.add("hello.kt");
+            arguments.outputDir = "out";
+            arguments.reportPerf = "perf.json";
+            assertNull(CompileDaemonClient.compile(arguments, MessageCollector.NONE, daemonDir, false));
+        }
+        finally {
+            server.join(10000);
+            serverSocket.close();
+        }
+
+        assertTrue(sentArguments.contains(new File("hello.kt").getAbsolutePath()));
+        assertArgumentValue(sentArguments, "-output", new File("out").getAbsolutePath());
+        assertArgumentValue(sentArguments, "-reportPerf", new File("perf.json").getAbsolutePath());
+    }
+
+    private static void assertArgumentValue(@NotNull List<String> arguments, @NotNull String name, @NotNull String expected) {
+        int index = arguments.indexOf(name);
+        assertTrue("No " + name + " in " + arguments, index >= 0 && index + 1 < arguments.size());
+        assertEquals(expected, arguments.get(index + 1));
+    }
+
+    /**
+     * Starts a fake daemon, which reads one compilation request, saves its arguments, reports an error and dies
+     */
+    @NotNull
+    private static Thread startDyingDaemon(@NotNull final ServerSocket serverSocket, @NotNull final List<String> arguments) {
+        Thread server = new Thread("Dying daemon") {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    input.readInt();
+                    readString(input);
+                    input.readByte();
+                    int argCount = input.readInt();
+                    for (int i = 0; i < argCount; i++) {
+                        arguments.add(readString(input));
+                    }
+
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    writeMessage(output, CompilerMessageSeverity.ERROR, "Reported before the daemon died",
+                                 CompilerMessageLocation.NO_LOCATION);
+                    output.flush();
+                    socket.close();
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        server.start();
+        return server;
+    }
+
+    private void startDaemon() throws Exception {
+        daemon = new CompileDaemon(getPortFile(daemonDir), TOKEN, 60 * 1000);
+        daemonThread = new Thread("Compile daemon") {
+            @Override
+            public void run() {
+                try {
+                    daemon.run();
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        daemonThread.start();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (readPortFile(getPortFile(daemonDir)) == null) {
+            assertTrue("Daemon hasn't started", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void stopDaemon() throws Exception {
+        String[] portAndToken = readPortFile(getPortFile(daemonDir));
+        assertNotNull(portAndToken);
+        Socket socket = new Socket(InetAddress.getByName(null), Integer.parseInt(portAndToken[0]));
+        try {
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            output.writeInt(VERSION);
+            writeString(output, TOKEN);
+            output.writeByte(REQUEST_STOP);
+            output.flush();
+        }
+        finally {
+            socket.close();
+        }
+        daemonThread.join(10000);
+        assertFalse(daemonThread.isAlive());
+    }
+
+    @Nullable
+    private ExitCode compile(@NotNull File source, @NotNull File output, @Nullable File lib, @NotNull final List<String> errors) {
+        K2JVMCompilerArguments arguments = new K2JVMCompilerArguments();
+        arguments.freeArgs.add(source.getPath());
+        arguments.outputDir = output.getPath();
+        arguments.noStdlib = true;
+        String runtime = ForTestCompileRuntime.runtimeJarForTests().getAbsolutePath();
+        arguments.classpath = lib != null ? runtime + File.pathSeparator + lib.getAbsolutePath() : runtime;
+
+        errors.clear();
+        return CompileDaemonClient.compile(arguments, new MessageCollector() {
+            @Override
+            public void report(
+                    @NotNull CompilerMessageSeverity severity,
+                    @NotNull String message,
+                    @NotNull CompilerMessageLocation location
+            ) {
+                if (CompilerMessageSeverity.ERRORS.contains(severity)) {
+                    errors.add(message);
+                }
+            }
+        }, daemonDir, false);
+    }
+
+    @NotNull
+    private File writeSource(@NotNull String name, @NotNull String text) throws IOException {
+        File file = new File(tmpdir, name);
+        FileUtil.writeToFile(file, text);
+        return file;
+    }
+
+    private static void writeLibJar(@NotNull File jar, boolean withFoo) throws IOException {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(V1_6, ACC_PUBLIC | ACC_SUPER, "lib/A", null, "java/lang/Object", null);
+        if (withFoo) {
+            MethodVisitor method = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "foo", "()I", null, null);
+            method.visitCode();
+            method.visitInsn(ICONST_1);
+            method.visitInsn(IRETURN);
+            method.visitMaxs(1, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+
+        JarOutputStream output = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            output.putNextEntry(new ZipEntry("lib/A.class"));
+            output.write(writer.toByteArray());
+            output.closeEntry();
+        }
+        finally {
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.codegen.binding.CodegenBinding;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetFunctionLiteral;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.org.objectweb.asm.ClassWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.jetbrains.org.objectweb.asm.Opcodes.*;
+
+public class CommonSuperClassFinderTest extends CodegenTestCase {
+    private static final String THREAD = "java/lang/Thread";
+    private static final String OBJECT = "java/lang/Object";
+
+    private JetFile file;
+    private GenerationState state;
+    private DescriptorBasedCommonSuperClassFinder finder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        // Classes left in the output directory by a previous compilation, with an outdated hierarchy
+        File staleOutput = JetTestUtils.tmpDirForTest(this);
+        writeClass(staleOutput, "test/Foo$bar$1", THREAD);
+        writeClass(staleOutput, "lib/Lib", THREAD);
+
+        myEnvironment = JetCoreEnvironment.createForTests(getTestRootDisposable(), JetTestUtils.compilerConfigurationForTests(
+                ConfigurationKind.ALL, TestJdkKind.MOCK_JDK, staleOutput));
+
+        String text = "package test\n\nclass Foo {\n    fun bar() = { \"OK\" }\n}\n";
+        file = JetTestUtils.createFile("foo.kt", text, myEnvironment.getProject());
+        AnalyzeExhaust analyzeExhaust = AnalyzerFacadeForJVM.analyzeOneFileWithJavaIntegrationAndCheckForErrors(file);
+        state = new GenerationState(myEnvironment.getProject(), ClassBuilderFactories.BINARIES,
+                                    analyzeExhaust.getBindingContext(), Collections.singletonList(file), true);
+        state.beforeCompile();
+
+        finder = new DescriptorBasedCommonSuperClassFinder(state);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file = null;
+        state = null;
+        finder = null;
+        super.tearDown();
+    }
+
+    public void testLambdaQueriedBeforeItIsDefined() {
+        String lambda = getLambdaInternalName();
+        assertEquals("test/Foo$bar$1", lambda);
+
+        assertNull("Stale class from the class path shouldn't be used for a class of this module",
+                   finder.findCommonSuperClass(lambda, THREAD));
+
+        finder.classDefined(ACC_FINAL | ACC_SUPER, lambda, OBJECT, null);
+        assertEquals(OBJECT, finder.findCommonSuperClass(lambda, THREAD));
+        assertEquals(OBJECT, finder.findCommonSuperClass(THREAD, lambda));
+    }
+
+    public void testDefinedClassReplacesClassFromClassPath() {
+        assertEquals(THREAD, finder.findCommonSuperClass("lib/Lib", THREAD));
+
+        finder.classDefined(ACC_PUBLIC | ACC_SUPER, "lib/Lib", OBJECT, null);
+        assertEquals(OBJECT, finder.findCommonSuperClass("lib/Lib", THREAD));
+    }
+
+    public void testClassFromDescriptor() {
+        assertEquals(OBJECT, finder.findCommonSuperClass("test/Foo", THREAD));
+    }
+
+    @NotNull
+    private String getLambdaInternalName() {
+        JetFunctionLiteral literal = PsiTreeUtil.findChildOfType(file, JetFunctionLiteral.class);
+        assertNotNull(literal);
+        BindingContext bindingContext = state.getBindingContext();
+        FunctionDescriptor descriptor = (FunctionDescriptor) bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, literal);
+        assertNotNull(descriptor);
+        return CodegenBinding.asmTypeForAnonymousClass(bindingContext, descriptor).getInternalName();
+    }
+
+    private static void writeClass(@NotNull File root, @NotNull String internalName, @NotNull String superName) throws IOException {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(V1_6, ACC_PUBLIC | ACC_SUPER, internalName, null, superName, null);
+        writer.visitEnd();
+        File classFile = new File(root, internalName + ".class");
+        FileUtil.writeToFile(classFile, writer.toByteArray());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.OutputFile;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.common.arguments.CompilerArgumentsUtil;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.codegen.state.Progress;
+import org.jetbrains.jet.lang.resolve.AnalyzingUtils;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ParallelCodegenTest extends CodegenTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.ALL);
+    }
+
+    public void testOutputIsIdenticalToSerial() {
+        loadFiles("parallelCodegen/a.kt", "parallelCodegen/b.kt", "parallelCodegen/c.kt", "parallelCodegen/c2.kt",
+                  "parallelCodegen/d.kt");
+
+        AnalyzeExhaust analyzeExhaust = AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationAndCheckForErrors(
+                myEnvironment.getProject(), myFiles.getPsiFiles(), Predicates.<PsiFile>alwaysTrue());
+        analyzeExhaust.throwIfError();
+        AnalyzingUtils.throwExceptionOnErrors(analyzeExhaust.getBindingContext());
+
+        List<OutputFile> serial = generate(analyzeExhaust, 1);
+        for (int threads : new int[] {2, 4, 8}) {
+            assertSameOutput(serial, generate(analyzeExhaust, threads), threads);
+        }
+    }
+
+    @NotNull
+    private List<OutputFile> generate(@NotNull AnalyzeExhaust analyzeExhaust, int threads) {
+        GenerationState state = new GenerationState(
+                myEnvironment.getProject(), ClassBuilderFactories.BINARIES, Progress.DEAF, analyzeExhaust.getBindingContext(),
+                myFiles.getPsiFiles(), true, true, GenerationState.GenerateClassFilter.GENERATE_ALL,
+                CompilerArgumentsUtil.DEFAULT_INLINE_FLAG_FOR_TEST, threads
+        );
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+        return state.getFactory().asList();
+    }
+
+    private static void assertSameOutput(@NotNull List<OutputFile> expected, @NotNull List<OutputFile> actual, int threads) {
+        assertEquals("Different number of classes with " + threads + " threads", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            OutputFile expectedFile = expected.get(i);
+            OutputFile actualFile = actual.get(i);
+            assertEquals("Different order of classes with " + threads + " threads",
+                         expectedFile.getRelativePath(), actualFile.getRelativePath());
+            assertTrue("Different bytecode of " + expectedFile.getRelativePath() + " with " + threads + " threads",
+                       Arrays.equals(expectedFile.asByteArray(), actualFile.asByteArray()));
+        }
+    }
+}
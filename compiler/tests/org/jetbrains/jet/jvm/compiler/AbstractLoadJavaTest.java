@@ -206,11 +206,16 @@ public abstract class AbstractLoadJavaTest extends TestCaseWithTmpdir {
                 getTestRootDisposable(), ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.MOCK_JDK);
 
         Pair<PackageViewDescriptor, BindingContext> javaPackageAndContext = compileJavaAndLoadTestPackageAndBindingContextFromBinary(
-                srcFiles, compiledDir, getTestRootDisposable(), ConfigurationKind.ALL);
+                srcFiles, compiledDir, getTestRootDisposable(), ConfigurationKind.ALL, loadJavaClassesFromBinaries());
 
         checkJavaPackage(getTxtFile(javaFileName), javaPackageAndContext.first, javaPackageAndContext.second, configuration);
     }
 
+    // If true, compiled Java classes are read from class files directly instead of PSI
+    protected boolean loadJavaClassesFromBinaries() {
+        return false;
+    }
+
     private static void checkForLoadErrorsAndCompare(
             @NotNull PackageViewDescriptor javaPackage,
             @NotNull BindingContext bindingContext,
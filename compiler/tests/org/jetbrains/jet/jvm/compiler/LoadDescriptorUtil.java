@@ -30,6 +30,7 @@ import org.jetbrains.jet.OutputFileCollection;
 import org.jetbrains.jet.TestJdkKind;
 import org.jetbrains.jet.analyzer.AnalyzeExhaust;
 import org.jetbrains.jet.cli.common.output.outputUtils.OutputUtilsPackage;
+import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
 import org.jetbrains.jet.codegen.GenerationUtils;
 import org.jetbrains.jet.codegen.forTestCompile.ForTestCompileRuntime;
@@ -81,6 +82,16 @@ public final class LoadDescriptorUtil {
             @NotNull File javaRoot,
             @NotNull Disposable disposable,
             @NotNull ConfigurationKind configurationKind
+    ) {
+        return loadTestPackageAndBindingContextFromJavaRoot(javaRoot, disposable, configurationKind, false);
+    }
+
+    @NotNull
+    public static Pair<PackageViewDescriptor, BindingContext> loadTestPackageAndBindingContextFromJavaRoot(
+            @NotNull File javaRoot,
+            @NotNull Disposable disposable,
+            @NotNull ConfigurationKind configurationKind,
+            boolean loadJavaClassesFromBinaries
     ) {
         CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(
                 configurationKind, TestJdkKind.MOCK_JDK,
@@ -88,6 +99,7 @@ public final class LoadDescriptorUtil {
                 javaRoot,
                 new File("compiler/tests") // for @ExpectLoadError annotation
         );
+        configuration.put(JVMConfigurationKeys.LOAD_JAVA_CLASSES_FROM_BINARIES, loadJavaClassesFromBinaries);
         JetCoreEnvironment jetCoreEnvironment = JetCoreEnvironment.createForTests(disposable, configuration);
         BindingTraceContext trace = new BindingTraceContext();
         InjectorForJavaDescriptorResolver injector = InjectorForJavaDescriptorResolverUtil.create(jetCoreEnvironment.getProject(), trace);
@@ -103,10 +115,22 @@ public final class LoadDescriptorUtil {
             @NotNull File outDir,
             @NotNull Disposable disposable,
             @NotNull ConfigurationKind configurationKind
+    )
+            throws IOException {
+        return compileJavaAndLoadTestPackageAndBindingContextFromBinary(javaFiles, outDir, disposable, configurationKind, false);
+    }
+
+    @NotNull
+    public static Pair<PackageViewDescriptor, BindingContext> compileJavaAndLoadTestPackageAndBindingContextFromBinary(
+            @NotNull Collection<File> javaFiles,
+            @NotNull File outDir,
+            @NotNull Disposable disposable,
+            @NotNull ConfigurationKind configurationKind,
+            boolean loadJavaClassesFromBinaries
     )
             throws IOException {
         compileJavaWithAnnotationsJar(javaFiles, outDir);
-        return loadTestPackageAndBindingContextFromJavaRoot(outDir, disposable, configurationKind);
+        return loadTestPackageAndBindingContextFromJavaRoot(outDir, disposable, configurationKind, loadJavaClassesFromBinaries);
     }
 
     private static void compileJavaWithAnnotationsJar(@NotNull Collection<File> javaFiles, @NotNull File outDir) throws IOException {
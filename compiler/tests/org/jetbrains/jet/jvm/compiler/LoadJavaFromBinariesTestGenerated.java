@@ -0,0 +1,509 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jvm.compiler;
+
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.io.File;
+import java.util.regex.Pattern;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.test.InnerTestClasses;
+import org.jetbrains.jet.test.TestMetadata;
+
+import org.jetbrains.jet.jvm.compiler.AbstractLoadJavaFromBinariesTest;
+
+/** This class is generated by {@link org.jetbrains.jet.generators.tests.TestsPackage}. DO NOT MODIFY MANUALLY */
+@SuppressWarnings("all")
+@TestMetadata("compiler/testData/loadJava/compiledJava")
+@InnerTestClasses({LoadJavaFromBinariesTestGenerated.Annotations.class, LoadJavaFromBinariesTestGenerated.ProtectedPackage.class, LoadJavaFromBinariesTestGenerated.ProtectedStatic.class, LoadJavaFromBinariesTestGenerated.Sam.class, LoadJavaFromBinariesTestGenerated.SignaturePropagation.class, LoadJavaFromBinariesTestGenerated.Static.class})
+public class LoadJavaFromBinariesTestGenerated extends AbstractLoadJavaFromBinariesTest {
+    public void testAllFilesPresentInCompiledJava() throws Exception {
+        JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava"), Pattern.compile("^(.+)\\.java$"), true);
+    }
+    
+    @TestMetadata("EnumMembers.java")
+    public void testEnumMembers() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/EnumMembers.java");
+    }
+    
+    @TestMetadata("JavaEnum.java")
+    public void testJavaEnum() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/JavaEnum.java");
+    }
+    
+    @TestMetadata("OverrideMethod.java")
+    public void testOverrideMethod() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/OverrideMethod.java");
+    }
+    
+    @TestMetadata("PackageLocalVisibility.java")
+    public void testPackageLocalVisibility() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/PackageLocalVisibility.java");
+    }
+    
+    @TestMetadata("RawTypeWithUpperBound.java")
+    public void testRawTypeWithUpperBound() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/RawTypeWithUpperBound.java");
+    }
+    
+    @TestMetadata("RawUpperBound.java")
+    public void testRawUpperBound() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/RawUpperBound.java");
+    }
+    
+    @TestMetadata("RecursiveRawUpperBound.java")
+    public void testRecursiveRawUpperBound() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/RecursiveRawUpperBound.java");
+    }
+    
+    @TestMetadata("RecursiveWildcardUpperBound.java")
+    public void testRecursiveWildcardUpperBound() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/RecursiveWildcardUpperBound.java");
+    }
+    
+    @TestMetadata("SubclassFromNested.java")
+    public void testSubclassFromNested() throws Exception {
+        doTestCompiledJava("compiler/testData/loadJava/compiledJava/SubclassFromNested.java");
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/annotations")
+    public static class Annotations extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInAnnotations() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/annotations"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("AnnotationInParam.java")
+        public void testAnnotationInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/AnnotationInParam.java");
+        }
+        
+        @TestMetadata("ArithmeticExpressionInParam.java")
+        public void testArithmeticExpressionInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/ArithmeticExpressionInParam.java");
+        }
+        
+        @TestMetadata("ArrayOfEnumInParam.java")
+        public void testArrayOfEnumInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/ArrayOfEnumInParam.java");
+        }
+        
+        @TestMetadata("ArrayOfStringInParam.java")
+        public void testArrayOfStringInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/ArrayOfStringInParam.java");
+        }
+        
+        @TestMetadata("ClassObjectArrayInParam.java")
+        public void testClassObjectArrayInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/ClassObjectArrayInParam.java");
+        }
+        
+        @TestMetadata("ClassObjectInParam.java")
+        public void testClassObjectInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/ClassObjectInParam.java");
+        }
+        
+        @TestMetadata("CustomAnnotation.java")
+        public void testCustomAnnotation() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/CustomAnnotation.java");
+        }
+        
+        @TestMetadata("CustomAnnotationWithDefaultParameter.java")
+        public void testCustomAnnotationWithDefaultParameter() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/CustomAnnotationWithDefaultParameter.java");
+        }
+        
+        @TestMetadata("EmptyArrayInParam.java")
+        public void testEmptyArrayInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/EmptyArrayInParam.java");
+        }
+        
+        @TestMetadata("EnumInParam.java")
+        public void testEnumInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/EnumInParam.java");
+        }
+        
+        @TestMetadata("PrimitiveValueInParam.java")
+        public void testPrimitiveValueInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/PrimitiveValueInParam.java");
+        }
+        
+        @TestMetadata("RecursiveAnnotation.java")
+        public void testRecursiveAnnotation() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/RecursiveAnnotation.java");
+        }
+        
+        @TestMetadata("RecursiveAnnotation2.java")
+        public void testRecursiveAnnotation2() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/RecursiveAnnotation2.java");
+        }
+        
+        @TestMetadata("StringConcatenationInParam.java")
+        public void testStringConcatenationInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/StringConcatenationInParam.java");
+        }
+        
+        @TestMetadata("StringConstantInParam.java")
+        public void testStringConstantInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/StringConstantInParam.java");
+        }
+        
+        @TestMetadata("StringInParam.java")
+        public void testStringInParam() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/annotations/StringInParam.java");
+        }
+        
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/protectedPackage")
+    public static class ProtectedPackage extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInProtectedPackage() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/protectedPackage"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("ProtectedPackageConstructor.java")
+        public void testProtectedPackageConstructor() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/protectedPackage/ProtectedPackageConstructor.java");
+        }
+        
+        @TestMetadata("ProtectedPackageFun.java")
+        public void testProtectedPackageFun() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/protectedPackage/ProtectedPackageFun.java");
+        }
+        
+        @TestMetadata("ProtectedPackageProperty.java")
+        public void testProtectedPackageProperty() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/protectedPackage/ProtectedPackageProperty.java");
+        }
+        
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/protectedStatic")
+    public static class ProtectedStatic extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInProtectedStatic() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/protectedStatic"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("ConstructorInProtectedStaticNestedClass.java")
+        public void testConstructorInProtectedStaticNestedClass() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/protectedStatic/ConstructorInProtectedStaticNestedClass.java");
+        }
+        
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/sam")
+    @InnerTestClasses({Sam.Adapters.class})
+    public static class Sam extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInSam() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/sam"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("Comparator.java")
+        public void testComparator() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/Comparator.java");
+        }
+        
+        @TestMetadata("FilenameFilter.java")
+        public void testFilenameFilter() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/FilenameFilter.java");
+        }
+        
+        @TestMetadata("GenericInterfaceParameterWithSelfBound.java")
+        public void testGenericInterfaceParameterWithSelfBound() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/GenericInterfaceParameterWithSelfBound.java");
+        }
+        
+        @TestMetadata("GenericInterfaceParametersWithBounds.java")
+        public void testGenericInterfaceParametersWithBounds() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/GenericInterfaceParametersWithBounds.java");
+        }
+        
+        @TestMetadata("GenericMethodParameters.java")
+        public void testGenericMethodParameters() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/GenericMethodParameters.java");
+        }
+        
+        @TestMetadata("InterfaceWithObjectMethod.java")
+        public void testInterfaceWithObjectMethod() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/InterfaceWithObjectMethod.java");
+        }
+        
+        @TestMetadata("Nested.java")
+        public void testNested() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/Nested.java");
+        }
+        
+        @TestMetadata("Runnable.java")
+        public void testRunnable() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/Runnable.java");
+        }
+        
+        @TestMetadata("SamSubinterfaceOfTwo.java")
+        public void testSamSubinterfaceOfTwo() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/SamSubinterfaceOfTwo.java");
+        }
+        
+        @TestMetadata("SamSubinterfaceOverridding.java")
+        public void testSamSubinterfaceOverridding() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/SamSubinterfaceOverridding.java");
+        }
+        
+        @TestMetadata("SubstitutedSamInterface.java")
+        public void testSubstitutedSamInterface() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/SubstitutedSamInterface.java");
+        }
+        
+        @TestMetadata("SubstitutedSamInterfaceSubclassOfBuiltin.java")
+        public void testSubstitutedSamInterfaceSubclassOfBuiltin() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/SubstitutedSamInterfaceSubclassOfBuiltin.java");
+        }
+        
+        @TestMetadata("VarargParameter.java")
+        public void testVarargParameter() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/VarargParameter.java");
+        }
+        
+        @TestMetadata("compiler/testData/loadJava/compiledJava/sam/adapters")
+        @InnerTestClasses({Adapters.Inheritance.class})
+        public static class Adapters extends AbstractLoadJavaFromBinariesTest {
+            public void testAllFilesPresentInAdapters() throws Exception {
+                JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/sam/adapters"), Pattern.compile("^(.+)\\.java$"), true);
+            }
+            
+            @TestMetadata("AmbiguousAdapters.java")
+            public void testAmbiguousAdapters() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/AmbiguousAdapters.java");
+            }
+            
+            @TestMetadata("Basic.java")
+            public void testBasic() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/Basic.java");
+            }
+            
+            @TestMetadata("Constructor.java")
+            public void testConstructor() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/Constructor.java");
+            }
+            
+            @TestMetadata("DeepSamLoop.java")
+            public void testDeepSamLoop() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/DeepSamLoop.java");
+            }
+            
+            @TestMetadata("NonTrivialFunctionType.java")
+            public void testNonTrivialFunctionType() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/NonTrivialFunctionType.java");
+            }
+            
+            @TestMetadata("SelfAsParameter.java")
+            public void testSelfAsParameter() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/SelfAsParameter.java");
+            }
+            
+            @TestMetadata("SeveralSamParameters.java")
+            public void testSeveralSamParameters() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/SeveralSamParameters.java");
+            }
+            
+            @TestMetadata("TypeParameterOfClass.java")
+            public void testTypeParameterOfClass() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/TypeParameterOfClass.java");
+            }
+            
+            @TestMetadata("TypeParameterOfMethod.java")
+            public void testTypeParameterOfMethod() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/TypeParameterOfMethod.java");
+            }
+            
+            @TestMetadata("TypeParameterOfOuterClass.java")
+            public void testTypeParameterOfOuterClass() throws Exception {
+                doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/TypeParameterOfOuterClass.java");
+            }
+            
+            @TestMetadata("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance")
+            public static class Inheritance extends AbstractLoadJavaFromBinariesTest {
+                @TestMetadata("AdapterDoesntOverrideDeclaration.java")
+                public void testAdapterDoesntOverrideDeclaration() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/AdapterDoesntOverrideDeclaration.java");
+                }
+                
+                public void testAllFilesPresentInInheritance() throws Exception {
+                    JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance"), Pattern.compile("^(.+)\\.java$"), true);
+                }
+                
+                @TestMetadata("InheritedAdapterAndDeclaration.java")
+                public void testInheritedAdapterAndDeclaration() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedAdapterAndDeclaration.java");
+                }
+                
+                @TestMetadata("InheritedAmbiguousAdapters.java")
+                public void testInheritedAmbiguousAdapters() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedAmbiguousAdapters.java");
+                }
+                
+                @TestMetadata("InheritedAndOverriddenAmbiguousAdapters.java")
+                public void testInheritedAndOverriddenAmbiguousAdapters() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedAndOverriddenAmbiguousAdapters.java");
+                }
+                
+                @TestMetadata("InheritedOverridden.java")
+                public void testInheritedOverridden() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedOverridden.java");
+                }
+                
+                @TestMetadata("InheritedOverriddenAdapter.java")
+                public void testInheritedOverriddenAdapter() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedOverriddenAdapter.java");
+                }
+                
+                @TestMetadata("InheritedSameAdapters.java")
+                public void testInheritedSameAdapters() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedSameAdapters.java");
+                }
+                
+                @TestMetadata("InheritedSameAdaptersWithSubstitution.java")
+                public void testInheritedSameAdaptersWithSubstitution() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedSameAdaptersWithSubstitution.java");
+                }
+                
+                @TestMetadata("InheritedSimple.java")
+                public void testInheritedSimple() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/InheritedSimple.java");
+                }
+                
+                @TestMetadata("OverriddenAmbiguousAdapters.java")
+                public void testOverriddenAmbiguousAdapters() throws Exception {
+                    doTestCompiledJava("compiler/testData/loadJava/compiledJava/sam/adapters/inheritance/OverriddenAmbiguousAdapters.java");
+                }
+                
+            }
+            
+            public static Test innerSuite() {
+                TestSuite suite = new TestSuite("Adapters");
+                suite.addTestSuite(Adapters.class);
+                suite.addTestSuite(Inheritance.class);
+                return suite;
+            }
+        }
+        
+        public static Test innerSuite() {
+            TestSuite suite = new TestSuite("Sam");
+            suite.addTestSuite(Sam.class);
+            suite.addTest(Adapters.innerSuite());
+            return suite;
+        }
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/signaturePropagation")
+    public static class SignaturePropagation extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInSignaturePropagation() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/signaturePropagation"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("ArraysInSubtypes.java")
+        public void testArraysInSubtypes() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/ArraysInSubtypes.java");
+        }
+        
+        @TestMetadata("MethodTypeParameterErased.java")
+        public void testMethodTypeParameterErased() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/MethodTypeParameterErased.java");
+        }
+        
+        @TestMetadata("RawSuperType.java")
+        public void testRawSuperType() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/RawSuperType.java");
+        }
+        
+        @TestMetadata("ReturnInnerSubclassOfSupersInner.java")
+        public void testReturnInnerSubclassOfSupersInner() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/ReturnInnerSubclassOfSupersInner.java");
+        }
+        
+        @TestMetadata("SubclassWithRawType.java")
+        public void testSubclassWithRawType() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/SubclassWithRawType.java");
+        }
+        
+        @TestMetadata("TwoSuperclassesInconsistentGenericTypes.java")
+        public void testTwoSuperclassesInconsistentGenericTypes() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/TwoSuperclassesInconsistentGenericTypes.java");
+        }
+        
+        @TestMetadata("TwoSuperclassesVarargAndNot.java")
+        public void testTwoSuperclassesVarargAndNot() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/signaturePropagation/TwoSuperclassesVarargAndNot.java");
+        }
+        
+    }
+    
+    @TestMetadata("compiler/testData/loadJava/compiledJava/static")
+    public static class Static extends AbstractLoadJavaFromBinariesTest {
+        public void testAllFilesPresentInStatic() throws Exception {
+            JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.TestsPackage", new File("compiler/testData/loadJava/compiledJava/static"), Pattern.compile("^(.+)\\.java$"), true);
+        }
+        
+        @TestMetadata("DeeplyInnerClass.java")
+        public void testDeeplyInnerClass() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/DeeplyInnerClass.java");
+        }
+        
+        @TestMetadata("DeeplyNestedStatic.java")
+        public void testDeeplyNestedStatic() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/DeeplyNestedStatic.java");
+        }
+        
+        @TestMetadata("Enum.java")
+        public void testEnum() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/Enum.java");
+        }
+        
+        @TestMetadata("InnerClass.java")
+        public void testInnerClass() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/InnerClass.java");
+        }
+        
+        @TestMetadata("Simple.java")
+        public void testSimple() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/Simple.java");
+        }
+        
+        @TestMetadata("StaticFinal.java")
+        public void testStaticFinal() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/StaticFinal.java");
+        }
+        
+        @TestMetadata("StaticMembersInEnum.java")
+        public void testStaticMembersInEnum() throws Exception {
+            doTestCompiledJava("compiler/testData/loadJava/compiledJava/static/StaticMembersInEnum.java");
+        }
+        
+    }
+    
+    public static Test suite() {
+        TestSuite suite = new TestSuite("LoadJavaFromBinariesTestGenerated");
+        suite.addTestSuite(LoadJavaFromBinariesTestGenerated.class);
+        suite.addTestSuite(Annotations.class);
+        suite.addTestSuite(ProtectedPackage.class);
+        suite.addTestSuite(ProtectedStatic.class);
+        suite.addTest(Sam.innerSuite());
+        suite.addTestSuite(SignaturePropagation.class);
+        suite.addTestSuite(Static.class);
+        return suite;
+    }
+}
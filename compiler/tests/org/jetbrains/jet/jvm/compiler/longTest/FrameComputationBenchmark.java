@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jvm.compiler.longTest;
+
+import com.google.common.base.Predicates;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.OutputFile;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.TimeUtils;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.common.arguments.CompilerArgumentsUtil;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.codegen.*;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the time of stack map frame computation with the reflective getCommonSuperClass (CommonSuperClassFinder.NONE)
+ * and with DescriptorBasedCommonSuperClassFinder on the BlackBoxCodegen test corpus.
+ * Only code generation is measured: every file is analyzed once, and then generated several times with each strategy.
+ * Also reports the number of classes whose bytecode differs between the two strategies.
+ */
+public class FrameComputationBenchmark {
+    private static final String BOX_TEST_DATA = "compiler/testData/codegen/box";
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        List<File> files = collectFiles(new File(args.length > 0 ? args[0] : BOX_TEST_DATA));
+        System.out.println("Files: " + files.size());
+
+        long reflectiveTime = 0;
+        long descriptorBasedTime = 0;
+        int classes = 0;
+        int differentClasses = 0;
+        int failed = 0;
+
+        for (File file : files) {
+            Disposable disposable = Disposer.newDisposable();
+            try {
+                JetCoreEnvironment environment = JetCoreEnvironment.createForTests(disposable, JetTestUtils.compilerConfigurationForTests(
+                        ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.MOCK_JDK, JetTestUtils.getAnnotationsJar()));
+                JetFile jetFile = JetTestUtils.createFile(file.getName(), FileUtil.loadFile(file, true), environment.getProject());
+                List<JetFile> jetFiles = Collections.singletonList(jetFile);
+
+                AnalyzeExhaust exhaust = AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationAndCheckForErrors(
+                        environment.getProject(), jetFiles, Predicates.<PsiFile>alwaysTrue());
+                exhaust.throwIfError();
+
+                ClassFileFactory reflective = null;
+                ClassFileFactory descriptorBased = null;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    reflective = generate(environment, exhaust, jetFiles, false);
+                    reflectiveTime += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    descriptorBased = generate(environment, exhaust, jetFiles, true);
+                    descriptorBasedTime += System.nanoTime() - start;
+                }
+
+                assert reflective != null && descriptorBased != null;
+                for (OutputFile outputFile : reflective.asList()) {
+                    classes++;
+                    OutputFile other = descriptorBased.get(outputFile.getRelativePath());
+                    if (other == null || !Arrays.equals(outputFile.asByteArray(), other.asByteArray())) {
+                        differentClasses++;
+                        System.out.println("Different bytecode: " + file + " -> " + outputFile.getRelativePath());
+                    }
+                }
+            }
+            catch (Throwable e) {
+                failed++;
+                System.out.println("Failed to compile " + file + ": " + e);
+            }
+            finally {
+                Disposer.dispose(disposable);
+            }
+        }
+
+        System.out.println("Classes: " + classes + ", different: " + differentClasses + ", files failed: " + failed);
+        System.out.println("Reflective getCommonSuperClass: " + TimeUtils.millisecondsToSecondsString(reflectiveTime / 1000000) + "s");
+        System.out.println("DescriptorBasedCommonSuperClassFinder: " +
+                           TimeUtils.millisecondsToSecondsString(descriptorBasedTime / 1000000) + "s");
+    }
+
+    @NotNull
+    private static ClassFileFactory generate(
+            @NotNull JetCoreEnvironment environment,
+            @NotNull AnalyzeExhaust exhaust,
+            @NotNull List<JetFile> files,
+            boolean descriptorBased
+    ) {
+        GenerationState state = new GenerationState(environment.getProject(), ClassBuilderFactories.BINARIES, exhaust.getBindingContext(),
+                                                    files, CompilerArgumentsUtil.DEFAULT_INLINE_FLAG_FOR_TEST);
+        if (!descriptorBased) {
+            state.setCommonSuperClassFinder(CommonSuperClassFinder.NONE);
+        }
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION);
+
+        ClassFileFactory factory = state.getFactory();
+        // Frames are computed while methods are generated, but force all class files to be written as well
+        for (OutputFile outputFile : factory.asList()) {
+            outputFile.asByteArray();
+        }
+        return factory;
+    }
+
+    @NotNull
+    private static List<File> collectFiles(@NotNull File root) {
+        final List<File> result = new ArrayList<File>();
+        FileUtil.processFilesRecursively(root, new Processor<File>() {
+            @Override
+            public boolean process(File file) {
+                if (file.getName().endsWith(".kt")) {
+                    result.add(file);
+                }
+                return true;
+            }
+        });
+        Collections.sort(result);
+        return result;
+    }
+}
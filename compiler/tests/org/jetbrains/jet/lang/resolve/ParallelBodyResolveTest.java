@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve;
+
+import com.google.common.base.Predicates;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestCaseBuilder;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.KotlinTestWithEnvironmentManagement;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.checkers.CheckerTestUtil;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.descriptors.serialization.descriptors.MemberFilter;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.DiagnosticUtils;
+import org.jetbrains.jet.lang.diagnostics.rendering.DefaultErrorMessages;
+import org.jetbrains.jet.lang.psi.JetExpression;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.types.JetType;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Resolves code with function bodies resolved serially and on several threads, and checks that the results are the same
+ */
+public class ParallelBodyResolveTest extends KotlinTestWithEnvironmentManagement {
+    private static final File STD_LIB_SRC = new File("libraries/stdlib/src");
+    private static final File DIAGNOSTICS_TEST_DATA = new File(JetTestCaseBuilder.getTestDataPathBase(), "diagnostics/tests");
+    private static final int THREADS = 8;
+
+    public void testStdLib() throws Exception {
+        JetCoreEnvironment environment = createEnvironmentWithJdk(ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.FULL_JDK);
+        List<JetFile> files = JetTestUtils.loadToJetFiles(environment, JetTestUtils.collectKtFiles(STD_LIB_SRC));
+
+        BindingContext serial = analyze(environment, files, 1);
+        BindingContext parallel = analyze(environment, files, THREADS);
+
+        assertOrderedEquals(renderDiagnostics(serial), renderDiagnostics(parallel));
+        assertSameExpressionTypes(serial, parallel);
+    }
+
+    public void testDiagnosticsTestData() throws Exception {
+        JetCoreEnvironment environment = createEnvironmentWithJdk(ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.FULL_JDK);
+
+        File[] testFiles = DIAGNOSTICS_TEST_DATA.listFiles();
+        assertNotNull(testFiles);
+        Arrays.sort(testFiles);
+
+        int diagnosticCount = 0;
+        for (File testFile : testFiles) {
+            if (!testFile.getName().endsWith(".kt")) continue;
+            String text = FileUtil.loadFile(testFile, true);
+            // Tests consisting of several files are not supported here
+            if (text.contains("// FILE:")) continue;
+
+            String textWithoutMarkers = CheckerTestUtil.parseDiagnosedRanges(text, new ArrayList<CheckerTestUtil.DiagnosedRange>());
+            List<JetFile> files =
+                    Collections.singletonList(JetTestUtils.createFile(testFile.getName(), textWithoutMarkers, environment.getProject()));
+
+            BindingContext serial = analyze(environment, files, 1);
+            BindingContext parallel = analyze(environment, files, THREADS);
+
+            List<String> serialDiagnostics = renderDiagnostics(serial);
+            assertEquals(testFile.getName(), serialDiagnostics, renderDiagnostics(parallel));
+            assertSameExpressionTypes(serial, parallel);
+            diagnosticCount += serialDiagnostics.size();
+        }
+        assertTrue("The test data is expected to have errors", diagnosticCount > 0);
+    }
+
+    private static void assertSameExpressionTypes(@NotNull BindingContext serial, @NotNull BindingContext parallel) {
+        Map<JetExpression, JetType> serialTypes = serial.getSliceContents(BindingContext.EXPRESSION_TYPE);
+        Map<JetExpression, JetType> parallelTypes = parallel.getSliceContents(BindingContext.EXPRESSION_TYPE);
+        assertEquals(serialTypes.size(), parallelTypes.size());
+        for (Map.Entry<JetExpression, JetType> entry : serialTypes.entrySet()) {
+            JetExpression expression = entry.getKey();
+            JetType parallelType = parallelTypes.get(expression);
+            assertNotNull("No type in the parallel mode: " + DiagnosticUtils.atLocation(expression), parallelType);
+            assertEquals(DiagnosticUtils.atLocation(expression), entry.getValue().toString(), parallelType.toString());
+        }
+    }
+
+    @NotNull
+    private static BindingContext analyze(@NotNull JetCoreEnvironment environment, @NotNull List<JetFile> files, int bodyResolveThreads) {
+        return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                environment.getProject(), files, new BindingTraceContext(), Predicates.<PsiFile>alwaysTrue(), false,
+                AnalyzerFacadeForJVM.createJavaModule("<module>"), MemberFilter.ALWAYS_TRUE, bodyResolveThreads
+        ).getBindingContext();
+    }
+
+    @NotNull
+    private static List<String> renderDiagnostics(@NotNull BindingContext context) {
+        List<String> result = new ArrayList<String>();
+        // Not sorted: the parallel mode must record diagnostics in the same order as the serial one
+        for (Diagnostic diagnostic : context.getDiagnostics().all()) {
+            result.add(DiagnosticUtils.atLocation(diagnostic.getPsiFile(), diagnostic.getTextRanges().get(0)) + ": " +
+                       DefaultErrorMessages.RENDERER.render(diagnostic));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.lazy;
+
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.KotlinTestWithEnvironmentManagement;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.context.ContextPackage;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.descriptors.PackageViewDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.test.util.RecursiveDescriptorComparator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Resolves the standard library lazily with ConcurrentStorageManager, walking all descriptors from many threads at once,
+ * and checks that the result is the same as the one of the eager resolve
+ */
+public class ConcurrentLazyResolveTest extends KotlinTestWithEnvironmentManagement {
+    private static final File STD_LIB_SRC = new File("libraries/stdlib/src");
+    private static final int THREADS = 8;
+    private static final long TIMEOUT_MINUTES = 5;
+
+    public void testStdLibFromManyThreads() throws Exception {
+        JetCoreEnvironment environment = createEnvironmentWithJdk(ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.FULL_JDK);
+        List<JetFile> files = JetTestUtils.loadToJetFiles(environment, JetTestUtils.collectKtFiles(STD_LIB_SRC));
+
+        final ModuleDescriptor module = LazyResolveTestUtil.resolveEagerly(files, environment);
+        final ModuleDescriptor lazyModule = LazyResolveTestUtil.resolveLazilyWithSession(
+                files, environment, true, ContextPackage.ConcurrentGlobalContext()).getModuleDescriptor();
+
+        final List<Name> packageShortNames = new ArrayList<Name>(LazyResolveTestUtil.getTopLevelPackagesFromFileList(files));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < THREADS; i++) {
+                final int shift = i;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Different threads start from different packages, so that they compete for the same lazy values
+                        List<Name> names = new ArrayList<Name>(packageShortNames);
+                        Collections.rotate(names, shift);
+                        for (Name name : names) {
+                            PackageViewDescriptor eager = module.getPackage(FqName.topLevel(name));
+                            PackageViewDescriptor lazy = lazyModule.getPackage(FqName.topLevel(name));
+                            RecursiveDescriptorComparator.validateAndCompareDescriptors(
+                                    eager, lazy, RecursiveDescriptorComparator.RECURSIVE, null);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                }
+                catch (TimeoutException e) {
+                    fail("Lazy resolve is deadlocked");
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) throw (Exception) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw e;
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -63,13 +63,23 @@ public class LazyResolveTestUtil {
     }
 
     public static KotlinCodeAnalyzer resolveLazilyWithSession(List<JetFile> files, JetCoreEnvironment environment, boolean addBuiltIns) {
+        return resolveLazilyWithSession(files, environment, addBuiltIns, ContextPackage.GlobalContext());
+    }
+
+    public static KotlinCodeAnalyzer resolveLazilyWithSession(
+            List<JetFile> files,
+            JetCoreEnvironment environment,
+            boolean addBuiltIns,
+            GlobalContextImpl globalContext
+    ) {
         JetTestUtils.newTrace(environment);
 
         Project project = environment.getProject();
         CliLightClassGenerationSupport support = CliLightClassGenerationSupport.getInstanceForCli(project);
         BindingTrace sharedTrace = support.getTrace();
 
-        ResolveSession lazyResolveSession = AnalyzerFacadeForJVM.createLazyResolveSession(project, files, sharedTrace, addBuiltIns);
+        ResolveSession lazyResolveSession =
+                AnalyzerFacadeForJVM.createLazyResolveSession(project, files, sharedTrace, addBuiltIns, globalContext);
         support.setModule((ModuleDescriptorImpl)lazyResolveSession.getModuleDescriptor());
 
         return lazyResolveSession;
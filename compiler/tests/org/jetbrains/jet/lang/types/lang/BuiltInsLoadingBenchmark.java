@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.types.lang;
+
+import org.jetbrains.jet.TimeUtils;
+import org.jetbrains.jet.lang.PlatformToKotlinClassMap;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.resolve.ImportPath;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
+
+import java.util.Collections;
+
+/**
+ * Measures loading of the built-ins from the snapshot file and from separate metadata files: the startup cost of
+ * {@link KotlinBuiltIns#getInstance()} (the first line of the output) and the cost of materializing all the built-in classes
+ * with their member scopes and supertypes.
+ * The first iteration includes class loading and is the closest to what every compiler run pays.
+ * Arguments: number of iterations (default 20).
+ */
+public class BuiltInsLoadingBenchmark {
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        long start = System.nanoTime();
+        KotlinBuiltIns.getInstance();
+        long startupTime = System.nanoTime() - start;
+        System.out.println("KotlinBuiltIns.getInstance(): " + TimeUtils.millisecondsToSecondsString(startupTime / 1000000) + "s");
+
+        long[] total = new long[2];
+        for (int i = 0; i < iterations; i++) {
+            // Alternate the order to not favor either of the modes with the warm-up
+            for (int j = 0; j < 2; j++) {
+                boolean useSnapshot = (i + j) % 2 == 0;
+                long time = loadAll(useSnapshot);
+                total[useSnapshot ? 0 : 1] += time;
+                System.out.println("Iteration " + i + (useSnapshot ? ", snapshot: " : ", separate files: ") +
+                                   TimeUtils.millisecondsToSecondsString(time / 1000000) + "s");
+            }
+        }
+
+        System.out.println("Average, snapshot: " + TimeUtils.millisecondsToSecondsString(total[0] / iterations / 1000000) + "s");
+        System.out.println("Average, separate files: " + TimeUtils.millisecondsToSecondsString(total[1] / iterations / 1000000) + "s");
+    }
+
+    private static long loadAll(boolean useSnapshot) {
+        long start = System.nanoTime();
+
+        ModuleDescriptorImpl module = new ModuleDescriptorImpl(Name.special("<built-ins benchmark module>"),
+                                                               Collections.<ImportPath>emptyList(),
+                                                               PlatformToKotlinClassMap.EMPTY);
+        BuiltinsPackageFragment fragment = new BuiltinsPackageFragment(new LockBasedStorageManager(), module, useSnapshot);
+        module.addFragmentProvider(DependencyKind.SOURCES, fragment.getProvider());
+
+        for (DeclarationDescriptor descriptor : fragment.getMemberScope().getAllDescriptors()) {
+            if (descriptor instanceof ClassDescriptor) {
+                ClassDescriptor classDescriptor = (ClassDescriptor) descriptor;
+                classDescriptor.getDefaultType().getMemberScope().getAllDescriptors();
+                for (JetType supertype : classDescriptor.getTypeConstructor().getSupertypes()) {
+                    supertype.getConstructor().getDeclarationDescriptor();
+                }
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+}
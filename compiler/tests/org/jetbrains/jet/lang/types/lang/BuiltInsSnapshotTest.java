@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.types.lang;
+
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.PlatformToKotlinClassMap;
+import org.jetbrains.jet.lang.descriptors.DependencyKind;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptorImpl;
+import org.jetbrains.jet.lang.descriptors.annotations.Annotations;
+import org.jetbrains.jet.lang.resolve.ImportPath;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
+import org.jetbrains.jet.test.util.DescriptorValidator;
+import org.jetbrains.jet.test.util.RecursiveDescriptorComparator;
+
+import java.util.Collections;
+
+public class BuiltInsSnapshotTest extends UsefulTestCase {
+    public void testSnapshotIsPresent() {
+        String path = BuiltInsSerializationUtil.getSnapshotFilePath(KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME);
+        assertNotNull("Built-ins snapshot not found: " + path, BuiltInsSnapshot.load(KotlinBuiltIns.class.getClassLoader(), path));
+    }
+
+    public void testSnapshotIsTheSameAsSeparateFiles() {
+        RecursiveDescriptorComparator.validateAndCompareDescriptors(
+                createFragment(false), createFragment(true),
+                RecursiveDescriptorComparator.RECURSIVE_ALL.withValidationStrategy(DescriptorValidator.ValidationVisitor.ALLOW_ERROR_TYPES),
+                null
+        );
+    }
+
+    public void testFunctionTypes() {
+        KotlinBuiltIns builtIns = KotlinBuiltIns.getInstance();
+        JetType intType = builtIns.getIntType();
+
+        JetType function = builtIns.getFunctionType(Annotations.EMPTY, null, Collections.singletonList(intType), intType);
+        assertTrue(builtIns.isFunctionType(function));
+        assertFalse(builtIns.isExtensionFunctionType(function));
+        assertTrue(builtIns.isExactFunctionOrExtensionFunctionType(function));
+
+        JetType extensionFunction = builtIns.getFunctionType(Annotations.EMPTY, intType, Collections.<JetType>emptyList(), intType);
+        assertFalse(builtIns.isFunctionType(extensionFunction));
+        assertTrue(builtIns.isExtensionFunctionType(extensionFunction));
+        assertTrue(builtIns.isExactFunctionOrExtensionFunctionType(extensionFunction));
+
+        int last = KotlinBuiltIns.FUNCTION_TRAIT_COUNT - 1;
+        assertTrue(builtIns.isFunctionType(builtIns.getFunction(last).getDefaultType()));
+        assertTrue(builtIns.isExtensionFunctionType(builtIns.getExtensionFunction(last).getDefaultType()));
+
+        assertFalse(builtIns.isFunctionOrExtensionFunctionType(intType));
+        assertFalse(builtIns.isFunctionOrExtensionFunctionType(builtIns.getAnyType()));
+    }
+
+    @NotNull
+    private static BuiltinsPackageFragment createFragment(boolean useSnapshot) {
+        ModuleDescriptorImpl module = new ModuleDescriptorImpl(Name.special("<built-ins " + (useSnapshot ? "snapshot" : "files") + ">"),
+                                                               Collections.<ImportPath>emptyList(),
+                                                               PlatformToKotlinClassMap.EMPTY);
+        BuiltinsPackageFragment fragment = new BuiltinsPackageFragment(new LockBasedStorageManager(), module, useSnapshot);
+        module.addFragmentProvider(DependencyKind.SOURCES, fragment.getProvider());
+        return fragment;
+    }
+}
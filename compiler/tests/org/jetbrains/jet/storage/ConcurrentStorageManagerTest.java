@@ -0,0 +1,638 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.storage;
+
+import kotlin.Function0;
+import kotlin.Function1;
+import kotlin.Unit;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.util.slicedmap.Slices;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs all the single-threaded tests of StorageManagerTest against ConcurrentStorageManager, and checks that values are computed
+ * correctly when they are requested from many threads at once. Tests of cycles between two threads wait until the first thread
+ * is blocked before letting the second one close the cycle, so it's known which thread backs off
+ */
+public class ConcurrentStorageManagerTest extends StorageManagerTest {
+    private static final int THREADS = 8;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        m = new ConcurrentStorageManager();
+    }
+
+    public void testLazyValueComputedOnceByManyThreads() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final NotNullLazyValue<String> value = m.createLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                sleep(10);
+                return "value" + counter.incrementAndGet();
+            }
+        });
+
+        List<String> results = runInThreads(new Callable<String>() {
+            @Override
+            public String call() {
+                return value.invoke();
+            }
+        });
+
+        assertEquals(1, counter.get());
+        for (String result : results) {
+            assertEquals("value1", result);
+        }
+    }
+
+    public void testMemoizedFunctionComputesEachKeyOnceInManyThreads() throws Exception {
+        final int keys = 100;
+        final ConcurrentMap<Integer, AtomicInteger> counters = new ConcurrentHashMap<Integer, AtomicInteger>();
+        final MemoizedFunctionToNotNull<Integer, String> f = m.createMemoizedFunction(new Function1<Integer, String>() {
+            @Override
+            public String invoke(Integer key) {
+                counters.putIfAbsent(key, new AtomicInteger());
+                counters.get(key).incrementAndGet();
+                return "result" + key;
+            }
+        });
+
+        final AtomicInteger seed = new AtomicInteger();
+        runInThreads(new Callable<Void>() {
+            @Override
+            public Void call() {
+                List<Integer> order = new ArrayList<Integer>();
+                for (int i = 0; i < keys; i++) {
+                    order.add(i);
+                }
+                Collections.shuffle(order, new Random(seed.incrementAndGet()));
+                for (Integer key : order) {
+                    assertEquals("result" + key, f.invoke(key));
+                }
+                return null;
+            }
+        });
+
+        assertEquals(keys, counters.size());
+        for (AtomicInteger counter : counters.values()) {
+            assertEquals(1, counter.get());
+        }
+    }
+
+    public void testDifferentValuesAreComputedInParallel() throws Exception {
+        // Each computation waits until all the others have started, so this only passes if they are not serialized
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        final MemoizedFunctionToNotNull<Integer, Integer> f = m.createMemoizedFunction(new Function1<Integer, Integer>() {
+            @Override
+            public Integer invoke(Integer key) {
+                try {
+                    barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                return key;
+            }
+        });
+
+        final AtomicInteger keys = new AtomicInteger();
+        runInThreads(new Callable<Void>() {
+            @Override
+            public Void call() {
+                int key = keys.incrementAndGet();
+                assertEquals(key, f.invoke(key).intValue());
+                return null;
+            }
+        });
+    }
+
+    public void testCycleBetweenThreadsIsTreatedAsRecursion() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        class C {
+            final NotNullLazyValue<String> a = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    await(barrier);
+                    return "a" + b.invoke();
+                }
+            }, "rec");
+
+            final NotNullLazyValue<String> b = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    await(barrier);
+                    return "b" + a.invoke();
+                }
+            }, "rec");
+        }
+
+        final C c = new C();
+        final AtomicInteger thread = new AtomicInteger();
+        runInThreads(2, new Callable<String>() {
+            @Override
+            public String call() {
+                return thread.incrementAndGet() == 1 ? c.a.invoke() : c.b.invoke();
+            }
+        });
+
+        String a = c.a.invoke();
+        String b = c.b.invoke();
+        assertTrue("a = " + a + ", b = " + b, a.equals("a" + b) && b.equals("brec") || b.equals("b" + a) && a.equals("arec"));
+    }
+
+    public void testCycleBetweenThreadsWithoutToleranceFails() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        class C {
+            final NotNullLazyValue<String> a = m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    await(barrier);
+                    return b.invoke();
+                }
+            });
+
+            final NotNullLazyValue<String> b = m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    await(barrier);
+                    return a.invoke();
+                }
+            });
+        }
+
+        final C c = new C();
+        final AtomicInteger thread = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        runInThreads(2, new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    if (thread.incrementAndGet() == 1) {
+                        c.a.invoke();
+                    }
+                    else {
+                        c.b.invoke();
+                    }
+                }
+                catch (IllegalStateException e) {
+                    failures.incrementAndGet();
+                }
+                return null;
+            }
+        });
+
+        assertEquals(2, failures.get());
+    }
+
+    public void testExclusiveSectionIsNotSharedWithAwaitedThread() throws Exception {
+        final CountDownLatch valueStarted = new CountDownLatch(1);
+        final CountDownLatch sectionEntered = new CountDownLatch(1);
+        final NotNullLazyValue<String> value = m.createLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                valueStarted.countDown();
+                await(sectionEntered);
+                // The owner of the exclusive section is (or soon will be) waiting for this value
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        return "computed";
+                    }
+                });
+            }
+        });
+
+        final AtomicInteger thread = new AtomicInteger();
+        List<String> results = runInThreads(2, new Callable<String>() {
+            @Override
+            public String call() {
+                if (thread.incrementAndGet() == 1) {
+                    return value.invoke();
+                }
+                await(valueStarted);
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        sectionEntered.countDown();
+                        return value.invoke();
+                    }
+                });
+            }
+        });
+
+        assertEquals(Arrays.asList("computed", "computed"), results);
+    }
+
+    public void testTwoThreadCycleIsComputedByThreadWhichWaitedFirst() throws Exception {
+        final CountDownLatch bStarted = new CountDownLatch(1);
+        final CountDownLatch closeCycle = new CountDownLatch(1);
+        final AtomicInteger bComputations = new AtomicInteger();
+        final List<Boolean> recursiveCalls = Collections.synchronizedList(new ArrayList<Boolean>());
+
+        class C {
+            final NotNullLazyValue<String> a = m.createLazyValueWithPostCompute(
+                    new Function0<String>() {
+                        @Override
+                        public String invoke() {
+                            await(bStarted);
+                            return "a" + b.invoke();
+                        }
+                    },
+                    new Function1<Boolean, String>() {
+                        @Override
+                        public String invoke(Boolean firstTime) {
+                            recursiveCalls.add(firstTime);
+                            return "rec";
+                        }
+                    },
+                    new Function1<String, Unit>() {
+                        @Override
+                        public Unit invoke(String s) {
+                            return Unit.VALUE;
+                        }
+                    }
+            );
+
+            final NotNullLazyValue<String> b = m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    bComputations.incrementAndGet();
+                    bStarted.countDown();
+                    await(closeCycle);
+                    return "b" + a.invoke();
+                }
+            });
+        }
+        final C c = new C();
+
+        ThreadWithResult second = new ThreadWithResult(c.b);
+        second.start();
+        await(bStarted);
+
+        ThreadWithResult first = new ThreadWithResult(c.a);
+        first.start();
+        // The first thread computes a and waits for b, which is being computed by the second thread
+        waitUntilBlocked(first);
+
+        // The second thread needs a and closes the cycle, so it backs off, and the first thread computes b by itself
+        closeCycle.countDown();
+
+        assertEquals("abrec", first.getResult());
+        assertEquals("brec", second.getResult());
+        assertEquals(Collections.singletonList(true), recursiveCalls);
+        assertEquals(2, bComputations.get());
+    }
+
+    public void testTwoThreadCycleThroughMemoizedFunction() throws Exception {
+        final CountDownLatch keyStarted = new CountDownLatch(1);
+        final CountDownLatch closeCycle = new CountDownLatch(1);
+        final AtomicInteger computations = new AtomicInteger();
+
+        class C {
+            final NotNullLazyValue<String> a = m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    await(keyStarted);
+                    return "a" + f.invoke(1);
+                }
+            });
+
+            final MemoizedFunctionToNotNull<Integer, String> f = m.createMemoizedFunction(new Function1<Integer, String>() {
+                @Override
+                public String invoke(Integer key) {
+                    if (computations.incrementAndGet() == 1) {
+                        keyStarted.countDown();
+                        await(closeCycle);
+                        // Closes the cycle: the first thread is waiting for this key while computing a
+                        return "f" + a.invoke();
+                    }
+                    return "f" + key;
+                }
+            });
+        }
+        final C c = new C();
+
+        ThreadWithResult second = new ThreadWithResult(new Function0<String>() {
+            @Override
+            public String invoke() {
+                return c.f.invoke(1);
+            }
+        });
+        second.start();
+        await(keyStarted);
+
+        ThreadWithResult first = new ThreadWithResult(c.a);
+        first.start();
+        waitUntilBlocked(first);
+        closeCycle.countDown();
+
+        assertEquals("af1", first.getResult());
+        assertEquals("f1", second.getResult());
+        assertEquals(2, computations.get());
+    }
+
+    public void testThreadClosingCycleDoesNotEnterExclusiveSection() throws Exception {
+        final CountDownLatch valueStarted = new CountDownLatch(1);
+        final CountDownLatch closeCycle = new CountDownLatch(1);
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger maxInside = new AtomicInteger();
+        final AtomicInteger computations = new AtomicInteger();
+
+        final NotNullLazyValue<String> value = m.createLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                computations.incrementAndGet();
+                valueStarted.countDown();
+                await(closeCycle);
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        return "value";
+                    }
+                });
+            }
+        });
+
+        ThreadWithResult second = new ThreadWithResult(value);
+        second.start();
+        await(valueStarted);
+
+        ThreadWithResult first = new ThreadWithResult(new Function0<String>() {
+            @Override
+            public String invoke() {
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        maxInside.set(Math.max(maxInside.get(), inside.incrementAndGet()));
+                        try {
+                            return "section " + value.invoke();
+                        }
+                        finally {
+                            inside.decrementAndGet();
+                        }
+                    }
+                });
+            }
+        });
+        first.start();
+        // The first thread owns the exclusive section and waits for the value computed by the second thread
+        waitUntilBlocked(first);
+
+        // The second thread needs the exclusive section, so it backs off instead of entering it
+        closeCycle.countDown();
+
+        assertEquals("section value", first.getResult());
+        assertEquals("value", second.getResult());
+        assertEquals(1, maxInside.get());
+        assertEquals(2, computations.get());
+    }
+
+    public void testBackedOffComputationRecordsToTraceOnce() throws Exception {
+        final RecordCountingTrace originalTrace = new RecordCountingTrace();
+        final BindingTrace trace = new LockBasedLazyResolveStorageManager((ConcurrentStorageManager) m).createSafeTrace(originalTrace);
+        final CountDownLatch bStarted = new CountDownLatch(1);
+        final CountDownLatch closeCycle = new CountDownLatch(1);
+        final AtomicInteger bComputations = new AtomicInteger();
+
+        class C {
+            final NotNullLazyValue<String> a = m.createRecursionTolerantLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    trace.record(SLICE, "a", "a");
+                    await(bStarted);
+                    return "a" + b.invoke();
+                }
+            }, "rec");
+
+            final NotNullLazyValue<String> b = m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    bComputations.incrementAndGet();
+                    trace.record(SLICE, "b", "b");
+                    // The computation sees what it has recorded, even before it's committed
+                    assertEquals("b", trace.get(SLICE, "b"));
+                    bStarted.countDown();
+                    await(closeCycle);
+                    return "b" + a.invoke();
+                }
+            });
+        }
+        final C c = new C();
+
+        ThreadWithResult second = new ThreadWithResult(c.b);
+        second.start();
+        await(bStarted);
+
+        ThreadWithResult first = new ThreadWithResult(c.a);
+        first.start();
+        waitUntilBlocked(first);
+        // The second thread backs off after it has recorded "b", and the first thread computes b again
+        closeCycle.countDown();
+
+        assertEquals("abrec", first.getResult());
+        assertEquals("brec", second.getResult());
+        assertEquals(2, bComputations.get());
+
+        Map<Object, Integer> expected = new HashMap<Object, Integer>();
+        expected.put("a", 1);
+        expected.put("b", 1);
+        assertEquals(expected, originalTrace.getRecordCounts());
+        assertEquals("b", trace.get(SLICE, "b"));
+    }
+
+    public void testBackedOffComputationsDoNotDuplicateTraceRecords() throws Exception {
+        final int values = THREADS * 2;
+        for (int round = 0; round < 20; round++) {
+            ConcurrentStorageManager storageManager = new ConcurrentStorageManager();
+            final RecordCountingTrace originalTrace = new RecordCountingTrace();
+            final BindingTrace trace = new LockBasedLazyResolveStorageManager(storageManager).createSafeTrace(originalTrace);
+
+            // A ring of values, each of which needs the next one: threads starting from different values wait for each other in cycles
+            final List<NotNullLazyValue<String>> ring = new ArrayList<NotNullLazyValue<String>>();
+            for (int i = 0; i < values; i++) {
+                final int index = i;
+                ring.add(storageManager.createRecursionTolerantLazyValue(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        trace.record(SLICE, index, String.valueOf(index));
+                        Thread.yield();
+                        return index + " " + ring.get((index + 1) % values).invoke();
+                    }
+                }, "rec"));
+            }
+
+            final AtomicInteger start = new AtomicInteger();
+            runInThreads(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ring.get(start.getAndIncrement() * 2 % values).invoke();
+                    return null;
+                }
+            });
+
+            Map<Object, Integer> counts = originalTrace.getRecordCounts();
+            assertEquals(values, counts.size());
+            for (Map.Entry<Object, Integer> entry : counts.entrySet()) {
+                assertEquals("Records of " + entry.getKey(), 1, entry.getValue().intValue());
+            }
+        }
+    }
+
+    public void testComputeIsExclusive() throws Exception {
+        final AtomicInteger inside = new AtomicInteger();
+        runInThreads(new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int i = 0; i < 100; i++) {
+                    m.compute(new Function0<Void>() {
+                        @Override
+                        public Void invoke() {
+                            assertEquals(1, inside.incrementAndGet());
+                            Thread.yield();
+                            inside.decrementAndGet();
+                            return null;
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+    }
+
+    private static final WritableSlice<Object, String> SLICE = Slices.createSimpleSlice();
+
+    private static class RecordCountingTrace extends BindingTraceContext {
+        private final Map<Object, Integer> recordCounts = new HashMap<Object, Integer>();
+
+        @Override
+        public synchronized <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+            Integer count = recordCounts.get(key);
+            recordCounts.put(key, count == null ? 1 : count + 1);
+            super.record(slice, key, value);
+        }
+
+        private synchronized Map<Object, Integer> getRecordCounts() {
+            return new HashMap<Object, Integer>(recordCounts);
+        }
+    }
+
+    private static <T> List<T> runInThreads(Callable<T> task) throws Exception {
+        return runInThreads(THREADS, task);
+    }
+
+    private static <T> List<T> runInThreads(int threads, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(task));
+            }
+
+            List<T> results = new ArrayList<T>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                }
+                catch (TimeoutException e) {
+                    fail("Threads are deadlocked");
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) throw (Exception) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw e;
+                }
+            }
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class ThreadWithResult extends Thread {
+        private final Function0<String> computable;
+        private volatile String result;
+        private volatile Throwable error;
+
+        private ThreadWithResult(Function0<String> computable) {
+            this.computable = computable;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = computable.invoke();
+            }
+            catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        private String getResult() throws InterruptedException {
+            join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            if (isAlive()) fail("Threads are deadlocked");
+            if (error != null) throw new AssertionError(error);
+            return result;
+        }
+    }
+
+    private static void waitUntilBlocked(Thread thread) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (true) {
+            Thread.State state = thread.getState();
+            if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) return;
+            if (System.currentTimeMillis() > deadline) fail("Thread is not blocked: " + state);
+            sleep(1);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
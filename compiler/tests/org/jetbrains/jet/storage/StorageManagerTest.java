@@ -15,7 +15,7 @@ import java.util.List;
 
 public class StorageManagerTest extends TestCase {
 
-    private StorageManager m;
+    protected StorageManager m;
 
     @Override
     public void setUp() throws Exception {
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.types;
+
+import junit.framework.TestCase;
+import org.jetbrains.jet.lang.descriptors.TypeParameterDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptorImpl;
+import org.jetbrains.jet.lang.descriptors.annotations.Annotations;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationsImpl;
+import org.jetbrains.jet.lang.types.*;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class JetTypeInterningTest extends TestCase {
+    private final KotlinBuiltIns builtIns = KotlinBuiltIns.getInstance();
+
+    public void testSameTypesAreInterned() {
+        JetType first = builtIns.getArrayType(builtIns.getStringType());
+        JetType second = builtIns.getArrayType(builtIns.getStringType());
+        assertSame(first, second);
+        assertNotSame(first, builtIns.getArrayType(Variance.OUT_VARIANCE, builtIns.getStringType()));
+        assertNotSame(first, builtIns.getArrayType(builtIns.getIntType()));
+    }
+
+    public void testSubstitutedTypesAreInterned() {
+        TypeParameterDescriptor parameter = builtIns.getArray().getTypeConstructor().getParameters().get(0);
+        JetType arrayOfArrays = builtIns.getArrayType(builtIns.getArrayType(parameter.getDefaultType()));
+
+        JetType first = substitute(arrayOfArrays, parameter, builtIns.getStringType());
+        JetType second = substitute(arrayOfArrays, parameter, builtIns.getStringType());
+        assertSame(first, second);
+        assertSame(builtIns.getArrayType(builtIns.getArrayType(builtIns.getStringType())), first);
+    }
+
+    public void testAnnotationsAreRespected() {
+        JetType type = builtIns.getFunctionType(Annotations.EMPTY, null, Collections.<JetType>emptyList(), builtIns.getUnitType());
+        AnnotationDescriptorImpl annotation = new AnnotationDescriptorImpl();
+        annotation.setAnnotationType(builtIns.getDeprecatedAnnotation().getDefaultType());
+        Annotations annotations = new AnnotationsImpl(Collections.<AnnotationDescriptor>singletonList(annotation));
+
+        JetType annotated = builtIns.getFunctionType(annotations, null, Collections.<JetType>emptyList(), builtIns.getUnitType());
+        assertNotSame(type, annotated);
+        assertEquals(type, annotated);
+    }
+
+    public void testCachedHashCode() {
+        JetType type = builtIns.getArrayType(builtIns.getArrayType(builtIns.getStringType()));
+        JetType copy = new JetTypeImpl(type.getAnnotations(), type.getConstructor(), type.isNullable(), type.getArguments(),
+                                       type.getMemberScope());
+        assertEquals(copy.hashCode(), type.hashCode());
+        assertEquals(type.hashCode(), type.hashCode());
+        assertEquals(copy, type);
+    }
+
+    public void testConcurrentInterning() throws Exception {
+        final List<JetType> elementTypes = Arrays.asList(builtIns.getStringType(), builtIns.getIntType(), builtIns.getAnyType(),
+                                                         builtIns.getNullableAnyType(), builtIns.getBooleanType());
+        int threads = 4;
+
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<JetType>>> results = new ArrayList<Future<List<JetType>>>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<List<JetType>>() {
+                    @Override
+                    public List<JetType> call() throws Exception {
+                        barrier.await();
+                        List<JetType> result = new ArrayList<JetType>();
+                        for (JetType elementType : elementTypes) {
+                            JetType type = elementType;
+                            for (int depth = 0; depth < 20; depth++) {
+                                type = builtIns.getArrayType(type);
+                                result.add(type);
+                            }
+                        }
+                        return result;
+                    }
+                }));
+            }
+
+            List<JetType> expected = results.get(0).get();
+            for (Future<List<JetType>> result : results) {
+                List<JetType> actual = result.get();
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), actual.get(i));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JetType substitute(JetType type, TypeParameterDescriptor parameter, JetType argument) {
+        TypeSubstitutor substitutor = TypeSubstitutor.create(Collections.<TypeConstructor, TypeProjection>singletonMap(
+                parameter.getTypeConstructor(), new TypeProjectionImpl(argument)));
+        JetType result = substitutor.substitute(type, Variance.INVARIANT);
+        assertNotNull(result);
+        return result;
+    }
+}
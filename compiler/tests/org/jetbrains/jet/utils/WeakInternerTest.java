@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.utils;
+
+import junit.framework.TestCase;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class WeakInternerTest extends TestCase {
+    private static final class Key {
+        private final String name;
+
+        private Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    public void testEqualObjectsAreInternedToTheFirstOne() {
+        WeakInterner<Key> interner = new WeakInterner<Key>();
+        Key first = new Key("a");
+        Key second = new Key("a");
+        Key other = new Key("b");
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertSame(other, interner.intern(other));
+        assertSame(first, interner.intern(first));
+    }
+
+    public void testManyObjects() {
+        WeakInterner<Key> interner = new WeakInterner<Key>();
+        List<Key> canonical = new ArrayList<Key>();
+        for (int i = 0; i < 1000; i++) {
+            canonical.add(interner.intern(new Key("key" + i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertSame(canonical.get(i), interner.intern(new Key("key" + i)));
+        }
+    }
+
+    public void testUnusedObjectsAreCollected() throws Exception {
+        WeakInterner<Key> interner = new WeakInterner<Key>();
+        Key key = new Key("collected");
+        assertSame(key, interner.intern(key));
+
+        WeakReference<Key> reference = new WeakReference<Key>(key);
+        //noinspection UnusedAssignment
+        key = null;
+
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Interner shouldn't keep interned objects alive", reference.get());
+
+        Key newKey = new Key("collected");
+        assertSame(newKey, interner.intern(newKey));
+    }
+
+    public void testConcurrentInterning() throws Exception {
+        final WeakInterner<Key> interner = new WeakInterner<Key>();
+        final int count = 2000;
+        int threads = 4;
+
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Key>>> results = new ArrayList<Future<List<Key>>>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<List<Key>>() {
+                    @Override
+                    public List<Key> call() throws Exception {
+                        barrier.await();
+                        List<Key> result = new ArrayList<Key>(count);
+                        for (int i = 0; i < count; i++) {
+                            result.add(interner.intern(new Key("key" + i)));
+                        }
+                        return result;
+                    }
+                }));
+            }
+
+            List<Key> expected = results.get(0).get();
+            for (Future<List<Key>> result : results) {
+                List<Key> actual = result.get();
+                for (int i = 0; i < count; i++) {
+                    assertSame(expected.get(i), actual.get(i));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.storage.StorageStatistics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Performance metrics of a compilation: wall time, CPU time and allocated memory of each phase, counters of processed entities
+ * and the hit rate of memoized functions of storage managers. Written in JSON by the command line compiler with "-reportPerf".
+ *
+ * Metrics are recorded between {@link #start()} and {@link #stop()} only, otherwise a phase or a counter costs a volatile read.
+ * One compilation at a time is recorded in a class loader.
+ *
+ * CPU time and allocations are those of the thread which runs a phase. A phase which runs on several threads at once
+ * (e.g. code generation of packages in parallel) is summed over them, so its wall time may be greater than the total time.
+ * A phase entered again while it's running on the same thread (e.g. inlining into an inlined lambda) is measured once.
+ */
+public class CompilationMetrics {
+    private static volatile CompilationMetrics current = null;
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled();
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+
+    // Phases running on the current thread, mapped to the metrics they are recorded to
+    private static final ThreadLocal<Map<String, CompilationMetrics>> RUNNING_PHASES = new ThreadLocal<Map<String, CompilationMetrics>>() {
+        @Override
+        protected Map<String, CompilationMetrics> initialValue() {
+            return new HashMap<String, CompilationMetrics>();
+        }
+    };
+
+    private final long startTime = System.nanoTime();
+    private long totalTime = -1;
+    private long storageHits;
+    private long storageMisses;
+
+    // Guarded by this
+    private final Map<String, PhaseData> phases = new LinkedHashMap<String, PhaseData>();
+    private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+
+    private CompilationMetrics() {
+    }
+
+    @NotNull
+    public static CompilationMetrics start() {
+        CompilationMetrics metrics = new CompilationMetrics();
+        StorageStatistics.reset();
+        StorageStatistics.setEnabled(true);
+        current = metrics;
+        return metrics;
+    }
+
+    public void stop() {
+        if (totalTime >= 0) return;
+
+        if (current == this) {
+            current = null;
+        }
+        StorageStatistics.setEnabled(false);
+        storageHits = StorageStatistics.getHits();
+        storageMisses = StorageStatistics.getMisses();
+        totalTime = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Starts measuring a phase on the current thread. The returned phase should be ended on the same thread.
+     */
+    @NotNull
+    public static Phase phase(@NotNull String name) {
+        CompilationMetrics metrics = current;
+        if (metrics == null) return Phase.NONE;
+
+        Map<String, CompilationMetrics> running = RUNNING_PHASES.get();
+        // A phase left running by an aborted compilation doesn't count
+        if (running.get(name) == metrics) return Phase.NONE;
+        running.put(name, metrics);
+
+        metrics.getPhaseData(name);
+        return new Phase(metrics, name);
+    }
+
+    public static void count(@NotNull String counter, long delta) {
+        CompilationMetrics metrics = current;
+        if (metrics == null) return;
+
+        synchronized (metrics) {
+            Long value = metrics.counters.get(counter);
+            metrics.counters.put(counter, (value != null ? value : 0L) + delta);
+        }
+    }
+
+    @NotNull
+    private synchronized PhaseData getPhaseData(@NotNull String name) {
+        PhaseData data = phases.get(name);
+        if (data == null) {
+            data = new PhaseData();
+            phases.put(name, data);
+        }
+        return data;
+    }
+
+    private synchronized void record(@NotNull String name, long wallTime, long cpuTime, long allocated) {
+        PhaseData data = getPhaseData(name);
+        data.invocations++;
+        data.wallTime += wallTime;
+        data.cpuTime += cpuTime;
+        data.allocated += allocated;
+    }
+
+    public synchronized void writeJson(@NotNull Appendable out) throws IOException {
+        assert totalTime >= 0 : "Metrics should be stopped before they are written";
+
+        out.append("{\n");
+        out.append("  \"totalTimeMs\": ").append(millis(totalTime)).append(",\n");
+
+        out.append("  \"phases\": [");
+        boolean first = true;
+        for (Map.Entry<String, PhaseData> entry : phases.entrySet()) {
+            PhaseData data = entry.getValue();
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("    {\"name\": ").append(quote(entry.getKey()))
+                    .append(", \"invocations\": ").append(String.valueOf(data.invocations))
+                    .append(", \"wallTimeMs\": ").append(millis(data.wallTime))
+                    .append(", \"cpuTimeMs\": ").append(CPU_TIME_SUPPORTED ? millis(data.cpuTime) : "null")
+                    .append(", \"allocatedBytes\": ").append(ALLOCATION_SUPPORTED ? String.valueOf(data.allocated) : "null")
+                    .append("}");
+        }
+        out.append("\n  ],\n");
+
+        out.append("  \"counters\": {");
+        first = true;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("    ").append(quote(entry.getKey())).append(": ").append(String.valueOf(entry.getValue()));
+        }
+        out.append("\n  },\n");
+
+        long lookups = storageHits + storageMisses;
+        out.append("  \"storageManager\": {\"hits\": ").append(String.valueOf(storageHits))
+                .append(", \"misses\": ").append(String.valueOf(storageMisses))
+                .append(", \"hitRate\": ").append(lookups > 0 ? String.format(Locale.US, "%.4f", (double) storageHits / lookups) : "null")
+                .append("}\n");
+        out.append("}\n");
+    }
+
+    @NotNull
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1e6);
+    }
+
+    @NotNull
+    private static String quote(@NotNull String string) {
+        return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) return 0;
+        return ((com.sun.management.ThreadMXBean) THREAD_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean isAllocationSupported() {
+        try {
+            return THREAD_BEAN instanceof com.sun.management.ThreadMXBean &&
+                   ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemorySupported() &&
+                   ((com.sun.management.ThreadMXBean) THREAD_BEAN).isThreadAllocatedMemoryEnabled();
+        }
+        catch (LinkageError e) {
+            // Not a HotSpot-based VM
+            return false;
+        }
+    }
+
+    private static class PhaseData {
+        private long invocations;
+        private long wallTime;
+        private long cpuTime;
+        private long allocated;
+    }
+
+    public static class Phase {
+        public static final Phase NONE = new Phase(null, "<none>");
+
+        private final CompilationMetrics metrics;
+        private final String name;
+        private final long startWallTime;
+        private final long startCpuTime;
+        private final long startAllocated;
+
+        private Phase(@Nullable CompilationMetrics metrics, @NotNull String name) {
+            this.metrics = metrics;
+            this.name = name;
+            if (metrics != null) {
+                startWallTime = System.nanoTime();
+                startCpuTime = cpuTime();
+                startAllocated = allocatedBytes();
+            }
+            else {
+                startWallTime = startCpuTime = startAllocated = 0;
+            }
+        }
+
+        public void end() {
+            if (metrics == null) return;
+
+            metrics.record(name, System.nanoTime() - startWallTime, cpuTime() - startCpuTime, allocatedBytes() - startAllocated);
+
+            Map<String, CompilationMetrics> running = RUNNING_PHASES.get();
+            if (running.get(name) == metrics) {
+                running.remove(name);
+            }
+        }
+    }
+}
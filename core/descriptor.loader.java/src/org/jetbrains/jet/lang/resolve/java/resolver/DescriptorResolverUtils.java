@@ -198,6 +198,33 @@ public final class DescriptorResolverUtils {
         }
     }
 
+    /**
+     * @return the canonical text of the erasure of the given type, e.g. "java.util.List[]", or null if the type can't be resolved.
+     * Unlike the types themselves, the names can be compared for types built by different implementations of the Java model
+     */
+    @Nullable
+    public static String erasedTypeName(@NotNull JavaType type) {
+        JavaType erasure = erasure(type);
+        return erasure == null ? null : typeName(erasure);
+    }
+
+    @Nullable
+    private static String typeName(@NotNull JavaType type) {
+        if (type instanceof JavaPrimitiveType) {
+            return ((JavaPrimitiveType) type).getCanonicalText();
+        }
+        else if (type instanceof JavaArrayType) {
+            String componentName = typeName(((JavaArrayType) type).getComponentType());
+            return componentName == null ? null : componentName + "[]";
+        }
+        else if (type instanceof JavaClassifierType) {
+            JavaClassifier classifier = ((JavaClassifierType) type).getClassifier();
+            FqName fqName = classifier instanceof JavaClass ? ((JavaClass) classifier).getFqName() : null;
+            return fqName == null ? null : fqName.asString();
+        }
+        return null;
+    }
+
     /**
      * @see com.intellij.psi.util.TypeConversionUtil#typeParameterErasure(com.intellij.psi.PsiTypeParameter)
      */
@@ -201,7 +201,7 @@ public abstract class AbstractLazyTypeParameterDescriptor implements TypeParamet
 
     @NotNull
     private JetType createDefaultType(@NotNull StorageManager storageManager) {
-        return new JetTypeImpl(getTypeConstructor(), new LazyScopeAdapter(storageManager.createLazyValue(
+        return JetTypeImpl.create(getTypeConstructor(), new LazyScopeAdapter(storageManager.createLazyValue(
                 new Function0<JetScope>() {
                     @Override
                     public JetScope invoke() {
@@ -218,7 +218,7 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
     public JetType getDefaultType() {
         //checkInitialized();
         if (defaultType == null) {
-            defaultType = new JetTypeImpl(
+            defaultType = JetTypeImpl.create(
                             Annotations.EMPTY,
                             getTypeConstructor(),
                             TypeUtils.hasNullableLowerBound(this),
@@ -38,7 +38,7 @@ public class IntegerValueTypeConstant extends IntegerValueConstant<Number> {
     @NotNull
     @Override
     public JetType getType(@NotNull KotlinBuiltIns kotlinBuiltIns) {
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 Annotations.EMPTY, typeConstructor,
                 false, Collections.<TypeProjection>emptyList(),
                 ErrorUtils.createErrorScope("Scope for number value type (" + typeConstructor.toString() + ")", true));
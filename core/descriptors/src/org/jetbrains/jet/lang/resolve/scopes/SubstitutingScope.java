@@ -16,7 +16,6 @@
 
 package org.jetbrains.jet.lang.resolve.scopes;
 
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -29,16 +28,22 @@ import org.jetbrains.jet.utils.Printer;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * May be used from several threads at once (e.g. by parallel body resolution): the same substituted descriptor is returned to all of them.
+ */
 public class SubstitutingScope implements JetScope {
+    // ConcurrentMap doesn't support null values
+    private static final Object NULL_VALUE = new Object();
 
     private final JetScope workerScope;
     private final TypeSubstitutor substitutor;
 
-    private Map<DeclarationDescriptor, DeclarationDescriptor> substitutedDescriptors = null;
-    private Collection<DeclarationDescriptor> allDescriptors = null;
+    private volatile ConcurrentMap<DeclarationDescriptor, Object> substitutedDescriptors = null;
+    private volatile Collection<DeclarationDescriptor> allDescriptors = null;
 
     public SubstitutingScope(JetScope workerScope, @NotNull TypeSubstitutor substitutor) {
         this.workerScope = workerScope;
@@ -50,20 +55,34 @@ public class SubstitutingScope implements JetScope {
         if (descriptor == null) return null;
         if (substitutor.isEmpty()) return descriptor;
 
-        if (substitutedDescriptors == null) {
-            substitutedDescriptors = Maps.newHashMap();
-        }
+        ConcurrentMap<DeclarationDescriptor, Object> substitutedDescriptors = getSubstitutedDescriptors();
 
-        DeclarationDescriptor substituted = substitutedDescriptors.get(descriptor);
-        if (substituted == null && !substitutedDescriptors.containsKey(descriptor)) {
-            substituted = descriptor.substitute(substitutor);
+        Object substituted = substitutedDescriptors.get(descriptor);
+        if (substituted == null) {
+            DeclarationDescriptor newSubstituted = descriptor.substitute(substitutor);
+            Object newValue = newSubstituted != null ? newSubstituted : NULL_VALUE;
 
-            //noinspection ConstantConditions
-            substitutedDescriptors.put(descriptor, substituted);
+            Object oldValue = substitutedDescriptors.putIfAbsent(descriptor, newValue);
+            substituted = oldValue != null ? oldValue : newValue;
         }
 
         //noinspection unchecked
-        return (D) substituted;
+        return substituted == NULL_VALUE ? null : (D) substituted;
+    }
+
+    @NotNull
+    private ConcurrentMap<DeclarationDescriptor, Object> getSubstitutedDescriptors() {
+        ConcurrentMap<DeclarationDescriptor, Object> result = substitutedDescriptors;
+        if (result == null) {
+            synchronized (this) {
+                result = substitutedDescriptors;
+                if (result == null) {
+                    result = new ConcurrentHashMap<DeclarationDescriptor, Object>(16, 0.75f, 1);
+                    substitutedDescriptors = result;
+                }
+            }
+        }
+        return result;
     }
 
     @NotNull
@@ -130,10 +149,12 @@ public class SubstitutingScope implements JetScope {
     @NotNull
     @Override
     public Collection<DeclarationDescriptor> getAllDescriptors() {
-        if (allDescriptors == null) {
-            allDescriptors = substitute(workerScope.getAllDescriptors());
+        Collection<DeclarationDescriptor> result = allDescriptors;
+        if (result == null) {
+            result = substitute(workerScope.getAllDescriptors());
+            allDescriptors = result;
         }
-        return allDescriptors;
+        return result;
     }
 
     @NotNull
@@ -44,20 +44,24 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     @NotNull
     private final DeclarationDescriptor ownerDeclarationDescriptor;
 
+    // The maps below are created lazily, also by reading methods. They are volatile, so that a scope which is only read
+    // may be used from several threads at once (e.g. by parallel body resolution): an empty map created by another thread is never seen
+    // partially constructed
+
     @Nullable
-    private SetMultimap<Name, FunctionDescriptor> functionGroups;
+    private volatile SetMultimap<Name, FunctionDescriptor> functionGroups;
 
     @Nullable
-    private Map<Name, DeclarationDescriptor> variableOrClassDescriptors;
+    private volatile Map<Name, DeclarationDescriptor> variableOrClassDescriptors;
     
     @Nullable
-    private SetMultimap<Name, VariableDescriptor> propertyGroups;
+    private volatile SetMultimap<Name, VariableDescriptor> propertyGroups;
 
     @Nullable
-    private Map<Name, PackageViewDescriptor> packageAliases;
+    private volatile Map<Name, PackageViewDescriptor> packageAliases;
 
     @Nullable
-    private Map<LabelName, List<DeclarationDescriptor>> labelsToDescriptors;
+    private volatile Map<LabelName, List<DeclarationDescriptor>> labelsToDescriptors;
 
     @Nullable
     private ReceiverParameterDescriptor implicitReceiver;
@@ -32,11 +32,14 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     @NotNull
     private final String debugName;
 
+    // Both lists are created lazily, also by reading methods. Like the maps of WritableScopeImpl, they are volatile, so that a scope
+    // which is only read may be used from several threads at once (e.g. by parallel body resolution)
+
     @Nullable
-    private List<JetScope> imports;
+    private volatile List<JetScope> imports;
     private WritableScope currentIndividualImportScope;
     protected final RedeclarationHandler redeclarationHandler;
-    private List<ReceiverParameterDescriptor> implicitReceiverHierarchy;
+    private volatile List<ReceiverParameterDescriptor> implicitReceiverHierarchy;
 
     public WritableScopeWithImports(@NotNull JetScope scope, @NotNull RedeclarationHandler redeclarationHandler, @NotNull String debugName) {
         super(scope);
@@ -80,10 +83,12 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
 
     @NotNull
     protected final List<JetScope> getImports() {
-        if (imports == null) {
-            imports = new ArrayList<JetScope>();
+        List<JetScope> result = imports;
+        if (result == null) {
+            result = new ArrayList<JetScope>();
+            imports = result;
         }
-        return imports;
+        return result;
     }
 
     @Override
@@ -103,10 +108,13 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     public List<ReceiverParameterDescriptor> getImplicitReceiversHierarchy() {
         checkMayRead();
 
-        if (implicitReceiverHierarchy == null) {
-            implicitReceiverHierarchy = computeImplicitReceiversHierarchy();
+        List<ReceiverParameterDescriptor> result = implicitReceiverHierarchy;
+        if (result == null) {
+            // Threads reading the scope at once may compute the hierarchy twice, but the results are equal
+            result = computeImplicitReceiversHierarchy();
+            implicitReceiverHierarchy = result;
         }
-        return implicitReceiverHierarchy;
+        return result;
     }
 
     protected List<ReceiverParameterDescriptor> computeImplicitReceiversHierarchy() {
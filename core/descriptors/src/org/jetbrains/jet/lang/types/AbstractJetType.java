@@ -23,7 +23,12 @@ import java.util.List;
 
 public abstract class AbstractJetType implements JetType {
     @Override
-    public final int hashCode() {
+    public int hashCode() {
+        return computeHashCode();
+    }
+
+    // Subclasses may cache the result, but must not define hashCode() differently, since equals() is structural
+    protected final int computeHashCode() {
         int result = getConstructor().hashCode();
         result = 31 * result + getArguments().hashCode();
         result = 31 * result + (isNullable() ? 1 : 0);
@@ -169,7 +169,7 @@ public class CommonSupertypes {
         if (declarationDescriptor instanceof ClassDescriptor) {
             newScope = ((ClassDescriptor) declarationDescriptor).getMemberScope(newProjections);
         }
-        return new JetTypeImpl(Annotations.EMPTY, constructor, nullable, newProjections, newScope);
+        return JetTypeImpl.create(Annotations.EMPTY, constructor, nullable, newProjections, newScope);
     }
 
     @NotNull
@@ -32,6 +32,39 @@ public final class JetTypeImpl extends AbstractJetType {
     private final JetScope memberScope;
     private final Annotations annotations;
 
+    // Not computed in the constructor, because it would force computation of lazy argument types.
+    // Racy, but benign (as in String): all threads compute the same value
+    private int hashCode = 0;
+
+    /**
+     * Same as the constructor, but returns the canonical instance of this type if the type can be interned.
+     * The interner doesn't compare member scopes, so a type of a class with a member scope other than the scope of this class
+     * for these arguments (e.g. an error scope) must be created with the constructor
+     *
+     * @see JetTypeInterner
+     */
+    @NotNull
+    public static JetTypeImpl create(
+            @NotNull Annotations annotations,
+            @NotNull TypeConstructor constructor,
+            boolean nullable,
+            @NotNull List<? extends TypeProjection> arguments,
+            @NotNull JetScope memberScope
+    ) {
+        JetTypeImpl type = new JetTypeImpl(annotations, constructor, nullable, arguments, memberScope);
+        return JetTypeInterner.canIntern(constructor) ? JetTypeInterner.INSTANCE.intern(type) : type;
+    }
+
+    @NotNull
+    public static JetTypeImpl create(@NotNull TypeConstructor constructor, @NotNull JetScope memberScope) {
+        return create(Annotations.EMPTY, constructor, false, Collections.<TypeProjection>emptyList(), memberScope);
+    }
+
+    @NotNull
+    public static JetTypeImpl create(@NotNull ClassDescriptor classDescriptor) {
+        return create(classDescriptor.getTypeConstructor(), classDescriptor.getMemberScope(Collections.<TypeProjection>emptyList()));
+    }
+
     public JetTypeImpl(Annotations annotations, TypeConstructor constructor, boolean nullable, @NotNull List<? extends TypeProjection> arguments, JetScope memberScope) {
         this.annotations = annotations;
 
@@ -91,4 +124,14 @@ public final class JetTypeImpl extends AbstractJetType {
     public boolean isError() {
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        int result = hashCode;
+        if (result == 0) {
+            result = computeHashCode();
+            hashCode = result;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.jet.lang.types;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
+import org.jetbrains.jet.lang.descriptors.PackageFragmentDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.Annotations;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+/**
+ * Keeps one canonical instance of every JetTypeImpl created through {@link JetTypeImpl#create}, so that equal types created
+ * in different places (e.g. by substitution) are the same object: the instance is shared with its member scope and cached hash code,
+ * and equals() succeeds on the reference check.
+ *
+ * Types are considered the same if they have the same constructor, nullability and annotations, and their arguments have
+ * the same projection kinds and the same (identical) types. Since arguments are interned before the types containing them,
+ * this finds structurally equal types without computing anything lazy in them (hash codes of arguments are not used).
+ *
+ * Canonical instances are only weakly reachable from the interner.
+ *
+ * Types are distributed over several independently locked segments by their hash codes (like in WeakInterner), so threads interning
+ * different types (e.g. during parallel body resolution) rarely wait for each other.
+ */
+/* package */ final class JetTypeInterner {
+    public static final JetTypeInterner INSTANCE = new JetTypeInterner();
+
+    private static final int SEGMENTS = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    private static final class Entry extends WeakReference<JetTypeImpl> {
+        private final int hash;
+        private Entry next;
+
+        private Entry(@NotNull JetTypeImpl type, int hash, @Nullable Entry next, @NotNull ReferenceQueue<JetTypeImpl> queue) {
+            super(type, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private final Segment[] segments;
+
+    private JetTypeInterner() {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Members of a top-level class can only mention type parameters of this class, so all types with the same constructor and arguments
+     * have equivalent member scopes. Types of nested and local classes may also depend on the type parameters of the containing
+     * declarations through their member scopes, and are not interned.
+     */
+    public static boolean canIntern(@NotNull TypeConstructor constructor) {
+        ClassifierDescriptor descriptor = constructor.getDeclarationDescriptor();
+        return descriptor instanceof ClassDescriptor && descriptor.getContainingDeclaration() instanceof PackageFragmentDescriptor;
+    }
+
+    @NotNull
+    public JetTypeImpl intern(@NotNull JetTypeImpl type) {
+        int hash = spread(hash(type.getAnnotations(), type.getConstructor(), type.isNullable(), type.getArguments()));
+        // Higher bits select the segment, lower bits select the bucket in its table
+        return segments[(hash >>> 24) & (SEGMENTS - 1)].intern(type, hash);
+    }
+
+    private static final class Segment {
+        private final ReferenceQueue<JetTypeImpl> queue = new ReferenceQueue<JetTypeImpl>();
+        private Entry[] table = new Entry[INITIAL_SEGMENT_CAPACITY];
+        private int size = 0;
+
+        @NotNull
+        public synchronized JetTypeImpl intern(@NotNull JetTypeImpl type, int hash) {
+            expungeStaleEntries();
+
+            int index = hash & (table.length - 1);
+            for (Entry entry = table[index]; entry != null; entry = entry.next) {
+                if (entry.hash != hash) continue;
+                JetTypeImpl candidate = entry.get();
+                if (candidate != null && isSame(candidate, type)) {
+                    return candidate;
+                }
+            }
+
+            table[index] = new Entry(type, hash, table[index], queue);
+            if (++size > table.length * 3 / 4) {
+                resize();
+            }
+            return type;
+        }
+
+        private void resize() {
+            Entry[] newTable = new Entry[table.length * 2];
+            for (Entry head : table) {
+                Entry entry = head;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    int index = entry.hash & (newTable.length - 1);
+                    entry.next = newTable[index];
+                    newTable[index] = entry;
+                    entry = next;
+                }
+            }
+            table = newTable;
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends JetTypeImpl> reference;
+            while ((reference = queue.poll()) != null) {
+                Entry stale = (Entry) reference;
+                int index = stale.hash & (table.length - 1);
+                Entry previous = null;
+                for (Entry entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+                    if (entry == stale) {
+                        if (previous == null) {
+                            table[index] = entry.next;
+                        }
+                        else {
+                            previous.next = entry.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int hash(
+            @NotNull Annotations annotations,
+            @NotNull TypeConstructor constructor,
+            boolean nullable,
+            @NotNull List<TypeProjection> arguments
+    ) {
+        int result = System.identityHashCode(constructor);
+        result = 31 * result + System.identityHashCode(annotations);
+        result = 31 * result + (nullable ? 1 : 0);
+        for (TypeProjection argument : arguments) {
+            result = 31 * result + argument.getProjectionKind().ordinal();
+            result = 31 * result + System.identityHashCode(argument.getType());
+        }
+        return result;
+    }
+
+    private static boolean isSame(@NotNull JetTypeImpl a, @NotNull JetTypeImpl b) {
+        if (a.getConstructor() != b.getConstructor() ||
+            a.isNullable() != b.isNullable() ||
+            a.getAnnotations() != b.getAnnotations()) {
+            return false;
+        }
+
+        List<TypeProjection> aArguments = a.getArguments();
+        List<TypeProjection> bArguments = b.getArguments();
+        if (aArguments.size() != bArguments.size()) return false;
+        for (int i = 0; i < aArguments.size(); i++) {
+            TypeProjection aArgument = aArguments.get(i);
+            TypeProjection bArgument = bArguments.get(i);
+            if (aArgument.getProjectionKind() != bArgument.getProjectionKind() || aArgument.getType() != bArgument.getType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        // Identity hash codes are spread in the higher bits, see HashMap#hash
+        int h = hash ^ (hash >>> 20) ^ (hash >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+}
@@ -190,11 +190,11 @@ public class TypeSubstitutor {
             List<TypeProjection> substitutedArguments = substituteTypeArguments(
                     type.getConstructor().getParameters(), type.getArguments(), recursionDepth);
 
-            JetType substitutedType = new JetTypeImpl(type.getAnnotations(),   // Old annotations. This is questionable
-                                               type.getConstructor(),   // The same constructor
-                                               type.isNullable(),       // Same nullability
-                                               substitutedArguments,
-                                               new SubstitutingScope(type.getMemberScope(), this));
+            JetType substitutedType = JetTypeImpl.create(type.getAnnotations(),   // Old annotations. This is questionable
+                                                         type.getConstructor(),   // The same constructor
+                                                         type.isNullable(),       // Same nullability
+                                                         substitutedArguments,
+                                                         new SubstitutingScope(type.getMemberScope(), this));
             return new TypeProjectionImpl(originalProjection.getProjectionKind(), substitutedType);
         }
     }
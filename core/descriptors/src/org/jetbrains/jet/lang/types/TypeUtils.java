@@ -217,7 +217,7 @@ public class TypeUtils {
             i++;
         }
 
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 Annotations.EMPTY,
                 constructor,
                 allNullable,
@@ -358,6 +358,8 @@ public class TypeUtils {
         }
         TypeConstructor typeConstructor = classDescriptor.getTypeConstructor();
         List<TypeProjection> arguments = getDefaultTypeProjections(typeConstructor.getParameters());
+        // Not interned: an equal type interned earlier may have a substituting member scope, which returns copies of the members,
+        // while the members of the default type must be the original ones
         return new JetTypeImpl(
                 Annotations.EMPTY,
                 typeConstructor,
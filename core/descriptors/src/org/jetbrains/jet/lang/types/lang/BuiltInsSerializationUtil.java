@@ -22,16 +22,23 @@ import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
 import org.jetbrains.jet.lang.resolve.name.Name;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.jetbrains.jet.lang.resolve.name.SpecialNames.isClassObjectName;
 
 public class BuiltInsSerializationUtil {
+    public static final int SNAPSHOT_VERSION = 1;
+
     private static final String CLASS_METADATA_FILE_EXTENSION = "kotlin_class";
     private static final String PACKAGE_FILE_NAME = ".kotlin_package";
     private static final String NAME_TABLE_FILE_NAME = ".kotlin_name_table";
     private static final String CLASS_NAMES_FILE_NAME = ".kotlin_class_names";
+    private static final String SNAPSHOT_FILE_NAME = ".kotlin_builtins";
     private static final String CLASS_OBJECT_NAME = "object";
 
     private BuiltInsSerializationUtil() {
@@ -69,6 +76,33 @@ public class BuiltInsSerializationUtil {
         return packageFqNameToPath(fqName) + "/" + CLASS_NAMES_FILE_NAME;
     }
 
+    /**
+     * @return path to the file containing all the other metadata files of the package, see {@link BuiltInsSnapshot}
+     */
+    @NotNull
+    public static String getSnapshotFilePath(@NotNull FqName fqName) {
+        return packageFqNameToPath(fqName) + "/" + SNAPSHOT_FILE_NAME;
+    }
+
+    /**
+     * Packs the given files into a single snapshot file, see {@link BuiltInsSnapshot}
+     *
+     * @param files contents of the files by their paths relative to the root of the built-ins
+     */
+    public static void writeSnapshot(@NotNull OutputStream stream, @NotNull Map<String, byte[]> files) throws IOException {
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(SNAPSHOT_VERSION);
+        output.writeInt(files.size());
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeInt(entry.getValue().length);
+        }
+        for (byte[] contents : files.values()) {
+            output.write(contents);
+        }
+        output.flush();
+    }
+
     private static String packageFqNameToPath(FqName fqName) {
         return fqName.asString().replace('.', '/');
     }
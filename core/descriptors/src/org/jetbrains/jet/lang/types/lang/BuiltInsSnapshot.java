@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.types.lang;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * All the metadata files of a built-ins package packed into a single resource by the built-ins serializer, so that the built-ins
+ * are loaded with one class path lookup instead of one lookup per class.
+ *
+ * The resource is memory-mapped if it's a file (i.e. the compiler runs from the output directories) and read at once otherwise.
+ * Only the table of contents is read eagerly, each entry is parsed when it's requested.
+ *
+ * Format: version, number of entries, then a path and a size for each entry, then the contents of all entries one after another.
+ *
+ * @see BuiltInsSerializationUtil#writeSnapshot
+ */
+/* package */ class BuiltInsSnapshot {
+    private final ByteBuffer buffer;
+    private final Map<String, Entry> entries;
+
+    private static class Entry {
+        private final int offset;
+        private final int size;
+
+        private Entry(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    private BuiltInsSnapshot(@NotNull ByteBuffer buffer, @NotNull Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    @Nullable
+    public static BuiltInsSnapshot load(@NotNull ClassLoader classLoader, @NotNull String path) {
+        URL url = classLoader.getResource(path);
+        if (url == null) return null;
+
+        try {
+            return read(loadBuffer(url));
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not read built-ins snapshot: " + url, e);
+        }
+    }
+
+    @NotNull
+    private static ByteBuffer loadBuffer(@NotNull URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            File file;
+            try {
+                file = new File(url.toURI());
+            }
+            catch (URISyntaxException e) {
+                file = new File(url.getPath());
+            }
+
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            finally {
+                // The mapping stays valid after the channel is closed
+                randomAccessFile.close();
+            }
+        }
+
+        InputStream stream = url.openStream();
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream(64 * 1024);
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = stream.read(chunk)) >= 0) {
+                result.write(chunk, 0, read);
+            }
+            return ByteBuffer.wrap(result.toByteArray());
+        }
+        finally {
+            stream.close();
+        }
+    }
+
+    @NotNull
+    private static BuiltInsSnapshot read(@NotNull ByteBuffer buffer) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteBufferInputStream(buffer.duplicate()));
+
+        int version = header.readInt();
+        if (version != BuiltInsSerializationUtil.SNAPSHOT_VERSION) {
+            throw new IllegalStateException("Unsupported built-ins snapshot version: " + version +
+                                            ", expected: " + BuiltInsSerializationUtil.SNAPSHOT_VERSION);
+        }
+
+        int count = header.readInt();
+        String[] paths = new String[count];
+        int[] sizes = new int[count];
+        int headerSize = 8;
+        for (int i = 0; i < count; i++) {
+            paths[i] = header.readUTF();
+            sizes[i] = header.readInt();
+            // See DataOutput.writeUTF: two bytes of length precede the modified UTF-8 bytes
+            headerSize += 2 + modifiedUtf8Length(paths[i]) + 4;
+        }
+
+        Map<String, Entry> entries = new HashMap<String, Entry>(count * 2);
+        int offset = headerSize;
+        for (int i = 0; i < count; i++) {
+            entries.put(paths[i], new Entry(offset, sizes[i]));
+            offset += sizes[i];
+        }
+
+        return new BuiltInsSnapshot(buffer, entries);
+    }
+
+    private static int modifiedUtf8Length(@NotNull String string) {
+        int result = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            result += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF ? 3 : 2);
+        }
+        return result;
+    }
+
+    @Nullable
+    public InputStream getStream(@NotNull String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) return null;
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(entry.offset);
+        slice.limit(entry.offset + entry.size);
+        return new ByteBufferInputStream(slice);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(@NotNull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@NotNull byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -30,9 +30,23 @@ class BuiltinsPackageFragment extends PackageFragmentDescriptorImpl {
     private final DeserializedPackageMemberScope members;
     private final NameResolver nameResolver;
     private final PackageFragmentProvider packageFragmentProvider;
+    @Nullable
+    private final BuiltInsSnapshot snapshot;
 
     public BuiltinsPackageFragment(@NotNull StorageManager storageManager, @NotNull ModuleDescriptor module) {
+        this(storageManager, module, true);
+    }
+
+    /* package */ BuiltinsPackageFragment(
+            @NotNull StorageManager storageManager,
+            @NotNull ModuleDescriptor module,
+            boolean useSnapshot
+    ) {
         super(module, KotlinBuiltIns.BUILT_INS_PACKAGE_FQ_NAME);
+        // Separate metadata files are used if there's no snapshot, e.g. when the built-ins were serialized by an older serializer
+        snapshot = useSnapshot
+                   ? BuiltInsSnapshot.load(getClassLoader(), BuiltInsSerializationUtil.getSnapshotFilePath(getFqName()))
+                   : null;
         nameResolver = NameSerializationUtil.deserializeNameResolver(getStream(BuiltInsSerializationUtil.getNameTableFilePath(getFqName())));
 
         packageFragmentProvider = new BuiltinsPackageFragmentProvider();
@@ -66,7 +80,7 @@ class BuiltinsPackageFragment extends PackageFragmentDescriptorImpl {
     }
 
     @NotNull
-    private static InputStream getStream(@NotNull String path) {
+    private InputStream getStream(@NotNull String path) {
         InputStream stream = getStreamNullable(path);
         if (stream == null) {
             throw new IllegalStateException("Resource not found in classpath: " + path);
@@ -75,8 +89,16 @@ class BuiltinsPackageFragment extends PackageFragmentDescriptorImpl {
     }
 
     @Nullable
-    private static InputStream getStreamNullable(@NotNull String path) {
-        return KotlinBuiltIns.class.getClassLoader().getResourceAsStream(path);
+    private InputStream getStreamNullable(@NotNull String path) {
+        if (snapshot != null) {
+            return snapshot.getStream(path);
+        }
+        return getClassLoader().getResourceAsStream(path);
+    }
+
+    @NotNull
+    private static ClassLoader getClassLoader() {
+        return KotlinBuiltIns.class.getClassLoader();
     }
 
     private class BuiltinsPackageFragmentProvider implements PackageFragmentProvider {
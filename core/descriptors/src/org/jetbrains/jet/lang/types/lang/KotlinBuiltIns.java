@@ -98,10 +98,6 @@ public class KotlinBuiltIns {
 
     private volatile ImmutableSet<ClassDescriptor> nonPhysicalClasses;
 
-    private final ImmutableSet<ClassDescriptor> functionClassesSet;
-
-    private final ImmutableSet<ClassDescriptor> extensionFunctionClassesSet;
-
     private final EnumMap<PrimitiveType, ClassDescriptor> primitiveTypeToClass;
     private final EnumMap<PrimitiveType, ClassDescriptor> primitiveTypeToArrayClass;
     private final EnumMap<PrimitiveType, JetType> primitiveTypeToJetType;
@@ -110,12 +106,6 @@ public class KotlinBuiltIns {
     private final Map<JetType, JetType> primitiveJetTypeToJetArrayType;
     private final Map<JetType, JetType> jetArrayTypeToPrimitiveJetType;
 
-    private final ClassDescriptor nothingClass;
-    private final ClassDescriptor arrayClass;
-    private final ClassDescriptor deprecatedAnnotationClass;
-    private final ClassDescriptor dataAnnotationClass;
-    private final ClassDescriptor[] functionClasses;
-
     private volatile JetType anyType;
     private volatile JetType nullableAnyType;
     private volatile JetType nothingType;
@@ -131,9 +121,6 @@ public class KotlinBuiltIns {
         builtinsPackageFragment = new BuiltinsPackageFragment(new LockBasedStorageManager(), builtInsModule);
         builtInsModule.addFragmentProvider(DependencyKind.SOURCES, builtinsPackageFragment.getProvider());
 
-        this.functionClassesSet = computeIndexedClasses("Function", FUNCTION_TRAIT_COUNT);
-        this.extensionFunctionClassesSet = computeIndexedClasses("ExtensionFunction", FUNCTION_TRAIT_COUNT);
-
         this.primitiveTypeToClass = new EnumMap<PrimitiveType, ClassDescriptor>(PrimitiveType.class);
         this.primitiveTypeToJetType = new EnumMap<PrimitiveType, JetType>(PrimitiveType.class);
         this.primitiveTypeToNullableJetType = new EnumMap<PrimitiveType, JetType>(PrimitiveType.class);
@@ -141,15 +128,6 @@ public class KotlinBuiltIns {
         this.primitiveTypeToArrayJetType = new EnumMap<PrimitiveType, JetType>(PrimitiveType.class);
         this.primitiveJetTypeToJetArrayType = new HashMap<JetType, JetType>();
         this.jetArrayTypeToPrimitiveJetType = new HashMap<JetType, JetType>();
-
-        this.nothingClass = getBuiltInClassByName("Nothing");
-        this.arrayClass = getBuiltInClassByName("Array");
-        this.deprecatedAnnotationClass = getBuiltInClassByName("deprecated");
-        this.dataAnnotationClass = getBuiltInClassByName("data");
-        this.functionClasses = new ClassDescriptor[FUNCTION_TRAIT_COUNT];
-        for (int i = 0; i < functionClasses.length; i++) {
-            functionClasses[i] = getBuiltInClassByName("Function" + i);
-        }
     }
 
     private void doInitialize() {
@@ -170,9 +148,9 @@ public class KotlinBuiltIns {
 
     private void makePrimitive(PrimitiveType primitiveType) {
         ClassDescriptor theClass = getBuiltInClassByName(primitiveType.getTypeName().asString());
-        JetType type = new JetTypeImpl(theClass);
+        JetType type = JetTypeImpl.create(theClass);
         ClassDescriptor arrayClass = getBuiltInClassByName(primitiveType.getArrayTypeName().asString());
-        JetType arrayType = new JetTypeImpl(arrayClass);
+        JetType arrayType = JetTypeImpl.create(arrayClass);
 
         primitiveTypeToClass.put(primitiveType, theClass);
         primitiveTypeToJetType.put(primitiveType, type);
@@ -541,7 +519,7 @@ public class KotlinBuiltIns {
     @NotNull
     private JetType getBuiltInTypeByClassName(@NotNull String classSimpleName) {
         // TODO
-        return new JetTypeImpl(getBuiltInClassByName(classSimpleName));
+        return JetTypeImpl.create(getBuiltInClassByName(classSimpleName));
     }
 
     // Special
@@ -572,8 +550,7 @@ public class KotlinBuiltIns {
 
     @NotNull
     public JetType getPrimitiveJetType(@NotNull PrimitiveType type) {
-        // TODO
-        return new JetTypeImpl(getPrimitiveClassDescriptor(type));
+        return primitiveTypeToJetType.get(type);
     }
 
     @NotNull
@@ -664,7 +641,7 @@ public class KotlinBuiltIns {
     @NotNull
     public JetType getArrayType(@NotNull Variance projectionType, @NotNull JetType argument) {
         List<TypeProjectionImpl> types = Collections.singletonList(new TypeProjectionImpl(projectionType, argument));
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 Annotations.EMPTY,
                 getArray().getTypeConstructor(),
                 false,
@@ -682,7 +659,7 @@ public class KotlinBuiltIns {
     public JetType getEnumType(@NotNull JetType argument) {
         Variance projectionType = Variance.INVARIANT;
         List<TypeProjectionImpl> types = Collections.singletonList(new TypeProjectionImpl(projectionType, argument));
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 Annotations.EMPTY,
                 getEnum().getTypeConstructor(),
                 false,
@@ -718,7 +695,7 @@ public class KotlinBuiltIns {
         ClassDescriptor classDescriptor = receiverType == null ? getFunction(size) : getExtensionFunction(size);
         TypeConstructor constructor = classDescriptor.getTypeConstructor();
 
-        return new JetTypeImpl(annotations, constructor, false, arguments, classDescriptor.getMemberScope(arguments));
+        return JetTypeImpl.create(annotations, constructor, false, arguments, classDescriptor.getMemberScope(arguments));
     }
 
     @NotNull
@@ -732,7 +709,7 @@ public class KotlinBuiltIns {
         List<TypeProjection> arguments = getFunctionTypeArgumentProjections(receiverType, parameterTypes, returnType);
         ClassDescriptor classDescriptor = getCorrespondingKFunctionClass(receiverType, extensionFunction, parameterTypes.size());
 
-        return new JetTypeImpl(
+        return JetTypeImpl.create(
                 annotations,
                 classDescriptor.getTypeConstructor(),
                 false,
@@ -799,13 +776,24 @@ public class KotlinBuiltIns {
 
     // Functions
 
-    @NotNull
-    private ImmutableSet<ClassDescriptor> computeIndexedClasses(@NotNull String prefix, int count) {
-        ImmutableSet.Builder<ClassDescriptor> builder = ImmutableSet.builder();
-        for (int i = 0; i < count; i++) {
-            builder.add(getBuiltInClassByName(prefix + i));
+    /**
+     * Function classes are recognized by their names, so that checking whether a type is a function type doesn't deserialize
+     * all of them (see BuiltInsSnapshot)
+     */
+    private boolean isIndexedBuiltInClass(@NotNull JetType type, @NotNull String prefix) {
+        ClassifierDescriptor descriptor = type.getConstructor().getDeclarationDescriptor();
+        if (!(descriptor instanceof ClassDescriptor) || descriptor.getContainingDeclaration() != builtinsPackageFragment) return false;
+
+        String name = descriptor.getName().asString();
+        if (!name.startsWith(prefix) || name.length() == prefix.length() || name.length() > prefix.length() + 2) return false;
+
+        int index = 0;
+        for (int i = prefix.length(); i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return false;
+            index = index * 10 + (c - '0');
         }
-        return builder.build();
+        return index < FUNCTION_TRAIT_COUNT;
     }
 
     public boolean isFunctionOrExtensionFunctionType(@NotNull JetType type) {
@@ -813,7 +801,7 @@ public class KotlinBuiltIns {
     }
 
     public boolean isFunctionType(@NotNull JetType type) {
-        if (setContainsClassOf(functionClassesSet, type)) return true;
+        if (isIndexedBuiltInClass(type, "Function")) return true;
 
         for (JetType superType : type.getConstructor().getSupertypes()) {
             if (isFunctionType(superType)) return true;
@@ -823,11 +811,11 @@ public class KotlinBuiltIns {
     }
 
     public boolean isExactFunctionOrExtensionFunctionType(@NotNull JetType type) {
-        return setContainsClassOf(extensionFunctionClassesSet, type) || setContainsClassOf(functionClassesSet, type);
+        return isIndexedBuiltInClass(type, "ExtensionFunction") || isIndexedBuiltInClass(type, "Function");
     }
 
     public boolean isExtensionFunctionType(@NotNull JetType type) {
-        if (setContainsClassOf(extensionFunctionClassesSet, type)) return true;
+        if (isIndexedBuiltInClass(type, "ExtensionFunction")) return true;
 
         for (JetType superType : type.getConstructor().getSupertypes()) {
             if (isExtensionFunctionType(superType)) return true;
@@ -935,9 +923,4 @@ public class KotlinBuiltIns {
     public JetType getDefaultBound() {
         return getNullableAnyType();
     }
-
-    private static boolean setContainsClassOf(ImmutableSet<ClassDescriptor> set, JetType type) {
-        //noinspection SuspiciousMethodCalls
-        return set.contains(type.getConstructor().getDeclarationDescriptor());
-    }
 }
@@ -0,0 +1,642 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.storage;
+
+import kotlin.Function0;
+import kotlin.Function1;
+import kotlin.Unit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.utils.UtilsPackage;
+import org.jetbrains.jet.utils.WrappedValues;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A storage manager which lets different threads compute different values at the same time.
+ *
+ * Every lazy value and every key of a memoized function is guarded separately: a thread which needs a value being computed by another
+ * thread waits for that computation only. Recursion is detected per thread, the same way as in {@link LockBasedStorageManager}.
+ *
+ * {@link #compute} is exclusive: only one thread at a time runs inside it.
+ *
+ * Threads may wait for each other in a cycle: e.g. a thread computing A needs B, while another thread computing B needs A, or the owner
+ * of the exclusive section waits for a value computed by a thread which calls {@link #compute}. The thread which closes such a cycle
+ * backs off: all computations it has in progress in this storage manager are cancelled (they go back to the "not computed" state,
+ * so nothing is cached for them), and its outermost call waits until the resource it needed is released and starts over.
+ * So the values of the cycle are computed by one thread, with recursion detected exactly as if there were no other threads,
+ * and the exclusive section is never shared. Computations may be started over, so their side effects should either be repeatable
+ * or be made through a {@link TransactionListener}, which can hold them back until the computation finishes.
+ *
+ * Waiting threads are tracked per storage manager, so only cycles through values of one storage manager are detected.
+ *
+ * The {@link #lock} inherited from LockBasedStorageManager is not used by computations and only guards binding traces
+ * (see LockBasedLazyResolveStorageManager).
+ */
+public class ConcurrentStorageManager extends LockBasedStorageManager {
+    private enum State {
+        NOT_COMPUTED,
+        RECURSION_WAS_DETECTED
+    }
+
+    // A waiting thread normally wakes up when the resource is released. Waiting is also interrupted periodically to check
+    // for cycles which might have been closed concurrently with the check made by another thread of the cycle
+    private static final long CYCLE_CHECK_INTERVAL_MS = 100;
+
+    // Threads waiting for computations or for the exclusive section of this storage manager -> what they wait for
+    private final ConcurrentMap<Thread, Resource> waiters = new ConcurrentHashMap<Thread, Resource>();
+
+    // Computations in progress and the exclusive section held by the current thread in this storage manager
+    private final ThreadLocal<int[]> ownedResources = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final ExclusiveSection exclusiveSection = new ExclusiveSection();
+
+    private final List<TransactionListener> transactionListeners = new CopyOnWriteArrayList<TransactionListener>();
+
+    public ConcurrentStorageManager() {
+        super(getPointOfConstruction(), ExceptionHandlingStrategy.THROW, new ReentrantLock());
+    }
+
+    public ConcurrentStorageManager(@NotNull ExceptionHandlingStrategy exceptionHandlingStrategy) {
+        super(getPointOfConstruction(), exceptionHandlingStrategy, new ReentrantLock());
+    }
+
+    @NotNull
+    @Override
+    protected <K, V> MemoizedFunctionToNotNull<K, V> createMemoizedFunction(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new ConcurrentMemoizedFunctionToNotNull<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    protected <K, V> MemoizedFunctionToNullable<K, V> createMemoizedFunctionWithNullableValues(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new ConcurrentMemoizedFunction<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentNotNullLazyValue<T>(computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createRecursionTolerantLazyValue(
+            @NotNull Function0<? extends T> computable, @NotNull final T onRecursiveCall
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                return RecursionDetectedResult.value(onRecursiveCall);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable,
+            final Function1<? super Boolean, ? extends T> onRecursiveCall,
+            @NotNull final Function1<? super T, ? extends Unit> postCompute
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                if (onRecursiveCall == null) {
+                    return super.recursionDetected(firstTime);
+                }
+                return RecursionDetectedResult.value(onRecursiveCall.invoke(firstTime));
+            }
+
+            @Override
+            protected void postCompute(@NotNull T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentLazyValue<T>(computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createRecursionTolerantNullableLazyValue(
+            @NotNull Function0<? extends T> computable, final T onRecursiveCall
+    ) {
+        return new ConcurrentLazyValue<T>(computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                return RecursionDetectedResult.value(onRecursiveCall);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable, @NotNull final Function1<? super T, ? extends Unit> postCompute
+    ) {
+        return new ConcurrentLazyValue<T>(computable) {
+            @Override
+            protected void postCompute(@Nullable T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @Override
+    public <T> T compute(@NotNull Function0<? extends T> computable) {
+        while (true) {
+            boolean outermost = !ownsResources();
+            exclusiveSection.enter();
+
+            Resource blocker;
+            beginTransaction();
+            boolean committed = false;
+            try {
+                T result = computable.invoke();
+                committed = true;
+                commitTransaction();
+                return result;
+            }
+            catch (BackOff backOff) {
+                rollbackTransaction();
+                if (!outermost) throw backOff;
+                blocker = backOff.blocker;
+            }
+            catch (Throwable throwable) {
+                if (!committed) {
+                    commitTransaction();
+                }
+                throw UtilsPackage.rethrow(throwable);
+            }
+            finally {
+                exclusiveSection.exit();
+            }
+            await(blocker);
+        }
+    }
+
+    /**
+     * Adds a listener which is told about every computation of this storage manager in the thread running it
+     */
+    public void addTransactionListener(@NotNull TransactionListener listener) {
+        transactionListeners.add(listener);
+    }
+
+    private void beginTransaction() {
+        for (TransactionListener listener : transactionListeners) {
+            listener.begin();
+        }
+    }
+
+    private void commitTransaction() {
+        for (TransactionListener listener : transactionListeners) {
+            listener.commit();
+        }
+    }
+
+    private void rollbackTransaction() {
+        for (TransactionListener listener : transactionListeners) {
+            listener.rollback();
+        }
+    }
+
+    private boolean ownsResources() {
+        return ownedResources.get()[0] > 0;
+    }
+
+    private void acquired() {
+        ownedResources.get()[0]++;
+    }
+
+    private void releasedByCurrentThread() {
+        ownedResources.get()[0]--;
+    }
+
+    private class ConcurrentLazyValue<T> implements NullableLazyValue<T> {
+
+        private final Function0<? extends T> computable;
+
+        // NOT_COMPUTED, then a Computation, then the value, an escaped exception or RECURSION_WAS_DETECTED.
+        // A computation cancelled by BackOff returns the value to NOT_COMPUTED
+        @Nullable
+        private volatile Object value = State.NOT_COMPUTED;
+
+        public ConcurrentLazyValue(@NotNull Function0<? extends T> computable) {
+            this.computable = computable;
+        }
+
+        @Override
+        public boolean isComputed() {
+            Object _value = value;
+            return _value != State.NOT_COMPUTED && !(_value instanceof Computation);
+        }
+
+        @Override
+        public T invoke() {
+            while (true) {
+                Object _value = value;
+                if (_value == State.RECURSION_WAS_DETECTED) {
+                    return recursionDetected(/*firstTime = */ false).getValue();
+                }
+
+                if (_value instanceof Computation) {
+                    Computation computation = (Computation) _value;
+                    if (computation.owner == Thread.currentThread()) {
+                        return recursiveCall(computation);
+                    }
+                    await(computation);
+                    continue;
+                }
+
+                if (_value != State.NOT_COMPUTED) {
+                    return WrappedValues.unescapeThrowable(_value);
+                }
+
+                Computation computation = new Computation();
+                synchronized (this) {
+                    if (value != State.NOT_COMPUTED) continue;
+                    value = computation;
+                }
+
+                boolean outermost = !ownsResources();
+                try {
+                    return computeValue(computation);
+                }
+                catch (BackOff backOff) {
+                    if (!outermost) throw backOff;
+                    await(backOff.blocker);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T recursiveCall(@NotNull Computation computation) {
+            if (computation.hasResult) {
+                // Called from postCompute()
+                return (T) computation.result;
+            }
+            boolean firstTime = !computation.recursionDetected;
+            computation.recursionDetected = true;
+            return recursionDetected(firstTime).getValue();
+        }
+
+        private T computeValue(@NotNull Computation computation) {
+            acquired();
+            beginTransaction();
+            // The side effects are committed before the value is published, so that other threads see them together with the value
+            boolean committed = false;
+            try {
+                T typedValue = computable.invoke();
+                computation.hasResult = true;
+                computation.result = typedValue;
+                postCompute(typedValue);
+                committed = true;
+                commitTransaction();
+                value = typedValue;
+                return typedValue;
+            }
+            catch (BackOff backOff) {
+                rollbackTransaction();
+                value = State.NOT_COMPUTED;
+                throw backOff;
+            }
+            catch (Throwable throwable) {
+                if (!committed) {
+                    commitTransaction();
+                }
+                if (computation.hasResult) {
+                    value = computation.result;
+                }
+                else if (computation.recursionDetected) {
+                    // Don't store exceptions which could be thrown through recursionDetected()
+                    value = State.RECURSION_WAS_DETECTED;
+                }
+                else {
+                    value = WrappedValues.escapeThrowable(throwable);
+                }
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                releasedByCurrentThread();
+                computation.finish();
+            }
+        }
+
+        /**
+         * @param firstTime {@code true} when recursion has been just detected, {@code false} otherwise
+         * @return a value to be returned on a recursive call or subsequent calls
+         */
+        @NotNull
+        protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+            return recursionDetectedDefault();
+        }
+
+        protected void postCompute(T value) {
+            // Doing something in post-compute helps prevent infinite recursion
+        }
+    }
+
+    private class ConcurrentNotNullLazyValue<T> extends ConcurrentLazyValue<T> implements NotNullLazyValue<T> {
+
+        public ConcurrentNotNullLazyValue(@NotNull Function0<? extends T> computable) {
+            super(computable);
+        }
+
+        @Override
+        @NotNull
+        public T invoke() {
+            T result = super.invoke();
+            assert result != null : "compute() returned null";
+            return result;
+        }
+    }
+
+    private class ConcurrentMemoizedFunction<K, V> implements MemoizedFunctionToNullable<K, V> {
+        private final ConcurrentMap<K, Object> cache;
+        private final Function1<? super K, ? extends V> compute;
+
+        public ConcurrentMemoizedFunction(@NotNull ConcurrentMap<K, Object> map, @NotNull Function1<? super K, ? extends V> compute) {
+            this.cache = map;
+            this.compute = compute;
+        }
+
+        @Override
+        @Nullable
+        public V invoke(K input) {
+            while (true) {
+                Object value = cache.get(input);
+                if (value instanceof Computation) {
+                    Computation computation = (Computation) value;
+                    if (computation.owner == Thread.currentThread()) {
+                        throw new AssertionError("Recursion detected on input: " + input + " under " + ConcurrentStorageManager.this);
+                    }
+                    await(computation);
+                    continue;
+                }
+
+                if (value != null) {
+                    StorageStatistics.hit();
+                    return WrappedValues.unescapeExceptionOrNull(value);
+                }
+
+                Computation computation = new Computation();
+                if (cache.putIfAbsent(input, computation) != null) continue;
+
+                StorageStatistics.miss();
+                boolean outermost = !ownsResources();
+                acquired();
+
+                Resource blocker;
+                beginTransaction();
+                boolean committed = false;
+                try {
+                    V typedValue = compute.invoke(input);
+                    committed = true;
+                    commitTransaction();
+                    cache.put(input, WrappedValues.escapeNull(typedValue));
+                    return typedValue;
+                }
+                catch (BackOff backOff) {
+                    rollbackTransaction();
+                    cache.remove(input, computation);
+                    if (!outermost) throw backOff;
+                    blocker = backOff.blocker;
+                }
+                catch (Throwable throwable) {
+                    if (!committed) {
+                        commitTransaction();
+                    }
+                    cache.put(input, WrappedValues.escapeThrowable(throwable));
+                    throw exceptionHandlingStrategy.handleException(throwable);
+                }
+                finally {
+                    releasedByCurrentThread();
+                    computation.finish();
+                }
+                await(blocker);
+            }
+        }
+    }
+
+    private class ConcurrentMemoizedFunctionToNotNull<K, V> extends ConcurrentMemoizedFunction<K, V>
+            implements MemoizedFunctionToNotNull<K, V> {
+
+        public ConcurrentMemoizedFunctionToNotNull(
+                @NotNull ConcurrentMap<K, Object> map,
+                @NotNull Function1<? super K, ? extends V> compute
+        ) {
+            super(map, compute);
+        }
+
+        @NotNull
+        @Override
+        public V invoke(K input) {
+            V result = super.invoke(input);
+            assert result != null : "compute() returned null under " + ConcurrentStorageManager.this;
+            return result;
+        }
+    }
+
+    /**
+     * Holds back side effects of computations, e.g. records in a binding trace, until it's known whether they stay.
+     *
+     * The methods are called in the thread running a computation: {@link #begin} when the computation starts, and then {@link #commit}
+     * when it finishes, normally or with an exception, or {@link #rollback} when it backs off and is going to be started over.
+     * Computations of a thread are nested, so are their transactions. A computation which has finished is never started over,
+     * so a committed transaction should make its side effects permanent even if an enclosing one is rolled back later.
+     */
+    public interface TransactionListener {
+        void begin();
+
+        void commit();
+
+        void rollback();
+    }
+
+    /**
+     * Something a thread may wait for: a computation in progress or the exclusive section. Waiting threads are notified
+     * on the monitor of the resource
+     */
+    private abstract static class Resource {
+        private volatile boolean hasWaiters;
+
+        /**
+         * @return the thread which should release this resource, or {@code null} if it's free
+         */
+        @Nullable
+        protected abstract Thread getOwner();
+
+        protected final void released() {
+            // The owner is reset before this check, and await() sets the flag before it checks the owner, so nobody is left waiting
+            if (hasWaiters) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private static final class Computation extends Resource {
+        private final Thread owner = Thread.currentThread();
+        private volatile boolean finished;
+
+        // Only accessed by the owner
+        private boolean recursionDetected;
+        private boolean hasResult;
+        private Object result;
+
+        @Nullable
+        @Override
+        protected Thread getOwner() {
+            return finished ? null : owner;
+        }
+
+        private void finish() {
+            finished = true;
+            released();
+        }
+    }
+
+    private final class ExclusiveSection extends Resource {
+        @Nullable
+        private volatile Thread owner;
+
+        // Only accessed by the owner
+        private int holdCount;
+
+        @Nullable
+        @Override
+        protected Thread getOwner() {
+            return owner;
+        }
+
+        private void enter() {
+            Thread current = Thread.currentThread();
+            if (owner == current) {
+                holdCount++;
+                return;
+            }
+
+            while (true) {
+                synchronized (this) {
+                    if (owner == null) {
+                        owner = current;
+                        holdCount = 1;
+                        acquired();
+                        return;
+                    }
+                }
+                await(this);
+            }
+        }
+
+        private void exit() {
+            if (--holdCount == 0) {
+                releasedByCurrentThread();
+                owner = null;
+                released();
+            }
+        }
+    }
+
+    /**
+     * Thrown in a thread which would close a cycle of waiting threads. It cancels the computations of the thread on its way up,
+     * and the outermost call of the thread waits for the blocker and starts over
+     */
+    private static final class BackOff extends RuntimeException {
+        private final Resource blocker;
+
+        private BackOff(@NotNull Resource blocker) {
+            this.blocker = blocker;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Blocks until the resource is released.
+     *
+     * @throws BackOff if the current thread would close a cycle of threads waiting for each other
+     */
+    private void await(@NotNull Resource resource) {
+        Thread current = Thread.currentThread();
+        waiters.put(current, resource);
+        resource.hasWaiters = true;
+        try {
+            synchronized (resource) {
+                while (resource.getOwner() != null) {
+                    if (isInCycle(current)) {
+                        throw new BackOff(resource);
+                    }
+                    resource.wait(CYCLE_CHECK_INTERVAL_MS);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            throw UtilsPackage.rethrow(e);
+        }
+        finally {
+            waiters.remove(current);
+        }
+    }
+
+    /**
+     * A thread can only be a part of a cycle if it owns a resource, so a thread which has backed off can't get into a cycle again
+     * until it starts over.
+     *
+     * @return {@code true} if the given waiting thread transitively waits for itself
+     */
+    private boolean isInCycle(@NotNull Thread start) {
+        Thread thread = start;
+        // The bound guards against a cycle not containing the start thread
+        for (int steps = 0; steps <= waiters.size(); steps++) {
+            Resource resource = waiters.get(thread);
+            if (resource == null) return false;
+
+            thread = resource.getOwner();
+            if (thread == null) return false;
+            if (thread == start) return true;
+        }
+        return false;
+    }
+}
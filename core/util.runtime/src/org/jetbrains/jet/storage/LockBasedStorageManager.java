@@ -65,10 +65,10 @@ public class LockBasedStorageManager implements StorageManager {
     }
 
     protected final Lock lock;
-    private final ExceptionHandlingStrategy exceptionHandlingStrategy;
+    protected final ExceptionHandlingStrategy exceptionHandlingStrategy;
     private final String debugText;
 
-    private LockBasedStorageManager(
+    protected LockBasedStorageManager(
             @NotNull String debugText,
             @NotNull ExceptionHandlingStrategy exceptionHandlingStrategy,
             @NotNull Lock lock
@@ -86,7 +86,7 @@ public class LockBasedStorageManager implements StorageManager {
         this(getPointOfConstruction(), exceptionHandlingStrategy, new ReentrantLock());
     }
 
-    private static String getPointOfConstruction() {
+    protected static String getPointOfConstruction() {
         StackTraceElement[] trace = Thread.currentThread().getStackTrace();
         // we need to skip frames for getStackTrace(), this method and the constructor that's calling it
         if (trace.length <= 3) return "<unknown creating class>";
@@ -217,7 +217,7 @@ public class LockBasedStorageManager implements StorageManager {
         throw new IllegalStateException("Recursive call in a lazy value under " + this);
     }
 
-    private static class RecursionDetectedResult<T> {
+    protected static class RecursionDetectedResult<T> {
 
         @NotNull
         public static <T> RecursionDetectedResult<T> value(T value) {
@@ -361,14 +361,21 @@ public class LockBasedStorageManager implements StorageManager {
         @Nullable
         public V invoke(K input) {
             Object value = cache.get(input);
-            if (value != null && value != NotValue.COMPUTING) return WrappedValues.unescapeExceptionOrNull(value);
+            if (value != null && value != NotValue.COMPUTING) {
+                StorageStatistics.hit();
+                return WrappedValues.unescapeExceptionOrNull(value);
+            }
 
             lock.lock();
             try {
                 value = cache.get(input);
                 assert value != NotValue.COMPUTING : "Recursion detected on input: " + input + " under " + LockBasedStorageManager.this;
-                if (value != null) return WrappedValues.unescapeExceptionOrNull(value);
+                if (value != null) {
+                    StorageStatistics.hit();
+                    return WrappedValues.unescapeExceptionOrNull(value);
+                }
 
+                StorageStatistics.miss();
                 AssertionError error = null;
                 try {
                     cache.put(input, NotValue.COMPUTING);
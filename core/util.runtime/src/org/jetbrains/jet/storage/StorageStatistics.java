@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hits and misses of memoized functions created by all storage managers in this class loader.
+ * Nothing is counted unless it's enabled, so that memoized functions cost one volatile read more than usual.
+ */
+public class StorageStatistics {
+    private static volatile boolean enabled = false;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private StorageStatistics() {
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static void reset() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /* package */ static void hit() {
+        if (enabled) {
+            hits.incrementAndGet();
+        }
+    }
+
+    /* package */ static void miss() {
+        if (enabled) {
+            misses.incrementAndGet();
+        }
+    }
+}
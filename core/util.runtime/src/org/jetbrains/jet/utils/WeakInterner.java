@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Returns a canonical instance for each group of equal objects. Canonical instances are only weakly reachable from the interner,
+ * so they are collected as soon as nobody else uses them.
+ *
+ * Objects are distributed over several independently locked maps by their hash codes, so threads interning different objects
+ * rarely wait for each other.
+ */
+public final class WeakInterner<T> {
+    private static final int STRIPES = 16;
+
+    private final Map<T, WeakReference<T>>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public WeakInterner() {
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<T, WeakReference<T>>();
+        }
+    }
+
+    @NotNull
+    public T intern(@NotNull T value) {
+        Map<T, WeakReference<T>> map = stripes[stripeIndex(value.hashCode())];
+        synchronized (map) {
+            WeakReference<T> reference = map.get(value);
+            if (reference != null) {
+                T interned = reference.get();
+                if (interned != null) {
+                    return interned;
+                }
+            }
+            map.put(value, new WeakReference<T>(value));
+            return value;
+        }
+    }
+
+    private static int stripeIndex(int hashCode) {
+        // Spread higher bits, so that objects which differ only in them don't end up in the same stripe
+        int h = hashCode ^ (hashCode >>> 16);
+        return (h ^ (h >>> 8)) & (STRIPES - 1);
+    }
+}
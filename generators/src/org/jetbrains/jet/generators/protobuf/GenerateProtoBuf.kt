@@ -38,9 +38,11 @@ fun main(args: Array<String>) {
 
         val commonProto = "compiler/frontend/serialization/src/descriptors.proto"
         val javaProto = "core/serialization.java/src/java_descriptors.proto"
+        val jsProto = "js/js.translator/src/js_descriptors.proto"
 
         execProtoc(commonProto, "compiler/frontend/serialization/src")
         execProtoc(javaProto, "core/serialization.java/src")
+        execProtoc(jsProto, "js/js.translator/src")
 
         modifyAndExecProtoc(commonProto, "compiler/tests")
         modifyAndExecProtoc(javaProto, "compiler/tests")
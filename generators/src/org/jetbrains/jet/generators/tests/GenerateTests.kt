@@ -32,6 +32,7 @@ import org.jetbrains.jet.codegen.AbstractCheckLocalVariablesTableTest
 import org.jetbrains.jet.codegen.flags.AbstractWriteFlagsTest
 import org.jetbrains.jet.codegen.defaultConstructor.AbstractDefaultArgumentsReflectionTest
 import org.jetbrains.jet.jvm.compiler.AbstractLoadJavaTest
+import org.jetbrains.jet.jvm.compiler.AbstractLoadJavaFromBinariesTest
 import org.jetbrains.jet.jvm.compiler.AbstractCompileJavaAgainstKotlinTest
 import org.jetbrains.jet.jvm.compiler.AbstractCompileKotlinAgainstKotlinTest
 import org.jetbrains.jet.lang.resolve.lazy.AbstractLazyResolveDescriptorRendererTest
@@ -192,6 +193,10 @@ fun main(args: Array<String>) {
             model("loadJava/sourceJava", extension = "java", testMethod = "doTestSourceJava")
         }
 
+        testClass(javaClass<AbstractLoadJavaFromBinariesTest>()) {
+            model("loadJava/compiledJava", extension = "java", testMethod = "doTestCompiledJava")
+        }
+
         testClass(javaClass<AbstractCompileJavaAgainstKotlinTest>()) {
             model("compileJavaAgainstKotlin")
         }
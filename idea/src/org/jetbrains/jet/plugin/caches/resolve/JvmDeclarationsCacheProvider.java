@@ -34,6 +34,8 @@ import org.jetbrains.jet.lang.resolve.BindingTraceContext;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
 import org.jetbrains.jet.plugin.project.TargetPlatform;
+import org.jetbrains.jet.storage.LockBasedLazyResolveStorageManager;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
 
 class JvmDeclarationsCacheProvider extends DeclarationsCacheProvider {
     private final CachedValueProvider<KotlinDeclarationsCache> declarationsProvider;
@@ -54,7 +56,10 @@ class JvmDeclarationsCacheProvider extends DeclarationsCacheProvider {
                 // This lock is already acquired by the calling method,
                 // but we put it here to guard for the case of further modifications
                 synchronized (declarationAnalysisLock) {
-                    incompleteTrace = new BindingTraceContext();
+                    // Bodies of different files are analyzed in parallel on top of the header analysis (see AnalyzerFacadeWithCache),
+                    // and deferred types computed by them record into this trace
+                    incompleteTrace = new LockBasedLazyResolveStorageManager(new LockBasedStorageManager())
+                            .createSafeTrace(new BindingTraceContext());
 
                     AnalyzeExhaust analyzeExhaust;
                     try {
@@ -57,7 +57,7 @@ public final class AnalyzerFacadeWithCache {
 
     private static final Logger LOG = Logger.getInstance("org.jetbrains.jet.plugin.project.AnalyzerFacadeWithCache");
 
-    private final static Key<CachedValue<SLRUCache<JetFile, AnalyzeExhaust>>> ANALYZE_EXHAUST_FULL = Key.create("ANALYZE_EXHAUST_FULL");
+    private final static Key<CachedValue<PerFileAnalysisCache>> ANALYZE_EXHAUST_FULL = Key.create("ANALYZE_EXHAUST_FULL");
 
     private static final Object lock = new Object();
 
@@ -70,16 +70,24 @@ public final class AnalyzerFacadeWithCache {
     // TODO: Also need to pass several files when user have multi-file environment
     @NotNull
     public static AnalyzeExhaust analyzeFileWithCache(@NotNull JetFile file) {
-        // Need lock, because parallel threads can start evaluation of compute() simultaneously
+        Project project = file.getProject();
+        if (DumbService.isDumb(project)) {
+            // Not cached: results are kept until an out-of-code-block modification, which doesn't have to follow the indexing
+            return AnalyzeExhaust.EMPTY;
+        }
+
+        PerFileAnalysisCache cache;
+        // Need lock, because parallel threads can start evaluation of compute() simultaneously and get different caches.
+        // The files are analyzed outside of it, so that different files are analyzed in parallel
         synchronized (lock) {
-            Project project = file.getProject();
-            return CachedValuesManager.getManager(project).getCachedValue(
+            cache = CachedValuesManager.getManager(project).getCachedValue(
                     project,
                     ANALYZE_EXHAUST_FULL,
-                    new SLRUCachedAnalyzeExhaustProvider(),
+                    new PerFileAnalysisCacheProvider(),
                     false
-            ).get(file);
+            );
         }
+        return cache.get(file);
     }
 
     @NotNull
@@ -148,16 +156,16 @@ public final class AnalyzerFacadeWithCache {
         }
     };
 
-    private static class SLRUCachedAnalyzeExhaustProvider implements CachedValueProvider<SLRUCache<JetFile, AnalyzeExhaust>> {
+    private static class PerFileAnalysisCacheProvider implements CachedValueProvider<PerFileAnalysisCache> {
         @Nullable
         @Override
-        public Result<SLRUCache<JetFile, AnalyzeExhaust>> compute() {
+        public Result<PerFileAnalysisCache> compute() {
             final GlobalContext globalContext = ContextPackage.GlobalContext();
-            SLRUCache<JetFile, AnalyzeExhaust> cache = new SLRUCache<JetFile, AnalyzeExhaust>(3, 8) {
+            PerFileAnalysisCache cache = new PerFileAnalysisCache() {
 
                 @NotNull
                 @Override
-                public AnalyzeExhaust createValue(JetFile file) {
+                protected AnalyzeExhaust analyze(@NotNull JetFile file) {
                     try {
                         if (DumbService.isDumb(file.getProject())) {
                             return AnalyzeExhaust.EMPTY;
@@ -181,7 +189,9 @@ public final class AnalyzerFacadeWithCache {
                     }
                 }
             };
-            return Result.create(cache, PsiModificationTracker.MODIFICATION_COUNT, globalContext.getExceptionTracker());
+            // Declarations of other files are only changed by out-of-code-block modifications,
+            // modifications inside code blocks invalidate the results of the modified file only (see PerFileAnalysisCache)
+            return Result.create(cache, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT, globalContext.getExceptionTracker());
         }
 
         private static AnalyzeExhaust analyzeHeadersWithCacheOnFile(@NotNull JetFile fileToCache, @NotNull GlobalContext globalContext) {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.project;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.utils.UtilsPackage;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Results of full analysis of files, computed at most once per file and modification of the file.
+ *
+ * Different files are analyzed in parallel, and a thread requesting a file which is being analyzed waits for the result.
+ * The cache itself is dropped on out-of-code-block modifications (see {@link AnalyzerFacadeWithCache}),
+ * while a modification inside a code block only invalidates the results of the modified file.
+ */
+abstract class PerFileAnalysisCache {
+    private static final int MAX_FILES = 11;
+    private static final long CHECK_CANCELED_INTERVAL_MS = 50;
+
+    private final ConcurrentMap<JetFile, Entry> entries = new ConcurrentHashMap<JetFile, Entry>();
+    private final Queue<JetFile> evictionQueue = new ConcurrentLinkedQueue<JetFile>();
+
+    @NotNull
+    protected abstract AnalyzeExhaust analyze(@NotNull JetFile file);
+
+    @NotNull
+    public AnalyzeExhaust get(@NotNull final JetFile file) {
+        while (true) {
+            long modificationStamp = file.getModificationStamp();
+            Entry entry = entries.get(file);
+            boolean computeHere = false;
+            if (entry == null || entry.modificationStamp != modificationStamp) {
+                Entry newEntry = new Entry(modificationStamp, new FutureTask<AnalyzeExhaust>(new Callable<AnalyzeExhaust>() {
+                    @Override
+                    public AnalyzeExhaust call() {
+                        return analyze(file);
+                    }
+                }));
+                boolean installed = entry == null ? entries.putIfAbsent(file, newEntry) == null : entries.replace(file, entry, newEntry);
+                if (!installed) continue;
+
+                if (entry == null) {
+                    evictionQueue.add(file);
+                    evictOldFiles();
+                }
+                entry = newEntry;
+                computeHere = true;
+                entry.task.run();
+            }
+
+            try {
+                return waitFor(entry.task);
+            }
+            catch (ProcessCanceledException e) {
+                if (entry.task.isDone()) {
+                    // The analysis was canceled, so the entry is removed and the next request computes it again,
+                    // adding the file to the eviction queue once more
+                    if (entries.remove(file, entry)) {
+                        evictionQueue.remove(file);
+                    }
+                    if (!computeHere) continue;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @NotNull
+    private static AnalyzeExhaust waitFor(@NotNull FutureTask<AnalyzeExhaust> task) {
+        while (true) {
+            // The thread analyzing the file may have been canceled by another action, but this one should stay cancelable
+            ProgressManager.checkCanceled();
+            try {
+                return task.get(CHECK_CANCELED_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException ignored) {
+            }
+            catch (InterruptedException e) {
+                throw new ProcessCanceledException(e);
+            }
+            catch (ExecutionException e) {
+                throw UtilsPackage.rethrow(e.getCause());
+            }
+        }
+    }
+
+    private void evictOldFiles() {
+        while (entries.size() > MAX_FILES) {
+            JetFile oldest = evictionQueue.poll();
+            if (oldest == null) return;
+            entries.remove(oldest);
+        }
+    }
+
+    private static class Entry {
+        private final long modificationStamp;
+        private final FutureTask<AnalyzeExhaust> task;
+
+        private Entry(long modificationStamp, @NotNull FutureTask<AnalyzeExhaust> task) {
+            this.modificationStamp = modificationStamp;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.project;
+
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.testFramework.LightProjectDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.plugin.JetLightCodeInsightFixtureTestCase;
+import org.jetbrains.jet.plugin.JetLightProjectDescriptor;
+
+public class AnalyzerFacadeWithCacheTest extends JetLightCodeInsightFixtureTestCase {
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return JetLightProjectDescriptor.INSTANCE;
+    }
+
+    public void testInBlockModificationReanalyzesOnlyModifiedFile() {
+        JetFile edited = (JetFile) myFixture.configureByText("edited.kt", "package test\n\nfun edited() {\n    <caret>\n}\n");
+        JetFile other = (JetFile) myFixture.addFileToProject("other.kt", "package test\n\nfun other() = edited()\n");
+
+        AnalyzeExhaust editedExhaust = AnalyzerFacadeWithCache.analyzeFileWithCache(edited);
+        AnalyzeExhaust otherExhaust = AnalyzerFacadeWithCache.analyzeFileWithCache(other);
+        assertSame(editedExhaust, AnalyzerFacadeWithCache.analyzeFileWithCache(edited));
+
+        PsiModificationTracker tracker = PsiModificationTracker.SERVICE.getInstance(getProject());
+        long outOfCodeBlockCount = tracker.getOutOfCodeBlockModificationCount();
+
+        myFixture.type("val x = 1");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+        assertEquals("The modification should be inside a code block", outOfCodeBlockCount, tracker.getOutOfCodeBlockModificationCount());
+
+        assertNotSame(editedExhaust, AnalyzerFacadeWithCache.analyzeFileWithCache(edited));
+        assertSame(otherExhaust, AnalyzerFacadeWithCache.analyzeFileWithCache(other));
+    }
+}
@@ -37,6 +37,7 @@ import org.jetbrains.jet.compiler.runner.OutputItemsCollectorImpl;
 import org.jetbrains.jet.compiler.runner.SimpleOutputItem;
 import org.jetbrains.jet.config.IncrementalCompilation;
 import org.jetbrains.jet.jps.JpsKotlinCompilerSettings;
+import org.jetbrains.jet.jps.incremental.IncrementalCache;
 import org.jetbrains.jet.utils.PathUtil;
 import org.jetbrains.jps.ModuleChunk;
 import org.jetbrains.jps.builders.BuildTarget;
@@ -64,6 +65,9 @@ import static org.jetbrains.jet.compiler.runner.KotlinCompilerRunner.runK2JvmCom
 
 public class KotlinBuilder extends ModuleLevelBuilder {
     private static final Key<Set<File>> ALL_COMPILED_FILES_KEY = Key.create("_all_kotlin_compiled_files_");
+    private static final Key<Map<ModuleBuildTarget, IncrementalCache>> INCREMENTAL_CACHES_KEY = Key.create("_kotlin_incremental_caches_");
+    private static final Key<Map<ModuleBuildTarget, IncrementalCache.Changes>> CHANGES_KEY = Key.create("_kotlin_incremental_changes_");
+    private static final Key<Set<ModuleBuildTarget>> TARGETS_CHECKED_FOR_CHANGES_KEY = Key.create("_kotlin_targets_checked_for_changes_");
 
     public static final String KOTLIN_BUILDER_NAME = "Kotlin Builder";
     private static final List<String> COMPILABLE_FILE_EXTENSIONS = Collections.singletonList("kt");
@@ -102,9 +106,15 @@ public class KotlinBuilder extends ModuleLevelBuilder {
         messageCollector.report(INFO, "Kotlin JPS plugin version " + KotlinVersion.VERSION, NO_LOCATION);
 
         ModuleBuildTarget representativeTarget = chunk.representativeTarget();
+        boolean isJsModule = JpsUtils.isJsKotlinModule(representativeTarget);
+
+        // Sources of this chunk which depend on the classes changed in the chunks built earlier
+        Set<File> dependentsOfOtherChunks = IncrementalCompilation.ENABLED && !isJsModule
+                                            ? getDependentsOfOtherChunks(context, chunk)
+                                            : Collections.<File>emptySet();
 
         // For non-incremental build: take all sources
-        if (!dirtyFilesHolder.hasDirtyFiles() && !dirtyFilesHolder.hasRemovedFiles()) {
+        if (!dirtyFilesHolder.hasDirtyFiles() && !dirtyFilesHolder.hasRemovedFiles() && dependentsOfOtherChunks.isEmpty()) {
             return ExitCode.NOTHING_DONE;
         }
 
@@ -128,9 +138,13 @@ public class KotlinBuilder extends ModuleLevelBuilder {
         CommonCompilerArguments commonArguments = JpsKotlinCompilerSettings.getCommonCompilerArguments(project);
         CompilerSettings compilerSettings = JpsKotlinCompilerSettings.getCompilerSettings(project);
 
-        final Set<File> allCompiledFiles = getAllCompiledFilesContainer(context);
+        Set<File> allCompiledFiles = getAllCompiledFilesContainer(context);
+
+        List<File> filesToCompile = Collections.emptyList();
+        Collection<File> removedFiles = Collections.emptyList();
+        IncrementalCache incrementalCache = null;
 
-        if (JpsUtils.isJsKotlinModule(representativeTarget)) {
+        if (isJsModule) {
             if (chunk.getModules().size() > 1) {
                 // We do not support circular dependencies, but if they are present, we do our best should not break the build,
                 // so we simply yield a warning and report NOTHING_DONE
@@ -165,12 +179,25 @@ public class KotlinBuilder extends ModuleLevelBuilder {
                         NO_LOCATION);
             }
 
-            List<File> filesToCompile = KotlinSourceFileCollector.getDirtySourceFiles(dirtyFilesHolder);
-            filesToCompile.removeAll(allCompiledFiles);
-            allCompiledFiles.addAll(filesToCompile);
+            filesToCompile = KotlinSourceFileCollector.getDirtySourceFiles(dirtyFilesHolder);
+            if (IncrementalCompilation.ENABLED) {
+                // Files may be compiled several times during a build, until the ABI of the classes they depend on stops changing
+                incrementalCache = getIncrementalCache(context, representativeTarget);
+                removedFiles = KotlinSourceFileCollector.getRemovedKotlinFiles(dirtyFilesHolder, chunk);
+                filesToCompile = getFilesToCompileIncrementally(incrementalCache, filesToCompile, removedFiles, dependentsOfOtherChunks);
+            }
+            else {
+                filesToCompile.removeAll(allCompiledFiles);
+                allCompiledFiles.addAll(filesToCompile);
+            }
 
             File moduleFile = KotlinBuilderModuleScriptGenerator.generateModuleDescription(context, chunk, filesToCompile);
             if (moduleFile == null) {
+                if (incrementalCache != null && !removedFiles.isEmpty()) {
+                    // Only removed files: the dependents of their classes must be recompiled
+                    return updateIncrementalCache(context, chunk, incrementalCache, filesToCompile, removedFiles,
+                                                  Collections.<SimpleOutputItem>emptyList());
+                }
                 // No Kotlin sources found
                 return ExitCode.NOTHING_DONE;
             }
@@ -192,12 +219,6 @@ public class KotlinBuilder extends ModuleLevelBuilder {
         }
 
         for (SimpleOutputItem outputItem : outputItemCollector.getOutputs()) {
-            if (IncrementalCompilation.ENABLED) {
-                // TODO this is a hack: we don't remove
-                if (outputItem.getOutputFile().getName().endsWith("Package.class")) {
-                    continue;
-                }
-            }
             BuildTarget<?> target = null;
             Collection<File> sourceFiles = outputItem.getSourceFiles();
             if (sourceFiles != null && !sourceFiles.isEmpty()) {
@@ -211,19 +232,139 @@ public class KotlinBuilder extends ModuleLevelBuilder {
                                               paths(sourceFiles));
         }
 
-        if (IncrementalCompilation.ENABLED) {
-            // TODO should mark dependencies as dirty, as well
-            FSOperations.markDirty(context, chunk, new FileFilter() {
-                @Override
-                public boolean accept(@NotNull File file) {
-                    return !allCompiledFiles.contains(file);
-                }
-            });
-            return ExitCode.ADDITIONAL_PASS_REQUIRED;
+        if (incrementalCache != null) {
+            return updateIncrementalCache(context, chunk, incrementalCache, filesToCompile, removedFiles, outputItemCollector.getOutputs());
+        }
+        return ExitCode.OK;
+    }
+
+    @NotNull
+    private static List<File> getFilesToCompileIncrementally(
+            @NotNull IncrementalCache cache,
+            @NotNull List<File> dirtyFiles,
+            @NotNull Collection<File> removedFiles,
+            @NotNull Set<File> dependentsOfOtherChunks
+    ) {
+        Set<File> result = new THashSet<File>(FileUtil.FILE_HASHING_STRATEGY);
+        result.addAll(dirtyFiles);
+        result.addAll(dependentsOfOtherChunks);
+
+        Set<File> changedFiles = new THashSet<File>(result, FileUtil.FILE_HASHING_STRATEGY);
+        changedFiles.addAll(removedFiles);
+        result.addAll(cache.getSourcesOfSamePackages(changedFiles));
+        result.removeAll(removedFiles);
+
+        List<File> sorted = new ArrayList<File>(result);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    @NotNull
+    private static ExitCode updateIncrementalCache(
+            @NotNull CompileContext context,
+            @NotNull ModuleChunk chunk,
+            @NotNull IncrementalCache cache,
+            @NotNull List<File> compiledFiles,
+            @NotNull Collection<File> removedFiles,
+            @NotNull Collection<SimpleOutputItem> outputs
+    ) throws IOException {
+        // Without the information about the previous compilation (e.g. the first build with the cache) nothing is known about dependents
+        boolean dependenciesUnknown = cache.getAllSources().isEmpty();
+
+        IncrementalCache.Changes changes = cache.update(compiledFiles, removedFiles, outputs);
+        cache.save();
+
+        // Dependent chunks are built after all passes over this one, so they must see the changes of every pass, not only of the last
+        Map<ModuleBuildTarget, IncrementalCache.Changes> changesOfTargets = getChangesContainer(context);
+        IncrementalCache.Changes changesOfPreviousPasses = changesOfTargets.get(chunk.representativeTarget());
+        changesOfTargets.put(chunk.representativeTarget(),
+                             changesOfPreviousPasses != null ? changesOfPreviousPasses.merge(changes) : changes);
+
+        final Set<File> filesToRecompile = new THashSet<File>(FileUtil.FILE_HASHING_STRATEGY);
+        if (dependenciesUnknown || changes.isInlineFunctionsChanged()) {
+            filesToRecompile.addAll(getAllKotlinSourceFiles(chunk));
         }
         else {
+            filesToRecompile.addAll(cache.getDependents(changes.getChangedClasses()));
+        }
+        filesToRecompile.removeAll(compiledFiles);
+
+        // Some sources of a package facade were not compiled, e.g. because a new file was added to an existing package
+        Set<File> sourcesOfSamePackages = cache.getSourcesOfSamePackages(compiledFiles);
+        Set<File> compiledFileSet = new THashSet<File>(compiledFiles, FileUtil.FILE_HASHING_STRATEGY);
+        if (!compiledFileSet.containsAll(sourcesOfSamePackages)) {
+            filesToRecompile.addAll(sourcesOfSamePackages);
+        }
+
+        if (filesToRecompile.isEmpty()) {
             return ExitCode.OK;
         }
+
+        FSOperations.markDirty(context, chunk, new FileFilter() {
+            @Override
+            public boolean accept(@NotNull File file) {
+                return filesToRecompile.contains(file);
+            }
+        });
+        return ExitCode.ADDITIONAL_PASS_REQUIRED;
+    }
+
+    @NotNull
+    private static Set<File> getDependentsOfOtherChunks(@NotNull CompileContext context, @NotNull ModuleChunk chunk) {
+        Set<ModuleBuildTarget> checkedTargets = TARGETS_CHECKED_FOR_CHANGES_KEY.get(context);
+        if (checkedTargets == null) {
+            checkedTargets = new HashSet<ModuleBuildTarget>();
+            TARGETS_CHECKED_FOR_CHANGES_KEY.set(context, checkedTargets);
+        }
+        // Additional passes over the same chunk are only caused by its own changes
+        if (!checkedTargets.add(chunk.representativeTarget())) return Collections.emptySet();
+
+        Set<String> changedClasses = new HashSet<String>();
+        boolean inlineFunctionsChanged = false;
+        for (Map.Entry<ModuleBuildTarget, IncrementalCache.Changes> entry : getChangesContainer(context).entrySet()) {
+            if (chunk.getTargets().contains(entry.getKey())) continue;
+            changedClasses.addAll(entry.getValue().getChangedClasses());
+            inlineFunctionsChanged |= entry.getValue().isInlineFunctionsChanged();
+        }
+
+        if (inlineFunctionsChanged) {
+            return new HashSet<File>(getAllKotlinSourceFiles(chunk));
+        }
+        return getIncrementalCache(context, chunk.representativeTarget()).getDependents(changedClasses);
+    }
+
+    @NotNull
+    private static IncrementalCache getIncrementalCache(@NotNull CompileContext context, @NotNull ModuleBuildTarget target) {
+        Map<ModuleBuildTarget, IncrementalCache> caches = INCREMENTAL_CACHES_KEY.get(context);
+        if (caches == null) {
+            caches = new HashMap<ModuleBuildTarget, IncrementalCache>();
+            INCREMENTAL_CACHES_KEY.set(context, caches);
+        }
+        IncrementalCache cache = caches.get(target);
+        if (cache == null) {
+            cache = IncrementalCache.load(context.getProjectDescriptor().dataManager.getDataPaths().getTargetDataRoot(target));
+            caches.put(target, cache);
+        }
+        return cache;
+    }
+
+    @NotNull
+    private static Map<ModuleBuildTarget, IncrementalCache.Changes> getChangesContainer(@NotNull CompileContext context) {
+        Map<ModuleBuildTarget, IncrementalCache.Changes> changes = CHANGES_KEY.get(context);
+        if (changes == null) {
+            changes = new HashMap<ModuleBuildTarget, IncrementalCache.Changes>();
+            CHANGES_KEY.set(context, changes);
+        }
+        return changes;
+    }
+
+    @NotNull
+    private static List<File> getAllKotlinSourceFiles(@NotNull ModuleChunk chunk) {
+        List<File> result = new ArrayList<File>();
+        for (ModuleBuildTarget target : chunk.getTargets()) {
+            result.addAll(KotlinSourceFileCollector.getAllKotlinSourceFiles(target));
+        }
+        return result;
     }
 
     private static Set<File> getAllCompiledFilesContainer(CompileContext context) {
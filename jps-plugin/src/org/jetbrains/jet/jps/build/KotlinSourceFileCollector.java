@@ -22,6 +22,7 @@ import com.intellij.util.Function;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.ModuleChunk;
 import org.jetbrains.jps.builders.DirtyFilesHolder;
 import org.jetbrains.jps.builders.FileProcessor;
 import org.jetbrains.jps.builders.java.JavaSourceRootDescriptor;
@@ -55,6 +56,23 @@ public class KotlinSourceFileCollector {
         return sourceFiles;
     }
 
+    @NotNull
+    public static List<File> getRemovedKotlinFiles(
+            @NotNull DirtyFilesHolder<JavaSourceRootDescriptor, ModuleBuildTarget> dirtyFilesHolder,
+            @NotNull ModuleChunk chunk
+    ) {
+        List<File> result = ContainerUtil.newArrayList();
+        for (ModuleBuildTarget target : chunk.getTargets()) {
+            for (String path : dirtyFilesHolder.getRemovedFiles(target)) {
+                File file = new File(path);
+                if (isKotlinSourceFile(file)) {
+                    result.add(file);
+                }
+            }
+        }
+        return result;
+    }
+
     @NotNull
     public static List<File> getAllKotlinSourceFiles(@NotNull ModuleBuildTarget target) {
         final List<File> moduleExcludes = ContainerUtil.map(target.getModule().getExcludeRootsList().getUrls(), new Function<String, File>() {
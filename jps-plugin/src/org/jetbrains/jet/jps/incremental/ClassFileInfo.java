@@ -0,0 +1,344 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jps.incremental;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.descriptors.serialization.BitEncoding;
+import org.jetbrains.jet.descriptors.serialization.ProtoBuf;
+import org.jetbrains.org.objectweb.asm.*;
+import org.jetbrains.org.objectweb.asm.signature.SignatureReader;
+import org.jetbrains.org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * What the incremental cache needs to know about a compiled class: a hash of its ABI, its supertypes and the classes it references.
+ *
+ * The ABI of a Kotlin class is its serialized descriptors (the data of the KotlinClass and KotlinPackage annotations written with
+ * DescriptorSerializer) plus the values of its constants. Classes with no such annotations (package parts, lambdas, trait
+ * implementations) have no ABI of their own: nothing is compiled against them.
+ *
+ * Referenced classes are taken from the constant pool, from the descriptors and generic signatures of the class and its members
+ * (a class used only as a type argument is mentioned only there), and from the name table of the serialized descriptors.
+ */
+/* package */ class ClassFileInfo {
+    private static final String KOTLIN_CLASS_DESC = "Lkotlin/jvm/internal/KotlinClass;";
+    private static final String KOTLIN_PACKAGE_DESC = "Lkotlin/jvm/internal/KotlinPackage;";
+    private static final String KOTLIN_SYNTHETIC_CLASS_DESC = "Lkotlin/jvm/internal/KotlinSyntheticClass;";
+    private static final String DATA_FIELD_NAME = "data";
+
+    private static final int CONSTANT_CLASS_TAG = 7;
+
+    private final String internalName;
+    private final List<String> supertypes;
+    private final Set<String> referencedClasses;
+    private final Long abiHash;
+    private final boolean isPackageFacade;
+
+    private ClassFileInfo(
+            @NotNull String internalName,
+            @NotNull List<String> supertypes,
+            @NotNull Set<String> referencedClasses,
+            @Nullable Long abiHash,
+            boolean isPackageFacade
+    ) {
+        this.internalName = internalName;
+        this.supertypes = supertypes;
+        this.referencedClasses = referencedClasses;
+        this.abiHash = abiHash;
+        this.isPackageFacade = isPackageFacade;
+    }
+
+    @NotNull
+    public String getInternalName() {
+        return internalName;
+    }
+
+    @NotNull
+    public List<String> getSupertypes() {
+        return supertypes;
+    }
+
+    @NotNull
+    public Set<String> getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    /**
+     * @return null if the class has no ABI of its own
+     */
+    @Nullable
+    public Long getAbiHash() {
+        return abiHash;
+    }
+
+    public boolean isPackageFacade() {
+        return isPackageFacade;
+    }
+
+    /**
+     * @param includeCode whether the whole class file is a part of the ABI: bodies of inline functions are copied to the call sites,
+     *                    but are not a part of the serialized descriptors
+     */
+    @NotNull
+    public static ClassFileInfo read(@NotNull byte[] bytes, boolean includeCode) {
+        ClassReader reader = new ClassReader(bytes);
+
+        final MessageDigest digest = createDigest();
+        final boolean[] hasKotlinAbi = new boolean[1];
+        final boolean[] isPackageFacade = new boolean[1];
+        final boolean[] isSynthetic = new boolean[1];
+        final Set<String> referencedClasses = new HashSet<String>();
+        final List<String> serializedData = new ArrayList<String>();
+
+        reader.accept(new ClassVisitor(Opcodes.ASM5) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                addReferencedClasses(referencedClasses, signature);
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                if (KOTLIN_CLASS_DESC.equals(desc) || KOTLIN_PACKAGE_DESC.equals(desc)) {
+                    hasKotlinAbi[0] = true;
+                    isPackageFacade[0] = KOTLIN_PACKAGE_DESC.equals(desc);
+                    update(digest, desc);
+                    return new AbiAnnotationVisitor(digest, serializedData);
+                }
+                if (KOTLIN_SYNTHETIC_CLASS_DESC.equals(desc)) {
+                    isSynthetic[0] = true;
+                }
+                return null;
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+                if (value != null && (access & Opcodes.ACC_PRIVATE) == 0) {
+                    // Constants are inlined into the code which uses them
+                    update(digest, name);
+                    update(digest, String.valueOf(value));
+                }
+                addReferencedClass(referencedClasses, Type.getType(desc));
+                addReferencedClasses(referencedClasses, signature);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                Type methodType = Type.getMethodType(desc);
+                addReferencedClass(referencedClasses, methodType.getReturnType());
+                for (Type parameterType : methodType.getArgumentTypes()) {
+                    addReferencedClass(referencedClasses, parameterType);
+                }
+                addReferencedClasses(referencedClasses, signature);
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            // Offset is 0 for the second slot of long and double constants
+            if (offset > 0 && reader.b[offset - 1] == CONSTANT_CLASS_TAG) {
+                addReferencedClass(referencedClasses, Type.getObjectType(reader.readUTF8(offset, buffer)));
+            }
+        }
+
+        if (!serializedData.isEmpty()) {
+            addClassesFromNameTable(referencedClasses, serializedData);
+        }
+
+        String internalName = reader.getClassName();
+        referencedClasses.remove(internalName);
+
+        List<String> supertypes = new ArrayList<String>();
+        if (reader.getSuperName() != null) {
+            supertypes.add(reader.getSuperName());
+        }
+        supertypes.addAll(Arrays.asList(reader.getInterfaces()));
+
+        Long abiHash;
+        if (includeCode) {
+            digest.update(bytes);
+            abiHash = toLong(digest.digest());
+        }
+        else if (hasKotlinAbi[0]) {
+            abiHash = toLong(digest.digest());
+        }
+        else if (isSynthetic[0]) {
+            abiHash = null;
+        }
+        else {
+            // Not a Kotlin class, take everything into account to be on the safe side
+            digest.update(bytes);
+            abiHash = toLong(digest.digest());
+        }
+
+        return new ClassFileInfo(internalName, supertypes, referencedClasses, abiHash, isPackageFacade[0]);
+    }
+
+    private static void addReferencedClass(@NotNull Set<String> result, @NotNull Type type) {
+        Type elementType = type.getSort() == Type.ARRAY ? type.getElementType() : type;
+        if (elementType.getSort() == Type.OBJECT) {
+            result.add(elementType.getInternalName());
+        }
+    }
+
+    private static void addReferencedClasses(@NotNull final Set<String> result, @Nullable String signature) {
+        if (signature == null) return;
+
+        new SignatureReader(signature).accept(new SignatureVisitor(Opcodes.ASM5) {
+            // Internal names of the class types being visited: type arguments are visited between a class and its inner class
+            private final Deque<String> classTypes = new ArrayDeque<String>();
+
+            @Override
+            public void visitClassType(String name) {
+                classTypes.push(name);
+                result.add(name);
+            }
+
+            @Override
+            public void visitInnerClassType(String name) {
+                String innerClass = classTypes.pop() + "$" + name;
+                classTypes.push(innerClass);
+                result.add(innerClass);
+            }
+
+            @Override
+            public void visitEnd() {
+                classTypes.pop();
+            }
+        });
+    }
+
+    /**
+     * Serialized descriptors start with the tables of the names they use, see NameSerializationUtil.
+     * Classes mentioned only in the descriptors (e.g. in types which are erased in the class file) are found there.
+     */
+    private static void addClassesFromNameTable(@NotNull Set<String> result, @NotNull List<String> serializedData) {
+        InputStream input = new ByteArrayInputStream(BitEncoding.decodeBytes(serializedData.toArray(new String[serializedData.size()])));
+        try {
+            ProtoBuf.SimpleNameTable simpleNames = ProtoBuf.SimpleNameTable.parseDelimitedFrom(input);
+            ProtoBuf.QualifiedNameTable qualifiedNames = ProtoBuf.QualifiedNameTable.parseDelimitedFrom(input);
+            for (int i = 0; i < qualifiedNames.getQualifiedNameCount(); i++) {
+                if (qualifiedNames.getQualifiedName(i).getKind() == ProtoBuf.QualifiedNameTable.QualifiedName.Kind.CLASS) {
+                    result.add(getInternalName(simpleNames, qualifiedNames, i));
+                }
+            }
+        }
+        catch (IOException e) {
+            // Can't happen when reading from memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static String getInternalName(
+            @NotNull ProtoBuf.SimpleNameTable simpleNames,
+            @NotNull ProtoBuf.QualifiedNameTable qualifiedNames,
+            int index
+    ) {
+        ProtoBuf.QualifiedNameTable.QualifiedName qualifiedName = qualifiedNames.getQualifiedName(index);
+        String shortName = simpleNames.getName(qualifiedName.getShortName());
+        if (!qualifiedName.hasParentQualifiedName()) return shortName;
+
+        int parentIndex = qualifiedName.getParentQualifiedName();
+        boolean isNested = qualifiedNames.getQualifiedName(parentIndex).getKind() == ProtoBuf.QualifiedNameTable.QualifiedName.Kind.CLASS;
+        return getInternalName(simpleNames, qualifiedNames, parentIndex) + (isNested ? "$" : "/") + shortName;
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(@NotNull MessageDigest digest, @NotNull String string) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            digest.update((byte) (c >> 8));
+            digest.update((byte) c);
+        }
+        // Separator, so that different sequences of strings don't produce the same input
+        digest.update((byte) 0);
+    }
+
+    private static long toLong(@NotNull byte[] hash) {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result = (result << 8) | (hash[i] & 0xFF);
+        }
+        return result;
+    }
+
+    private static class AbiAnnotationVisitor extends AnnotationVisitor {
+        private final MessageDigest digest;
+        // Strings of the data array are added here, null for other arrays
+        @Nullable
+        private final List<String> serializedData;
+
+        public AbiAnnotationVisitor(@NotNull MessageDigest digest, @Nullable List<String> serializedData) {
+            super(Opcodes.ASM5);
+            this.digest = digest;
+            this.serializedData = serializedData;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            updateWithName(name);
+            update(digest, String.valueOf(value));
+            if (serializedData != null && name == null && value instanceof String) {
+                serializedData.add((String) value);
+            }
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            visit(name, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            updateWithName(name);
+            return new AbiAnnotationVisitor(digest, DATA_FIELD_NAME.equals(name) ? serializedData : null);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            updateWithName(name);
+            update(digest, desc);
+            return new AbiAnnotationVisitor(digest, null);
+        }
+
+        private void updateWithName(@Nullable String name) {
+            // Elements of arrays have no names
+            if (name != null) {
+                update(digest, name);
+            }
+        }
+    }
+}
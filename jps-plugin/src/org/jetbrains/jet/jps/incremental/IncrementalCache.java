@@ -0,0 +1,419 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jps.incremental;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.compiler.runner.SimpleOutputItem;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Dependencies between Kotlin sources of a build target and the compiled classes, stored under the JPS data directory of the target.
+ *
+ * For each class it keeps a hash of the class ABI (see {@link ClassFileInfo}) and its supertypes, for each source the classes
+ * compiled from it and the classes its compiled code refers to. After a compilation the new hashes are compared to the old ones,
+ * and only the sources which refer to the classes with a changed ABI (or to their subclasses) have to be recompiled.
+ */
+public class IncrementalCache {
+    private static final Logger LOG = Logger.getInstance(IncrementalCache.class);
+
+    private static final String CACHE_DIRECTORY_NAME = "kotlin";
+    private static final String CACHE_FILE_NAME = "incremental-cache.bin";
+    private static final int VERSION = 1;
+
+    private static final Pattern INLINE_MODIFIER = Pattern.compile("\\binline\\b");
+
+    private final File file;
+
+    private final Map<String, Long> abiHashes = new HashMap<String, Long>();
+    private final Map<String, List<String>> supertypes = new HashMap<String, List<String>>();
+    private final Set<String> packageFacades = new HashSet<String>();
+    private final Set<String> classesWithInlineFunctions = new HashSet<String>();
+    private final Map<String, Set<String>> sourceToClasses = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> sourceToReferencedClasses = new HashMap<String, Set<String>>();
+
+    private IncrementalCache(@NotNull File file) {
+        this.file = file;
+    }
+
+    public static class Changes {
+        private final Set<String> changedClasses;
+        private final boolean inlineFunctionsChanged;
+
+        private Changes(@NotNull Set<String> changedClasses, boolean inlineFunctionsChanged) {
+            this.changedClasses = changedClasses;
+            this.inlineFunctionsChanged = inlineFunctionsChanged;
+        }
+
+        /**
+         * @return internal names of the classes which ABI has changed, were added or removed, including their subclasses
+         */
+        @NotNull
+        public Set<String> getChangedClasses() {
+            return changedClasses;
+        }
+
+        /**
+         * Inlined code leaves no references to the class it was inlined from, so the dependents of such classes are unknown
+         */
+        public boolean isInlineFunctionsChanged() {
+            return inlineFunctionsChanged;
+        }
+
+        /**
+         * @return the changes of both this and the other pass over the same target
+         */
+        @NotNull
+        public Changes merge(@NotNull Changes other) {
+            Set<String> classes = new HashSet<String>(changedClasses);
+            classes.addAll(other.changedClasses);
+            return new Changes(classes, inlineFunctionsChanged || other.inlineFunctionsChanged);
+        }
+    }
+
+    @NotNull
+    public static IncrementalCache load(@NotNull File targetDataRoot) {
+        IncrementalCache cache = new IncrementalCache(new File(new File(targetDataRoot, CACHE_DIRECTORY_NAME), CACHE_FILE_NAME));
+        if (!cache.file.exists()) return cache;
+
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cache.file)));
+            try {
+                if (input.readInt() == VERSION) {
+                    cache.read(input);
+                    return cache;
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        catch (IOException e) {
+            LOG.info("Kotlin incremental cache is corrupted and will be rebuilt: " + cache.file, e);
+        }
+
+        // The cache is empty, so all the classes will be considered changed after the first compilation
+        return new IncrementalCache(cache.file);
+    }
+
+    public void save() throws IOException {
+        FileUtil.createParentDirs(file);
+
+        // Written to a temporary file first, so that a build interrupted while saving never leaves a truncated cache behind
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        boolean written = false;
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            output.writeInt(VERSION);
+            write(output);
+            written = true;
+        }
+        finally {
+            output.close();
+            if (!written) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        }
+
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            //noinspection ResultOfMethodCallIgnored
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * @return the sources which contribute to the same package facades as the given ones: a package facade is generated
+     * from all the sources of its package at once, so they must be recompiled together
+     */
+    @NotNull
+    public Set<File> getSourcesOfSamePackages(@NotNull Collection<File> sources) {
+        Set<String> facades = new HashSet<String>();
+        for (File source : sources) {
+            Set<String> classes = sourceToClasses.get(path(source));
+            if (classes == null) continue;
+            for (String className : classes) {
+                if (packageFacades.contains(className)) {
+                    facades.add(className);
+                }
+            }
+        }
+        if (facades.isEmpty()) return Collections.emptySet();
+
+        Set<File> result = new HashSet<File>();
+        for (Map.Entry<String, Set<String>> entry : sourceToClasses.entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), facades)) {
+                File source = new File(entry.getKey());
+                if (source.exists()) {
+                    result.add(source);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the sources which refer to any of the given classes
+     */
+    @NotNull
+    public Set<File> getDependents(@NotNull Collection<String> classes) {
+        if (classes.isEmpty()) return Collections.emptySet();
+
+        Set<File> result = new HashSet<File>();
+        for (Map.Entry<String, Set<String>> entry : sourceToReferencedClasses.entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), classes)) {
+                File source = new File(entry.getKey());
+                if (source.exists()) {
+                    result.add(source);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return all the sources known to the cache which still exist
+     */
+    @NotNull
+    public Set<File> getAllSources() {
+        Set<File> result = new HashSet<File>();
+        for (String path : sourceToClasses.keySet()) {
+            File source = new File(path);
+            if (source.exists()) {
+                result.add(source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces everything known about the given sources with the information from the given outputs of their compilation
+     */
+    @NotNull
+    public Changes update(
+            @NotNull Collection<File> compiledSources,
+            @NotNull Collection<File> removedSources,
+            @NotNull Collection<SimpleOutputItem> outputs
+    ) throws IOException {
+        Set<String> oldClasses = new HashSet<String>();
+        for (File source : compiledSources) {
+            removeSource(path(source), oldClasses);
+        }
+        for (File source : removedSources) {
+            removeSource(path(source), oldClasses);
+        }
+
+        Map<String, Long> oldHashes = new HashMap<String, Long>();
+        for (String className : oldClasses) {
+            oldHashes.put(className, abiHashes.remove(className));
+            supertypes.remove(className);
+            packageFacades.remove(className);
+        }
+
+        Set<String> changed = new HashSet<String>();
+        Set<String> newClasses = new HashSet<String>();
+        Set<String> newClassesWithInlineFunctions = new HashSet<String>();
+        Map<File, Boolean> declaresInlineFunctions = new HashMap<File, Boolean>();
+
+        for (SimpleOutputItem output : outputs) {
+            File outputFile = output.getOutputFile();
+            if (!outputFile.getName().endsWith(".class")) continue;
+
+            boolean includeCode = false;
+            for (File source : output.getSourceFiles()) {
+                includeCode |= declaresInlineFunctions(source, declaresInlineFunctions);
+            }
+
+            ClassFileInfo info = ClassFileInfo.read(FileUtil.loadFileBytes(outputFile), includeCode);
+            String className = info.getInternalName();
+            newClasses.add(className);
+
+            if (info.getAbiHash() != null) {
+                abiHashes.put(className, info.getAbiHash());
+            }
+            supertypes.put(className, info.getSupertypes());
+            if (info.isPackageFacade()) {
+                packageFacades.add(className);
+            }
+            if (includeCode) {
+                newClassesWithInlineFunctions.add(className);
+            }
+
+            for (File source : output.getSourceFiles()) {
+                String sourcePath = path(source);
+                getOrCreate(sourceToClasses, sourcePath).add(className);
+                getOrCreate(sourceToReferencedClasses, sourcePath).addAll(info.getReferencedClasses());
+            }
+
+            if (oldClasses.contains(className) ? !equal(oldHashes.get(className), info.getAbiHash()) : info.getAbiHash() != null) {
+                changed.add(className);
+            }
+        }
+
+        for (String className : oldClasses) {
+            if (!newClasses.contains(className)) {
+                // Removed class
+                changed.add(className);
+            }
+        }
+
+        boolean inlineFunctionsChanged = false;
+        for (String className : changed) {
+            if (classesWithInlineFunctions.contains(className) || newClassesWithInlineFunctions.contains(className)) {
+                inlineFunctionsChanged = true;
+                break;
+            }
+        }
+        classesWithInlineFunctions.removeAll(oldClasses);
+        classesWithInlineFunctions.addAll(newClassesWithInlineFunctions);
+
+        return new Changes(addSubclasses(changed), inlineFunctionsChanged);
+    }
+
+    private void removeSource(@NotNull String sourcePath, @NotNull Set<String> removedClasses) {
+        Set<String> classes = sourceToClasses.remove(sourcePath);
+        if (classes != null) {
+            removedClasses.addAll(classes);
+        }
+        sourceToReferencedClasses.remove(sourcePath);
+    }
+
+    @NotNull
+    private Set<String> addSubclasses(@NotNull Set<String> classes) {
+        if (classes.isEmpty()) return classes;
+
+        // Members inherited from a changed class are a part of the ABI of all its subclasses, but are not serialized in them
+        Map<String, List<String>> subclasses = new HashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> entry : supertypes.entrySet()) {
+            for (String supertype : entry.getValue()) {
+                List<String> list = subclasses.get(supertype);
+                if (list == null) {
+                    list = new ArrayList<String>(1);
+                    subclasses.put(supertype, list);
+                }
+                list.add(entry.getKey());
+            }
+        }
+
+        Set<String> result = new HashSet<String>(classes);
+        Deque<String> queue = new ArrayDeque<String>(classes);
+        while (!queue.isEmpty()) {
+            List<String> list = subclasses.get(queue.poll());
+            if (list == null) continue;
+            for (String subclass : list) {
+                if (result.add(subclass)) {
+                    queue.add(subclass);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean declaresInlineFunctions(@NotNull File source, @NotNull Map<File, Boolean> cache) throws IOException {
+        Boolean result = cache.get(source);
+        if (result == null) {
+            // A rough check, which may only give false positives
+            result = source.exists() && INLINE_MODIFIER.matcher(FileUtil.loadFile(source)).find();
+            cache.put(source, result);
+        }
+        return result;
+    }
+
+    private void read(@NotNull DataInputStream input) throws IOException {
+        int classCount = input.readInt();
+        for (int i = 0; i < classCount; i++) {
+            String className = input.readUTF();
+            if (input.readBoolean()) {
+                abiHashes.put(className, input.readLong());
+            }
+            supertypes.put(className, readStrings(input, new ArrayList<String>()));
+            byte flags = input.readByte();
+            if ((flags & 1) != 0) packageFacades.add(className);
+            if ((flags & 2) != 0) classesWithInlineFunctions.add(className);
+        }
+
+        int sourceCount = input.readInt();
+        for (int i = 0; i < sourceCount; i++) {
+            String sourcePath = input.readUTF();
+            sourceToClasses.put(sourcePath, readStrings(input, new HashSet<String>()));
+            sourceToReferencedClasses.put(sourcePath, readStrings(input, new HashSet<String>()));
+        }
+    }
+
+    private void write(@NotNull DataOutputStream output) throws IOException {
+        output.writeInt(supertypes.size());
+        for (Map.Entry<String, List<String>> entry : supertypes.entrySet()) {
+            String className = entry.getKey();
+            output.writeUTF(className);
+            Long hash = abiHashes.get(className);
+            output.writeBoolean(hash != null);
+            if (hash != null) {
+                output.writeLong(hash);
+            }
+            writeStrings(output, entry.getValue());
+            output.writeByte((packageFacades.contains(className) ? 1 : 0) | (classesWithInlineFunctions.contains(className) ? 2 : 0));
+        }
+
+        output.writeInt(sourceToClasses.size());
+        for (Map.Entry<String, Set<String>> entry : sourceToClasses.entrySet()) {
+            output.writeUTF(entry.getKey());
+            writeStrings(output, entry.getValue());
+            Set<String> referencedClasses = sourceToReferencedClasses.get(entry.getKey());
+            writeStrings(output, referencedClasses != null ? referencedClasses : Collections.<String>emptySet());
+        }
+    }
+
+    @NotNull
+    private static <C extends Collection<String>> C readStrings(@NotNull DataInputStream input, @NotNull C result) throws IOException {
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            result.add(input.readUTF());
+        }
+        return result;
+    }
+
+    private static void writeStrings(@NotNull DataOutputStream output, @NotNull Collection<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            output.writeUTF(string);
+        }
+    }
+
+    @NotNull
+    private static Set<String> getOrCreate(@NotNull Map<String, Set<String>> map, @NotNull String key) {
+        Set<String> result = map.get(key);
+        if (result == null) {
+            result = new HashSet<String>();
+            map.put(key, result);
+        }
+        return result;
+    }
+
+    private static boolean equal(Long a, Long b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @NotNull
+    private static String path(@NotNull File file) {
+        return FileUtil.toSystemIndependentName(file.getAbsolutePath());
+    }
+}
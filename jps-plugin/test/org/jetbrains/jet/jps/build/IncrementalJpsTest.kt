@@ -29,6 +29,7 @@ import org.jetbrains.jps.model.java.JpsJavaExtensionService
 import org.jetbrains.jps.util.JpsPathUtil
 import com.intellij.testFramework.UsefulTestCase
 import org.jetbrains.jet.config.IncrementalCompilation
+import org.jetbrains.jps.model.module.JpsModule
 
 public class IncrementalJpsTest : JpsBuildTestCase() {
     private val testDataDir: File
@@ -42,7 +43,9 @@ public class IncrementalJpsTest : JpsBuildTestCase() {
 
         workDir = FileUtil.createTempDirectory("jps-build", null)
 
-        FileUtil.copyDir(testDataDir, File(workDir, "src"), { it.getName().endsWith(".kt") || it.getName().endsWith(".java") })
+        FileUtil.copyDir(testDataDir, File(workDir, "src"), {
+            it.isDirectory() || it.getName().endsWith(".kt") || it.getName().endsWith(".java")
+        })
 
         JpsJavaExtensionService.getInstance().getOrCreateProjectExtension(myProject!!)
                 .setOutputUrl(JpsPathUtil.pathToUrl(getAbsolutePath("out")))
@@ -72,11 +75,36 @@ public class IncrementalJpsTest : JpsBuildTestCase() {
         addModule("module", array<String>(getAbsolutePath("src")), null, null, addJdk("my jdk"))
         AbstractKotlinJpsBuildTestCase.addKotlinRuntimeDependency(myProject!!)
 
+        buildAndCheckLog()
+    }
+
+    // Sources of each module are in the subdirectory of the test data named after it, every module depends on the previous one
+    private fun doMultiModuleTest(vararg moduleNames: String) {
+        if (!IncrementalCompilation.ENABLED) {
+            return
+        }
+
+        val jdk = addJdk("my jdk")
+        var previousModule: JpsModule? = null
+        for (moduleName in moduleNames) {
+            val module = addModule(moduleName, array<String>(getAbsolutePath("src/" + moduleName)), null, null, jdk)
+            if (previousModule != null) {
+                module.getDependenciesList().addModuleDependency(previousModule!!)
+            }
+            previousModule = module
+        }
+        AbstractKotlinJpsBuildTestCase.addKotlinRuntimeDependency(myProject!!)
+
+        buildAndCheckLog()
+    }
+
+    private fun buildAndCheckLog() {
         buildGetLog()
 
         FileUtil.processFilesRecursively(testDataDir, {
             if (it!!.getName().endsWith(".new")) {
-                it.copyTo(File(workDir, "src/" + it.getName().trimTrailing(".new")))
+                val relativePath = FileUtil.getRelativePath(testDataDir, it)!!
+                it.copyTo(File(workDir, "src/" + relativePath.trimTrailing(".new")))
             }
 
             true
@@ -104,10 +132,22 @@ public class IncrementalJpsTest : JpsBuildTestCase() {
         doTest()
     }
 
+    fun testClassSignatureChanged() {
+        doTest()
+    }
+
+    fun testClassUsedOnlyAsTypeArgument() {
+        doTest()
+    }
+
     fun testTopLevelMembersInTwoPackages() {
         doTest()
     }
 
+    fun testClassSignatureChangedInDependency() {
+        doMultiModuleTest("module1", "module2")
+    }
+
     private class MyLogger(val rootPath: String) : ProjectBuilderLoggerBase() {
         private val logBuf = StringBuilder()
         public val log: String
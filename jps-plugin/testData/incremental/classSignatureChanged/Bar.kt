@@ -0,0 +1,5 @@
+package test
+
+class Bar {
+    fun g() = Foo().f()
+}
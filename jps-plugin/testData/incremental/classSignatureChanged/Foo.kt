@@ -0,0 +1,5 @@
+package test
+
+class Foo {
+    fun f(): Int = 1
+}
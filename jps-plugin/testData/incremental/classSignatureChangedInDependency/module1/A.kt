@@ -0,0 +1,5 @@
+package test
+
+class A {
+    fun f(): Int = 1
+}
@@ -0,0 +1,5 @@
+package test
+
+class B {
+    fun g() = A().f()
+}
@@ -0,0 +1,5 @@
+package test
+
+class C {
+    fun h() = A().f()
+}
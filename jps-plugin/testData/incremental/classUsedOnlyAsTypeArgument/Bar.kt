@@ -0,0 +1,5 @@
+package test
+
+class Bar {
+    fun foos(): List<Foo>? = null
+}
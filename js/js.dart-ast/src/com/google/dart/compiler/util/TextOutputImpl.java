@@ -4,9 +4,17 @@
 
 package com.google.dart.compiler.util;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 
 public class TextOutputImpl implements TextOutput {
+    // The buffer is handed to the writer at the first line break after it grows past this size
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
     private final boolean compact;
     private int identLevel = 0;
     private final static int indentGranularity = 2;
@@ -19,17 +27,63 @@ public class TextOutputImpl implements TextOutput {
 
     private OutListener outListener;
 
+    @Nullable
+    private final Writer writer;
+    @Nullable
+    private IOException writeError;
+
     public TextOutputImpl() {
         this(false);
     }
 
+    /**
+     * Creates an output which passes the text to the writer as it is printed instead of keeping all of it in memory.
+     * {@link #flush()} should be called after the last text is printed; {@link #toString()} returns only the text which
+     * has not been written yet.
+     */
+    public TextOutputImpl(@NotNull Writer writer) {
+        this(false, writer);
+    }
+
     public boolean isCompact() {
         return compact;
     }
 
     public TextOutputImpl(boolean compact) {
+        this(compact, null);
+    }
+
+    private TextOutputImpl(boolean compact, @Nullable Writer writer) {
         this.compact = compact;
-        out = new StringBuilder();
+        this.writer = writer;
+        out = writer != null ? new StringBuilder(FLUSH_THRESHOLD + 1024) : new StringBuilder();
+    }
+
+    /**
+     * Writes the buffered text to the writer this output was created with and rethrows the first error of writing, if any.
+     * The writer itself is neither flushed nor closed.
+     */
+    public void flush() throws IOException {
+        if (writer != null) {
+            flushBuffer();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    private void flushBuffer() {
+        assert writer != null;
+        if (writeError == null) {
+            try {
+                writer.write(out.toString());
+            }
+            catch (IOException e) {
+                // Reported by flush(), the printing visitors can't handle checked exceptions
+                writeError = e;
+            }
+        }
+        out.setLength(0);
     }
 
     @Override
@@ -81,6 +135,9 @@ public class TextOutputImpl implements TextOutput {
         if (outListener != null) {
             outListener.newLined();
         }
+        if (writer != null && out.length() >= FLUSH_THRESHOLD) {
+            flushBuffer();
+        }
     }
 
     @Override
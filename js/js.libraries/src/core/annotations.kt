@@ -6,3 +6,5 @@ native
 public annotation class library(name : String = "")
 native
 public annotation class enumerable()
+native
+public annotation class entryPoint()
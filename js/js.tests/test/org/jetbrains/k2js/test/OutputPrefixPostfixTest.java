@@ -21,9 +21,12 @@ import com.intellij.openapi.util.io.FileUtil;
 import junit.framework.Test;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.config.EcmaVersion;
 import org.jetbrains.k2js.facade.K2JSTranslator;
 import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.config.TestConfig;
 import org.jetbrains.k2js.test.config.TestConfigFactory;
 import org.jetbrains.k2js.test.semantics.TranslatorTestCaseBuilder;
 import org.jetbrains.k2js.test.utils.TranslationUtils;
@@ -63,9 +66,19 @@ public final class OutputPrefixPostfixTest extends SingleFileTranslationTest {
             @NotNull EcmaVersion version,
             @NotNull TestConfigFactory configFactory
     ) throws Exception {
-        TranslationUtils.translateFiles(mainCallParameters, createJetFileList(project, files, null),
-                                        outputFile, outputPrefixFile, outputPostfixFile,
-                                        getConfig(project, version, configFactory));
+        List<JetFile> jetFiles = createJetFileList(project, files, null);
+        Config config = getConfig(project, version, configFactory);
+        TranslationUtils.translateFiles(mainCallParameters, jetFiles, outputFile, outputPrefixFile, outputPostfixFile, config);
+        TranslationUtils.checkStreamedOutput(mainCallParameters, jetFiles, outputFile, outputPrefixFile, outputPostfixFile, config);
+
+        // The source map is shifted by the lines of the prefix, also when the output is streamed
+        String outputFileWithSourcemap = new File(new File(new File(outputFile).getParentFile(), "withSourcemap"),
+                                                  new File(outputFile).getName()).getPath();
+        Config configWithSourcemap = getConfig(project, version, TestConfig.FACTORY_WITH_SOURCEMAP);
+        TranslationUtils.translateFiles(mainCallParameters, jetFiles, outputFileWithSourcemap, outputPrefixFile, outputPostfixFile,
+                                        configWithSourcemap);
+        TranslationUtils.checkStreamedOutput(mainCallParameters, jetFiles, outputFileWithSourcemap, outputPrefixFile, outputPostfixFile,
+                                             configWithSourcemap);
     }
 
     @Override
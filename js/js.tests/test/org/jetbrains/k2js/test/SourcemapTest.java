@@ -19,6 +19,8 @@ package org.jetbrains.k2js.test;
 import com.intellij.openapi.project.Project;
 import junit.framework.Test;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.config.EcmaVersion;
 import org.jetbrains.k2js.facade.MainCallParameters;
 import org.jetbrains.k2js.test.config.TestConfig;
@@ -52,9 +54,10 @@ public final class SourcemapTest extends SingleFileTranslationTest {
             @NotNull EcmaVersion version,
             @NotNull TestConfigFactory configFactory
     ) throws Exception {
-        TranslationUtils.translateFiles(mainCallParameters, createJetFileList(project, files, null),
-                                        outputFile, null, null,
-                                        getConfig(project, version, configFactory));
+        List<JetFile> jetFiles = createJetFileList(project, files, null);
+        Config config = getConfig(project, version, configFactory);
+        TranslationUtils.translateFiles(mainCallParameters, jetFiles, outputFile, null, null, config);
+        TranslationUtils.checkStreamedOutput(mainCallParameters, jetFiles, outputFile, null, null, config);
     }
 
     @NotNull
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test;
+
+import com.google.dart.compiler.util.TextOutputImpl;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+public class StreamedTextOutputTest extends TestCase {
+    // Much more than the size after which TextOutputImpl hands its buffer to the writer
+    private static final int LINES = 20000;
+
+    public void testOutputLargerThanBufferIsTheSameAsNotStreamed() throws IOException {
+        TextOutputImpl expected = new TextOutputImpl();
+        print(expected);
+
+        StringWriter writer = new StringWriter();
+        TextOutputImpl streamed = new TextOutputImpl(writer);
+        print(streamed);
+
+        assertTrue("The text should be written while it is printed", writer.getBuffer().length() > 0);
+        assertTrue("Only the tail of the text should be buffered", streamed.toString().length() < expected.toString().length() / 2);
+
+        streamed.flush();
+        assertEquals(expected.toString(), writer.toString());
+        assertEquals(expected.getPosition(), streamed.getPosition());
+        assertEquals(expected.getLine(), streamed.getLine());
+        assertEquals(expected.getColumn(), streamed.getColumn());
+    }
+
+    public void testWriteErrorIsReportedByFlush() {
+        TextOutputImpl output = new TextOutputImpl(new Writer() {
+            @Override
+            public void write(@NotNull char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Disk is full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        print(output);
+
+        try {
+            output.flush();
+            fail("The write error should be rethrown");
+        }
+        catch (IOException e) {
+            assertEquals("Disk is full", e.getMessage());
+        }
+    }
+
+    private static void print(@NotNull TextOutputImpl output) {
+        for (int i = 0; i < LINES; i++) {
+            if (i % 10 == 0) {
+                output.indentIn();
+            }
+            output.print("var x");
+            output.print(i);
+            output.print(" = ");
+            output.print(i * 0.5);
+            output.print(';');
+            output.newline();
+            if (i % 10 == 9) {
+                output.indentOut();
+            }
+        }
+        output.print("tail");
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test.semantics;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.config.DeadCodeEliminationReport;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.config.TestConfigFactory;
+
+import java.io.File;
+import java.util.List;
+
+public final class DeadCodeEliminationTest extends SingleFileTranslationTest {
+    private DeadCodeEliminationReport report;
+
+    public DeadCodeEliminationTest() {
+        super("deadCodeElimination/");
+    }
+
+    @NotNull
+    @Override
+    protected TestConfigFactory getConfigFactory() {
+        return new TestConfigFactory() {
+            @Override
+            public TestConfig create(
+                    @NotNull Project project,
+                    @NotNull EcmaVersion version,
+                    @NotNull List<JetFile> files,
+                    @NotNull BindingContext libraryContext,
+                    @NotNull ModuleDescriptor module
+            ) {
+                TestConfig config = TestConfig.FACTORY_WITHOUT_SOURCEMAP.create(project, version, files, libraryContext, module);
+                report = new DeadCodeEliminationReport();
+                config.setDeadCodeEliminationReport(report);
+                return config;
+            }
+        };
+    }
+
+    public void testUnreachableDeclarations() throws Exception {
+        checkFooBoxIsOk();
+
+        String output = loadOutput();
+        assertTrue(output.contains("Square"));
+        assertTrue(output.contains("twice"));
+        assertFalse(output.contains("Circle"));
+        assertFalse(output.contains("circle"));
+        assertFalse(output.contains("thrice"));
+        assertFalse(output.contains("unusedHelper"));
+
+        assertEquals(9, report.getDeclarationCount());
+        assertEquals(4, report.getRemovedDeclarations().size());
+    }
+
+    public void testEntryPoints() throws Exception {
+        checkFooBoxIsOk();
+
+        String output = loadOutput();
+        assertTrue(output.contains("Callbacks"));
+        assertTrue(output.contains("onLoad"));
+        assertTrue(output.contains("exported"));
+        assertFalse(output.contains("notExported"));
+        assertFalse(output.contains("NotUsed"));
+
+        assertEquals(2, report.getRemovedDeclarations().size());
+        assertTrue(report.getRemovedDeclarations().contains("foo.NotUsed"));
+    }
+
+    @NotNull
+    private String loadOutput() throws Exception {
+        return FileUtil.loadFile(new File(getOutputFilePath(getTestName(true) + ".kt", EcmaVersion.v5)));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test.serialization;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.js.K2JSCompiler;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
+import org.jetbrains.k2js.test.rhino.RhinoFunctionResultChecker;
+import org.jetbrains.k2js.test.rhino.RhinoUtils;
+import org.jetbrains.k2js.test.utils.LibraryFilePathsUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles a library with -metaInfo, and then a client of the library against the generated .kjsm file only, without the library sources
+ */
+public class CompileAgainstLibraryMetadataTest extends TestCaseWithTmpdir {
+    private static final String LIBRARY_SOURCE =
+            "package lib\n" +
+            "\n" +
+            "public fun greet(name: String): String = \"Hello, \" + name\n" +
+            "\n" +
+            "public open class Counter(public val start: Int) {\n" +
+            "    public open fun next(): Int = start + 1\n" +
+            "}\n";
+
+    private static final String CLIENT_SOURCE =
+            "package client\n" +
+            "\n" +
+            "import lib.*\n" +
+            "\n" +
+            "class Twice(start: Int) : Counter(start) {\n" +
+            "    override fun next(): Int = start + 2\n" +
+            "}\n" +
+            "\n" +
+            "fun box(): String {\n" +
+            "    if (greet(\"world\") != \"Hello, world\") return \"Fail greet\"\n" +
+            "    if (Counter(41).next() != 42) return \"Fail next\"\n" +
+            "    if (Twice(40).next() != 42) return \"Fail override\"\n" +
+            "    return \"OK\"\n" +
+            "}\n";
+
+    public void testClientCompiledAgainstMetadata() throws Exception {
+        File libraryDir = new File(tmpdir, "lib");
+        File library = compile(libraryDir, "lib", LIBRARY_SOURCE, Collections.<String>emptyList(), "-metaInfo");
+        File metadata = new File(libraryDir, "lib." + KotlinJavascriptMetadata.FILE_EXTENSION);
+        assertTrue("No metadata is written: " + metadata, metadata.isFile());
+
+        File client = compile(new File(tmpdir, "client"), "client", CLIENT_SOURCE, Collections.singletonList(metadata.getPath()));
+
+        RhinoUtils.runRhinoTest(Arrays.asList(library.getPath(), client.getPath()),
+                                new RhinoFunctionResultChecker("client", "client", "box", "OK"));
+    }
+
+    @NotNull
+    private static File compile(
+            @NotNull File dir,
+            @NotNull String moduleName,
+            @NotNull String source,
+            @NotNull List<String> libraryFiles,
+            @NotNull String... extraArguments
+    ) throws IOException {
+        File sourceFile = new File(dir, moduleName + ".kt");
+        FileUtil.writeToFile(sourceFile, source);
+        File output = new File(dir, moduleName + ".js");
+
+        List<String> arguments = new ArrayList<String>();
+        arguments.add("-sourceFiles");
+        arguments.add(sourceFile.getPath());
+        arguments.add("-output");
+        arguments.add(output.getPath());
+        arguments.add("-libraryFiles");
+        arguments.add(StringUtil.join(ContainerUtil.concat(LibraryFilePathsUtil.getBasicLibraryFiles(), libraryFiles), ","));
+        arguments.addAll(Arrays.asList(extraArguments));
+
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        ExitCode exitCode = new K2JSCompiler().exec(new PrintStream(messages), ArrayUtil.toStringArray(arguments));
+        assertEquals(messages.toString(), ExitCode.OK, exitCode);
+        return output;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test.serialization;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.PlatformToKotlinClassMap;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
+import org.jetbrains.k2js.serialization.KotlinJavascriptPackageFragmentProvider;
+import org.jetbrains.k2js.serialization.KotlinJavascriptSerializer;
+import org.jetbrains.k2js.test.utils.TranslationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class KotlinJavascriptSerializationTest extends KotlinTestWithEnvironment {
+    private static final FqName JS_PACKAGE = new FqName("js");
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return JetCoreEnvironment.createForTests(getTestRootDisposable(), new CompilerConfiguration());
+    }
+
+    public void testLibraryDeclarations() throws Exception {
+        List<JetFile> files = TranslationUtils.createJetFileList(getProject(), Config.LIB_FILE_NAMES, Config.LIBRARIES_LOCATION);
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJS.analyzeFiles(files, Predicates.<PsiFile>alwaysTrue(),
+                                                                  Config.getEmptyConfig(getProject()));
+
+        ModuleDescriptor module = serializeAndLoad(exhaust, files);
+
+        PackageViewDescriptor original = exhaust.getModuleDescriptor().getPackage(JS_PACKAGE);
+        PackageViewDescriptor deserialized = module.getPackage(JS_PACKAGE);
+        assertNotNull(original);
+        assertNotNull(deserialized);
+        assertSameElements(getNames(deserialized.getMemberScope().getAllDescriptors()),
+                           getNames(original.getMemberScope().getAllDescriptors()));
+
+        FunctionDescriptor parseInt = getSingleFunction(deserialized, "parseInt");
+        assertNotNull(parseInt.getAnnotations().findAnnotation(new FqName("js.native")));
+
+        FunctionDescriptor print = getSingleFunction(deserialized, "print");
+        AnnotationDescriptor library = print.getAnnotations().findAnnotation(new FqName("js.library"));
+        assertNotNull(library);
+        assertEquals("print", library.getAllValueArguments().values().iterator().next().getValue());
+
+        PackageViewDescriptor javaLang = module.getPackage(new FqName("java.lang"));
+        assertNotNull(javaLang);
+        ClassifierDescriptor exception = javaLang.getMemberScope().getClassifier(Name.identifier("Exception"));
+        assertInstanceOf(exception, ClassDescriptor.class);
+        assertEquals(1, ((ClassDescriptor) exception).getConstructors().size());
+    }
+
+    public void testValueParameterAnnotations() throws Exception {
+        String text = "package test\n" +
+                      "\n" +
+                      "annotation class ann(val value: String)\n" +
+                      "\n" +
+                      "fun foo([ann(\"x\")] p: Int) {}\n";
+        JetFile file = JetPsiFactory.createFile(getProject(), "test.kt", text);
+        List<JetFile> files = Collections.singletonList(file);
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJS.analyzeFiles(files, Predicates.<PsiFile>alwaysTrue(),
+                                                                  Config.getEmptyConfig(getProject()));
+
+        PackageViewDescriptor deserialized = serializeAndLoad(exhaust, files).getPackage(new FqName("test"));
+        assertNotNull(deserialized);
+
+        ValueParameterDescriptor parameter = getSingleFunction(deserialized, "foo").getValueParameters().get(0);
+        AnnotationDescriptor annotation = parameter.getAnnotations().findAnnotation(new FqName("test.ann"));
+        assertNotNull(annotation);
+        assertEquals("x", annotation.getAllValueArguments().values().iterator().next().getValue());
+    }
+
+    @NotNull
+    private static ModuleDescriptor serializeAndLoad(@NotNull AnalyzeExhaust exhaust, @NotNull List<JetFile> files) throws IOException {
+        KotlinJavascriptMetadata metadata = KotlinJavascriptSerializer.serialize(
+                "lib", exhaust.getModuleDescriptor(), exhaust.getBindingContext(), files);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        metadata.write(bytes);
+        KotlinJavascriptMetadata loaded = KotlinJavascriptMetadata.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("lib", loaded.getModuleName());
+
+        ModuleDescriptorImpl module = new ModuleDescriptorImpl(Name.special("<test>"), AnalyzerFacadeForJS.DEFAULT_IMPORTS,
+                                                               PlatformToKotlinClassMap.EMPTY);
+        module.addFragmentProvider(DependencyKind.BUILT_INS, KotlinBuiltIns.getInstance().getBuiltInsModule().getPackageFragmentProvider());
+        module.addFragmentProvider(DependencyKind.BINARIES,
+                                   new KotlinJavascriptPackageFragmentProvider(new LockBasedStorageManager(), module, loaded));
+        return module;
+    }
+
+    @NotNull
+    private static FunctionDescriptor getSingleFunction(@NotNull PackageViewDescriptor packageView, @NotNull String name) {
+        Collection<FunctionDescriptor> functions = packageView.getMemberScope().getFunctions(Name.identifier(name));
+        assertEquals(1, functions.size());
+        return functions.iterator().next();
+    }
+
+    @NotNull
+    private static List<String> getNames(@NotNull Collection<DeclarationDescriptor> descriptors) {
+        List<String> result = new ArrayList<String>();
+        for (DeclarationDescriptor descriptor : descriptors) {
+            if (descriptor instanceof PackageViewDescriptor) continue;
+            result.add(descriptor.getName().asString());
+        }
+        return result;
+    }
+}
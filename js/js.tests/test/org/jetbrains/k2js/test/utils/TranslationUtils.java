@@ -21,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.psi.PsiFile;
+import junit.framework.Assert;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.OutputFileCollection;
@@ -31,6 +32,7 @@ import org.jetbrains.jet.lang.psi.JetPsiFactory;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
 import org.jetbrains.k2js.facade.MainCallParameters;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
 import org.jetbrains.k2js.test.config.TestConfigFactory;
@@ -125,6 +127,31 @@ public final class TranslationUtils {
         OutputUtilsPackage.writeAllTo(outputFiles, outputFile.getParentFile());
     }
 
+    /**
+     * Translates the files with {@link K2JSTranslator#translateAndWriteWithMainCallParameters} into a subdirectory next to the output
+     * file and checks that the files written are the same as the ones {@link #translateFiles} has written to the output directory.
+     */
+    public static void checkStreamedOutput(
+            @NotNull MainCallParameters mainCall,
+            @NotNull List<JetFile> files,
+            @NotNull String outputPath,
+            @Nullable File outputPrefixFile,
+            @Nullable File outputPostfixFile,
+            @NotNull Config config
+    ) throws TranslationException, IOException {
+        File outputDir = new File(outputPath).getParentFile();
+        File streamedOutputFile = new File(new File(outputDir, "streamed"), new File(outputPath).getName());
+
+        List<File> streamed = K2JSTranslator.translateAndWriteWithMainCallParameters(mainCall, files, streamedOutputFile,
+                                                                                     outputPrefixFile, outputPostfixFile, config);
+        Assert.assertEquals("Unexpected number of output files", config.isSourcemap() ? 2 : 1, streamed.size());
+        for (File file : streamed) {
+            File expected = new File(outputDir, file.getName());
+            Assert.assertTrue("Unexpected output file: " + file, expected.isFile());
+            Assert.assertEquals(FileUtil.loadFile(expected), FileUtil.loadFile(file));
+        }
+    }
+
     @NotNull
     private static List<JetFile> initLibFiles(@NotNull Project project) {
         return createJetFileList(project, Config.LIB_FILE_NAMES, Config.LIBRARIES_LOCATION);
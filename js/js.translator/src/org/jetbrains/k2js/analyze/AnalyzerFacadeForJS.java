@@ -39,7 +39,12 @@ import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
 import org.jetbrains.jet.lang.resolve.lazy.declarations.DeclarationProviderFactory;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.jet.storage.LockBasedLazyResolveStorageManager;
+import org.jetbrains.jet.storage.LockBasedStorageManager;
+import org.jetbrains.jet.storage.StorageManager;
 import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
+import org.jetbrains.k2js.serialization.KotlinJavascriptPackageFragmentProvider;
 
 import java.util.Collection;
 import java.util.List;
@@ -98,11 +103,16 @@ public final class AnalyzerFacadeForJS {
         if (libraryModule != null) {
             owner.addFragmentProvider(DependencyKind.BINARIES, libraryModule.getPackageFragmentProvider()); // "import" analyzed library module
         }
+        addLibraryMetadata(owner, globalContext.getStorageManager(), config);
 
         BindingContext libraryContext = config.getLibraryContext();
         BindingTrace trace = libraryContext == null
                              ? new BindingTraceContext()
                              : new DelegatingBindingTrace(libraryContext, "trace with preanalyzed library");
+        if (storeContextForBodiesResolve) {
+            // Bodies of different files may be analyzed in parallel on top of this analysis, recording deferred types into this trace
+            trace = new LockBasedLazyResolveStorageManager(new LockBasedStorageManager()).createSafeTrace(trace);
+        }
         InjectorForTopDownAnalyzerForJs injector = new InjectorForTopDownAnalyzerForJs(project, topDownAnalysisParameters, trace, owner);
         try {
             Collection<JetFile> allFiles = libraryModule != null ?
@@ -161,6 +171,7 @@ public final class AnalyzerFacadeForJS {
                                                  Config.withJsLibAdded(files, config));
         ModuleDescriptorImpl module = createJsModule("<lazy module>");
         module.addFragmentProvider(DependencyKind.BUILT_INS, KotlinBuiltIns.getInstance().getBuiltInsModule().getPackageFragmentProvider());
+        addLibraryMetadata(module, globalContext.getStorageManager(), config);
 
         return new InjectorForLazyResolve(
                 config.getProject(),
@@ -170,6 +181,17 @@ public final class AnalyzerFacadeForJS {
                 new BindingTraceContext()).getResolveSession();
     }
 
+    private static void addLibraryMetadata(
+            @NotNull ModuleDescriptorImpl module,
+            @NotNull StorageManager storageManager,
+            @NotNull Config config
+    ) {
+        for (KotlinJavascriptMetadata metadata : config.getLibraryMetadata()) {
+            module.addFragmentProvider(DependencyKind.BINARIES,
+                                       new KotlinJavascriptPackageFragmentProvider(storageManager, module, metadata));
+        }
+    }
+
     @NotNull
     private static ModuleDescriptorImpl createJsModule(@NotNull String name) {
         return new ModuleDescriptorImpl(Name.special(name), DEFAULT_IMPORTS, PlatformToKotlinClassMap.EMPTY);
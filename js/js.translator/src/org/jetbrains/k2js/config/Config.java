@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
 import org.jetbrains.k2js.translate.test.JSTester;
 import org.jetbrains.k2js.translate.test.QUnitTester;
 
@@ -150,6 +151,8 @@ public abstract class Config {
     private final Project project;
     @Nullable
     private List<JetFile> libFiles = null;
+    @Nullable
+    private List<KotlinJavascriptMetadata> libraryMetadata = null;
     @NotNull
     private final EcmaVersion target;
 
@@ -158,6 +161,9 @@ public abstract class Config {
 
     private final boolean sourcemap;
 
+    @Nullable
+    private DeadCodeEliminationReport deadCodeEliminationReport = null;
+
     public Config(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion ecmaVersion) {
         this(project, moduleId, ecmaVersion, false);
     }
@@ -173,6 +179,18 @@ public abstract class Config {
         return sourcemap;
     }
 
+    /**
+     * @return null if dead code elimination is disabled
+     */
+    @Nullable
+    public DeadCodeEliminationReport getDeadCodeEliminationReport() {
+        return deadCodeEliminationReport;
+    }
+
+    public void setDeadCodeEliminationReport(@Nullable DeadCodeEliminationReport deadCodeEliminationReport) {
+        this.deadCodeEliminationReport = deadCodeEliminationReport;
+    }
+
     @NotNull
     public Project getProject() {
         return project;
@@ -199,6 +217,22 @@ public abstract class Config {
         return libFiles;
     }
 
+    /**
+     * Compiled libraries, which are loaded from their metadata instead of being analyzed from sources
+     */
+    @NotNull
+    protected List<KotlinJavascriptMetadata> generateLibraryMetadata() {
+        return Collections.emptyList();
+    }
+
+    @NotNull
+    public final List<KotlinJavascriptMetadata> getLibraryMetadata() {
+        if (libraryMetadata == null) {
+            libraryMetadata = generateLibraryMetadata();
+        }
+        return libraryMetadata;
+    }
+
     @Nullable
     public BindingContext getLibraryContext() {
         return null;
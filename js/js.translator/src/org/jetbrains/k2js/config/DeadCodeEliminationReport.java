@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.config;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Enables dead code elimination when set to the config with {@link Config#setDeadCodeEliminationReport} and collects its results.
+ *
+ * Declarations of packages (classes, functions and property accessors) which are not reachable from the module code outside of them,
+ * from the main function or from declarations annotated with {@code js.entryPoint} are removed from the output. Such output can't be
+ * used as a library by other modules.
+ */
+public final class DeadCodeEliminationReport {
+    private int declarationCount = 0;
+    private final List<String> removedDeclarations = new ArrayList<String>();
+
+    public void addDeclaration() {
+        declarationCount++;
+    }
+
+    public void addRemovedDeclaration(@NotNull String qualifiedName) {
+        removedDeclarations.add(qualifiedName);
+    }
+
+    public int getDeclarationCount() {
+        return declarationCount;
+    }
+
+    @NotNull
+    public List<String> getRemovedDeclarations() {
+        return Collections.unmodifiableList(removedDeclarations);
+    }
+
+    @Override
+    public String toString() {
+        return "Dead code elimination removed " + removedDeclarations.size() + " of " + declarationCount + " declarations";
+    }
+}
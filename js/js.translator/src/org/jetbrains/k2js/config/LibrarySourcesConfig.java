@@ -27,7 +27,9 @@ import com.intellij.psi.PsiManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -76,6 +78,9 @@ public class LibrarySourcesConfig extends Config {
             if (path.charAt(0) == '@') {
                 moduleName = path.substring(1);
             }
+            else if (KotlinJavascriptMetadata.isMetadataFile(path)) {
+                // Loaded by generateLibraryMetadata()
+            }
             else if (path.endsWith(".jar") || path.endsWith(".zip")) {
                 try {
                     jetFiles.addAll(readZip(path));
@@ -102,6 +107,62 @@ public class LibrarySourcesConfig extends Config {
         return jetFiles;
     }
 
+    @NotNull
+    @Override
+    protected List<KotlinJavascriptMetadata> generateLibraryMetadata() {
+        List<KotlinJavascriptMetadata> result = new ArrayList<KotlinJavascriptMetadata>();
+        for (String path : files) {
+            try {
+                if (KotlinJavascriptMetadata.isMetadataFile(path)) {
+                    InputStream stream = new FileInputStream(path);
+                    try {
+                        result.add(KotlinJavascriptMetadata.read(stream));
+                    }
+                    finally {
+                        stream.close();
+                    }
+                }
+                else if (path.endsWith(".jar") || path.endsWith(".zip")) {
+                    ZipFile zipFile = new ZipFile(path);
+                    try {
+                        readMetadata(zipFile, result);
+                    }
+                    finally {
+                        zipFile.close();
+                    }
+                }
+            }
+            catch (IOException e) {
+                LOG.error(e);
+            }
+        }
+        return result;
+    }
+
+    private static void readMetadata(@NotNull ZipFile file, @NotNull List<KotlinJavascriptMetadata> result) throws IOException {
+        Enumeration<? extends ZipEntry> zipEntries = file.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry entry = zipEntries.nextElement();
+            if (!entry.isDirectory() && KotlinJavascriptMetadata.isMetadataFile(entry.getName())) {
+                InputStream stream = file.getInputStream(entry);
+                try {
+                    result.add(KotlinJavascriptMetadata.read(stream));
+                }
+                finally {
+                    stream.close();
+                }
+            }
+        }
+    }
+
+    private static boolean hasMetadata(@NotNull ZipFile file) {
+        Enumeration<? extends ZipEntry> zipEntries = file.entries();
+        while (zipEntries.hasMoreElements()) {
+            if (KotlinJavascriptMetadata.isMetadataFile(zipEntries.nextElement().getName())) return true;
+        }
+        return false;
+    }
+
     private List<JetFile> readZip(String file) throws IOException {
         ZipFile zipFile = new ZipFile(file);
         try {
@@ -115,6 +176,9 @@ public class LibrarySourcesConfig extends Config {
     @NotNull
     private List<JetFile> traverseArchive(@NotNull ZipFile file) throws IOException {
         List<JetFile> result = Lists.newArrayList();
+        // Sources of a compiled library are only shipped along with its metadata for navigation
+        if (hasMetadata(file)) return result;
+
         Enumeration<? extends ZipEntry> zipEntries = file.entries();
         while (zipEntries.hasMoreElements()) {
             ZipEntry entry = zipEntries.nextElement();
@@ -19,6 +19,7 @@ package org.jetbrains.k2js.facade;
 import com.google.dart.compiler.backend.js.ast.JsProgram;
 import com.google.dart.compiler.util.TextOutputImpl;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -42,8 +43,7 @@ import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
 import org.jetbrains.k2js.translate.general.Translation;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.util.Collections;
 import java.util.List;
 
@@ -76,14 +76,7 @@ public final class K2JSTranslator {
         StringBuilder outBuilder = new StringBuilder(programCode.length() + prefix.length() + postfix.length());
         outBuilder.append(prefix).append(programCode).append(postfix);
 
-        List<File> sourceFiles = ContainerUtil.map(files, new Function<JetFile, File>() {
-            @Override
-            public File fun(JetFile file) {
-                VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
-                if (virtualFile == null) return new File(file.getName());
-                return VfsUtilCore.virtualToIoFile(virtualFile);
-            }
-        });
+        List<File> sourceFiles = getSourceFiles(files);
 
         SimpleOutputFile jsFile = new SimpleOutputFile(sourceFiles, outputFile.getName(), outBuilder.toString());
         List<SimpleOutputFile> outputFiles = new SmartList<SimpleOutputFile>(jsFile);
@@ -97,6 +90,67 @@ public final class K2JSTranslator {
         return new SimpleOutputFileCollection(outputFiles);
     }
 
+    /**
+     * Same as {@link #translateWithMainCallParameters}, but writes the output files itself: the generated code is passed to a buffered
+     * writer while it is printed, so neither the text of the program nor a copy of it with the prefix and postfix is kept in memory.
+     * The output file is opened only after the program is translated.
+     *
+     * @return the files written, the output file and the source map if it's enabled
+     */
+    @NotNull
+    public static List<File> translateAndWriteWithMainCallParameters(
+            @NotNull MainCallParameters mainCall,
+            @NotNull List<JetFile> files,
+            @NotNull File outputFile,
+            @Nullable File outputPrefixFile,
+            @Nullable File outputPostfixFile,
+            @NotNull Config config
+    ) throws TranslationException, IOException {
+        JsProgram program = new K2JSTranslator(config).generateProgram(files, mainCall);
+
+        FileUtil.createParentDirs(outputFile);
+        // The default encoding, as in SimpleOutputFile
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile)));
+        TextOutputImpl output = new TextOutputImpl(writer);
+        SourceMapBuilder sourceMapBuilder =
+                config.isSourcemap() ? new SourceMap3Builder(outputFile, output, new SourceMapBuilderConsumer()) : null;
+        try {
+            String prefix = FileUtilsPackage.readTextOrEmpty(outputPrefixFile);
+            writer.write(prefix);
+            if (sourceMapBuilder != null) {
+                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix));
+            }
+
+            program.accept(new JsSourceGenerationVisitor(output, sourceMapBuilder));
+            output.flush();
+
+            writer.write(FileUtilsPackage.readTextOrEmpty(outputPostfixFile));
+        }
+        finally {
+            writer.close();
+        }
+
+        List<File> result = new SmartList<File>(outputFile);
+        if (sourceMapBuilder != null) {
+            File sourceMapFile = sourceMapBuilder.getOutFile();
+            FileUtil.writeToFile(sourceMapFile, sourceMapBuilder.build().getBytes());
+            result.add(sourceMapFile);
+        }
+        return result;
+    }
+
+    @NotNull
+    public static List<File> getSourceFiles(@NotNull List<JetFile> files) {
+        return ContainerUtil.map(files, new Function<JetFile, File>() {
+            @Override
+            public File fun(JetFile file) {
+                VirtualFile virtualFile = file.getOriginalFile().getVirtualFile();
+                if (virtualFile == null) return new File(file.getName());
+                return VfsUtilCore.virtualToIoFile(virtualFile);
+            }
+        });
+    }
+
     @NotNull
     private final Config config;
 
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.serialization;
+
+import com.google.protobuf.ExtensionRegistryLite;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.descriptors.serialization.ClassId;
+import org.jetbrains.jet.descriptors.serialization.NameResolver;
+import org.jetbrains.jet.descriptors.serialization.NameSerializationUtil;
+import org.jetbrains.jet.descriptors.serialization.ProtoBuf;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Descriptors of a Kotlin/JavaScript library, which are written by K2JSCompiler next to the generated .js file, so that other modules
+ * can be compiled against the library without analyzing its sources.
+ *
+ * For each package there's a name table, the package proto with top-level callables, the protos of all classes of the package
+ * (including nested classes and class objects) and a table of annotations. JS declarations rely on annotations such as 'native'
+ * and 'library', which are not a part of the common descriptor protos, so annotations are written to the table and referenced
+ * by index: from callables and value parameters via the {@link JsProtoBuf#annotations} and {@link JsProtoBuf#parameterAnnotations}
+ * extensions, and from classes directly.
+ */
+public final class KotlinJavascriptMetadata {
+    public static final String FILE_EXTENSION = "kjsm";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_ANNOTATIONS = -1;
+
+    private final String moduleName;
+    private final Map<FqName, PackageMetadata> packages;
+
+    public KotlinJavascriptMetadata(@NotNull String moduleName, @NotNull Collection<PackageMetadata> packages) {
+        this.moduleName = moduleName;
+        this.packages = new LinkedHashMap<FqName, PackageMetadata>();
+        for (PackageMetadata packageMetadata : packages) {
+            this.packages.put(packageMetadata.getFqName(), packageMetadata);
+        }
+    }
+
+    /**
+     * The name of the JS module the library was compiled to, declarations of the library are accessed through it
+     */
+    @NotNull
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    @NotNull
+    public Collection<PackageMetadata> getPackages() {
+        return packages.values();
+    }
+
+    @Nullable
+    public PackageMetadata getPackage(@NotNull FqName fqName) {
+        return packages.get(fqName);
+    }
+
+    public static boolean isMetadataFile(@NotNull String path) {
+        return path.endsWith("." + FILE_EXTENSION);
+    }
+
+    @NotNull
+    public static ExtensionRegistryLite getExtensionRegistry() {
+        ExtensionRegistryLite registry = ExtensionRegistryLite.newInstance();
+        JsProtoBuf.registerAllExtensions(registry);
+        return registry;
+    }
+
+    @NotNull
+    public static KotlinJavascriptMetadata read(@NotNull InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported Kotlin/JavaScript metadata version: " + version + ", expected " + FORMAT_VERSION);
+        }
+
+        String moduleName = input.readUTF();
+        int packageCount = input.readInt();
+        List<PackageMetadata> packages = new ArrayList<PackageMetadata>(packageCount);
+        for (int i = 0; i < packageCount; i++) {
+            packages.add(PackageMetadata.read(input));
+        }
+        return new KotlinJavascriptMetadata(moduleName, packages);
+    }
+
+    public void write(@NotNull OutputStream stream) throws IOException {
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(moduleName);
+        output.writeInt(packages.size());
+        for (PackageMetadata packageMetadata : packages.values()) {
+            packageMetadata.write(output);
+        }
+        output.flush();
+    }
+
+    public static final class PackageMetadata {
+        private final FqName fqName;
+        private final NameResolver nameResolver;
+        private final ProtoBuf.Package packageProto;
+        // Protos of classes by their relative names, they're only parsed when the class is requested
+        private final Map<FqNameUnsafe, byte[]> classes;
+        private final Map<FqNameUnsafe, Integer> classAnnotations;
+        private final List<List<AnnotationData>> annotations;
+
+        public PackageMetadata(
+                @NotNull FqName fqName,
+                @NotNull NameResolver nameResolver,
+                @NotNull ProtoBuf.Package packageProto,
+                @NotNull Map<FqNameUnsafe, byte[]> classes,
+                @NotNull Map<FqNameUnsafe, Integer> classAnnotations,
+                @NotNull List<List<AnnotationData>> annotations
+        ) {
+            this.fqName = fqName;
+            this.nameResolver = nameResolver;
+            this.packageProto = packageProto;
+            this.classes = classes;
+            this.classAnnotations = classAnnotations;
+            this.annotations = annotations;
+        }
+
+        @NotNull
+        public FqName getFqName() {
+            return fqName;
+        }
+
+        @NotNull
+        public NameResolver getNameResolver() {
+            return nameResolver;
+        }
+
+        @NotNull
+        public ProtoBuf.Package getPackageProto() {
+            return packageProto;
+        }
+
+        @NotNull
+        public Collection<Name> getTopLevelClassNames() {
+            List<Name> result = new ArrayList<Name>();
+            for (FqNameUnsafe className : classes.keySet()) {
+                if (className.parent().isRoot()) {
+                    result.add(className.shortName());
+                }
+            }
+            return result;
+        }
+
+        public boolean hasClass(@NotNull FqNameUnsafe relativeClassName) {
+            return classes.containsKey(relativeClassName);
+        }
+
+        @Nullable
+        public ProtoBuf.Class getClassProto(@NotNull FqNameUnsafe relativeClassName) {
+            byte[] bytes = classes.get(relativeClassName);
+            if (bytes == null) return null;
+            try {
+                return ProtoBuf.Class.parseFrom(bytes, getExtensionRegistry());
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Corrupted metadata of class " + relativeClassName + " in package " + fqName, e);
+            }
+        }
+
+        @NotNull
+        public List<AnnotationData> getClassAnnotations(@NotNull FqNameUnsafe relativeClassName) {
+            Integer index = classAnnotations.get(relativeClassName);
+            return index != null ? getAnnotations(index) : Collections.<AnnotationData>emptyList();
+        }
+
+        @NotNull
+        public List<AnnotationData> getAnnotations(int index) {
+            return annotations.get(index);
+        }
+
+        @NotNull
+        private static PackageMetadata read(@NotNull DataInputStream input) throws IOException {
+            FqName fqName = new FqName(input.readUTF());
+            NameResolver nameResolver = NameSerializationUtil.deserializeNameResolver(new ByteArrayInputStream(readBytes(input)));
+            ProtoBuf.Package packageProto = ProtoBuf.Package.parseFrom(readBytes(input), getExtensionRegistry());
+
+            int classCount = input.readInt();
+            Map<FqNameUnsafe, byte[]> classes = new LinkedHashMap<FqNameUnsafe, byte[]>(classCount);
+            Map<FqNameUnsafe, Integer> classAnnotations = new HashMap<FqNameUnsafe, Integer>();
+            for (int i = 0; i < classCount; i++) {
+                FqNameUnsafe className = new FqNameUnsafe(input.readUTF());
+                int annotationsIndex = input.readInt();
+                if (annotationsIndex != NO_ANNOTATIONS) {
+                    classAnnotations.put(className, annotationsIndex);
+                }
+                classes.put(className, readBytes(input));
+            }
+
+            int annotationListCount = input.readInt();
+            List<List<AnnotationData>> annotations = new ArrayList<List<AnnotationData>>(annotationListCount);
+            for (int i = 0; i < annotationListCount; i++) {
+                int count = input.readInt();
+                List<AnnotationData> list = new ArrayList<AnnotationData>(count);
+                for (int j = 0; j < count; j++) {
+                    list.add(AnnotationData.read(input));
+                }
+                annotations.add(list);
+            }
+
+            return new PackageMetadata(fqName, nameResolver, packageProto, classes, classAnnotations, annotations);
+        }
+
+        private void write(@NotNull DataOutputStream output) throws IOException {
+            output.writeUTF(fqName.asString());
+
+            ByteArrayOutputStream nameTable = new ByteArrayOutputStream();
+            NameSerializationUtil.serializeNameResolver(nameTable, nameResolver);
+            writeBytes(output, nameTable.toByteArray());
+            writeBytes(output, packageProto.toByteArray());
+
+            output.writeInt(classes.size());
+            for (Map.Entry<FqNameUnsafe, byte[]> entry : classes.entrySet()) {
+                output.writeUTF(entry.getKey().asString());
+                Integer annotationsIndex = classAnnotations.get(entry.getKey());
+                output.writeInt(annotationsIndex != null ? annotationsIndex : NO_ANNOTATIONS);
+                writeBytes(output, entry.getValue());
+            }
+
+            output.writeInt(annotations.size());
+            for (List<AnnotationData> list : annotations) {
+                output.writeInt(list.size());
+                for (AnnotationData annotation : list) {
+                    annotation.write(output);
+                }
+            }
+        }
+    }
+
+    /**
+     * An annotation with the values of its arguments; only arguments of primitive types and strings are supported
+     */
+    public static final class AnnotationData {
+        private static final byte STRING = 0;
+        private static final byte BOOLEAN = 1;
+        private static final byte CHAR = 2;
+        private static final byte BYTE = 3;
+        private static final byte SHORT = 4;
+        private static final byte INT = 5;
+        private static final byte LONG = 6;
+        private static final byte FLOAT = 7;
+        private static final byte DOUBLE = 8;
+
+        private final ClassId annotationClassId;
+        private final Map<Name, Object> arguments;
+
+        public AnnotationData(@NotNull ClassId annotationClassId, @NotNull Map<Name, Object> arguments) {
+            this.annotationClassId = annotationClassId;
+            this.arguments = arguments;
+        }
+
+        @NotNull
+        public ClassId getAnnotationClassId() {
+            return annotationClassId;
+        }
+
+        @NotNull
+        public Map<Name, Object> getArguments() {
+            return arguments;
+        }
+
+        public static boolean isSupportedArgument(@Nullable Object value) {
+            return value instanceof String || value instanceof Boolean || value instanceof Character ||
+                   value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long ||
+                   value instanceof Float || value instanceof Double;
+        }
+
+        @NotNull
+        private static AnnotationData read(@NotNull DataInputStream input) throws IOException {
+            ClassId classId = new ClassId(new FqName(input.readUTF()), new FqNameUnsafe(input.readUTF()));
+            int argumentCount = input.readInt();
+            Map<Name, Object> arguments = new LinkedHashMap<Name, Object>(argumentCount);
+            for (int i = 0; i < argumentCount; i++) {
+                Name name = Name.identifier(input.readUTF());
+                arguments.put(name, readValue(input));
+            }
+            return new AnnotationData(classId, arguments);
+        }
+
+        @NotNull
+        private static Object readValue(@NotNull DataInputStream input) throws IOException {
+            byte kind = input.readByte();
+            switch (kind) {
+                case STRING: return input.readUTF();
+                case BOOLEAN: return input.readBoolean();
+                case CHAR: return input.readChar();
+                case BYTE: return input.readByte();
+                case SHORT: return input.readShort();
+                case INT: return input.readInt();
+                case LONG: return input.readLong();
+                case FLOAT: return input.readFloat();
+                case DOUBLE: return input.readDouble();
+                default: throw new IOException("Unknown annotation argument kind: " + kind);
+            }
+        }
+
+        private void write(@NotNull DataOutputStream output) throws IOException {
+            output.writeUTF(annotationClassId.getPackageFqName().asString());
+            output.writeUTF(annotationClassId.getRelativeClassName().asString());
+            output.writeInt(arguments.size());
+            for (Map.Entry<Name, Object> entry : arguments.entrySet()) {
+                output.writeUTF(entry.getKey().asString());
+                writeValue(output, entry.getValue());
+            }
+        }
+
+        private static void writeValue(@NotNull DataOutputStream output, @NotNull Object value) throws IOException {
+            if (value instanceof String) {
+                output.writeByte(STRING);
+                output.writeUTF((String) value);
+            }
+            else if (value instanceof Boolean) {
+                output.writeByte(BOOLEAN);
+                output.writeBoolean((Boolean) value);
+            }
+            else if (value instanceof Character) {
+                output.writeByte(CHAR);
+                output.writeChar((Character) value);
+            }
+            else if (value instanceof Byte) {
+                output.writeByte(BYTE);
+                output.writeByte((Byte) value);
+            }
+            else if (value instanceof Short) {
+                output.writeByte(SHORT);
+                output.writeShort((Short) value);
+            }
+            else if (value instanceof Integer) {
+                output.writeByte(INT);
+                output.writeInt((Integer) value);
+            }
+            else if (value instanceof Long) {
+                output.writeByte(LONG);
+                output.writeLong((Long) value);
+            }
+            else if (value instanceof Float) {
+                output.writeByte(FLOAT);
+                output.writeFloat((Float) value);
+            }
+            else if (value instanceof Double) {
+                output.writeByte(DOUBLE);
+                output.writeDouble((Double) value);
+            }
+            else {
+                throw new IllegalArgumentException("Unsupported annotation argument: " + value);
+            }
+        }
+    }
+
+    @NotNull
+    private static byte[] readBytes(@NotNull DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(@NotNull DataOutputStream output, @NotNull byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.serialization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.descriptors.serialization.DescriptorFinder;
+import org.jetbrains.jet.descriptors.serialization.descriptors.DeserializedPackageMemberScope;
+import org.jetbrains.jet.descriptors.serialization.descriptors.Deserializers;
+import org.jetbrains.jet.descriptors.serialization.descriptors.MemberFilter;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.descriptors.PackageFragmentDescriptorImpl;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.storage.StorageManager;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata.PackageMetadata;
+
+/**
+ * Declarations of one package of a compiled JS library, which are deserialized on demand
+ */
+public class KotlinJavascriptPackageFragment extends PackageFragmentDescriptorImpl {
+    private final String moduleName;
+    private final PackageMetadata packageMetadata;
+    private final JetScope members;
+
+    public KotlinJavascriptPackageFragment(
+            @NotNull StorageManager storageManager,
+            @NotNull ModuleDescriptor module,
+            @NotNull String moduleName,
+            @NotNull PackageMetadata packageMetadata,
+            @NotNull Deserializers deserializers,
+            @NotNull DescriptorFinder descriptorFinder
+    ) {
+        super(module, packageMetadata.getFqName());
+        this.moduleName = moduleName;
+        this.packageMetadata = packageMetadata;
+        this.members = new DeserializedPackageMemberScope(storageManager, this, deserializers, MemberFilter.ALWAYS_TRUE, descriptorFinder,
+                                                          packageMetadata.getPackageProto(), packageMetadata.getNameResolver()) {
+            @Nullable
+            @Override
+            protected ClassDescriptor getClassDescriptor(@NotNull Name name) {
+                // The descriptor finder looks for the classes of other libraries in the module, which asks this scope in turn
+                if (!KotlinJavascriptPackageFragment.this.packageMetadata.hasClass(FqNameUnsafe.topLevel(name))) return null;
+                return super.getClassDescriptor(name);
+            }
+        };
+    }
+
+    /**
+     * @return the name of the JS module which defines the declarations of this package at runtime
+     */
+    @NotNull
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    @NotNull
+    public PackageMetadata getPackageMetadata() {
+        return packageMetadata;
+    }
+
+    @NotNull
+    @Override
+    public JetScope getMemberScope() {
+        return members;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.serialization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.descriptors.serialization.*;
+import org.jetbrains.jet.descriptors.serialization.descriptors.AnnotationDeserializer;
+import org.jetbrains.jet.descriptors.serialization.descriptors.ConstantDeserializer;
+import org.jetbrains.jet.descriptors.serialization.descriptors.Deserializers;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptorImpl;
+import org.jetbrains.jet.lang.descriptors.annotations.Annotations;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationsImpl;
+import org.jetbrains.jet.lang.descriptors.impl.MutablePackageFragmentDescriptor;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
+import org.jetbrains.jet.lang.resolve.constants.ConstantsPackage;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.name.SpecialNames;
+import org.jetbrains.jet.lang.types.ErrorUtils;
+import org.jetbrains.jet.storage.StorageManager;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata.AnnotationData;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata.PackageMetadata;
+
+import java.util.*;
+
+import static org.jetbrains.jet.descriptors.serialization.descriptors.Deserializers.AnnotatedCallableKind;
+
+/**
+ * Provides the declarations of a compiled JS library from its {@link KotlinJavascriptMetadata}.
+ *
+ * Classes declared in other libraries or in sources are referenced by the metadata as well, they are looked up in the module.
+ */
+public class KotlinJavascriptPackageFragmentProvider implements PackageFragmentProvider {
+    private final ModuleDescriptor module;
+    private final KotlinJavascriptMetadata metadata;
+    private final Deserializers deserializers = new JsDeserializers();
+    private final LibraryDescriptorFinder descriptorFinder;
+
+    private final Map<FqName, PackageFragmentDescriptor> fragments = new HashMap<FqName, PackageFragmentDescriptor>();
+    private final Map<FqName, Set<FqName>> subPackages = new HashMap<FqName, Set<FqName>>();
+
+    public KotlinJavascriptPackageFragmentProvider(
+            @NotNull StorageManager storageManager,
+            @NotNull ModuleDescriptor module,
+            @NotNull KotlinJavascriptMetadata metadata
+    ) {
+        this.module = module;
+        this.metadata = metadata;
+        this.descriptorFinder = new LibraryDescriptorFinder(storageManager);
+
+        for (PackageMetadata packageMetadata : metadata.getPackages()) {
+            FqName fqName = packageMetadata.getFqName();
+            fragments.put(fqName, new KotlinJavascriptPackageFragment(storageManager, module, metadata.getModuleName(), packageMetadata,
+                                                                      deserializers, descriptorFinder));
+
+            // Parent packages should be resolvable for qualified references, e.g. "kotlin.js.foo()"
+            while (!fqName.isRoot()) {
+                FqName parent = fqName.parent();
+                if (!fragments.containsKey(parent)) {
+                    fragments.put(parent, new MutablePackageFragmentDescriptor(module, parent));
+                }
+                getSubPackages(parent).add(fqName);
+                fqName = parent;
+            }
+        }
+    }
+
+    @NotNull
+    private Set<FqName> getSubPackages(@NotNull FqName fqName) {
+        Set<FqName> result = subPackages.get(fqName);
+        if (result == null) {
+            result = new LinkedHashSet<FqName>();
+            subPackages.put(fqName, result);
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public List<PackageFragmentDescriptor> getPackageFragments(@NotNull FqName fqName) {
+        PackageFragmentDescriptor fragment = fragments.get(fqName);
+        return fragment != null ? Collections.singletonList(fragment) : Collections.<PackageFragmentDescriptor>emptyList();
+    }
+
+    @NotNull
+    @Override
+    public Collection<FqName> getSubPackagesOf(@NotNull FqName fqName) {
+        Set<FqName> result = subPackages.get(fqName);
+        return result != null ? result : Collections.<FqName>emptySet();
+    }
+
+    private class LibraryDescriptorFinder extends AbstractDescriptorFinder {
+        public LibraryDescriptorFinder(@NotNull StorageManager storageManager) {
+            super(storageManager, deserializers, KotlinJavascriptPackageFragmentProvider.this);
+        }
+
+        @Nullable
+        @Override
+        public ClassDescriptor findClass(@NotNull ClassId classId) {
+            PackageMetadata packageMetadata = metadata.getPackage(classId.getPackageFqName());
+            Name outermostName = classId.getRelativeClassName().pathSegments().get(0);
+            if (packageMetadata != null && packageMetadata.hasClass(FqNameUnsafe.topLevel(outermostName))) {
+                return super.findClass(classId);
+            }
+            return findClassInModule(classId);
+        }
+
+        @Nullable
+        @Override
+        protected ClassData getClassData(@NotNull ClassId classId) {
+            PackageMetadata packageMetadata = metadata.getPackage(classId.getPackageFqName());
+            if (packageMetadata == null) return null;
+
+            ProtoBuf.Class classProto = packageMetadata.getClassProto(classId.getRelativeClassName());
+            return classProto != null ? new ClassData(packageMetadata.getNameResolver(), classProto) : null;
+        }
+
+        @NotNull
+        @Override
+        public Collection<Name> getClassNames(@NotNull FqName packageName) {
+            PackageMetadata packageMetadata = metadata.getPackage(packageName);
+            return packageMetadata != null ? packageMetadata.getTopLevelClassNames() : Collections.<Name>emptyList();
+        }
+
+        @Nullable
+        private ClassDescriptor findClassInModule(@NotNull ClassId classId) {
+            PackageViewDescriptor packageView = module.getPackage(classId.getPackageFqName());
+            if (packageView == null) return null;
+
+            List<Name> segments = classId.getRelativeClassName().pathSegments();
+            ClassifierDescriptor classifier = packageView.getMemberScope().getClassifier(segments.get(0));
+            if (!(classifier instanceof ClassDescriptor)) return null;
+
+            ClassDescriptor result = (ClassDescriptor) classifier;
+            for (Name name : segments.subList(1, segments.size())) {
+                if (SpecialNames.isClassObjectName(name)) {
+                    result = result.getClassObjectDescriptor();
+                    if (result == null) return null;
+                }
+                else {
+                    classifier = result.getUnsubstitutedInnerClassesScope().getClassifier(name);
+                    if (!(classifier instanceof ClassDescriptor)) return null;
+                    result = (ClassDescriptor) classifier;
+                }
+            }
+            return result;
+        }
+    }
+
+    private class JsDeserializers implements Deserializers {
+        @NotNull
+        @Override
+        public AnnotationDeserializer getAnnotationDeserializer() {
+            return annotationDeserializer;
+        }
+
+        @NotNull
+        @Override
+        public ConstantDeserializer getConstantDeserializer() {
+            return constantDeserializer;
+        }
+    }
+
+    private final AnnotationDeserializer annotationDeserializer = new AnnotationDeserializer() {
+        @NotNull
+        @Override
+        public Annotations loadClassAnnotations(@NotNull ClassDescriptor descriptor, @NotNull ProtoBuf.Class classProto) {
+            PackageMetadata packageMetadata = getPackageMetadata(descriptor);
+            if (packageMetadata == null) return Annotations.EMPTY;
+
+            FqNameUnsafe relativeName = KotlinJavascriptSerializer.getClassId(descriptor).getRelativeClassName();
+            return createAnnotations(packageMetadata.getClassAnnotations(relativeName));
+        }
+
+        @NotNull
+        @Override
+        public Annotations loadCallableAnnotations(
+                @NotNull ClassOrPackageFragmentDescriptor container,
+                @NotNull ProtoBuf.Callable proto,
+                @NotNull NameResolver nameResolver,
+                @NotNull AnnotatedCallableKind kind
+        ) {
+            // Accessors share the annotations extension with their property, and their own annotations are not written
+            if (kind != AnnotatedCallableKind.FUNCTION && kind != AnnotatedCallableKind.PROPERTY) return Annotations.EMPTY;
+            if (!proto.hasExtension(JsProtoBuf.annotations)) return Annotations.EMPTY;
+
+            PackageMetadata packageMetadata = getPackageMetadata(container);
+            if (packageMetadata == null) return Annotations.EMPTY;
+
+            return createAnnotations(packageMetadata.getAnnotations(proto.getExtension(JsProtoBuf.annotations)));
+        }
+
+        @NotNull
+        @Override
+        public Annotations loadValueParameterAnnotations(
+                @NotNull ClassOrPackageFragmentDescriptor container,
+                @NotNull ProtoBuf.Callable callable,
+                @NotNull NameResolver nameResolver,
+                @NotNull AnnotatedCallableKind kind,
+                @NotNull ProtoBuf.Callable.ValueParameter proto
+        ) {
+            if (!proto.hasExtension(JsProtoBuf.parameterAnnotations)) return Annotations.EMPTY;
+
+            PackageMetadata packageMetadata = getPackageMetadata(container);
+            if (packageMetadata == null) return Annotations.EMPTY;
+
+            return createAnnotations(packageMetadata.getAnnotations(proto.getExtension(JsProtoBuf.parameterAnnotations)));
+        }
+
+        @Nullable
+        private PackageMetadata getPackageMetadata(@NotNull DeclarationDescriptor descriptor) {
+            KotlinJavascriptPackageFragment fragment =
+                    DescriptorUtils.getParentOfType(descriptor, KotlinJavascriptPackageFragment.class, false);
+            return fragment != null ? fragment.getPackageMetadata() : null;
+        }
+
+        @NotNull
+        private Annotations createAnnotations(@NotNull List<AnnotationData> annotations) {
+            if (annotations.isEmpty()) return Annotations.EMPTY;
+
+            List<AnnotationDescriptor> result = new ArrayList<AnnotationDescriptor>(annotations.size());
+            for (AnnotationData data : annotations) {
+                result.add(createAnnotation(data));
+            }
+            return new AnnotationsImpl(result);
+        }
+
+        @NotNull
+        private AnnotationDescriptor createAnnotation(@NotNull AnnotationData data) {
+            ClassDescriptor annotationClass = descriptorFinder.findClass(data.getAnnotationClassId());
+            if (annotationClass == null) {
+                annotationClass = ErrorUtils.getErrorClass();
+            }
+
+            AnnotationDescriptorImpl annotation = new AnnotationDescriptorImpl();
+            annotation.setAnnotationType(annotationClass.getDefaultType());
+            for (Map.Entry<Name, Object> argument : data.getArguments().entrySet()) {
+                ValueParameterDescriptor parameter = getParameterByName(annotationClass, argument.getKey());
+                CompileTimeConstant<?> value = ConstantsPackage.createCompileTimeConstant(argument.getValue(), true, false, null);
+                if (parameter != null && value != null) {
+                    annotation.setValueArgument(parameter, value);
+                }
+            }
+            annotation.markValueArgumentsResolved();
+            return annotation;
+        }
+
+        @Nullable
+        private ValueParameterDescriptor getParameterByName(@NotNull ClassDescriptor annotationClass, @NotNull Name name) {
+            for (ConstructorDescriptor constructor : annotationClass.getConstructors()) {
+                for (ValueParameterDescriptor parameter : constructor.getValueParameters()) {
+                    if (parameter.getName().equals(name)) {
+                        return parameter;
+                    }
+                }
+            }
+            return null;
+        }
+    };
+
+    private final ConstantDeserializer constantDeserializer = new ConstantDeserializer() {
+        @Nullable
+        @Override
+        public CompileTimeConstant<?> loadPropertyConstant(
+                @NotNull ClassOrPackageFragmentDescriptor container,
+                @NotNull ProtoBuf.Callable proto,
+                @NotNull NameResolver nameResolver,
+                @NotNull AnnotatedCallableKind kind
+        ) {
+            // Compile-time constants are not written to the metadata, the values are read from the generated code at runtime
+            return null;
+        }
+    };
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.serialization;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.descriptors.serialization.*;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.Annotations;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingContextUtils;
+import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata.AnnotationData;
+import org.jetbrains.k2js.serialization.KotlinJavascriptMetadata.PackageMetadata;
+
+import java.util.*;
+
+/**
+ * Serializes descriptors of the declarations from the given files to {@link KotlinJavascriptMetadata}
+ */
+public final class KotlinJavascriptSerializer {
+    private KotlinJavascriptSerializer() {
+    }
+
+    @NotNull
+    public static KotlinJavascriptMetadata serialize(
+            @NotNull String moduleName,
+            @NotNull ModuleDescriptor module,
+            @NotNull BindingContext bindingContext,
+            @NotNull Collection<JetFile> files
+    ) {
+        Set<FqName> packageNames = new LinkedHashSet<FqName>();
+        for (JetFile file : files) {
+            packageNames.add(file.getPackageFqName());
+        }
+
+        // Library sources are analyzed in the same module, and their declarations should not be written
+        Set<PsiFile> sourceFiles = new HashSet<PsiFile>(files);
+
+        List<PackageMetadata> packages = new ArrayList<PackageMetadata>(packageNames.size());
+        for (FqName packageName : packageNames) {
+            List<DeclarationDescriptor> members = new ArrayList<DeclarationDescriptor>();
+            for (PackageFragmentDescriptor fragment : module.getPackageFragmentProvider().getPackageFragments(packageName)) {
+                for (DeclarationDescriptor member : fragment.getMemberScope().getAllDescriptors()) {
+                    PsiElement declaration = BindingContextUtils.descriptorToDeclaration(bindingContext, member);
+                    if (declaration != null && sourceFiles.contains(declaration.getContainingFile())) {
+                        members.add(member);
+                    }
+                }
+            }
+            packages.add(new PackageSerializer(packageName).serialize(members));
+        }
+
+        return new KotlinJavascriptMetadata(moduleName, packages);
+    }
+
+    private static class PackageSerializer extends SerializerExtension {
+        private final FqName fqName;
+        private final DescriptorSerializer serializer = new DescriptorSerializer(this);
+        private final Map<FqNameUnsafe, byte[]> classes = new LinkedHashMap<FqNameUnsafe, byte[]>();
+        private final Map<FqNameUnsafe, Integer> classAnnotations = new HashMap<FqNameUnsafe, Integer>();
+        private final List<List<AnnotationData>> annotations = new ArrayList<List<AnnotationData>>();
+
+        public PackageSerializer(@NotNull FqName fqName) {
+            this.fqName = fqName;
+        }
+
+        @NotNull
+        public PackageMetadata serialize(@NotNull Collection<DeclarationDescriptor> members) {
+            ProtoBuf.Package.Builder packageProto = ProtoBuf.Package.newBuilder();
+            for (DeclarationDescriptor member : DescriptorSerializer.sort(members)) {
+                if (member instanceof ClassDescriptor) {
+                    serializeClass((ClassDescriptor) member);
+                }
+                else if (member instanceof PropertyDescriptor || member instanceof FunctionDescriptor) {
+                    packageProto.addMember(serializer.callableProto((CallableMemberDescriptor) member));
+                }
+            }
+
+            return new PackageMetadata(fqName, NameSerializationUtil.createNameResolver(serializer.getNameTable()),
+                                       packageProto.build(), classes, classAnnotations, annotations);
+        }
+
+        private void serializeClass(@NotNull ClassDescriptor classDescriptor) {
+            FqNameUnsafe relativeName = getClassId(classDescriptor).getRelativeClassName();
+            classes.put(relativeName, serializer.classProto(classDescriptor).build().toByteArray());
+            if (!classDescriptor.getAnnotations().isEmpty()) {
+                classAnnotations.put(relativeName, addAnnotations(classDescriptor.getAnnotations()));
+            }
+
+            for (DeclarationDescriptor descriptor : DescriptorSerializer.sort(
+                    classDescriptor.getUnsubstitutedInnerClassesScope().getAllDescriptors())) {
+                if (descriptor instanceof ClassDescriptor) {
+                    serializeClass((ClassDescriptor) descriptor);
+                }
+            }
+
+            ClassDescriptor classObject = classDescriptor.getClassObjectDescriptor();
+            if (classObject != null) {
+                serializeClass(classObject);
+            }
+        }
+
+        @Override
+        public void serializeCallable(
+                @NotNull CallableMemberDescriptor callable,
+                @NotNull ProtoBuf.Callable.Builder proto,
+                @NotNull NameTable nameTable
+        ) {
+            if (!callable.getAnnotations().isEmpty()) {
+                proto.setExtension(JsProtoBuf.annotations, addAnnotations(callable.getAnnotations()));
+            }
+        }
+
+        @Override
+        public void serializeValueParameter(
+                @NotNull ValueParameterDescriptor descriptor,
+                @NotNull ProtoBuf.Callable.ValueParameter.Builder proto,
+                @NotNull NameTable nameTable
+        ) {
+            if (!descriptor.getAnnotations().isEmpty()) {
+                proto.setExtension(JsProtoBuf.parameterAnnotations, addAnnotations(descriptor.getAnnotations()));
+            }
+        }
+
+        private int addAnnotations(@NotNull Annotations descriptorAnnotations) {
+            List<AnnotationData> result = new ArrayList<AnnotationData>();
+            for (AnnotationDescriptor annotation : descriptorAnnotations) {
+                ClassifierDescriptor annotationClass = annotation.getType().getConstructor().getDeclarationDescriptor();
+                if (!(annotationClass instanceof ClassDescriptor)) continue;
+
+                Map<Name, Object> arguments = new LinkedHashMap<Name, Object>();
+                for (Map.Entry<ValueParameterDescriptor, CompileTimeConstant<?>> entry : annotation.getAllValueArguments().entrySet()) {
+                    Object value = entry.getValue() != null ? entry.getValue().getValue() : null;
+                    if (AnnotationData.isSupportedArgument(value)) {
+                        arguments.put(entry.getKey().getName(), value);
+                    }
+                }
+                result.add(new AnnotationData(getClassId((ClassDescriptor) annotationClass), arguments));
+            }
+            annotations.add(result);
+            return annotations.size() - 1;
+        }
+    }
+
+    @NotNull
+    static ClassId getClassId(@NotNull ClassDescriptor classDescriptor) {
+        DeclarationDescriptor owner = classDescriptor.getContainingDeclaration();
+        if (owner instanceof PackageFragmentDescriptor) {
+            return new ClassId(((PackageFragmentDescriptor) owner).getFqName(), FqNameUnsafe.topLevel(classDescriptor.getName()));
+        }
+        return getClassId((ClassDescriptor) owner).createNestedClassId(classDescriptor.getName());
+    }
+}
@@ -26,9 +26,11 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingContextUtils;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.k2js.config.EcmaVersion;
 import org.jetbrains.k2js.config.LibrarySourcesConfig;
+import org.jetbrains.k2js.serialization.KotlinJavascriptPackageFragment;
 import org.jetbrains.k2js.translate.context.generator.Generator;
 import org.jetbrains.k2js.translate.context.generator.Rule;
 import org.jetbrains.k2js.translate.intrinsic.Intrinsics;
@@ -455,7 +457,9 @@ public final class StaticContext {
                     }
 
                     if (element == null) {
-                        return null;
+                        KotlinJavascriptPackageFragment libraryPackage =
+                                DescriptorUtils.getParentOfType(descriptor, KotlinJavascriptPackageFragment.class);
+                        return libraryPackage != null ? libraryPackage.getModuleName() : null;
                     }
                     return element.getContainingFile().getUserData(LibrarySourcesConfig.EXTERNAL_MODULE_NAME);
                 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.translate.general;
+
+import com.google.dart.compiler.backend.js.ast.*;
+import com.intellij.util.SmartList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.PropertyAccessorDescriptor;
+import org.jetbrains.jet.lang.descriptors.PropertyDescriptor;
+import org.jetbrains.jet.lang.psi.JetClassOrObject;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetNamedFunction;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.plugin.MainFunctionDetector;
+import org.jetbrains.k2js.config.DeadCodeEliminationReport;
+import org.jetbrains.k2js.translate.context.TranslationContext;
+import org.jetbrains.k2js.translate.utils.AnnotationsUtils;
+
+import java.util.*;
+
+/**
+ * Removes the declarations of packages which are not reachable from the rest of the module.
+ *
+ * The members of the package definitions (classes, functions and property accessors) are the units of removal, a reachable class
+ * keeps all its members. Reachability is computed by names: a declaration is reachable if its name is referenced (or used as a string)
+ * in reachable code, whatever the qualifier. This is imprecise, but safe for the dynamic member accesses of JavaScript.
+ * The code outside of package definitions (the main call, tests), package initializers, the main function and the declarations
+ * annotated with {@code js.entryPoint} are reachable.
+ */
+/* package */ final class DeadCodeEliminator {
+    private static class Declaration {
+        private final String qualifiedName;
+        private final JsPropertyInitializer initializer;
+        private final List<JsPropertyInitializer> container;
+
+        private Declaration(@NotNull String qualifiedName, @NotNull JsPropertyInitializer initializer,
+                @NotNull List<JsPropertyInitializer> container) {
+            this.qualifiedName = qualifiedName;
+            this.initializer = initializer;
+            this.container = container;
+        }
+    }
+
+    public static void eliminate(
+            @NotNull TranslationContext context,
+            @NotNull Collection<JetFile> files,
+            @NotNull JsBlock rootBlock,
+            @NotNull List<JsStatement> packageDeclarations,
+            @NotNull DeadCodeEliminationReport report
+    ) {
+        new DeadCodeEliminator(context).eliminate(files, rootBlock, packageDeclarations, report);
+    }
+
+    private final TranslationContext context;
+
+    private final Map<String, List<Declaration>> unreachedDeclarations = new LinkedHashMap<String, List<Declaration>>();
+    private final Set<String> reachedNames = new HashSet<String>();
+    private final Deque<JsNode> queue = new ArrayDeque<JsNode>();
+
+    private DeadCodeEliminator(@NotNull TranslationContext context) {
+        this.context = context;
+    }
+
+    private void eliminate(
+            @NotNull Collection<JetFile> files,
+            @NotNull JsBlock rootBlock,
+            @NotNull List<JsStatement> packageDeclarations,
+            @NotNull DeadCodeEliminationReport report
+    ) {
+        List<JsObjectLiteral> rootPackages = new SmartList<JsObjectLiteral>();
+        for (JsStatement statement : rootBlock.getStatements()) {
+            if (!packageDeclarations.contains(statement)) {
+                queue.add(statement);
+                continue;
+            }
+            for (JsVars.JsVar var : (JsVars) statement) {
+                JsExpression initializer = var.getInitExpression();
+                if (isInvocationOf(initializer, context.namer().rootPackageDefinitionMethodReference())) {
+                    rootPackages.add(collectDeclarations((JsInvocation) initializer, "", report));
+                }
+                else if (initializer != null) {
+                    queue.add(initializer);
+                }
+            }
+        }
+
+        addEntryPoints(files);
+
+        NameCollector nameCollector = new NameCollector();
+        while (!queue.isEmpty()) {
+            nameCollector.accept(queue.poll());
+        }
+
+        for (List<Declaration> declarations : unreachedDeclarations.values()) {
+            for (Declaration declaration : declarations) {
+                declaration.container.remove(declaration.initializer);
+                report.addRemovedDeclaration(declaration.qualifiedName);
+            }
+        }
+
+        for (JsObjectLiteral rootPackage : rootPackages) {
+            removeEmptyPackages(rootPackage.getPropertyInitializers());
+        }
+    }
+
+    @NotNull
+    private JsObjectLiteral collectDeclarations(
+            @NotNull JsInvocation packageDefinition,
+            @NotNull String packagePrefix,
+            @NotNull DeadCodeEliminationReport report
+    ) {
+        // See DefineInvocation: initializer, JSDoc comment, members
+        List<JsExpression> arguments = packageDefinition.getArguments();
+        JsExpression packageInitializer = arguments.get(0);
+        if (packageInitializer != JsLiteral.NULL) {
+            queue.add(packageInitializer);
+        }
+
+        JsObjectLiteral members = (JsObjectLiteral) arguments.get(2);
+        List<JsPropertyInitializer> initializers = members.getPropertyInitializers();
+        for (JsPropertyInitializer initializer : initializers) {
+            String name = getName(initializer.getLabelExpr());
+            JsExpression value = initializer.getValueExpr();
+            if (name != null && isInvocationOf(value, context.namer().packageDefinitionMethodReference())) {
+                collectDeclarations((JsInvocation) value, packagePrefix + name + ".", report);
+            }
+            else if (name != null) {
+                List<Declaration> declarations = unreachedDeclarations.get(name);
+                if (declarations == null) {
+                    declarations = new SmartList<Declaration>();
+                    unreachedDeclarations.put(name, declarations);
+                }
+                declarations.add(new Declaration(packagePrefix + name, initializer, initializers));
+                report.addDeclaration();
+            }
+            else {
+                queue.add(value);
+            }
+        }
+        return members;
+    }
+
+    private void addEntryPoints(@NotNull Collection<JetFile> files) {
+        BindingContext bindingContext = context.bindingContext();
+
+        JetNamedFunction mainFunction = new MainFunctionDetector(bindingContext).getMainFunction(files);
+        if (mainFunction != null) {
+            addEntryPoint(bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, mainFunction));
+        }
+
+        for (JetFile file : files) {
+            for (JetDeclaration declaration : file.getDeclarations()) {
+                if (containsEntryPoint(declaration)) {
+                    addEntryPoint(bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration));
+                }
+            }
+        }
+    }
+
+    private boolean containsEntryPoint(@NotNull JetDeclaration declaration) {
+        DeclarationDescriptor descriptor = context.bindingContext().get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration);
+        if (descriptor != null && AnnotationsUtils.isEntryPoint(descriptor)) {
+            return true;
+        }
+        if (declaration instanceof JetClassOrObject) {
+            for (JetDeclaration member : ((JetClassOrObject) declaration).getDeclarations()) {
+                if (containsEntryPoint(member)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addEntryPoint(@Nullable DeclarationDescriptor descriptor) {
+        if (descriptor == null) return;
+
+        markReached(context.getNameForDescriptor(descriptor).getIdent());
+        if (descriptor instanceof PropertyDescriptor) {
+            // Accessors of extension properties are separate members of the package
+            for (PropertyAccessorDescriptor accessor : ((PropertyDescriptor) descriptor).getAccessors()) {
+                markReached(context.getNameForDescriptor(accessor).getIdent());
+            }
+        }
+    }
+
+    private void markReached(@NotNull String name) {
+        if (!reachedNames.add(name)) return;
+
+        List<Declaration> declarations = unreachedDeclarations.remove(name);
+        if (declarations != null) {
+            for (Declaration declaration : declarations) {
+                queue.add(declaration.initializer.getValueExpr());
+            }
+        }
+    }
+
+    private void removeEmptyPackages(@NotNull List<JsPropertyInitializer> members) {
+        Iterator<JsPropertyInitializer> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            JsExpression value = iterator.next().getValueExpr();
+            if (!isInvocationOf(value, context.namer().packageDefinitionMethodReference())) continue;
+
+            List<JsExpression> arguments = ((JsInvocation) value).getArguments();
+            List<JsPropertyInitializer> packageMembers = ((JsObjectLiteral) arguments.get(2)).getPropertyInitializers();
+            removeEmptyPackages(packageMembers);
+            if (packageMembers.isEmpty() && arguments.get(0) == JsLiteral.NULL) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isInvocationOf(@Nullable JsExpression expression, @NotNull JsExpression method) {
+        // Namer creates the references to the package definition methods once
+        return expression instanceof JsInvocation && ((JsInvocation) expression).getQualifier() == method;
+    }
+
+    @Nullable
+    private static String getName(@NotNull JsExpression label) {
+        if (label instanceof JsNameRef) {
+            return ((JsNameRef) label).getIdent();
+        }
+        if (label instanceof JsStringLiteral) {
+            return ((JsStringLiteral) label).getValue();
+        }
+        return null;
+    }
+
+    private class NameCollector extends RecursiveJsVisitor {
+        @Override
+        public void visitNameRef(JsNameRef nameRef) {
+            markReached(nameRef.getIdent());
+            super.visitNameRef(nameRef);
+        }
+
+        @Override
+        public void visitString(JsStringLiteral x) {
+            markReached(x.getValue());
+        }
+
+        @Override
+        public void visitPropertyInitializer(JsPropertyInitializer x) {
+            // Names of members of object literals are declarations, not references
+            accept(x.getValueExpr());
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.jetbrains.jet.lang.psi.JetNamedFunction;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.plugin.MainFunctionDetector;
 import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.DeadCodeEliminationReport;
 import org.jetbrains.k2js.facade.MainCallParameters;
 import org.jetbrains.k2js.facade.exceptions.MainFunctionNotFoundException;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
@@ -135,7 +136,8 @@ public final class Translation {
         statements.add(program.getStringLiteral("use strict").makeStmt());
 
         TranslationContext context = TranslationContext.rootContext(staticContext, rootFunction);
-        statements.addAll(PackageDeclarationTranslator.translateFiles(files, context));
+        List<JsStatement> packageDeclarations = PackageDeclarationTranslator.translateFiles(files, context);
+        statements.addAll(packageDeclarations);
         defineModule(context, statements, config.getModuleId());
 
         if (mainCallParameters.shouldBeGenerated()) {
@@ -145,6 +147,11 @@ public final class Translation {
             }
         }
         mayBeGenerateTests(files, config, rootBlock, context);
+
+        DeadCodeEliminationReport deadCodeEliminationReport = config.getDeadCodeEliminationReport();
+        if (deadCodeEliminationReport != null) {
+            DeadCodeEliminator.eliminate(context, files, rootBlock, packageDeclarations, deadCodeEliminationReport);
+        }
         return context.program();
     }
 
@@ -35,6 +35,7 @@ import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.getContaining
 import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.isOverride;
 
 public final class AnnotationsUtils {
+    private static final String ENTRY_POINT_ANNOTATION_FQ_NAME = "js.entryPoint";
 
     private AnnotationsUtils() {
     }
@@ -124,6 +125,10 @@ public final class AnnotationsUtils {
         return hasAnnotationOrInsideAnnotatedClass(descriptor, PredefinedAnnotation.LIBRARY);
     }
 
+    public static boolean isEntryPoint(@NotNull DeclarationDescriptor descriptor) {
+        return getAnnotationByName(descriptor, ENTRY_POINT_ANNOTATION_FQ_NAME) != null;
+    }
+
     public static boolean isPredefinedObject(@NotNull DeclarationDescriptor descriptor) {
         for (PredefinedAnnotation annotation : PredefinedAnnotation.values()) {
             if (hasAnnotationOrInsideAnnotatedClass(descriptor, annotation)) {
@@ -0,0 +1,15 @@
+package foo
+
+import js.*
+
+class Callbacks {
+    entryPoint fun onLoad(): String = "loaded"
+}
+
+entryPoint fun exported(): String = "exported"
+
+fun notExported(): String = "notExported"
+
+class NotUsed
+
+entryPoint fun box(): String = "OK"
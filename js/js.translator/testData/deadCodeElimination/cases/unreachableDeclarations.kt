@@ -0,0 +1,33 @@
+package foo
+
+import js.*
+
+trait Shape {
+    fun area(): Int
+}
+
+class Square(val side: Int) : Shape {
+    override fun area() = side * side
+}
+
+class Circle(val radius: Int) : Shape {
+    override fun area() = 3 * radius * radius
+}
+
+fun square(side: Int): Shape = Square(side)
+
+fun circle(radius: Int): Shape = Circle(radius)
+
+val String.twice: String
+    get() = this + this
+
+val String.thrice: String
+    get() = this + this + this
+
+fun unusedHelper(): Int = circle(1).area()
+
+entryPoint fun box(): String {
+    if (square(3).area() != 9) return "fail: ${square(3).area()}"
+    if ("O".twice != "OO") return "fail: ${"O".twice}"
+    return "OK"
+}
@@ -116,6 +116,9 @@ public open class KotlinCompile(): AbstractCompile() {
         args.noStdlib = true
         args.noJdkAnnotations = true
         args.inline = kotlinOptions.inline
+        args.daemon = kotlinOptions.daemon
+        // e.g. "${rootProject.buildDir}/kotlin-perf/${project.name}-${name}.json" to collect the reports of all projects
+        args.reportPerf = kotlinOptions.reportPerf
 
         if (!CompilerArgumentsUtil.checkInlineOption(args.inline)) {
             throw GradleException(CompilerArgumentsUtil.getWrongOptionErrorMessage(args.inline))
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds dependencies which contain Kotlin external annotations (annotations.xml files).
+ *
+ * Results are cached by the path, the size and the modification time of a jar: in memory, so that all modules of a reactor build
+ * share them (the plugin's class loader lives for the whole Maven session), and in a file in between builds.
+ * Jars which are not in the cache are scanned in parallel.
+ */
+/* package */ class AnnotationsScanner {
+    private static final String CACHE_HEADER = "kotlin-annotations-scan 1";
+
+    private static final Map<File, AnnotationsScanner> SHARED_SCANNERS = new HashMap<File, AnnotationsScanner>();
+
+    @NotNull
+    public static AnnotationsScanner getInstance(@Nullable File cacheFile, @NotNull Log log) {
+        File key = cacheFile != null ? cacheFile.getAbsoluteFile() : new File("");
+        synchronized (SHARED_SCANNERS) {
+            AnnotationsScanner scanner = SHARED_SCANNERS.get(key);
+            if (scanner == null) {
+                scanner = new AnnotationsScanner(cacheFile);
+                scanner.load(log);
+                SHARED_SCANNERS.put(key, scanner);
+            }
+            return scanner;
+        }
+    }
+
+    private static class ScanResult {
+        private final long length;
+        private final long lastModified;
+        private final boolean containsAnnotations;
+
+        private ScanResult(long length, long lastModified, boolean containsAnnotations) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.containsAnnotations = containsAnnotations;
+        }
+
+        private boolean isUpToDate(@NotNull File file) {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+
+    @Nullable
+    private final File cacheFile;
+    private final ConcurrentMap<String, ScanResult> results = new ConcurrentHashMap<String, ScanResult>();
+
+    /* package */ AnnotationsScanner(@Nullable File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * @return files which contain annotations, in the order they are given
+     */
+    @NotNull
+    public List<File> findFilesWithAnnotations(@NotNull List<File> files, @NotNull final Log log) {
+        Map<File, Future<Boolean>> scans = new LinkedHashMap<File, Future<Boolean>>();
+        ExecutorService executor = null;
+        try {
+            for (final File file : files) {
+                if (!file.isFile()) {
+                    // Directories of reactor modules change all the time, there's no point in caching them
+                    scans.put(file, done(containsAnnotations(file, log)));
+                    continue;
+                }
+
+                ScanResult cached = results.get(getKey(file));
+                if (cached != null && cached.isUpToDate(file)) {
+                    scans.put(file, done(cached.containsAnnotations));
+                    continue;
+                }
+
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+                }
+                final long length = file.length();
+                final long lastModified = file.lastModified();
+                scans.put(file, executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        boolean result = containsAnnotations(file, log);
+                        results.put(getKey(file), new ScanResult(length, lastModified, result));
+                        return result;
+                    }
+                }));
+            }
+
+            List<File> result = new ArrayList<File>();
+            for (Map.Entry<File, Future<Boolean>> entry : scans.entrySet()) {
+                if (get(entry.getValue())) {
+                    result.add(entry.getKey());
+                }
+            }
+
+            if (executor != null) {
+                save(log);
+            }
+            return result;
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /* package */ boolean isCached(@NotNull File file) {
+        ScanResult cached = results.get(getKey(file));
+        return cached != null && cached.isUpToDate(file);
+    }
+
+    public static boolean containsAnnotations(@NotNull File file, @NotNull Log log) {
+        log.debug("Scanning for kotlin annotations in " + file);
+
+        ZipFile zipFile = null;
+        try {
+            zipFile = new ZipFile(file);
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith("/annotations.xml")) {
+                    return true;
+                }
+            }
+        }
+        catch (IOException e) {
+            log.warn("Error reading contents of jar: " + file, e);
+        }
+        finally {
+            if (zipFile != null) {
+                try {
+                    zipFile.close();
+                }
+                catch (IOException e) {
+                    log.warn("Error closing: " + zipFile, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static String getKey(@NotNull File file) {
+        return file.getAbsolutePath();
+    }
+
+    @NotNull
+    private static Future<Boolean> done(final boolean value) {
+        FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return value;
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    private static boolean get(@NotNull Future<Boolean> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void load(@NotNull Log log) {
+        if (cacheFile == null || !cacheFile.isFile()) return;
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), "UTF-8"));
+            try {
+                if (!CACHE_HEADER.equals(reader.readLine())) {
+                    log.debug("Ignoring annotations scan cache of an unknown format: " + cacheFile);
+                    return;
+                }
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // The path goes last, it can contain anything but a line break
+                    String[] parts = line.split("\t", 4);
+                    if (parts.length != 4) continue;
+                    ScanResult result = new ScanResult(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Boolean.parseBoolean(parts[2]));
+                    results.put(parts[3], result);
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch (IOException e) {
+            log.warn("Error reading annotations scan cache: " + cacheFile, e);
+        }
+        catch (NumberFormatException e) {
+            log.warn("Annotations scan cache is corrupted: " + cacheFile, e);
+        }
+    }
+
+    private synchronized void save(@NotNull Log log) {
+        if (cacheFile == null) return;
+
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+
+            // Written to a temporary file first, so that other builds never read a half-written cache
+            File temp = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+            try {
+                writer.write(CACHE_HEADER);
+                writer.write("\n");
+                for (Map.Entry<String, ScanResult> entry : results.entrySet()) {
+                    ScanResult result = entry.getValue();
+                    writer.write(result.length + "\t" + result.lastModified + "\t" + result.containsAnnotations + "\t" +
+                                 entry.getKey() + "\n");
+                }
+            }
+            finally {
+                writer.close();
+            }
+
+            if (!temp.renameTo(cacheFile) && !(cacheFile.delete() && temp.renameTo(cacheFile))) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+                throw new IOException("Could not replace " + cacheFile);
+            }
+        }
+        catch (IOException e) {
+            log.warn("Error writing annotations scan cache: " + cacheFile, e);
+        }
+    }
+}
@@ -78,6 +78,15 @@ public class K2JSCompilerMojo extends KotlinCompileMojo {
      */
     private Boolean appendLibraryJS;
 
+    /**
+     * Whether to write the descriptors of the compiled code to a .kjsm file next to the output file,
+     * so that other modules can be compiled against the output without its sources
+     *
+     * @parameter default-value="false"
+     * @parameter expression="${metaInfo}"
+     */
+    private Boolean metaInfo;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         super.execute();
@@ -156,6 +165,7 @@ public class K2JSCompilerMojo extends KotlinCompileMojo {
         if (arguments instanceof K2JSCompilerArguments) {
             K2JSCompilerArguments k2jsArgs = (K2JSCompilerArguments)arguments;
             k2jsArgs.outputFile = outputFile;
+            k2jsArgs.metaInfo = metaInfo != null && metaInfo.booleanValue();
             if (getLog().isDebugEnabled()) {
                 k2jsArgs.verbose = true;
             }
@@ -42,11 +42,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import static com.intellij.openapi.util.text.StringUtil.join;
 
@@ -100,6 +96,13 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
      */
     public boolean scanForAnnotations;
 
+    /**
+     * File to keep the results of scanning dependencies for annotations in between builds.
+     *
+     * @parameter expression="${kotlin.annotationsScanCache}" default-value="${settings.localRepository}/.cache/kotlin/annotations-scan.txt"
+     */
+    public File annotationsScanCache;
+
     /**
      * Project classpath.
      *
@@ -157,6 +160,21 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
      */
     public String inline;
 
+    /**
+     * Compile in a background compile daemon, which keeps the compiler warm between builds.
+     *
+     * @parameter default-value="false"
+     */
+    public boolean daemon;
+
+    /**
+     * Directory to write performance metrics of the compilation to in JSON: time, memory and counters of each compiler phase.
+     * The report of a module is named after its artifactId, point all modules to the same directory to collect their reports.
+     *
+     * @parameter expression="${kotlin.perfReportDir}"
+     */
+    public String perfReportDir;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         getLog().info("Kotlin Compiler version " + KotlinVersion.VERSION);
@@ -317,6 +335,16 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
             throw new MojoExecutionException(CompilerArgumentsUtil.getWrongOptionErrorMessage(arguments.inline));
         }
         log.info("Method inlining is " + CompilerArgumentsUtil.optionToInlineFlag(arguments.inline));
+        arguments.daemon = daemon;
+
+        if (perfReportDir != null) {
+            arguments.reportPerf = new File(perfReportDir, getPerformanceReportName() + ".json").getPath();
+            log.info("Writing performance report to " + arguments.reportPerf);
+        }
+    }
+
+    protected String getPerformanceReportName() {
+        return project.getArtifactId();
     }
 
     protected String getFullAnnotationsPath(Log log, List<String> annotations) {
@@ -371,51 +399,24 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
     protected List<String> scanAnnotations(Log log) {
         final List<String> annotations = new ArrayList<String>();
 
-        final Set<Artifact> artifacts = project.getArtifacts();
-        for (Artifact artifact : artifacts) {
-            final File file = artifact.getFile();
-            if (containsAnnotations(file, log)) {
-                log.info("Discovered kotlin annotations in: " + file);
-                try {
-                    annotations.add(file.getCanonicalPath());
-                }
-                catch (IOException e) {
-                    log.warn("Error extracting canonical path from: " + file, e);
-                }
+        List<File> files = new ArrayList<File>();
+        for (Artifact artifact : project.getArtifacts()) {
+            if (artifact.getFile() != null) {
+                files.add(artifact.getFile());
             }
         }
 
-        return annotations;
-    }
-
-    protected boolean containsAnnotations(File file, Log log) {
-        log.debug("Scanning for kotlin annotations in " + file);
-
-        ZipFile zipFile = null;
-        try {
-            zipFile = new ZipFile(file);
-
-            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                String name = entries.nextElement().getName();
-                if (name.endsWith("/annotations.xml")) {
-                    return true;
-                }
+        AnnotationsScanner scanner = AnnotationsScanner.getInstance(annotationsScanCache, log);
+        for (File file : scanner.findFilesWithAnnotations(files, log)) {
+            log.info("Discovered kotlin annotations in: " + file);
+            try {
+                annotations.add(file.getCanonicalPath());
             }
-        }
-        catch (IOException e) {
-            log.warn("Error reading contents of jar: " + file, e);
-        }
-        finally {
-            if (zipFile != null) {
-                try {
-                    zipFile.close();
-                }
-                catch (IOException e) {
-                    log.warn("Error closing: " + zipFile, e);
-                }
+            catch (IOException e) {
+                log.warn("Error extracting canonical path from: " + file, e);
             }
         }
-        return false;
+
+        return annotations;
     }
 }
@@ -93,4 +93,9 @@ public class KotlinTestCompileMojo extends KotlinCompileMojoBase {
                     testModule, getSources(), testClasspath, testOutput);
         }
     }
+
+    @Override
+    protected String getPerformanceReportName() {
+        return super.getPerformanceReportName() + "-test";
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AnnotationsScannerTest {
+    private final Log log = new SystemStreamLog();
+    private File tmpDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tmpDir = File.createTempFile("annotationsScanner", "");
+        assertTrue(tmpDir.delete());
+        assertTrue(tmpDir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        delete(tmpDir);
+    }
+
+    @Test
+    public void findsJarsWithAnnotations() throws IOException {
+        File first = createJar("first.jar", "kotlin/annotations.xml");
+        File library = createJar("library.jar", "library/Library.class");
+        File second = createJar("second.jar", "java/lang/annotations.xml");
+
+        AnnotationsScanner scanner = new AnnotationsScanner(null);
+        assertEquals(Arrays.asList(first, second), scanner.findFilesWithAnnotations(Arrays.asList(first, library, second), log));
+    }
+
+    @Test
+    public void resultsAreKeptInCacheFile() throws IOException {
+        File cacheFile = new File(tmpDir, "cache/annotations-scan.txt");
+        File jar = createJar("annotations.jar", "kotlin/annotations.xml");
+        File library = createJar("library.jar", "library/Library.class");
+
+        new AnnotationsScanner(cacheFile).findFilesWithAnnotations(Arrays.asList(jar, library), log);
+        assertTrue(cacheFile.isFile());
+
+        AnnotationsScanner scanner = AnnotationsScanner.getInstance(cacheFile, log);
+        assertTrue(scanner.isCached(jar));
+        assertTrue(scanner.isCached(library));
+        assertEquals(Collections.singletonList(jar), scanner.findFilesWithAnnotations(Arrays.asList(jar, library), log));
+    }
+
+    @Test
+    public void changedJarIsScannedAgain() throws IOException {
+        File jar = createJar("library.jar", "library/Library.class");
+
+        AnnotationsScanner scanner = new AnnotationsScanner(null);
+        assertEquals(Collections.<File>emptyList(), scanner.findFilesWithAnnotations(Collections.singletonList(jar), log));
+
+        long lastModified = jar.lastModified();
+        createJar("library.jar", "library/annotations.xml");
+        assertTrue(jar.setLastModified(lastModified + 2000));
+        assertFalse(scanner.isCached(jar));
+
+        assertEquals(Collections.singletonList(jar), scanner.findFilesWithAnnotations(Collections.singletonList(jar), log));
+    }
+
+    private File createJar(String name, String entry) throws IOException {
+        File file = new File(tmpDir, name);
+        ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            stream.putNextEntry(new ZipEntry(entry));
+            stream.write(new byte[] {1, 2, 3});
+            stream.closeEntry();
+        }
+        finally {
+            stream.close();
+        }
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}